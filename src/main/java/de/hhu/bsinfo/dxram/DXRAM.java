@@ -48,6 +48,8 @@ import de.hhu.bsinfo.dxram.engine.NullComponent;
 import de.hhu.bsinfo.dxram.engine.NullService;
 import de.hhu.bsinfo.dxram.event.EventComponent;
 import de.hhu.bsinfo.dxram.event.EventComponentConfig;
+import de.hhu.bsinfo.dxram.executor.ExecutorComponent;
+import de.hhu.bsinfo.dxram.executor.ExecutorComponentConfig;
 import de.hhu.bsinfo.dxram.failure.FailureComponent;
 import de.hhu.bsinfo.dxram.generated.BuildConfig;
 import de.hhu.bsinfo.dxram.job.JobComponent;
@@ -73,6 +75,7 @@ import de.hhu.bsinfo.dxram.net.NetworkComponent;
 import de.hhu.bsinfo.dxram.net.NetworkComponentConfig;
 import de.hhu.bsinfo.dxram.net.NetworkService;
 import de.hhu.bsinfo.dxram.recovery.RecoveryService;
+import de.hhu.bsinfo.dxram.recovery.RecoveryServiceConfig;
 import de.hhu.bsinfo.dxram.stats.StatisticsService;
 import de.hhu.bsinfo.dxram.stats.StatisticsServiceConfig;
 import de.hhu.bsinfo.dxram.sync.SynchronizationService;
@@ -204,6 +207,7 @@ public final class DXRAM {
         p_engine.registerComponent(ChunkMigrationComponent.class, DXRAMModuleConfig.class);
         p_engine.registerComponent(MonitoringComponent.class, MonitoringComponentConfig.class);
         p_engine.registerComponent(EventComponent.class, EventComponentConfig.class);
+        p_engine.registerComponent(ExecutorComponent.class, ExecutorComponentConfig.class);
         p_engine.registerComponent(FailureComponent.class, DXRAMModuleConfig.class);
         p_engine.registerComponent(JobComponent.class, JobComponentConfig.class);
         p_engine.registerComponent(LogComponent.class, LogComponentConfig.class);
@@ -237,7 +241,7 @@ public final class DXRAM {
         p_engine.registerService(NameserviceService.class, DXRAMModuleConfig.class);
         p_engine.registerService(NetworkService.class, DXRAMModuleConfig.class);
         p_engine.registerService(NullService.class, DXRAMModuleConfig.class);
-        p_engine.registerService(RecoveryService.class, DXRAMModuleConfig.class);
+        p_engine.registerService(RecoveryService.class, RecoveryServiceConfig.class);
         p_engine.registerService(StatisticsService.class, StatisticsServiceConfig.class);
         p_engine.registerService(SynchronizationService.class, SynchronizationServiceConfig.class);
         p_engine.registerService(TemporaryStorageService.class, TemporaryStorageServiceConfig.class);
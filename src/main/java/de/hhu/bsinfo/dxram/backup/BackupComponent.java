@@ -18,12 +18,17 @@ package de.hhu.bsinfo.dxram.backup;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import de.hhu.bsinfo.dxlog.storage.recovery.RecoveryMetadata;
 import de.hhu.bsinfo.dxmem.data.AbstractChunk;
 import de.hhu.bsinfo.dxmem.data.ChunkID;
+import de.hhu.bsinfo.dxmem.data.ChunkState;
 import de.hhu.bsinfo.dxram.DXRAMComponentOrder;
 import de.hhu.bsinfo.dxram.DXRAMMessageTypes;
 import de.hhu.bsinfo.dxram.backup.ReplicaPlacement.AbstractPlacementStrategy;
@@ -39,12 +44,16 @@ import de.hhu.bsinfo.dxram.engine.DXRAMJNIManager;
 import de.hhu.bsinfo.dxram.event.AbstractEvent;
 import de.hhu.bsinfo.dxram.event.EventComponent;
 import de.hhu.bsinfo.dxram.event.EventListener;
+import de.hhu.bsinfo.dxram.executor.ExecutorComponent;
+import de.hhu.bsinfo.dxram.executor.TaskCategory;
 import de.hhu.bsinfo.dxram.failure.events.NodeFailureEvent;
 import de.hhu.bsinfo.dxram.log.LogComponent;
 import de.hhu.bsinfo.dxram.log.messages.InitBackupRangeRequest;
 import de.hhu.bsinfo.dxram.log.messages.InitBackupRangeResponse;
 import de.hhu.bsinfo.dxram.log.messages.InitRecoveredBackupRangeRequest;
 import de.hhu.bsinfo.dxram.log.messages.InitRecoveredBackupRangeResponse;
+import de.hhu.bsinfo.dxram.log.messages.LogBufferRequest;
+import de.hhu.bsinfo.dxram.log.messages.LogBufferResponse;
 import de.hhu.bsinfo.dxram.log.messages.LogMessages;
 import de.hhu.bsinfo.dxram.lookup.LookupComponent;
 import de.hhu.bsinfo.dxram.lookup.events.NodeJoinEvent;
@@ -63,6 +72,10 @@ import de.hhu.bsinfo.dxutils.NodeID;
 public class BackupComponent extends AbstractDXRAMComponent<BackupComponentConfig>
         implements EventListener<AbstractEvent> {
     private static final boolean REREPLICATION_ACTIVE = true;
+    // The next backup range is initialized once the current one is filled to this fraction
+    private static final double PRE_OPEN_THRESHOLD = 0.75;
+    private static final long NEW_RANGE_RETRY_DELAY_MIN_MS = 10;
+    private static final long NEW_RANGE_RETRY_DELAY_MAX_MS = 1000;
 
     // component dependencies
     private AbstractBootComponent m_boot;
@@ -71,6 +84,7 @@ public class BackupComponent extends AbstractDXRAMComponent<BackupComponentConfi
     private LogComponent m_log;
     private EventComponent m_event;
     private NetworkComponent m_network;
+    private ExecutorComponent m_executor;
 
     // private state
     private AbstractPlacementStrategy m_placementStrategy;
@@ -87,9 +101,17 @@ public class BackupComponent extends AbstractDXRAMComponent<BackupComponentConfi
     // Current backup range
     private BackupRange m_currentBackupRange;
 
+    // Next backup range, initialized in the background. Not used for chunks before the current one is full
+    private BackupRangeInitialization m_nextBackupRange;
+    // RangeID reserved by a backup range which could not be initialized, used for the next backup range
+    private short m_unusedRangeID = RangeID.INVALID_ID;
+
     private ReentrantReadWriteLock m_lock;
     private ReentrantLock m_creationLock;
 
+    // Batches put chunks for the backup peers
+    private ReplicationBuffer m_replicationBuffer;
+
     /**
      * Block chunk creation until chunk ID is registered. Unblock must be called explicitly.
      */
@@ -401,6 +423,104 @@ public class BackupComponent extends AbstractDXRAMComponent<BackupComponentConfi
         return ret;
     }
 
+    /**
+     * Replicates a put chunk to its backup peers. Does not block, the caller decides whether to wait for the future.
+     *
+     * @param p_chunk
+     *         the put chunk
+     * @return Future completed with 0 once the chunk was logged by the configured number of backup peers or with 1 if
+     * it was not acknowledged (the chunk state is set to REMOTE_REQUEST_TIMEOUT then). Completed immediately for
+     * fire-and-forget replication unless the replication buffers are full
+     */
+    public CompletableFuture<Integer> replicate(final AbstractChunk p_chunk) {
+        return replicate(0, 1, p_chunk);
+    }
+
+    /**
+     * Replicates put chunks to their backup peers. Chunks which were not put successfully are skipped. Does not block,
+     * the caller decides whether to wait for the future.
+     *
+     * @param p_offset
+     *         the offset in the chunk array
+     * @param p_count
+     *         the number of chunks
+     * @param p_chunks
+     *         the put chunks
+     * @return Future completed with the number of chunks which were not logged by the configured number of backup
+     * peers (the states of those chunks are set to REMOTE_REQUEST_TIMEOUT). Completed immediately for
+     * fire-and-forget replication unless the replication buffers are full
+     */
+    public CompletableFuture<Integer> replicate(final int p_offset, final int p_count,
+            final AbstractChunk... p_chunks) {
+        ArrayList<CompletableFuture<Boolean>> pending = null;
+        ArrayList<AbstractChunk> pendingChunks = null;
+
+        if (m_replicationBuffer == null) {
+            return CompletableFuture.completedFuture(0);
+        }
+
+        for (int i = p_offset; i < p_offset + p_count; i++) {
+            AbstractChunk chunk = p_chunks[i];
+            BackupRange backupRange = null;
+
+            if (chunk == null || !chunk.isStateOk()) {
+                continue;
+            }
+
+            m_lock.readLock().lock();
+            short rangeID = m_backupRangeTree.getBackupRange(chunk.getID());
+            if (rangeID != RangeID.INVALID_ID) {
+                backupRange = m_backupRanges.get(rangeID);
+            }
+            m_lock.readLock().unlock();
+
+            if (backupRange == null) {
+                LOGGER.warn("Backup range for 0x%X is unknown, chunk is not replicated", chunk.getID());
+                continue;
+            }
+
+            CompletableFuture<Boolean> future = m_replicationBuffer.add(backupRange, m_nodeID, chunk);
+
+            if (!future.isDone()) {
+                if (pending == null) {
+                    pending = new ArrayList<>();
+                    pendingChunks = new ArrayList<>();
+                }
+
+                pending.add(future);
+                pendingChunks.add(chunk);
+            }
+        }
+
+        if (pending == null) {
+            return CompletableFuture.completedFuture(0);
+        }
+
+        @SuppressWarnings("unchecked")
+        CompletableFuture<Boolean>[] futures = pending.toArray(new CompletableFuture[0]);
+
+        ArrayList<AbstractChunk> chunks = pendingChunks;
+
+        // The put itself succeeded, but the caller is told which chunks are not backed up as requested
+        return CompletableFuture.allOf(futures).handle((p_ignored, p_exception) -> {
+            int failed = 0;
+
+            for (int i = 0; i < futures.length; i++) {
+                if (futures[i].isCompletedExceptionally() || !futures[i].join()) {
+                    chunks.get(i).setState(ChunkState.REMOTE_REQUEST_TIMEOUT);
+                    failed++;
+                }
+            }
+
+            if (failed > 0) {
+                LOGGER.error("%d chunk(s) were not acknowledged by %d backup peer(s)", failed,
+                        getConfig().getReplicationAcks());
+            }
+
+            return failed;
+        });
+    }
+
     @Override
     public void eventTriggered(final AbstractEvent p_event) {
         BackupPeer currentBackupPeer;
@@ -418,6 +538,12 @@ public class BackupComponent extends AbstractDXRAMComponent<BackupComponentConfi
             for (int i = 0; i < m_backupRanges.size(); i++) {
                 m_lock.writeLock().lock();
                 currentBackupRange = m_backupRanges.get(i);
+                if (currentBackupRange == null) {
+                    // Reserved for a backup range which is not initialized, yet
+                    m_lock.writeLock().unlock();
+                    continue;
+                }
+
                 backupPeers = currentBackupRange.getCopyOfBackupPeers();
                 rangeID = currentBackupRange.getRangeID();
 
@@ -472,6 +598,10 @@ public class BackupComponent extends AbstractDXRAMComponent<BackupComponentConfi
                         // Search for backup ranges with insufficient backup peers
                         for (int i = 0; i < m_backupRanges.size(); i++) {
                             currentBackupRange = m_backupRanges.get(i);
+                            if (currentBackupRange == null) {
+                                continue;
+                            }
+
                             rangeID = currentBackupRange.getRangeID();
 
                             m_lock.writeLock().lock();
@@ -509,6 +639,7 @@ public class BackupComponent extends AbstractDXRAMComponent<BackupComponentConfi
         m_log = p_componentAccessor.getComponent(LogComponent.class);
         m_event = p_componentAccessor.getComponent(EventComponent.class);
         m_network = p_componentAccessor.getComponent(NetworkComponent.class);
+        m_executor = p_componentAccessor.getComponent(ExecutorComponent.class);
     }
 
     @Override
@@ -573,6 +704,15 @@ public class BackupComponent extends AbstractDXRAMComponent<BackupComponentConfi
                 m_network.registerMessageType(DXRAMMessageTypes.LOG_MESSAGES_TYPE,
                         LogMessages.SUBTYPE_INIT_RECOVERED_BACKUP_RANGE_RESPONSE,
                         InitRecoveredBackupRangeResponse.class);
+                m_network.registerMessageType(DXRAMMessageTypes.LOG_MESSAGES_TYPE,
+                        LogMessages.SUBTYPE_LOG_BUFFER_REQUEST, LogBufferRequest.class);
+                m_network.registerMessageType(DXRAMMessageTypes.LOG_MESSAGES_TYPE,
+                        LogMessages.SUBTYPE_LOG_BUFFER_RESPONSE, LogBufferResponse.class);
+
+                m_replicationBuffer = new ReplicationBuffer(m_network,
+                        (int) getConfig().getReplicationBatchSize().getBytes(),
+                        getConfig().getReplicationFlushInterval().getNs(), getConfig().getReplicationAcks());
+                m_replicationBuffer.start();
             }
         }
 
@@ -581,6 +721,11 @@ public class BackupComponent extends AbstractDXRAMComponent<BackupComponentConfi
 
     @Override
     protected boolean shutdownComponent() {
+        if (m_replicationBuffer != null) {
+            m_replicationBuffer.shutdown();
+            m_replicationBuffer = null;
+        }
+
         return true;
     }
 
@@ -636,7 +781,7 @@ public class BackupComponent extends AbstractDXRAMComponent<BackupComponentConfi
                         m_placementStrategy.isSwitchAware());
             }
 
-            initializeNewBackupRange();
+            awaitNewBackupRange();
             ret = m_currentBackupRange;
         } else {
             if (ChunkID.getCreatorID(p_chunkID) == m_nodeID) {
@@ -666,7 +811,7 @@ public class BackupComponent extends AbstractDXRAMComponent<BackupComponentConfi
             if (!m_currentBackupRange.fits(size)) {
                 // Does not fit in current backup range -> check other backup range
                 for (BackupRange backupRange : m_backupRanges) {
-                    if (backupRange.fits(size)) {
+                    if (backupRange != null && backupRange.fits(size)) {
                         ret = backupRange;
                         break;
                     }
@@ -674,7 +819,7 @@ public class BackupComponent extends AbstractDXRAMComponent<BackupComponentConfi
 
                 if (ret == null) {
                     // Chunk does not fit in any existing backup range -> create another one
-                    initializeNewBackupRange();
+                    awaitNewBackupRange();
                     ret = m_currentBackupRange;
                 }
             } else {
@@ -689,30 +834,73 @@ public class BackupComponent extends AbstractDXRAMComponent<BackupComponentConfi
 
         ret.addChunk(size);
 
+        if (ret == m_currentBackupRange && m_nextBackupRange == null &&
+                ret.getSize() >= getConfig().getBackupRangeSize().getBytes() * PRE_OPEN_THRESHOLD) {
+            preOpenNextBackupRange();
+        }
+
         return ret;
     }
 
     /**
-     * Initializes a new backup range
+     * Initializes a new backup range and retries with an increasing delay until one was installed. Chunks must not be
+     * registered without a backup range and the current one must not be overfilled
      *
      * @lock MemoryManager must be write locked
      */
-    private void initializeNewBackupRange() {
+    private void awaitNewBackupRange() {
+        long backoff = NEW_RANGE_RETRY_DELAY_MIN_MS;
+
+        while (!initializeNewBackupRange()) {
+            LOGGER.warn("No backup range could be installed, retrying in %d ms", backoff);
+
+            try {
+                Thread.sleep(backoff);
+            } catch (final InterruptedException ignore) {
+            }
+
+            backoff = Math.min(backoff * 2, NEW_RANGE_RETRY_DELAY_MAX_MS);
+        }
+    }
+
+    /**
+     * Initializes a new backup range. Uses the pre-opened backup range, if available
+     *
+     * @return whether a new backup range was installed as current backup range
+     * @lock MemoryManager must be write locked
+     */
+    private boolean initializeNewBackupRange() {
         BackupPeer[] backupPeers;
-        BackupRange backupRange;
+        BackupRange backupRange = null;
 
-        m_lock.writeLock().lock();
-        backupRange = m_placementStrategy
-                .determineBackupPeers((short) m_backupRanges.size(), m_boot.getAvailableBackupPeers(),
-                        m_currentBackupRange);
-        m_lock.writeLock().unlock();
+        if (m_nextBackupRange != null) {
+            // Usually finished long before
+            if (m_nextBackupRange.await(m_network.getRequestTimeoutMs())) {
+                backupRange = m_nextBackupRange.m_backupRange;
+            } else {
+                m_unusedRangeID = m_nextBackupRange.m_backupRange.getRangeID();
+            }
+
+            m_nextBackupRange = null;
+        }
+
+        if (backupRange == null) {
+            // Not pre-opened or the pre-opened backup range could not be initialized -> determine (other) backup peers
+            backupRange = determineNewBackupRange();
+
+            if (backupRange != null && !initializeOnBackupPeers(backupRange)) {
+                m_unusedRangeID = backupRange.getRangeID();
+                backupRange = null;
+            }
+        }
 
         if (backupRange != null) {
+            m_lock.writeLock().lock();
+            m_backupRanges.set(backupRange.getRangeID(), backupRange);
+            m_lock.writeLock().unlock();
+
             m_currentBackupRange = backupRange;
-            m_backupRanges.add(backupRange);
             m_backupRangeTree.initializeNewBackupRange(backupRange.getRangeID());
-            m_lookup.initRange(backupRange);
-            m_log.initBackupRange(backupRange);
 
             backupPeers = backupRange.getBackupPeers();
             int counter = 1;
@@ -722,8 +910,147 @@ public class BackupComponent extends AbstractDXRAMComponent<BackupComponentConfi
                             backupRange.getRangeID(), backupRange, backupPeer.getNodeID());
                 }
             }
+
+            return true;
         } else {
             LOGGER.warn("Backup range could not be determined!");
+
+            return false;
+        }
+    }
+
+    /**
+     * Determines the backup peers of the next backup range and initializes it in the background. Chunk creation does
+     * not block for initializing the backup range on the backup peers when the current backup range is full
+     *
+     * @lock MemoryManager must be write locked
+     */
+    private void preOpenNextBackupRange() {
+        BackupRange backupRange = determineNewBackupRange();
+
+        if (backupRange == null) {
+            // Try again when the current backup range is full
+            return;
+        }
+
+        BackupRangeInitialization init = new BackupRangeInitialization(backupRange);
+        m_nextBackupRange = init;
+
+        if (!m_executor.execute(TaskCategory.BACKUP_RANGE_INIT, init)) {
+            // Executor overloaded, initialize on the creating thread as without pre-opening
+            init.run();
+        }
+    }
+
+    /**
+     * Determines the backup peers for a new backup range and reserves its RangeID. The backup range is published in
+     * m_backupRanges after it was initialized on its backup peers
+     *
+     * @return the new backup range or null if no backup peers could be determined
+     * @lock MemoryManager must be write locked
+     */
+    private BackupRange determineNewBackupRange() {
+        BackupRange backupRange;
+        short rangeID;
+
+        m_lock.writeLock().lock();
+        rangeID = m_unusedRangeID == RangeID.INVALID_ID ? (short) m_backupRanges.size() : m_unusedRangeID;
+        backupRange = m_placementStrategy
+                .determineBackupPeers(rangeID, m_boot.getAvailableBackupPeers(), m_currentBackupRange);
+
+        if (backupRange != null) {
+            if (rangeID == m_backupRanges.size()) {
+                m_backupRanges.add(null);
+            }
+
+            m_unusedRangeID = RangeID.INVALID_ID;
+        }
+        m_lock.writeLock().unlock();
+
+        return backupRange;
+    }
+
+    /**
+     * Initializes a new backup range on its backup peers and registers it at the responsible superpeer afterwards
+     *
+     * @param p_backupRange
+     *         the backup range
+     * @return whether the backup range was initialized on all backup peers
+     */
+    private boolean initializeOnBackupPeers(final BackupRange p_backupRange) {
+        if (!m_log.initBackupRange(p_backupRange)) {
+            LOGGER.error("Backup range %d could not be initialized on all backup peers", p_backupRange.getRangeID());
+
+            return false;
+        }
+
+        m_lookup.initRange(p_backupRange);
+
+        return true;
+    }
+
+    /**
+     * Initialization of a pre-opened backup range. Runs on the executor or, if it was not started in time, on the
+     * creating thread
+     */
+    private final class BackupRangeInitialization implements Runnable {
+        private final BackupRange m_backupRange;
+        private final AtomicBoolean m_started = new AtomicBoolean(false);
+        private final CountDownLatch m_finished = new CountDownLatch(1);
+        private volatile boolean m_initialized;
+
+        /**
+         * Constructor
+         *
+         * @param p_backupRange
+         *         the pre-opened backup range
+         */
+        private BackupRangeInitialization(final BackupRange p_backupRange) {
+            m_backupRange = p_backupRange;
+        }
+
+        @Override
+        public void run() {
+            if (!m_started.compareAndSet(false, true)) {
+                // Already started by the executor or the creating thread
+                return;
+            }
+
+            try {
+                m_initialized = initializeOnBackupPeers(m_backupRange);
+            } finally {
+                m_finished.countDown();
+            }
+        }
+
+        /**
+         * Waits for the initialization. If the executor did not start it within the timeout, it is run on the
+         * calling thread. A running initialization is bounded by the retries of the LogComponent
+         *
+         * @param p_timeoutMs
+         *         the time to wait for the executor
+         * @return whether the backup range was initialized on all backup peers
+         */
+        private boolean await(final long p_timeoutMs) {
+            boolean finished = false;
+
+            try {
+                finished = m_finished.await(p_timeoutMs, TimeUnit.MILLISECONDS);
+            } catch (final InterruptedException ignored) {
+            }
+
+            if (!finished) {
+                run();
+
+                while (m_finished.getCount() > 0) {
+                    try {
+                        m_finished.await();
+                    } catch (final InterruptedException ignored) {
+                    }
+                }
+            }
+
+            return m_initialized;
         }
     }
 }
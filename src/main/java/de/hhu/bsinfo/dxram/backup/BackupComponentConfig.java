@@ -9,6 +9,7 @@ import com.google.gson.annotations.Expose;
 import de.hhu.bsinfo.dxram.engine.DXRAMConfig;
 import de.hhu.bsinfo.dxram.engine.DXRAMModuleConfig;
 import de.hhu.bsinfo.dxutils.unit.StorageUnit;
+import de.hhu.bsinfo.dxutils.unit.TimeUnit;
 
 /**
  * Config for the BackupComponent
@@ -79,6 +80,25 @@ public class BackupComponentConfig extends DXRAMModuleConfig {
     @Expose
     private boolean m_switchAware = false;
 
+    /**
+     * Put chunks are buffered per backup range and backup peer. A batch is sent once it reaches this size
+     */
+    @Expose
+    private StorageUnit m_replicationBatchSize = new StorageUnit(128, StorageUnit.KB);
+
+    /**
+     * Max. time a put chunk is buffered before the batches are sent
+     */
+    @Expose
+    private TimeUnit m_replicationFlushInterval = new TimeUnit(1, TimeUnit.MS);
+
+    /**
+     * Number of backup peers which must acknowledge a put before it returns. 0 replicates fire-and-forget, the
+     * replication factor waits for all backup peers
+     */
+    @Expose
+    private int m_replicationAcks = 0;
+
     /**
      * Constructor
      */
@@ -94,6 +114,24 @@ public class BackupComponentConfig extends DXRAMModuleConfig {
             return false;
         }
 
+        if (m_replicationBatchSize.getBytes() < 1024L || m_replicationBatchSize.getBytes() > 1 << 30) {
+            LOGGER.error("Replication batch size must be in [1 KB, 1 GB]!");
+
+            return false;
+        }
+
+        if (m_replicationFlushInterval.getNs() <= 0) {
+            LOGGER.error("Replication flush interval must be greater than 0!");
+
+            return false;
+        }
+
+        if (m_replicationAcks < 0 || m_replicationAcks > m_replicationFactor) {
+            LOGGER.error("Replication acks must be in [0, replication factor]!");
+
+            return false;
+        }
+
         return true;
     }
 }
@@ -0,0 +1,437 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.backup.ReplicaPlacement;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import de.hhu.bsinfo.dxram.backup.BackupPeer;
+import de.hhu.bsinfo.dxram.backup.BackupRange;
+
+/**
+ * Simulates the replica placement of all peers of a synthetic topology to compare placement strategies. Every peer
+ * determines the backup peers of its backup ranges with its own strategy instance (like the BackupComponent). The
+ * simulation reports the backup load per peer, the number of distinct backup peers recovering a failed peer, the
+ * probability of data loss for simultaneous failures and the time to determine the backup peers of a backup range.
+ */
+public final class PlacementSimulation {
+    private final String m_strategy;
+    private final int m_replicationFactor;
+    private final boolean m_disjunctive;
+    private final boolean m_rackAware;
+    private final boolean m_switchAware;
+
+    private final int m_numberOfPeers;
+    private final int m_numberOfRacks;
+    private final int m_numberOfSwitches;
+    private final int m_backupRangesPerPeer;
+
+    private final int m_failedPeers;
+    private final int m_failureSamples;
+    private final long m_seed;
+
+    /**
+     * Constructor
+     *
+     * @param p_strategy
+     *         the placement strategy ("random" or "copyset", like the BackupComponent config)
+     * @param p_replicationFactor
+     *         the replication factor
+     * @param p_disjunctive
+     *         whether the first backup peer is chosen disjunctive
+     * @param p_rackAware
+     *         whether the backup peers of a backup range must be in different racks
+     * @param p_switchAware
+     *         whether the backup peers of a backup range must be behind different switches
+     * @param p_numberOfPeers
+     *         the number of peers in the topology
+     * @param p_numberOfRacks
+     *         the number of racks, peers are assigned randomly
+     * @param p_numberOfSwitches
+     *         the number of switches, peers are assigned randomly
+     * @param p_backupRangesPerPeer
+     *         the number of backup ranges every peer creates
+     * @param p_failedPeers
+     *         the number of simultaneously failing peers for estimating the data loss probability
+     * @param p_failureSamples
+     *         the number of random failure sets to evaluate
+     * @param p_seed
+     *         the seed for the topology and the failure sets
+     */
+    public PlacementSimulation(final String p_strategy, final int p_replicationFactor, final boolean p_disjunctive,
+            final boolean p_rackAware, final boolean p_switchAware, final int p_numberOfPeers,
+            final int p_numberOfRacks, final int p_numberOfSwitches, final int p_backupRangesPerPeer,
+            final int p_failedPeers, final int p_failureSamples, final long p_seed) {
+        m_strategy = p_strategy;
+        m_replicationFactor = p_replicationFactor;
+        m_disjunctive = p_disjunctive;
+        m_rackAware = p_rackAware;
+        m_switchAware = p_switchAware;
+
+        m_numberOfPeers = p_numberOfPeers;
+        m_numberOfRacks = p_numberOfRacks;
+        m_numberOfSwitches = p_numberOfSwitches;
+        m_backupRangesPerPeer = p_backupRangesPerPeer;
+
+        m_failedPeers = p_failedPeers;
+        m_failureSamples = p_failureSamples;
+        m_seed = p_seed;
+    }
+
+    /**
+     * Run the simulation
+     *
+     * @return the result
+     */
+    public Result run() {
+        Random rand = new Random(m_seed);
+        Result result = new Result(m_numberOfPeers);
+
+        BackupRange.setReplicationFactor((byte) m_replicationFactor);
+
+        // NodeID of a peer is its index + 1
+        ArrayList<BackupPeer> peers = new ArrayList<>(m_numberOfPeers);
+        for (int i = 0; i < m_numberOfPeers; i++) {
+            peers.add(new BackupPeer((short) (i + 1), (short) rand.nextInt(m_numberOfRacks),
+                    (short) rand.nextInt(m_numberOfSwitches)));
+        }
+
+        // Backup peers (as peer index) of all backup ranges of all peers
+        int[][][] placement = new int[m_numberOfPeers][m_backupRangesPerPeer][];
+
+        for (int owner = 0; owner < m_numberOfPeers; owner++) {
+            List<BackupPeer> availablePeers = new ArrayList<>(peers);
+            availablePeers.remove(owner);
+
+            AbstractPlacementStrategy strategy = createStrategy(availablePeers, result);
+            BackupRange currentBackupRange = null;
+
+            for (int i = 0; i < m_backupRangesPerPeer; i++) {
+                long time = System.nanoTime();
+                BackupRange backupRange = strategy.determineBackupPeers((short) i, availablePeers, currentBackupRange);
+                time = System.nanoTime() - time;
+
+                result.m_placements++;
+                result.m_placementTimeNs += time;
+                result.m_maxPlacementTimeNs = Math.max(result.m_maxPlacementTimeNs, time);
+
+                if (backupRange == null) {
+                    result.m_failedPlacements++;
+                    placement[owner][i] = new int[0];
+                    continue;
+                }
+
+                placement[owner][i] = toPeerIndices(backupRange.getBackupPeers());
+                for (int peer : placement[owner][i]) {
+                    result.m_backupLoad[peer]++;
+                }
+
+                currentBackupRange = backupRange;
+            }
+
+            result.m_recoverySources[owner] = countDistinctPeers(placement[owner]);
+        }
+
+        result.m_dataLossProbability = estimateDataLoss(placement, rand);
+
+        return result;
+    }
+
+    /**
+     * Create the placement strategy of a peer. Falls back to random placement like the BackupComponent
+     *
+     * @param p_availablePeers
+     *         all other peers
+     * @param p_result
+     *         the result to count fallbacks in
+     * @return the initialized placement strategy
+     */
+    private AbstractPlacementStrategy createStrategy(final List<BackupPeer> p_availablePeers, final Result p_result) {
+        AbstractPlacementStrategy strategy;
+
+        if ("copyset".equals(m_strategy.toLowerCase()) && p_availablePeers.size() >= m_replicationFactor * 5) {
+            strategy = new CopysetPlacement(m_replicationFactor, m_disjunctive, m_rackAware, m_switchAware);
+        } else {
+            strategy = new RandomPlacement(m_replicationFactor, m_disjunctive, m_rackAware, m_switchAware);
+        }
+
+        if (!strategy.initialize(p_availablePeers)) {
+            strategy = new RandomPlacement(m_replicationFactor, m_disjunctive, m_rackAware, m_switchAware);
+            strategy.initialize(p_availablePeers);
+        }
+
+        if (!"random".equals(m_strategy.toLowerCase()) && strategy instanceof RandomPlacement) {
+            p_result.m_fallbacks++;
+        }
+
+        return strategy;
+    }
+
+    /**
+     * Convert backup peers to peer indices
+     *
+     * @param p_backupPeers
+     *         the backup peers of a backup range (might contain null)
+     * @return the peer indices
+     */
+    private static int[] toPeerIndices(final BackupPeer[] p_backupPeers) {
+        int count = 0;
+
+        for (BackupPeer backupPeer : p_backupPeers) {
+            if (backupPeer != null) {
+                count++;
+            }
+        }
+
+        int[] ret = new int[count];
+        int index = 0;
+        for (BackupPeer backupPeer : p_backupPeers) {
+            if (backupPeer != null) {
+                ret[index++] = (backupPeer.getNodeID() & 0xFFFF) - 1;
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Count the distinct backup peers of all backup ranges of a peer, i.e. the peers recovering it in parallel
+     *
+     * @param p_backupRanges
+     *         the backup peers of all backup ranges
+     * @return the number of distinct backup peers
+     */
+    private int countDistinctPeers(final int[][] p_backupRanges) {
+        boolean[] seen = new boolean[m_numberOfPeers];
+        int ret = 0;
+
+        for (int[] backupPeers : p_backupRanges) {
+            for (int peer : backupPeers) {
+                if (!seen[peer]) {
+                    seen[peer] = true;
+                    ret++;
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Estimate the probability of losing data if m_failedPeers peers fail at once. Data is lost if the owner and all
+     * backup peers of a backup range fail
+     *
+     * @param p_placement
+     *         the backup peers of all backup ranges of all peers
+     * @param p_rand
+     *         the random generator to pick failure sets
+     * @return the fraction of failure sets leading to data loss
+     */
+    private double estimateDataLoss(final int[][][] p_placement, final Random p_rand) {
+        if (m_failureSamples == 0 || m_failedPeers == 0 || m_failedPeers > m_numberOfPeers) {
+            return 0;
+        }
+
+        boolean[] failed = new boolean[m_numberOfPeers];
+        int[] failedPeers = new int[m_failedPeers];
+        int losses = 0;
+
+        for (int sample = 0; sample < m_failureSamples; sample++) {
+            for (int i = 0; i < m_failedPeers; i++) {
+                int peer;
+                do {
+                    peer = p_rand.nextInt(m_numberOfPeers);
+                } while (failed[peer]);
+
+                failed[peer] = true;
+                failedPeers[i] = peer;
+            }
+
+            if (isDataLost(p_placement, failed, failedPeers)) {
+                losses++;
+            }
+
+            for (int peer : failedPeers) {
+                failed[peer] = false;
+            }
+        }
+
+        return (double) losses / m_failureSamples;
+    }
+
+    /**
+     * Check if a failure set leads to data loss
+     *
+     * @param p_placement
+     *         the backup peers of all backup ranges of all peers
+     * @param p_failed
+     *         failure flag per peer
+     * @param p_failedPeers
+     *         the failed peers
+     * @return true if the owner and all backup peers of at least one backup range failed
+     */
+    private static boolean isDataLost(final int[][][] p_placement, final boolean[] p_failed,
+            final int[] p_failedPeers) {
+        for (int owner : p_failedPeers) {
+            for (int[] backupPeers : p_placement[owner]) {
+                boolean lost = true;
+
+                for (int peer : backupPeers) {
+                    if (!p_failed[peer]) {
+                        lost = false;
+                        break;
+                    }
+                }
+
+                if (lost) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Result of a simulation
+     */
+    public static final class Result {
+        private final int[] m_backupLoad;
+        private final int[] m_recoverySources;
+        private double m_dataLossProbability;
+        private int m_placements;
+        private long m_placementTimeNs;
+        private long m_maxPlacementTimeNs;
+        private int m_failedPlacements;
+        private int m_fallbacks;
+
+        /**
+         * Constructor
+         *
+         * @param p_numberOfPeers
+         *         the number of peers
+         */
+        private Result(final int p_numberOfPeers) {
+            m_backupLoad = new int[p_numberOfPeers];
+            m_recoverySources = new int[p_numberOfPeers];
+        }
+
+        /**
+         * Get the number of backup ranges stored per peer (indexed by NodeID - 1)
+         *
+         * @return the backup load per peer
+         */
+        public int[] getBackupLoad() {
+            return m_backupLoad;
+        }
+
+        /**
+         * Get the number of distinct backup peers per peer (indexed by NodeID - 1), i.e. the number of peers
+         * recovering the backup ranges of the peer in parallel after its failure
+         *
+         * @return the recovery sources per peer
+         */
+        public int[] getRecoverySources() {
+            return m_recoverySources;
+        }
+
+        /**
+         * Get the fraction of failure sets leading to data loss
+         *
+         * @return the estimated data loss probability
+         */
+        public double getDataLossProbability() {
+            return m_dataLossProbability;
+        }
+
+        /**
+         * Get the time spent to determine the backup peers of all backup ranges
+         *
+         * @return the placement time in ns
+         */
+        public long getPlacementTimeNs() {
+            return m_placementTimeNs;
+        }
+
+        /**
+         * Get the max. time to determine the backup peers of a single backup range
+         *
+         * @return the max. placement time in ns
+         */
+        public long getMaxPlacementTimeNs() {
+            return m_maxPlacementTimeNs;
+        }
+
+        /**
+         * Get the number of backup ranges without backup peers
+         *
+         * @return the number of failed placements
+         */
+        public int getFailedPlacements() {
+            return m_failedPlacements;
+        }
+
+        /**
+         * Get the number of peers using random placement instead of the configured strategy
+         *
+         * @return the number of fallbacks
+         */
+        public int getFallbacks() {
+            return m_fallbacks;
+        }
+
+        @Override
+        public String toString() {
+            int placements = 0;
+            for (int load : m_backupLoad) {
+                placements += load;
+            }
+
+            int minLoad = Integer.MAX_VALUE;
+            int maxLoad = 0;
+            double avgLoad = (double) placements / m_backupLoad.length;
+            double variance = 0;
+            for (int load : m_backupLoad) {
+                minLoad = Math.min(minLoad, load);
+                maxLoad = Math.max(maxLoad, load);
+                variance += (load - avgLoad) * (load - avgLoad);
+            }
+            variance /= m_backupLoad.length;
+
+            int minSources = Integer.MAX_VALUE;
+            int maxSources = 0;
+            long sources = 0;
+            for (int recoverySources : m_recoverySources) {
+                minSources = Math.min(minSources, recoverySources);
+                maxSources = Math.max(maxSources, recoverySources);
+                sources += recoverySources;
+            }
+
+            return String.format("Backup load per peer: min %d, max %d, avg %.2f, stddev %.2f, max/avg %.2f\n" +
+                            "Recovery sources per failed peer: min %d, max %d, avg %.2f\n" +
+                            "Data loss probability: %.6f\n" +
+                            "Placement time: total %.3f ms, avg %.3f us, max %.3f us\n" +
+                            "Failed placements: %d, fallbacks to random placement: %d", minLoad, maxLoad, avgLoad,
+                    Math.sqrt(variance), avgLoad == 0 ? 0 : maxLoad / avgLoad, minSources, maxSources,
+                    (double) sources / m_recoverySources.length, m_dataLossProbability,
+                    m_placementTimeNs / 1000.0 / 1000.0,
+                    m_placements == 0 ? 0 : m_placementTimeNs / 1000.0 / m_placements,
+                    m_maxPlacementTimeNs / 1000.0, m_failedPlacements, m_fallbacks);
+        }
+    }
+}
@@ -0,0 +1,426 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.backup;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.hhu.bsinfo.dxmem.data.AbstractChunk;
+import de.hhu.bsinfo.dxnet.core.NetworkException;
+import de.hhu.bsinfo.dxram.log.messages.LogBufferMessage;
+import de.hhu.bsinfo.dxram.log.messages.LogBufferRequest;
+import de.hhu.bsinfo.dxram.net.NetworkComponent;
+import de.hhu.bsinfo.dxutils.serialization.ByteBufferImExporter;
+import de.hhu.bsinfo.dxutils.serialization.ObjectSizeUtil;
+
+/**
+ * Replicates put chunks to their backup peers in batches. Chunks are serialized into one buffer per backup range and
+ * backup peer (same entry format as LogMessage). All buffers are flushed if one buffer exceeds the batch size or the
+ * oldest buffered chunk waited for the flush interval. A single thread sends the batches, so the batches of a backup
+ * peer are sent in the order of the updates. With acknowledgements enabled, the backup peers respond after logging a
+ * batch and the future of a put is completed once the configured number of backup peers acknowledged it (or failed
+ * to). The flushing thread does not wait for the acknowledgements. Adding never blocks (it is called on
+ * message handler threads). If too much data is buffered, the future is completed once the chunk was taken for
+ * sending, instead. The senders wait for the futures which applies the back-pressure
+ */
+class ReplicationBuffer extends Thread {
+    private static final Logger LOGGER = LogManager.getFormatterLogger(ReplicationBuffer.class.getSimpleName());
+
+    private static final int MAX_BUFFERED_BATCHES = 16;
+    private static final CompletableFuture<Boolean> COMPLETED = CompletableFuture.completedFuture(true);
+
+    private final NetworkComponent m_network;
+    private final int m_batchSize;
+    private final long m_flushIntervalNs;
+    private final int m_acks;
+
+    private final HashMap<Integer, Batch> m_batches = new HashMap<>();
+    private long m_bufferedBytes;
+    private long m_firstBufferedTime;
+    private boolean m_flushRequested;
+
+    private volatile boolean m_run = true;
+
+    /**
+     * Constructor
+     *
+     * @param p_network
+     *         NetworkComponent to send the batches with
+     * @param p_batchSize
+     *         Size of a batch in bytes triggering a flush
+     * @param p_flushIntervalNs
+     *         Max. time in ns a chunk is buffered
+     * @param p_acks
+     *         Number of backup peers which must acknowledge a put (0 for fire-and-forget)
+     */
+    ReplicationBuffer(final NetworkComponent p_network, final int p_batchSize, final long p_flushIntervalNs,
+            final int p_acks) {
+        super(ReplicationBuffer.class.getSimpleName());
+
+        m_network = p_network;
+        m_batchSize = p_batchSize;
+        m_flushIntervalNs = p_flushIntervalNs;
+        m_acks = p_acks;
+
+        setDaemon(true);
+    }
+
+    /**
+     * Buffer a chunk for all its backup peers
+     *
+     * @param p_backupRange
+     *         the backup range of the chunk
+     * @param p_ownNodeID
+     *         the own NodeID (not replicated to)
+     * @param p_chunk
+     *         the chunk (serialized immediately)
+     * @return Future completed with true once enough backup peers acknowledged the chunk (false if too many failed
+     * to), or once the chunk was taken for sending if the buffers are full. Completed already if neither applies
+     */
+    CompletableFuture<Boolean> add(final BackupRange p_backupRange, final short p_ownNodeID,
+            final AbstractChunk p_chunk) {
+        BackupPeer[] backupPeers = p_backupRange.getBackupPeers();
+        Acknowledgement acks = null;
+        CompletableFuture<Boolean> ret = COMPLETED;
+
+        if (backupPeers == null) {
+            return ret;
+        }
+
+        if (m_acks > 0) {
+            int numberOfBackupPeers = 0;
+            for (BackupPeer backupPeer : backupPeers) {
+                if (backupPeer != null && backupPeer.getNodeID() != p_ownNodeID) {
+                    numberOfBackupPeers++;
+                }
+            }
+
+            if (numberOfBackupPeers > 0) {
+                acks = new Acknowledgement(Math.min(m_acks, numberOfBackupPeers), numberOfBackupPeers);
+                ret = acks.m_future;
+            }
+        }
+
+        synchronized (m_batches) {
+            if (!m_run) {
+                // Shut down, buffered chunks are not sent anymore
+                return COMPLETED;
+            }
+
+            // Acknowledgements are sent after the batch was logged, waiting for them bounds the buffered data, too
+            boolean full = acks == null && m_bufferedBytes >= (long) MAX_BUFFERED_BATCHES * m_batchSize;
+            Batch first = null;
+            int position = 0;
+            int length = 0;
+
+            for (BackupPeer backupPeer : backupPeers) {
+                if (backupPeer == null || backupPeer.getNodeID() == p_ownNodeID) {
+                    continue;
+                }
+
+                Batch batch = m_batches.computeIfAbsent(
+                        (p_backupRange.getRangeID() & 0xFFFF) << 16 | backupPeer.getNodeID() & 0xFFFF,
+                        p_key -> new Batch(p_backupRange.getRangeID(), backupPeer.getNodeID()));
+
+                if (first == null) {
+                    // Serialize once, copy to the batches of the other backup peers
+                    first = batch;
+                    position = batch.m_buffer == null ? 0 : batch.m_buffer.position();
+                    batch.add(p_chunk);
+                    length = batch.m_buffer.position() - position;
+
+                    if (full) {
+                        ret = new CompletableFuture<>();
+                        batch.m_drained.add(ret);
+                    }
+                } else {
+                    batch.add(first.m_buffer, position, length);
+                }
+
+                if (acks != null) {
+                    batch.m_acks.add(acks);
+                }
+
+                if (m_bufferedBytes == 0) {
+                    m_firstBufferedTime = System.nanoTime();
+                    m_batches.notifyAll();
+                }
+                m_bufferedBytes += length;
+
+                if (batch.m_buffer.position() >= m_batchSize && !m_flushRequested) {
+                    m_flushRequested = true;
+                    m_batches.notifyAll();
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Shut down the thread. Buffered chunks are sent before
+     */
+    void shutdown() {
+        m_run = false;
+
+        synchronized (m_batches) {
+            m_batches.notifyAll();
+        }
+
+        try {
+            join();
+        } catch (final InterruptedException ignored) {
+        }
+    }
+
+    @Override
+    public void run() {
+        ArrayList<Batch> batches = new ArrayList<>();
+
+        while (true) {
+            synchronized (m_batches) {
+                while (m_bufferedBytes == 0 && m_run) {
+                    try {
+                        m_batches.wait();
+                    } catch (final InterruptedException ignored) {
+                    }
+                }
+
+                if (m_bufferedBytes == 0) {
+                    // Shut down and everything is sent
+                    break;
+                }
+
+                // Wait for a full batch or the oldest chunk to expire
+                long remaining = m_firstBufferedTime + m_flushIntervalNs - System.nanoTime();
+                while (!m_flushRequested && remaining > 0 && m_run) {
+                    try {
+                        m_batches.wait(remaining / 1000000, (int) (remaining % 1000000));
+                    } catch (final InterruptedException ignored) {
+                    }
+                    remaining = m_firstBufferedTime + m_flushIntervalNs - System.nanoTime();
+                }
+
+                // Hand over all batches, the map only holds batches of backup ranges written to since the last
+                // flush
+                for (Batch batch : m_batches.values()) {
+                    if (batch.m_count > 0) {
+                        batch.m_buffer.flip();
+                        batches.add(batch);
+                    }
+                }
+                m_batches.clear();
+
+                m_bufferedBytes = 0;
+                m_flushRequested = false;
+            }
+
+            for (Batch batch : batches) {
+                for (CompletableFuture<Boolean> drained : batch.m_drained) {
+                    drained.complete(true);
+                }
+            }
+
+            send(batches);
+            batches.clear();
+        }
+    }
+
+    /**
+     * Send batches to their backup peers. With acknowledgements enabled, the acknowledgements are counted when the
+     * responses arrive (on the request completion thread), so a slow backup peer does not delay the next flush or
+     * the acknowledgements of other backup peers
+     *
+     * @param p_batches
+     *         the batches, taken from the buffers
+     */
+    private void send(final ArrayList<Batch> p_batches) {
+        for (Batch batch : p_batches) {
+            if (m_acks == 0) {
+                try {
+                    m_network.sendMessage(
+                            new LogBufferMessage(batch.m_backupPeer, batch.m_rangeID, batch.m_count, batch.m_buffer));
+                } catch (final NetworkException e) {
+                    // Backup peer failure is handled by re-replicating its backup ranges
+                    LOGGER.warn("Replicating %d chunks to 0x%X failed: %s", batch.m_count, batch.m_backupPeer, e);
+                }
+
+                continue;
+            }
+
+            LogBufferRequest request = new LogBufferRequest(batch.m_backupPeer, batch.m_rangeID, batch.m_count,
+                    batch.m_buffer);
+
+            m_network.sendAsync(request).whenComplete((p_response, p_exception) -> {
+                if (p_exception != null) {
+                    LOGGER.warn("Backup peer 0x%X did not acknowledge %d chunks: %s", batch.m_backupPeer,
+                            batch.m_count, p_exception);
+
+                    for (Acknowledgement acks : batch.m_acks) {
+                        acks.fail();
+                    }
+                } else {
+                    for (Acknowledgement acks : batch.m_acks) {
+                        acks.acknowledge();
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Chunks buffered for a single backup range and backup peer. The batch is handed over to the sending thread on
+     * flush and removed from the map, the next chunk of the backup range and backup peer creates a new one
+     */
+    private static final class Batch {
+        private final short m_rangeID;
+        private final short m_backupPeer;
+        private final ArrayList<Acknowledgement> m_acks = new ArrayList<>();
+        private final ArrayList<CompletableFuture<Boolean>> m_drained = new ArrayList<>();
+        private ByteBuffer m_buffer;
+        private int m_count;
+
+        /**
+         * Constructor
+         *
+         * @param p_rangeID
+         *         the RangeID
+         * @param p_backupPeer
+         *         the backup peer
+         */
+        private Batch(final short p_rangeID, final short p_backupPeer) {
+            m_rangeID = p_rangeID;
+            m_backupPeer = p_backupPeer;
+        }
+
+        /**
+         * Serialize a chunk to the buffer
+         *
+         * @param p_chunk
+         *         the chunk
+         */
+        private void add(final AbstractChunk p_chunk) {
+            int size = p_chunk.sizeofObject();
+
+            ensureCapacity(Long.BYTES + ObjectSizeUtil.sizeofCompactedNumber(size) + size);
+
+            ByteBufferImExporter exporter = new ByteBufferImExporter(m_buffer);
+            exporter.writeLong(p_chunk.getID());
+            exporter.writeCompactNumber(size);
+            exporter.exportObject(p_chunk);
+            m_count++;
+        }
+
+        /**
+         * Copy a serialized chunk from another batch
+         *
+         * @param p_buffer
+         *         the buffer of the other batch
+         * @param p_position
+         *         the position of the serialized chunk
+         * @param p_length
+         *         the length of the serialized chunk
+         */
+        private void add(final ByteBuffer p_buffer, final int p_position, final int p_length) {
+            ensureCapacity(p_length);
+
+            m_buffer.put(p_buffer.array(), p_buffer.arrayOffset() + p_position, p_length);
+            m_count++;
+        }
+
+        /**
+         * Make sure the buffer has enough space left
+         *
+         * @param p_bytes
+         *         the number of bytes to add
+         */
+        private void ensureCapacity(final int p_bytes) {
+            if (m_buffer == null) {
+                m_buffer = ByteBuffer.allocate(Math.max(p_bytes, 4096));
+                // Same byte order as used by the network exporter for LogMessages
+                m_buffer.order(ByteOrder.LITTLE_ENDIAN);
+            } else if (m_buffer.remaining() < p_bytes) {
+                ByteBuffer buffer = ByteBuffer.allocate(Math.max(m_buffer.capacity() * 2, m_buffer.position() +
+                        p_bytes));
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+                m_buffer.flip();
+                buffer.put(m_buffer);
+                m_buffer = buffer;
+            }
+        }
+    }
+
+    /**
+     * Acknowledgements of a single chunk by its backup peers
+     */
+    private static final class Acknowledgement {
+        private final CompletableFuture<Boolean> m_future = new CompletableFuture<>();
+        private int m_missing;
+        private int m_pending;
+
+        /**
+         * Constructor
+         *
+         * @param p_required
+         *         the number of backup peers which must acknowledge
+         * @param p_backupPeers
+         *         the number of backup peers the chunk is sent to
+         */
+        private Acknowledgement(final int p_required, final int p_backupPeers) {
+            m_missing = p_required;
+            m_pending = p_backupPeers;
+        }
+
+        /**
+         * A backup peer logged the chunk
+         */
+        private void acknowledge() {
+            boolean done;
+
+            synchronized (this) {
+                m_pending--;
+                done = --m_missing == 0;
+            }
+
+            if (done) {
+                m_future.complete(true);
+            }
+        }
+
+        /**
+         * A backup peer failed to log the chunk
+         */
+        private void fail() {
+            boolean failed;
+
+            synchronized (this) {
+                m_pending--;
+                failed = m_pending < m_missing;
+            }
+
+            if (failed) {
+                m_future.complete(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.backup.bench;
+
+import com.google.gson.annotations.Expose;
+
+import de.hhu.bsinfo.dxram.backup.ReplicaPlacement.PlacementSimulation;
+import de.hhu.bsinfo.dxram.ms.Signal;
+import de.hhu.bsinfo.dxram.ms.Task;
+import de.hhu.bsinfo.dxram.ms.TaskContext;
+import de.hhu.bsinfo.dxutils.serialization.Exporter;
+import de.hhu.bsinfo.dxutils.serialization.Importer;
+import de.hhu.bsinfo.dxutils.serialization.ObjectSizeUtil;
+
+/**
+ * Task to compare replica placement strategies on a synthetic topology. The placement of all peers is simulated
+ * locally, no chunks are created. Reports the backup load per peer, the recovery sources of a failed peer, the data
+ * loss probability and the placement time.
+ */
+public class PlacementSimulationTask implements Task {
+    @Expose
+    private String m_strategy = "Copyset";
+    @Expose
+    private int m_replicationFactor = 3;
+    @Expose
+    private boolean m_disjunctive = true;
+    @Expose
+    private boolean m_rackAware = false;
+    @Expose
+    private boolean m_switchAware = false;
+    @Expose
+    private int m_numPeers = 100;
+    @Expose
+    private int m_numRacks = 10;
+    @Expose
+    private int m_numSwitches = 2;
+    @Expose
+    private int m_backupRangesPerPeer = 256;
+    @Expose
+    private int m_failedPeers = 4;
+    @Expose
+    private int m_failureSamples = 100000;
+    @Expose
+    private long m_seed = 0;
+
+    @Override
+    public int execute(final TaskContext p_ctx) {
+        if (m_numPeers <= m_replicationFactor) {
+            System.out.println("Not enough peers for replication factor " + m_replicationFactor);
+            return -1;
+        }
+
+        System.out.printf("Simulating %s placement (replication factor %d, disjunctive %b, rack aware %b, " +
+                        "switch aware %b) of %d backup ranges per peer on %d peers in %d racks behind %d switches...\n",
+                m_strategy, m_replicationFactor, m_disjunctive, m_rackAware, m_switchAware, m_backupRangesPerPeer,
+                m_numPeers, m_numRacks, m_numSwitches);
+
+        PlacementSimulation simulation = new PlacementSimulation(m_strategy, m_replicationFactor, m_disjunctive,
+                m_rackAware, m_switchAware, m_numPeers, m_numRacks, m_numSwitches, m_backupRangesPerPeer,
+                m_failedPeers, m_failureSamples, m_seed);
+
+        System.out.println(simulation.run());
+
+        return 0;
+    }
+
+    @Override
+    public void handleSignal(final Signal p_signal) {
+
+    }
+
+    @Override
+    public void exportObject(final Exporter p_exporter) {
+        p_exporter.writeString(m_strategy);
+        p_exporter.writeInt(m_replicationFactor);
+        p_exporter.writeBoolean(m_disjunctive);
+        p_exporter.writeBoolean(m_rackAware);
+        p_exporter.writeBoolean(m_switchAware);
+        p_exporter.writeInt(m_numPeers);
+        p_exporter.writeInt(m_numRacks);
+        p_exporter.writeInt(m_numSwitches);
+        p_exporter.writeInt(m_backupRangesPerPeer);
+        p_exporter.writeInt(m_failedPeers);
+        p_exporter.writeInt(m_failureSamples);
+        p_exporter.writeLong(m_seed);
+    }
+
+    @Override
+    public void importObject(final Importer p_importer) {
+        m_strategy = p_importer.readString(m_strategy);
+        m_replicationFactor = p_importer.readInt(m_replicationFactor);
+        m_disjunctive = p_importer.readBoolean(m_disjunctive);
+        m_rackAware = p_importer.readBoolean(m_rackAware);
+        m_switchAware = p_importer.readBoolean(m_switchAware);
+        m_numPeers = p_importer.readInt(m_numPeers);
+        m_numRacks = p_importer.readInt(m_numRacks);
+        m_numSwitches = p_importer.readInt(m_numSwitches);
+        m_backupRangesPerPeer = p_importer.readInt(m_backupRangesPerPeer);
+        m_failedPeers = p_importer.readInt(m_failedPeers);
+        m_failureSamples = p_importer.readInt(m_failureSamples);
+        m_seed = p_importer.readLong(m_seed);
+    }
+
+    @Override
+    public int sizeofObject() {
+        return ObjectSizeUtil.sizeofString(m_strategy) + Integer.BYTES * 7 + ObjectSizeUtil.sizeofBoolean() * 3 +
+                Long.BYTES;
+    }
+}
@@ -17,7 +17,12 @@
 package de.hhu.bsinfo.dxram.chunk;
 
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import de.hhu.bsinfo.dxmem.data.ChunkByteArray;
 import de.hhu.bsinfo.dxmem.data.ChunkID;
 import de.hhu.bsinfo.dxmem.data.ChunkLockOperation;
 import de.hhu.bsinfo.dxmem.data.ChunkState;
@@ -30,9 +35,13 @@ import de.hhu.bsinfo.dxram.engine.DXRAMComponentAccessor;
 import de.hhu.bsinfo.dxram.engine.DXRAMConfig;
 import de.hhu.bsinfo.dxram.engine.DXRAMJNIManager;
 import de.hhu.bsinfo.dxram.engine.DXRAMModuleConfig;
+import de.hhu.bsinfo.dxram.executor.ExecutorComponent;
+import de.hhu.bsinfo.dxram.executor.TaskCategory;
 import de.hhu.bsinfo.dxram.log.messages.InitBackupRangeRequest;
-import de.hhu.bsinfo.dxram.log.messages.LogBufferMessage;
+import de.hhu.bsinfo.dxram.log.messages.LogBufferRequest;
 import de.hhu.bsinfo.dxram.net.NetworkComponent;
+import de.hhu.bsinfo.dxutils.serialization.ByteBufferImExporter;
+import de.hhu.bsinfo.dxutils.serialization.ObjectSizeUtil;
 
 /**
  * Component for chunk handling.
@@ -43,11 +52,23 @@ import de.hhu.bsinfo.dxram.net.NetworkComponent;
 @AbstractDXRAMComponent.Attributes(priorityInit = DXRAMComponentOrder.Init.BACKUP,
         priorityShutdown = DXRAMComponentOrder.Shutdown.BACKUP)
 public class ChunkBackupComponent extends AbstractDXRAMComponent<DXRAMModuleConfig> {
+    // Size of a batch of chunks, larger chunks are sent separately
+    private static final int REPLICATION_BUFFER_SIZE = 1024 * 1024;
+    // Number of ChunkIDs read by a thread at once
+    private static final int REPLICATION_PARTITION_SIZE = 4096;
+    // Max. number of threads reading a single backup range
+    private static final int REPLICATION_READERS = 4;
+    // Max. number of batches per reading thread sent but not acknowledged
+    private static final int REPLICATION_WINDOW = 4;
 
     // component dependencies
     private AbstractBootComponent m_boot;
     private ChunkComponent m_chunk;
     private NetworkComponent m_network;
+    private ExecutorComponent m_executor;
+
+    // batch buffers of finished replications
+    private final ConcurrentLinkedQueue<ByteBuffer> m_bufferPool = new ConcurrentLinkedQueue<>();
 
     /**
      * Replicates all local Chunks to a specific backup peer
@@ -77,7 +98,9 @@ public class ChunkBackupComponent extends AbstractDXRAMComponent<DXRAMModuleConf
     }
 
     /**
-     * Replicates all local Chunks to a specific backup peer
+     * Replicates all local Chunks to a specific backup peer. The ChunkID ranges are split into partitions which are
+     * read by several threads in parallel. Every thread sends its chunks in batches and keeps a limited number of
+     * batches in flight until they are acknowledged by the backup peer.
      *
      * @param p_backupPeer
      *         the new backup peer
@@ -91,9 +114,6 @@ public class ChunkBackupComponent extends AbstractDXRAMComponent<DXRAMModuleConf
      */
     public int replicateBackupRange(final short p_backupPeer, final long[] p_chunkIDRanges, final int p_numberOfChunks,
             final short p_rangeID) {
-        int counter = 0;
-        int allCounter = 0;
-
         // Initialize backup range on backup peer
         InitBackupRangeRequest request = new InitBackupRangeRequest(p_backupPeer, p_rangeID);
 
@@ -107,53 +127,279 @@ public class ChunkBackupComponent extends AbstractDXRAMComponent<DXRAMModuleConf
 
         // TODO: Replicates all created chunks including chunks that have not been put
 
-        // Gather all chunks of backup range
-        // FIXME: this limits the size of a chunk to 32 MB if i am not mistaken. thus, replication won't work
-        // for larger chunks
-        byte[] chunkArray = new byte[32 * 1024 * 1024];
-        ByteBuffer chunkBuffer = ByteBuffer.wrap(chunkArray);
+        int numberOfPartitions = 0;
+        for (int i = 0; i < p_chunkIDRanges.length; i += 2) {
+            numberOfPartitions += (p_chunkIDRanges[i + 1] - p_chunkIDRanges[i]) / REPLICATION_PARTITION_SIZE + 1;
+        }
 
+        long[] partitions = new long[numberOfPartitions * 2];
+        int index = 0;
         for (int i = 0; i < p_chunkIDRanges.length; i += 2) {
-            for (long currentChunkID = p_chunkIDRanges[i]; currentChunkID <= p_chunkIDRanges[i + 1]; currentChunkID++) {
-                // Store payload behind ChunkID and size
-                int bytes = m_chunk.getMemory().get()
-                        .get(currentChunkID, chunkArray, chunkBuffer.position() + Long.BYTES + Integer.BYTES,
-                                chunkArray.length, ChunkLockOperation.NONE, -1);
+            for (long start = p_chunkIDRanges[i]; start <= p_chunkIDRanges[i + 1];
+                    start += REPLICATION_PARTITION_SIZE) {
+                partitions[index++] = start;
+                partitions[index++] = Math.min(start + REPLICATION_PARTITION_SIZE - 1, p_chunkIDRanges[i + 1]);
+            }
+        }
 
-                if (bytes == 0) {
-                    // Chunk does not fit in current buffer -> send buffer and repeat
-                    chunkBuffer.flip();
+        Replication replication = new Replication(p_backupPeer, p_rangeID, partitions);
 
-                    try {
-                        m_network.sendMessage(new LogBufferMessage(p_backupPeer, p_rangeID, counter, chunkBuffer));
-                    } catch (final NetworkException ignore) {
+        // The calling thread reads, too. Reader tasks not started before all partitions are taken just return
+        for (int i = 1; i < Math.min(REPLICATION_READERS, numberOfPartitions); i++) {
+            m_executor.execute(TaskCategory.REPLICATION, replication::read);
+        }
 
-                    }
+        replication.read();
+
+        return replication.await();
+    }
+
+    /**
+     * Get a buffer for batching chunks. Buffers are reused for all replications
+     *
+     * @return the buffer (cleared)
+     */
+    private ByteBuffer getBuffer() {
+        ByteBuffer buffer = m_bufferPool.poll();
+
+        if (buffer == null) {
+            buffer = ByteBuffer.allocate(REPLICATION_BUFFER_SIZE);
+            // Same byte order as used by the network exporter for LogMessages
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        buffer.clear();
 
-                    chunkBuffer.clear();
-                    allCounter += counter;
-                    counter = 0;
+        return buffer;
+    }
+
+    /**
+     * A single backup range replication. All reading threads take partitions until all are processed
+     */
+    private final class Replication {
+        private final short m_backupPeer;
+        private final short m_rangeID;
+        private final long[] m_partitions;
+
+        private final AtomicInteger m_nextPartition = new AtomicInteger(0);
+        private final AtomicInteger m_finishedPartitions = new AtomicInteger(0);
+        private final AtomicInteger m_activeReaders = new AtomicInteger(0);
+        private final AtomicInteger m_replicatedChunks = new AtomicInteger(0);
+        private volatile boolean m_failed;
 
-                    bytes = m_chunk.getMemory().get()
-                            .get(currentChunkID, chunkArray, chunkBuffer.position() + Long.BYTES + Integer.BYTES,
-                                    chunkArray.length, ChunkLockOperation.NONE, -1);
+        /**
+         * Constructor
+         *
+         * @param p_backupPeer
+         *         the new backup peer
+         * @param p_rangeID
+         *         the RangeID
+         * @param p_partitions
+         *         first and last ChunkID of every partition
+         */
+        private Replication(final short p_backupPeer, final short p_rangeID, final long[] p_partitions) {
+            m_backupPeer = p_backupPeer;
+            m_rangeID = p_rangeID;
+            m_partitions = p_partitions;
+        }
+
+        /**
+         * Read and send partitions until all are taken
+         */
+        private void read() {
+            ArrayDeque<LogBufferRequest> inFlight = new ArrayDeque<>(REPLICATION_WINDOW);
+            ByteBuffer buffer = getBuffer();
+            int[] counter = new int[1];
+            int partition;
+
+            m_activeReaders.incrementAndGet();
+
+            while ((partition = m_nextPartition.getAndIncrement() * 2) < m_partitions.length) {
+                for (long chunkID = m_partitions[partition]; chunkID <= m_partitions[partition + 1] && !m_failed;
+                        chunkID++) {
+                    readChunk(chunkID, buffer, counter, inFlight);
                 }
 
-                if (bytes < 0) {
-                    LOGGER.error("Could not replicate 0x%X: %s", currentChunkID, ChunkState.values()[-bytes]);
-                    continue;
+                m_finishedPartitions.incrementAndGet();
+            }
+
+            if (counter[0] > 0) {
+                send(buffer, counter, inFlight);
+            }
+
+            while (!inFlight.isEmpty()) {
+                waitForOldest(inFlight);
+            }
+
+            m_bufferPool.add(buffer);
+            m_activeReaders.decrementAndGet();
+
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+
+        /**
+         * Wait for all partitions to be processed and all batches to be acknowledged
+         *
+         * @return the number of replicated chunks
+         */
+        private int await() {
+            int numberOfPartitions = m_partitions.length / 2;
+
+            synchronized (this) {
+                while (m_finishedPartitions.get() < numberOfPartitions || m_activeReaders.get() > 0) {
+                    try {
+                        wait();
+                    } catch (final InterruptedException ignored) {
+                    }
                 }
+            }
+
+            if (m_failed) {
+                LOGGER.error("Replicating backup range 0x%X to 0x%X failed after %d chunks", m_rangeID, m_backupPeer,
+                        m_replicatedChunks.get());
+            }
+
+            return m_replicatedChunks.get();
+        }
+
+        /**
+         * Add a chunk to the batch. The batch is sent if the chunk does not fit anymore
+         *
+         * @param p_chunkID
+         *         the ChunkID
+         * @param p_buffer
+         *         the batch
+         * @param p_counter
+         *         the number of chunks in the batch
+         * @param p_inFlight
+         *         the sent batches not acknowledged, yet
+         */
+        private void readChunk(final long p_chunkID, final ByteBuffer p_buffer, final int[] p_counter,
+                final ArrayDeque<LogBufferRequest> p_inFlight) {
+            byte[] array = p_buffer.array();
+
+            // Store payload behind ChunkID and max. size of the compacted size
+            int offset = p_buffer.position() + Long.BYTES + Integer.BYTES;
+            int bytes = m_chunk.getMemory().get()
+                    .get(p_chunkID, array, offset, array.length, ChunkLockOperation.NONE, -1);
+
+            if (bytes == 0 && p_counter[0] > 0) {
+                // Chunk does not fit in current buffer -> send buffer and repeat
+                send(p_buffer, p_counter, p_inFlight);
+
+                offset = Long.BYTES + Integer.BYTES;
+                bytes = m_chunk.getMemory().get()
+                        .get(p_chunkID, array, offset, array.length, ChunkLockOperation.NONE, -1);
+            }
+
+            if (bytes == 0) {
+                // Chunk is larger than a batch buffer -> send with a dedicated buffer
+                readLargeChunk(p_chunkID, p_inFlight);
+                return;
+            }
+
+            if (bytes < 0) {
+                LOGGER.error("Could not replicate 0x%X: %s", p_chunkID, ChunkState.values()[-bytes]);
+                return;
+            }
+
+            p_buffer.putLong(p_chunkID);
+            ByteBufferImExporter exporter = new ByteBufferImExporter(p_buffer);
+            exporter.writeCompactNumber(bytes);
+
+            if (p_buffer.position() != offset) {
+                // Compacted size is shorter than reserved -> move payload
+                System.arraycopy(array, offset, array, p_buffer.position(), bytes);
+            }
+
+            p_buffer.position(p_buffer.position() + bytes);
+            p_counter[0]++;
+        }
 
-                chunkBuffer.putLong(currentChunkID);
-                chunkBuffer.putInt(bytes);
-                chunkBuffer.position(chunkBuffer.position() + bytes);
-                counter++;
+        /**
+         * Send a chunk which does not fit in a batch buffer
+         *
+         * @param p_chunkID
+         *         the ChunkID
+         * @param p_inFlight
+         *         the sent batches not acknowledged, yet
+         */
+        private void readLargeChunk(final long p_chunkID, final ArrayDeque<LogBufferRequest> p_inFlight) {
+            ChunkByteArray chunk = m_chunk.getMemory().get().get(p_chunkID, ChunkLockOperation.NONE, -1);
+
+            if (!chunk.isStateOk()) {
+                LOGGER.error("Could not replicate 0x%X: %s", p_chunkID, chunk.getState());
+                return;
             }
+
+            int size = chunk.sizeofObject();
+            ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES + ObjectSizeUtil.sizeofCompactedNumber(size) + size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+            ByteBufferImExporter exporter = new ByteBufferImExporter(buffer);
+            exporter.writeLong(p_chunkID);
+            exporter.writeCompactNumber(size);
+            exporter.exportObject(chunk);
+
+            send(buffer, new int[] {1}, p_inFlight);
         }
 
-        allCounter += counter;
+        /**
+         * Send a batch. Blocks if the max. number of batches are in flight
+         *
+         * @param p_buffer
+         *         the batch, cleared after sending for reuse
+         * @param p_counter
+         *         the number of chunks in the batch, reset after sending
+         * @param p_inFlight
+         *         the sent batches not acknowledged, yet
+         */
+        private void send(final ByteBuffer p_buffer, final int[] p_counter,
+                final ArrayDeque<LogBufferRequest> p_inFlight) {
+            if (p_inFlight.size() == REPLICATION_WINDOW) {
+                waitForOldest(p_inFlight);
+            }
+
+            p_buffer.flip();
+
+            if (!m_failed) {
+                LogBufferRequest request = new LogBufferRequest(m_backupPeer, m_rangeID, p_counter[0], p_buffer);
 
-        return allCounter;
+                try {
+                    // The buffer is serialized on sending and can be reused afterwards
+                    m_network.sendSync(request, false);
+                    p_inFlight.add(request);
+                } catch (final NetworkException e) {
+                    LOGGER.error("Sending %d chunks to 0x%X failed: %s", p_counter[0], m_backupPeer, e);
+                    m_failed = true;
+                }
+            }
+
+            p_buffer.clear();
+            p_counter[0] = 0;
+        }
+
+        /**
+         * Wait for the acknowledgement of the oldest batch in flight
+         *
+         * @param p_inFlight
+         *         the sent batches not acknowledged, yet
+         */
+        private void waitForOldest(final ArrayDeque<LogBufferRequest> p_inFlight) {
+            LogBufferRequest request = p_inFlight.poll();
+
+            try {
+                request.waitForResponse(m_network.getRequestTimeoutMs());
+                m_replicatedChunks.addAndGet(request.getNumberOfDataStructures());
+            } catch (final NetworkException e) {
+                m_network.cancelRequest(request);
+                LOGGER.error("Backup peer 0x%X did not acknowledge %d chunks: %s", m_backupPeer,
+                        request.getNumberOfDataStructures(), e);
+                m_failed = true;
+            }
+        }
     }
 
     @Override
@@ -161,6 +407,7 @@ public class ChunkBackupComponent extends AbstractDXRAMComponent<DXRAMModuleConf
         m_boot = p_componentAccessor.getComponent(AbstractBootComponent.class);
         m_chunk = p_componentAccessor.getComponent(ChunkComponent.class);
         m_network = p_componentAccessor.getComponent(NetworkComponent.class);
+        m_executor = p_componentAccessor.getComponent(ExecutorComponent.class);
     }
 
     @Override
@@ -172,6 +419,8 @@ public class ChunkBackupComponent extends AbstractDXRAMComponent<DXRAMModuleConf
     @Override
     protected boolean shutdownComponent() {
         // Add DXRAMComponentOrder.Shutdown value if something is put here
+        m_bufferPool.clear();
+
         return true;
     }
 
@@ -0,0 +1,292 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.chunk.bench;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.gson.annotations.Expose;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.hhu.bsinfo.dxmem.data.ChunkByteArray;
+import de.hhu.bsinfo.dxmem.data.ChunkIDRanges;
+import de.hhu.bsinfo.dxram.chunk.ChunkService;
+import de.hhu.bsinfo.dxram.ms.Signal;
+import de.hhu.bsinfo.dxram.ms.Task;
+import de.hhu.bsinfo.dxram.ms.TaskContext;
+import de.hhu.bsinfo.dxutils.Stopwatch;
+import de.hhu.bsinfo.dxutils.serialization.Exporter;
+import de.hhu.bsinfo.dxutils.serialization.Importer;
+import de.hhu.bsinfo.dxutils.serialization.ObjectSizeUtil;
+
+/**
+ * Task to compare the throughput of the blocking get/put operations with the asynchronous (future based) ones.
+ * Random chunks are accessed one by one: the sync pass has a single operation in flight per thread, the async
+ * pass keeps up to m_maxOutstanding operations in flight per thread.
+ * All chunks accessed must have the size m_chunkSize (e.g. created with the ChunkCreateTask using the same begin and
+ * end size).
+ */
+public class ChunkDataModifyAsyncTask implements Task {
+    private static final Logger LOGGER = LogManager.getFormatterLogger(ChunkDataModifyAsyncTask.class.getSimpleName());
+
+    @Expose
+    private int m_numThreads = 1;
+    @Expose
+    private long m_opCount = 100000;
+    @Expose
+    private int m_chunkSize = 64;
+    @Expose
+    private int m_maxOutstanding = 1000;
+    @Expose
+    private boolean m_doPut = false;
+    @Expose
+    private int m_pattern = ChunkTaskUtils.PATTERN_REMOTE_ONLY_RANDOM;
+
+    @Override
+    public int execute(final TaskContext p_ctx) {
+        if (m_pattern != ChunkTaskUtils.PATTERN_LOCAL_ONLY && p_ctx.getCtxData().getSlaveNodeIds().length < 2) {
+            System.out.println("Not enough slaves (min 2) to execute this task");
+            return -1;
+        }
+
+        ChunkService chunkService = p_ctx.getDXRAMServiceAccessor().getService(ChunkService.class);
+
+        ChunkIDRanges allChunkRanges = ChunkTaskUtils.getChunkRangesForTestPattern(m_pattern, p_ctx, chunkService);
+
+        if (allChunkRanges.isEmpty()) {
+            System.out.println("No chunks available for pattern " + m_pattern);
+            return -1;
+        }
+
+        long[] operationsPerThread = ChunkTaskUtils.distributeChunkCountsToThreads(m_opCount, m_numThreads);
+
+        System.out.printf("Modifying %d random chunks (pattern %d, put %b) with %d thread(s), sync vs. async " +
+                "with max %d outstanding operations per thread...\n", m_opCount, m_pattern, m_doPut, m_numThreads,
+                m_maxOutstanding);
+
+        AtomicLong errors = new AtomicLong(0);
+
+        long syncTime = runThreads(threadIdx -> {
+            for (long i = 0; i < operationsPerThread[threadIdx]; i++) {
+                ChunkByteArray chunk = new ChunkByteArray(allChunkRanges.getRandomCidWithinRanges(), m_chunkSize);
+
+                if (!chunkService.get().get(chunk)) {
+                    errors.incrementAndGet();
+                    continue;
+                }
+
+                if (m_doPut && !chunkService.put().put(chunk)) {
+                    errors.incrementAndGet();
+                }
+            }
+        });
+
+        if (syncTime < 0) {
+            return -2;
+        }
+
+        printResult("Sync", syncTime, errors.getAndSet(0));
+
+        long asyncTime = runThreads(threadIdx -> {
+            Semaphore outstanding = new Semaphore(m_maxOutstanding);
+            // Chunks to put after their get completed. The puts are issued by this thread because dependent actions
+            // of the futures run on the request completion thread which must not block
+            ConcurrentLinkedQueue<ChunkByteArray> fetched = new ConcurrentLinkedQueue<>();
+
+            for (long i = 0; i < operationsPerThread[threadIdx]; i++) {
+                putFetched(chunkService, fetched, outstanding, errors);
+
+                ChunkByteArray chunk = new ChunkByteArray(allChunkRanges.getRandomCidWithinRanges(), m_chunkSize);
+
+                outstanding.acquireUninterruptibly();
+
+                chunkService.get().getAsync(chunk).whenComplete((p_result, p_exception) -> {
+                    if (p_exception != null || !p_result) {
+                        errors.incrementAndGet();
+                    } else if (m_doPut) {
+                        fetched.add(chunk);
+                    }
+
+                    outstanding.release();
+                });
+            }
+
+            // wait for all outstanding operations of this thread, completed gets might still add puts
+            while (true) {
+                putFetched(chunkService, fetched, outstanding, errors);
+                outstanding.acquireUninterruptibly(m_maxOutstanding);
+
+                if (fetched.isEmpty()) {
+                    break;
+                }
+
+                outstanding.release(m_maxOutstanding);
+            }
+        });
+
+        if (asyncTime < 0) {
+            return -2;
+        }
+
+        printResult("Async", asyncTime, errors.get());
+
+        System.out.printf("Speedup async/sync: %f\n", (double) syncTime / asyncTime);
+
+        return 0;
+    }
+
+    /**
+     * Issue the puts of all chunks fetched so far
+     *
+     * @param p_chunkService
+     *         ChunkService to put the chunks with
+     * @param p_fetched
+     *         Chunks fetched, but not put, yet
+     * @param p_outstanding
+     *         Permits for outstanding operations
+     * @param p_errors
+     *         Error counter
+     */
+    private static void putFetched(final ChunkService p_chunkService,
+            final ConcurrentLinkedQueue<ChunkByteArray> p_fetched, final Semaphore p_outstanding,
+            final AtomicLong p_errors) {
+        ChunkByteArray chunk;
+
+        while ((chunk = p_fetched.poll()) != null) {
+            p_outstanding.acquireUninterruptibly();
+
+            p_chunkService.put().putAsync(chunk).whenComplete((p_result, p_exception) -> {
+                if (p_exception != null || !p_result) {
+                    p_errors.incrementAndGet();
+                }
+
+                p_outstanding.release();
+            });
+        }
+    }
+
+    @Override
+    public void handleSignal(final Signal p_signal) {
+
+    }
+
+    @Override
+    public void exportObject(final Exporter p_exporter) {
+        p_exporter.writeInt(m_numThreads);
+        p_exporter.writeLong(m_opCount);
+        p_exporter.writeInt(m_chunkSize);
+        p_exporter.writeInt(m_maxOutstanding);
+        p_exporter.writeBoolean(m_doPut);
+        p_exporter.writeInt(m_pattern);
+    }
+
+    @Override
+    public void importObject(final Importer p_importer) {
+        m_numThreads = p_importer.readInt(m_numThreads);
+        m_opCount = p_importer.readLong(m_opCount);
+        m_chunkSize = p_importer.readInt(m_chunkSize);
+        m_maxOutstanding = p_importer.readInt(m_maxOutstanding);
+        m_doPut = p_importer.readBoolean(m_doPut);
+        m_pattern = p_importer.readInt(m_pattern);
+    }
+
+    @Override
+    public int sizeofObject() {
+        return Integer.BYTES * 4 + ObjectSizeUtil.sizeofBoolean() + Long.BYTES;
+    }
+
+    /**
+     * Run the benchmark function on all threads and measure the time of the slowest thread
+     *
+     * @param p_function
+     *         Function to execute per thread
+     * @return Time of the slowest thread in ns or -1 on error
+     */
+    private long runThreads(final ThreadFunction p_function) {
+        Thread[] threads = new Thread[m_numThreads];
+        Stopwatch[] time = new Stopwatch[m_numThreads];
+
+        for (int i = 0; i < threads.length; i++) {
+            int threadIdx = i;
+            time[i] = new Stopwatch();
+
+            threads[i] = new Thread(() -> {
+                time[threadIdx].start();
+                p_function.run(threadIdx);
+                time[threadIdx].stopAndAccumulate();
+            });
+        }
+
+        for (Thread thread : threads) {
+            thread.start();
+        }
+
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (final InterruptedException e) {
+                LOGGER.error("Joining thread failed", e);
+                return -1;
+            }
+        }
+
+        // total time is measured by the slowest thread
+        long totalTime = 0;
+
+        for (Stopwatch stopwatch : time) {
+            if (stopwatch.getAccumulatedTime() > totalTime) {
+                totalTime = stopwatch.getAccumulatedTime();
+            }
+        }
+
+        return totalTime;
+    }
+
+    /**
+     * Print the results of a single pass
+     *
+     * @param p_name
+     *         Name of the pass
+     * @param p_timeNs
+     *         Time of the pass in ns
+     * @param p_errors
+     *         Number of failed operations
+     */
+    private void printResult(final String p_name, final long p_timeNs, final long p_errors) {
+        System.out.printf("%s total time: %f sec\n", p_name, p_timeNs / 1000.0 / 1000.0 / 1000.0);
+        System.out.printf("%s throughput: %f chunks/sec\n", p_name,
+                1000.0 * 1000.0 * 1000.0 / ((double) p_timeNs / m_opCount));
+        System.out.printf("%s errors: %d\n", p_name, p_errors);
+    }
+
+    /**
+     * Benchmark function executed by each thread
+     */
+    @FunctionalInterface
+    private interface ThreadFunction {
+        /**
+         * Run the function
+         *
+         * @param p_threadIdx
+         *         Index of the executing thread
+         */
+        void run(int p_threadIdx);
+    }
+}
@@ -3,7 +3,12 @@ package de.hhu.bsinfo.dxram.chunk.data;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import de.hhu.bsinfo.dxmem.data.AbstractChunk;
+import de.hhu.bsinfo.dxmem.data.ChunkID;
 import de.hhu.bsinfo.dxram.chunk.ChunkService;
+import de.hhu.bsinfo.dxutils.NodeID;
+import de.hhu.bsinfo.dxutils.serialization.Exporter;
+import de.hhu.bsinfo.dxutils.serialization.Importer;
+import de.hhu.bsinfo.dxutils.serialization.ObjectSizeUtil;
 
 import java.io.Serializable;
 import java.lang.reflect.Array;
@@ -18,10 +23,20 @@ public abstract class ArrayList <T extends AbstractChunk> implements List<T>, Ra
 
     private static final int DEFAULT_CAPACITY = 1000;
 
+    // number of elements fetched with a single multi-get by iterators and spliterators
+    private static final int DEFAULT_BATCH_SIZE = 100;
+
+    // number of chunk IDs stored in a single chunk when persisting the ID array
+    private static final int PERSIST_SEGMENT_SIZE = 64 * 1024;
+
     transient int modCount;
     private long[] elementData;
     private int size;
 
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private short createNodeId = NodeID.INVALID_ID;
+    private long persistedRootId = ChunkID.INVALID_ID;
+
     public ArrayList(Function <Long, T> factory, ChunkService chunkService) {
         size=0;
         elementData = new long[DEFAULT_CAPACITY];
@@ -31,6 +46,43 @@ public abstract class ArrayList <T extends AbstractChunk> implements List<T>, Ra
         //T test = factory.apply(null);
     }
 
+    /**
+     * Constructor for lists which create chunks for added elements which were not created, yet
+     *
+     * @param factory
+     *         Factory to create chunk instances from chunk IDs
+     * @param chunkService
+     *         ChunkService to access the elements
+     * @param createNodeId
+     *         Node to create new elements and the persisted ID array on
+     */
+    public ArrayList(Function <Long, T> factory, ChunkService chunkService, short createNodeId) {
+        this(factory, chunkService);
+        this.createNodeId = createNodeId;
+    }
+
+    /**
+     * Get the number of elements fetched with a single multi-get when iterating the list
+     *
+     * @return Batch size
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Set the number of elements fetched with a single multi-get when iterating the list
+     *
+     * @param batchSize
+     *         Batch size (min 1)
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1)
+            throw new IllegalArgumentException("Invalid batch size " + batchSize);
+
+        this.batchSize = batchSize;
+    }
+
     private class SubList extends ArrayList<T> implements RandomAccess {
         private final ArrayList<T> parent;
         private final int parentOffset;
@@ -307,6 +359,10 @@ public abstract class ArrayList <T extends AbstractChunk> implements List<T>, Ra
         private int fence; // -1 until used; then one past last index
         private int expectedModCount; // initialized when fence set
 
+        // prefetched elements starting at windowStart
+        private AbstractChunk[] window;
+        private int windowStart;
+
         ArrayListSpliterator(ArrayList<T> list, int origin, int fence, int expectedModCount) {
             this.list = list; // OK if null unless traversed
             this.index = origin;
@@ -331,7 +387,8 @@ public abstract class ArrayList <T extends AbstractChunk> implements List<T>, Ra
 
         public ArrayListSpliterator<T> trySplit() {
             int hi = getFence(), lo = index, mid = (lo + hi) >>> 1;
-            return (lo >= mid) ? null : // divide range in half unless too small
+            // don't split below the batch size, each part fetches its elements in batches
+            return (lo >= mid || list == null || hi - lo < 2 * list.batchSize) ? null :
                     new ArrayListSpliterator<T>(list, lo, index = mid,
                             expectedModCount);
         }
@@ -343,7 +400,13 @@ public abstract class ArrayList <T extends AbstractChunk> implements List<T>, Ra
             int hi = getFence(), i = index;
             if (i < hi) {
                 index = i + 1;
-                @SuppressWarnings("unchecked") T e = list.get(i);
+
+                if (window == null || i < windowStart || i >= windowStart + window.length) {
+                    windowStart = i;
+                    window = list.fetch(i, Math.min(hi, i + list.batchSize));
+                }
+
+                @SuppressWarnings("unchecked") T e = (T) window[i - windowStart];
                 action.accept(e);
 
                 if (list.modCount != expectedModCount)
@@ -373,10 +436,15 @@ public abstract class ArrayList <T extends AbstractChunk> implements List<T>, Ra
                     mc = expectedModCount;
 
                 if ((i = index) >= 0 && (index = hi) <= a.length) {
-                    for (; i < hi; ++i) {
-                        // ???????!!!!!!
-                        @SuppressWarnings("unchecked") T e = lst.get(i);
-                        action.accept(e);
+                    while (i < hi) {
+                        AbstractChunk[] batch = lst.fetch(i, Math.min(hi, i + lst.batchSize));
+
+                        for (AbstractChunk chunk : batch) {
+                            @SuppressWarnings("unchecked") T e = (T) chunk;
+                            action.accept(e);
+                        }
+
+                        i += batch.length;
                     }
 
                     if (lst.modCount == mc)
@@ -397,10 +465,211 @@ public abstract class ArrayList <T extends AbstractChunk> implements List<T>, Ra
     }
 
     private void extend() {
-        int extendedSize = 2*size;
+        int extendedSize = Math.max(2*size, DEFAULT_CAPACITY);
         elementData = Arrays.copyOf(elementData, extendedSize);
     }
 
+    /**
+     * Get consecutive elements with a single multi-get
+     *
+     * @param from
+     *         Index of the first element (inclusive)
+     * @param to
+     *         Index of the last element (exclusive)
+     * @return Elements with their data
+     * @throws IllegalStateException
+     *         if any element could not be fetched (e.g. it does not exist or is temporarily unavailable)
+     */
+    AbstractChunk[] fetch(int from, int to) {
+        AbstractChunk[] chunks = new AbstractChunk[to - from];
+
+        for (int i = 0; i < chunks.length; i++)
+            chunks[i] = factory.apply(elementData[from + i]);
+
+        if (chunks.length > 0 && chunkService.get().get(chunks) != chunks.length) {
+            StringBuilder failed = new StringBuilder();
+            int failures = 0;
+
+            for (int i = 0; i < chunks.length; i++) {
+                if (!chunks[i].isStateOk()) {
+                    if (failures++ > 0)
+                        failed.append(", ");
+
+                    failed.append(from + i).append(": ").append(ChunkID.toHexString(chunks[i].getID())).append(' ')
+                            .append(chunks[i].getState());
+                }
+            }
+
+            throw new IllegalStateException("Fetching " + failures + " of elements " + from + " to " + to +
+                    " failed (" + failed + ")");
+        }
+
+        return chunks;
+    }
+
+    /**
+     * Create all chunks which do not have a valid chunk ID, yet, with one batched create and store their data
+     * with one batched put
+     *
+     * @param chunks
+     *         Chunks to check
+     */
+    private void createMissing(AbstractChunk[] chunks) {
+        int missing = 0;
+
+        for (AbstractChunk chunk : chunks)
+            if (chunk.getID() == ChunkID.INVALID_ID)
+                missing++;
+
+        if (missing == 0)
+            return;
+
+        if (createNodeId == NodeID.INVALID_ID)
+            throw new IllegalStateException("Adding " + missing + " chunks without chunk ID but no node to create " +
+                    "them on");
+
+        AbstractChunk[] toCreate = new AbstractChunk[missing];
+        missing = 0;
+
+        for (AbstractChunk chunk : chunks)
+            if (chunk.getID() == ChunkID.INVALID_ID)
+                toCreate[missing++] = chunk;
+
+        if (chunkService.create().create(createNodeId, toCreate) != toCreate.length)
+            throw new IllegalStateException("Creating " + toCreate.length + " chunks failed");
+
+        if (chunkService.put().put(toCreate) != toCreate.length)
+            throw new IllegalStateException("Putting " + toCreate.length + " created chunks failed");
+    }
+
+    /**
+     * Store the chunk ID array in DXRAM. The IDs are split into segment chunks which are referenced by a single
+     * root chunk. A previously persisted array of this list is removed.
+     *
+     * @return Chunk ID of the root chunk to restore the list from
+     */
+    public long persist() {
+        if (createNodeId == NodeID.INVALID_ID)
+            throw new IllegalStateException("No node to persist the list on");
+
+        removePersisted();
+
+        ChunkIDArray[] segments = new ChunkIDArray[(size + PERSIST_SEGMENT_SIZE - 1) / PERSIST_SEGMENT_SIZE];
+
+        for (int i = 0; i < segments.length; i++) {
+            int from = i * PERSIST_SEGMENT_SIZE;
+            segments[i] = new ChunkIDArray(Arrays.copyOfRange(elementData, from,
+                    Math.min(size, from + PERSIST_SEGMENT_SIZE)));
+        }
+
+        long[] segmentIds = new long[segments.length];
+
+        if (segments.length > 0) {
+            if (chunkService.create().create(createNodeId, segments) != segments.length ||
+                    chunkService.put().put(segments) != segments.length)
+                throw new IllegalStateException("Persisting " + segments.length + " list segments failed");
+
+            for (int i = 0; i < segments.length; i++)
+                segmentIds[i] = segments[i].getID();
+        }
+
+        ChunkIDArray root = new ChunkIDArray(segmentIds);
+
+        if (chunkService.create().create(createNodeId, root) != 1 || !chunkService.put().put(root))
+            throw new IllegalStateException("Persisting list root failed");
+
+        persistedRootId = root.getID();
+
+        return persistedRootId;
+    }
+
+    /**
+     * Replace the elements of this list with a chunk ID array persisted in DXRAM
+     *
+     * @param rootId
+     *         Chunk ID of the root chunk returned by persist
+     */
+    public void restore(long rootId) {
+        ChunkIDArray root = new ChunkIDArray(rootId);
+
+        if (!chunkService.get().get(root))
+            throw new IllegalStateException("Getting list root " + ChunkID.toHexString(rootId) + " failed");
+
+        ChunkIDArray[] segments = new ChunkIDArray[root.ids.length];
+
+        for (int i = 0; i < segments.length; i++)
+            segments[i] = new ChunkIDArray(root.ids[i]);
+
+        if (segments.length > 0 && chunkService.get().get(segments) != segments.length)
+            throw new IllegalStateException("Getting list segments of " + ChunkID.toHexString(rootId) + " failed");
+
+        int total = 0;
+
+        for (ChunkIDArray segment : segments)
+            total += segment.ids.length;
+
+        elementData = new long[Math.max(total, DEFAULT_CAPACITY)];
+        size = 0;
+
+        for (ChunkIDArray segment : segments) {
+            System.arraycopy(segment.ids, 0, elementData, size, segment.ids.length);
+            size += segment.ids.length;
+        }
+
+        persistedRootId = rootId;
+        modCount++;
+    }
+
+    /**
+     * Remove the chunk ID array persisted by this list from DXRAM
+     */
+    private void removePersisted() {
+        if (persistedRootId == ChunkID.INVALID_ID)
+            return;
+
+        ChunkIDArray root = new ChunkIDArray(persistedRootId);
+
+        if (chunkService.get().get(root)) {
+            if (root.ids.length > 0)
+                chunkService.remove().remove(root.ids);
+
+            chunkService.remove().remove(persistedRootId);
+        }
+
+        persistedRootId = ChunkID.INVALID_ID;
+    }
+
+    /**
+     * Chunk storing a part of the chunk ID array (or the segment IDs for the root chunk) of a persisted list
+     */
+    private static final class ChunkIDArray extends AbstractChunk {
+        private long[] ids;
+
+        private ChunkIDArray(long cid) {
+            super(cid);
+        }
+
+        private ChunkIDArray(long[] ids) {
+            super();
+            this.ids = ids;
+        }
+
+        @Override
+        public void exportObject(Exporter p_exporter) {
+            p_exporter.writeLongArray(ids);
+        }
+
+        @Override
+        public void importObject(Importer p_importer) {
+            ids = p_importer.readLongArray(ids);
+        }
+
+        @Override
+        public int sizeofObject() {
+            return ObjectSizeUtil.sizeofLongArray(ids);
+        }
+    }
+
     private long elementData(int index) {
         return  elementData[index];
     }
@@ -439,17 +708,27 @@ public abstract class ArrayList <T extends AbstractChunk> implements List<T>, Ra
         return new Iterator<T>() {
             int pos = 0;
 
+            // prefetched elements starting at windowStart
+            AbstractChunk[] window;
+            int windowStart;
+
             @Override
             public boolean hasNext() {
                 return pos < size;
             }
 
             @Override
+            @SuppressWarnings("unchecked")
             public T next() {
-                if (hasNext())
-                    return factory.apply(elementData[pos++]);
-                else
+                if (!hasNext())
                     throw new NoSuchElementException();
+
+                if (window == null || pos >= windowStart + window.length) {
+                    windowStart = pos;
+                    window = fetch(pos, Math.min(size, pos + batchSize));
+                }
+
+                return (T) window[pos++ - windowStart];
             }
         };
     }
@@ -478,13 +757,8 @@ public abstract class ArrayList <T extends AbstractChunk> implements List<T>, Ra
 
     @Override
     public boolean add(T chunk) {
-
-        if (size== elementData.length)
-            extend();
         try {
-            int i = size;
-            this.add(i, chunk);
-            size = i + 1;
+            this.add(size, chunk);
         } catch (IndexOutOfBoundsException ex) {
             throw new ConcurrentModificationException();
         }
@@ -525,10 +799,14 @@ public abstract class ArrayList <T extends AbstractChunk> implements List<T>, Ra
 
     @Override
     public boolean addAll(int index, @NotNull Collection<? extends T> c) {
-        if (index<size){
+        if (index<=size){
+
+            AbstractChunk[] chunks = c.toArray(new AbstractChunk[0]);
+            int csize = chunks.length;
+
+            // create all new elements with one batched create instead of one create per element
+            createMissing(chunks);
 
-            Iterator<de.hhu.bsinfo.dxmem.data.AbstractChunk> itr = (Iterator<de.hhu.bsinfo.dxmem.data.AbstractChunk>) c.iterator();
-            int csize = c.size();
             while (csize + size > elementData.length)
                 extend();
 
@@ -537,9 +815,10 @@ public abstract class ArrayList <T extends AbstractChunk> implements List<T>, Ra
                 System.arraycopy(elementData, index, elementData, end, size - index);
             size += csize;
 
-            for ( ; index < end; index++) {
-                elementData[index] = itr.next().getID();
+            for (int i = 0; index < end; index++, i++) {
+                elementData[index] = chunks[i].getID();
             }
+            modCount++;
             return csize > 0;
         }
         else throw new IndexOutOfBoundsException();
@@ -606,15 +885,16 @@ public abstract class ArrayList <T extends AbstractChunk> implements List<T>, Ra
 
     @Override
     public void add(int index, T element) {
-        if (index<size){
+        if (index<=size){
+            createMissing(new AbstractChunk[] {element});
+
             if (size== elementData.length)
                 extend();
 
+            System.arraycopy(elementData, index, elementData, index + 1, size - index);
             size++;
-            for (int i=size; i>index;i++){
-                elementData[i] = elementData[i-1];
-            }
             elementData[index] = element.getID();
+            modCount++;
         } else throw new IndexOutOfBoundsException();
     }
 
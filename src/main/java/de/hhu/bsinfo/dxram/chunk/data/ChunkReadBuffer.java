@@ -0,0 +1,213 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.chunk.data;
+
+import java.util.Arrays;
+
+import de.hhu.bsinfo.dxmem.DXMem;
+import de.hhu.bsinfo.dxmem.data.ChunkByteArray;
+import de.hhu.bsinfo.dxmem.data.ChunkLockOperation;
+import de.hhu.bsinfo.dxmem.data.ChunkState;
+
+/**
+ * Reusable buffer to serve remote get requests. The payloads of multiple chunks are read from the key-value store
+ * directly into a single byte array which is written to the outgoing message buffer when the response is sent. This
+ * avoids allocating a ChunkByteArray (and its byte[]) per chunk and request. Not thread-safe, use one instance per
+ * message handler thread. The buffer can be reused once the response was sent (messages are serialized when sending)
+ */
+public final class ChunkReadBuffer {
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+    // larger buffers are dropped on reset to not keep memory of rare, huge requests
+    private static final int MAX_RETAINED_BUFFER_SIZE = 4 * 1024 * 1024;
+    private static final int MAX_BUFFER_SIZE = 1024 * 1024 * 1024;
+
+    private byte[] m_buffer = new byte[INITIAL_BUFFER_SIZE];
+    private int m_position;
+
+    private int m_count;
+    private ChunkState[] m_states = new ChunkState[16];
+    private int[] m_offsets = new int[16];
+    private int[] m_lengths = new int[16];
+
+    /**
+     * Remove all chunks from the buffer
+     */
+    public void reset() {
+        if (m_buffer.length > MAX_RETAINED_BUFFER_SIZE) {
+            m_buffer = new byte[INITIAL_BUFFER_SIZE];
+        }
+
+        m_position = 0;
+        m_count = 0;
+    }
+
+    /**
+     * Get the number of chunks in the buffer
+     *
+     * @return Number of chunks
+     */
+    public int getCount() {
+        return m_count;
+    }
+
+    /**
+     * Get the buffer containing the payloads of all chunks
+     *
+     * @return Buffer
+     */
+    public byte[] getBuffer() {
+        return m_buffer;
+    }
+
+    /**
+     * Get the state of a chunk
+     *
+     * @param p_index
+     *         Index of the chunk (order of reading)
+     * @return State of the chunk
+     */
+    public ChunkState getState(final int p_index) {
+        return m_states[p_index];
+    }
+
+    /**
+     * Check if a chunk was read successfully
+     *
+     * @param p_index
+     *         Index of the chunk (order of reading)
+     * @return True if the chunk's state is OK
+     */
+    public boolean isStateOk(final int p_index) {
+        return m_states[p_index] == ChunkState.OK;
+    }
+
+    /**
+     * Get the offset of a chunk's payload in the buffer
+     *
+     * @param p_index
+     *         Index of the chunk (order of reading)
+     * @return Offset in bytes
+     */
+    public int getOffset(final int p_index) {
+        return m_offsets[p_index];
+    }
+
+    /**
+     * Get the size of a chunk's payload
+     *
+     * @param p_index
+     *         Index of the chunk (order of reading)
+     * @return Size in bytes, 0 if the chunk could not be read
+     */
+    public int getSize(final int p_index) {
+        return m_lengths[p_index];
+    }
+
+    /**
+     * Read a chunk from the key-value store and append it to the buffer
+     *
+     * @param p_memory
+     *         Key-value store to read from
+     * @param p_chunkID
+     *         ID of the chunk to read
+     * @param p_lockOperation
+     *         Lock operation to execute for the get operation
+     * @param p_lockOperationTimeoutMs
+     *         Timeout for the lock operation
+     * @return True if the chunk was read successfully, false otherwise (check the chunk's state)
+     */
+    public boolean read(final DXMem p_memory, final long p_chunkID, final ChunkLockOperation p_lockOperation,
+            final int p_lockOperationTimeoutMs) {
+        ensureChunkCapacity();
+
+        if (p_lockOperation != ChunkLockOperation.NONE) {
+            // the buffer might be too small and the chunk has to be read again. Avoid executing the lock operation
+            // twice and fall back to the allocating get
+            ChunkByteArray chunk = p_memory.get().get(p_chunkID, p_lockOperation, p_lockOperationTimeoutMs);
+
+            if (chunk.isStateOk()) {
+                ensureCapacity(chunk.getSize());
+                System.arraycopy(chunk.getData(), 0, m_buffer, m_position, chunk.getSize());
+            }
+
+            return append(chunk.getState(), chunk.isStateOk() ? chunk.getSize() : 0);
+        }
+
+        int bytes = p_memory.get().get(p_chunkID, m_buffer, m_position, m_buffer.length, ChunkLockOperation.NONE,
+                -1);
+
+        while (bytes == 0) {
+            // chunk does not fit into remaining buffer
+            if (m_buffer.length >= MAX_BUFFER_SIZE) {
+                return append(ChunkState.UNDEFINED, 0);
+            }
+
+            m_buffer = Arrays.copyOf(m_buffer, Math.min(MAX_BUFFER_SIZE, m_buffer.length * 2));
+
+            bytes = p_memory.get().get(p_chunkID, m_buffer, m_position, m_buffer.length, ChunkLockOperation.NONE, -1);
+        }
+
+        if (bytes < 0) {
+            return append(ChunkState.values()[-bytes], 0);
+        }
+
+        return append(ChunkState.OK, bytes);
+    }
+
+    /**
+     * Register the chunk which was written to the current position of the buffer
+     *
+     * @param p_state
+     *         State of the chunk
+     * @param p_size
+     *         Size of the chunk's payload
+     * @return True if the state is OK
+     */
+    private boolean append(final ChunkState p_state, final int p_size) {
+        m_states[m_count] = p_state;
+        m_offsets[m_count] = m_position;
+        m_lengths[m_count] = p_size;
+        m_count++;
+
+        m_position += p_size;
+
+        return p_state == ChunkState.OK;
+    }
+
+    /**
+     * Make sure the arrays storing the chunk meta data can hold another chunk
+     */
+    private void ensureChunkCapacity() {
+        if (m_count == m_states.length) {
+            m_states = Arrays.copyOf(m_states, m_count * 2);
+            m_offsets = Arrays.copyOf(m_offsets, m_count * 2);
+            m_lengths = Arrays.copyOf(m_lengths, m_count * 2);
+        }
+    }
+
+    /**
+     * Make sure the buffer can take the given number of additional bytes
+     *
+     * @param p_size
+     *         Number of bytes to append
+     */
+    private void ensureCapacity(final int p_size) {
+        if (m_buffer.length - m_position < p_size) {
+            m_buffer = Arrays.copyOf(m_buffer, Math.max(m_buffer.length * 2, m_position + p_size));
+        }
+    }
+}
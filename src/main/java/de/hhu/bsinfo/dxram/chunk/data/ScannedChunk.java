@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.chunk.data;
+
+import java.util.Arrays;
+
+import de.hhu.bsinfo.dxmem.data.ChunkID;
+
+/**
+ * View on a chunk returned by a scan over all chunks stored locally. The payload is not copied to a dedicated array
+ * but stays in a buffer which is reused for the next chunk of the scan. Thus, an instance is only valid until the
+ * scan advances to the next chunk. Use copyData() to keep the payload.
+ */
+public final class ScannedChunk {
+    private long m_chunkID = ChunkID.INVALID_ID;
+    private byte[] m_buffer;
+    private int m_offset;
+    private int m_size;
+
+    /**
+     * Set the chunk the view points to
+     *
+     * @param p_chunkID
+     *         ID of the chunk
+     * @param p_buffer
+     *         Buffer containing the payload
+     * @param p_offset
+     *         Offset of the payload in the buffer
+     * @param p_size
+     *         Size of the payload
+     */
+    public void set(final long p_chunkID, final byte[] p_buffer, final int p_offset, final int p_size) {
+        m_chunkID = p_chunkID;
+        m_buffer = p_buffer;
+        m_offset = p_offset;
+        m_size = p_size;
+    }
+
+    /**
+     * Get the ID of the chunk
+     *
+     * @return ChunkID
+     */
+    public long getID() {
+        return m_chunkID;
+    }
+
+    /**
+     * Get the buffer containing the payload. Valid until the scan advances, only
+     *
+     * @return Buffer
+     */
+    public byte[] getBuffer() {
+        return m_buffer;
+    }
+
+    /**
+     * Get the offset of the payload in the buffer
+     *
+     * @return Offset in bytes
+     */
+    public int getOffset() {
+        return m_offset;
+    }
+
+    /**
+     * Get the size of the payload
+     *
+     * @return Size in bytes
+     */
+    public int getSize() {
+        return m_size;
+    }
+
+    /**
+     * Copy the payload to a new array
+     *
+     * @return Copy of the payload
+     */
+    public byte[] copyData() {
+        return Arrays.copyOfRange(m_buffer, m_offset, m_offset + m_size);
+    }
+
+    @Override
+    public String toString() {
+        return ChunkID.toHexString(m_chunkID) + "[size " + m_size + ']';
+    }
+}
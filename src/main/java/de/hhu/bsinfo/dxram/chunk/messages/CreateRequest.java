@@ -18,8 +18,8 @@ package de.hhu.bsinfo.dxram.chunk.messages;
 
 import de.hhu.bsinfo.dxnet.core.AbstractMessageExporter;
 import de.hhu.bsinfo.dxnet.core.AbstractMessageImporter;
-import de.hhu.bsinfo.dxnet.core.Request;
 import de.hhu.bsinfo.dxram.DXRAMMessageTypes;
+import de.hhu.bsinfo.dxram.net.AbstractAsyncRequest;
 import de.hhu.bsinfo.dxutils.serialization.ObjectSizeUtil;
 
 /**
@@ -27,7 +27,7 @@ import de.hhu.bsinfo.dxutils.serialization.ObjectSizeUtil;
  *
  * @author Stefan Nothaas, stefan.nothaas@hhu.de, 13.01.2016
  */
-public class CreateRequest extends Request {
+public class CreateRequest extends AbstractAsyncRequest {
     private boolean m_consecutive;
     private int[] m_sizes;
 
@@ -88,5 +88,8 @@ public class CreateResponse extends Response {
         }
 
         p_importer.readLongs(m_chunkIDs);
+
+        // report the arrival to a pending asynchronous request
+        ((CreateRequest) getCorrespondingRequest()).responseReceived(this);
     }
 }
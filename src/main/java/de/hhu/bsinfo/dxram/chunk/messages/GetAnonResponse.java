@@ -16,12 +16,12 @@
 
 package de.hhu.bsinfo.dxram.chunk.messages;
 
-import de.hhu.bsinfo.dxmem.data.ChunkByteArray;
 import de.hhu.bsinfo.dxmem.data.ChunkState;
 import de.hhu.bsinfo.dxnet.core.AbstractMessageExporter;
 import de.hhu.bsinfo.dxnet.core.AbstractMessageImporter;
 import de.hhu.bsinfo.dxnet.core.Response;
 import de.hhu.bsinfo.dxram.chunk.data.ChunkAnon;
+import de.hhu.bsinfo.dxram.chunk.data.ChunkReadBuffer;
 import de.hhu.bsinfo.dxutils.serialization.ObjectSizeUtil;
 
 /**
@@ -35,7 +35,7 @@ public class GetAnonResponse extends Response {
     // The data of the chunk objects here is used when sending the response only
     // when the response is received, the chunk objects from the request are
     // used to directly write the data to them to avoid further copying
-    private ChunkByteArray[] m_dataChunks;
+    private ChunkReadBuffer m_dataBuffer;
 
     /**
      * Creates an instance of GetAnonResponse.
@@ -48,18 +48,18 @@ public class GetAnonResponse extends Response {
     /**
      * Creates an instance of GetAnonResponse.
      * This constructor is used when sending this message.
-     * Make sure to include all data of the chunks from the request in the correct order. If a chunk does
-     * not exist, set the byte[] at that index to null
+     * Make sure to include all chunks from the request in the correct order. The payload is written from the
+     * buffer when sending, i.e. the buffer can be reused after sending.
      *
      * @param p_request
      *         the corresponding GetRequest
-     * @param p_chunks
-     *         Chunk data read from the memory.
+     * @param p_dataBuffer
+     *         Buffer containing the chunks read from the memory.
      */
-    public GetAnonResponse(final GetAnonRequest p_request, final ChunkByteArray[] p_chunks) {
+    public GetAnonResponse(final GetAnonRequest p_request, final ChunkReadBuffer p_dataBuffer) {
         super(p_request, ChunkMessages.SUBTYPE_GET_ANON_RESPONSE);
 
-        m_dataChunks = p_chunks;
+        m_dataBuffer = p_dataBuffer;
     }
 
     @Override
@@ -68,12 +68,14 @@ public class GetAnonResponse extends Response {
         int size = 0;
 
         // when writing payload
-        if (m_dataChunks != null) {
-            size += ObjectSizeUtil.sizeofCompactedNumber(m_dataChunks.length);
-            size += m_dataChunks.length * Byte.BYTES;
+        if (m_dataBuffer != null) {
+            size += ObjectSizeUtil.sizeofCompactedNumber(m_dataBuffer.getCount());
+            size += m_dataBuffer.getCount() * Byte.BYTES;
 
-            for (ChunkByteArray dataChunk : m_dataChunks) {
-                size += ObjectSizeUtil.sizeofByteArray(dataChunk.getData());
+            for (int i = 0; i < m_dataBuffer.getCount(); i++) {
+                if (m_dataBuffer.isStateOk(i)) {
+                    size += ObjectSizeUtil.sizeofCompactedNumber(m_dataBuffer.getSize(i)) + m_dataBuffer.getSize(i);
+                }
             }
         } else {
             // after reading message payload to request data structures
@@ -97,14 +99,15 @@ public class GetAnonResponse extends Response {
     @Override
     protected final void writePayload(final AbstractMessageExporter p_exporter) {
         // write total count once
-        p_exporter.writeCompactNumber(m_dataChunks.length);
+        p_exporter.writeCompactNumber(m_dataBuffer.getCount());
 
-        for (int i = 0; i < m_dataChunks.length; i++) {
-            p_exporter.writeByte((byte) m_dataChunks[i].getState().ordinal());
+        for (int i = 0; i < m_dataBuffer.getCount(); i++) {
+            p_exporter.writeByte((byte) m_dataBuffer.getState(i).ordinal());
 
-            if (m_dataChunks[i].isStateOk()) {
-                // write byte array with length information
-                p_exporter.writeByteArray(m_dataChunks[i].getData());
+            if (m_dataBuffer.isStateOk(i)) {
+                // write byte array with length information (same format as writeByteArray)
+                p_exporter.writeCompactNumber(m_dataBuffer.getSize(i));
+                p_exporter.writeBytes(m_dataBuffer.getBuffer(), m_dataBuffer.getOffset(i), m_dataBuffer.getSize(i));
             }
         }
     }
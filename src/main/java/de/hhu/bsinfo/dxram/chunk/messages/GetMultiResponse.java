@@ -17,11 +17,11 @@
 package de.hhu.bsinfo.dxram.chunk.messages;
 
 import de.hhu.bsinfo.dxmem.data.AbstractChunk;
-import de.hhu.bsinfo.dxmem.data.ChunkByteArray;
 import de.hhu.bsinfo.dxmem.data.ChunkState;
 import de.hhu.bsinfo.dxnet.core.AbstractMessageExporter;
 import de.hhu.bsinfo.dxnet.core.AbstractMessageImporter;
 import de.hhu.bsinfo.dxnet.core.Response;
+import de.hhu.bsinfo.dxram.chunk.data.ChunkReadBuffer;
 import de.hhu.bsinfo.dxutils.serialization.ObjectSizeUtil;
 
 /**
@@ -36,7 +36,7 @@ public class GetMultiResponse extends Response {
     // The data of the chunk objects here is used when sending the response only
     // when the response is received, the chunk objects from the request are
     // used to directly write the data to them to avoid further copying
-    private ChunkByteArray[] m_dataChunks;
+    private ChunkReadBuffer m_dataBuffer;
 
     /**
      * Creates an instance of GetResponse.
@@ -49,18 +49,18 @@ public class GetMultiResponse extends Response {
     /**
      * Creates an instance of GetResponse.
      * This constructor is used when sending this message.
-     * Make sure to include all data of the chunks from the request in the correct order. If a chunk does
-     * not exist, set the byte[] at that index to null
+     * Make sure to include all chunks from the request in the correct order. The payload is written from the
+     * buffer when sending, i.e. the buffer can be reused after sending.
      *
      * @param p_request
      *         the corresponding GetRequest
-     * @param p_chunks
-     *         Chunks read from the memory.
+     * @param p_dataBuffer
+     *         Buffer containing the chunks read from the memory.
      */
-    public GetMultiResponse(final GetMultiRequest p_request, final ChunkByteArray[] p_chunks) {
+    public GetMultiResponse(final GetMultiRequest p_request, final ChunkReadBuffer p_dataBuffer) {
         super(p_request, ChunkMessages.SUBTYPE_GET_MULTI_RESPONSE);
 
-        m_dataChunks = p_chunks;
+        m_dataBuffer = p_dataBuffer;
     }
 
     @Override
@@ -68,15 +68,13 @@ public class GetMultiResponse extends Response {
         int size = 0;
 
         // when writing payload
-        if (m_dataChunks != null) {
-            size += ObjectSizeUtil.sizeofCompactedNumber(m_dataChunks.length);
+        if (m_dataBuffer != null) {
+            size += ObjectSizeUtil.sizeofCompactedNumber(m_dataBuffer.getCount());
 
-            size += m_dataChunks.length * Byte.BYTES;
+            size += m_dataBuffer.getCount() * Byte.BYTES;
 
-            for (ChunkByteArray dataChunk : m_dataChunks) {
-                if (dataChunk.getData() != null) {
-                    size += dataChunk.getSize();
-                }
+            for (int i = 0; i < m_dataBuffer.getCount(); i++) {
+                size += m_dataBuffer.getSize(i);
             }
         } else {
             size += ObjectSizeUtil.sizeofCompactedNumber(m_total);
@@ -104,13 +102,13 @@ public class GetMultiResponse extends Response {
     @Override
     protected final void writePayload(final AbstractMessageExporter p_exporter) {
         // write total count once
-        p_exporter.writeCompactNumber(m_dataChunks.length);
+        p_exporter.writeCompactNumber(m_dataBuffer.getCount());
 
-        for (int i = 0; i < m_dataChunks.length; i++) {
-            p_exporter.writeByte((byte) m_dataChunks[i].getState().ordinal());
+        for (int i = 0; i < m_dataBuffer.getCount(); i++) {
+            p_exporter.writeByte((byte) m_dataBuffer.getState(i).ordinal());
 
-            if (m_dataChunks[i].isStateOk()) {
-                p_exporter.writeBytes(m_dataChunks[i].getData());
+            if (m_dataBuffer.isStateOk(i)) {
+                p_exporter.writeBytes(m_dataBuffer.getBuffer(), m_dataBuffer.getOffset(i), m_dataBuffer.getSize(i));
             }
         }
     }
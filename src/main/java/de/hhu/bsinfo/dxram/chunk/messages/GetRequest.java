@@ -20,8 +20,8 @@ import de.hhu.bsinfo.dxmem.data.AbstractChunk;
 import de.hhu.bsinfo.dxmem.data.ChunkLockOperation;
 import de.hhu.bsinfo.dxnet.core.AbstractMessageExporter;
 import de.hhu.bsinfo.dxnet.core.AbstractMessageImporter;
-import de.hhu.bsinfo.dxnet.core.Request;
 import de.hhu.bsinfo.dxram.DXRAMMessageTypes;
+import de.hhu.bsinfo.dxram.net.AbstractAsyncRequest;
 
 /**
  * Request for getting a chunk from a remote node. The size of a chunk is known prior fetching the data
@@ -29,7 +29,7 @@ import de.hhu.bsinfo.dxram.DXRAMMessageTypes;
  * @author Florian Klein, florian.klein@hhu.de, 09.03.2012
  * @author Stefan Nothaas, stefan.nothaas@hhu.de, 11.12.2015
  */
-public class GetRequest extends Request {
+public class GetRequest extends AbstractAsyncRequest {
     private ChunkLockOperation m_lockOperation = ChunkLockOperation.NONE;
     private int m_lockOperationTimeoutMs = -1;
     // the chunk is stored for the sender of the request
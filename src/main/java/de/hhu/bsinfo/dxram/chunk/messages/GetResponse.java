@@ -17,11 +17,11 @@
 package de.hhu.bsinfo.dxram.chunk.messages;
 
 import de.hhu.bsinfo.dxmem.data.AbstractChunk;
-import de.hhu.bsinfo.dxmem.data.ChunkByteArray;
 import de.hhu.bsinfo.dxmem.data.ChunkState;
 import de.hhu.bsinfo.dxnet.core.AbstractMessageExporter;
 import de.hhu.bsinfo.dxnet.core.AbstractMessageImporter;
 import de.hhu.bsinfo.dxnet.core.Response;
+import de.hhu.bsinfo.dxram.chunk.data.ChunkReadBuffer;
 
 /**
  * Response to a GetRequest
@@ -33,7 +33,7 @@ public class GetResponse extends Response {
     // The data of the chunk object here is used when sending the response only
     // when the response is received, the chunk object from the request is
     // used to directly write the data to it to avoid further copying
-    private ChunkByteArray m_dataChunk;
+    private ChunkReadBuffer m_dataBuffer;
 
     /**
      * Creates an instance of GetResponse.
@@ -46,18 +46,17 @@ public class GetResponse extends Response {
     /**
      * Creates an instance of GetResponse.
      * This constructor is used when sending this message.
-     * Make sure to include all data of the chunks from the request in the correct order. If a chunk does
-     * not exist, set the byte[] at that index to null
+     * The payload is written from the buffer when sending, i.e. the buffer can be reused after sending.
      *
      * @param p_request
      *         the corresponding GetRequest
-     * @param p_chunk
-     *         Chunk read from memory.
+     * @param p_dataBuffer
+     *         Buffer containing the chunk read from memory (first entry).
      */
-    public GetResponse(final GetRequest p_request, final ChunkByteArray p_chunk) {
+    public GetResponse(final GetRequest p_request, final ChunkReadBuffer p_dataBuffer) {
         super(p_request, ChunkMessages.SUBTYPE_GET_RESPONSE);
 
-        m_dataChunk = p_chunk;
+        m_dataBuffer = p_dataBuffer;
     }
 
     @Override
@@ -65,12 +64,9 @@ public class GetResponse extends Response {
         int size = 0;
 
         // when writing payload
-        if (m_dataChunk != null) {
+        if (m_dataBuffer != null) {
             size += Byte.BYTES;
-
-            if (m_dataChunk.getData() != null) {
-                size += m_dataChunk.getSize();
-            }
+            size += m_dataBuffer.getSize(0);
         } else {
             // after reading message payload to request chunk
             GetRequest request = (GetRequest) getCorrespondingRequest();
@@ -88,10 +84,10 @@ public class GetResponse extends Response {
 
     @Override
     protected final void writePayload(final AbstractMessageExporter p_exporter) {
-        p_exporter.writeByte((byte) m_dataChunk.getState().ordinal());
+        p_exporter.writeByte((byte) m_dataBuffer.getState(0).ordinal());
 
-        if (m_dataChunk.isStateOk()) {
-            p_exporter.writeBytes(m_dataChunk.getData());
+        if (m_dataBuffer.isStateOk(0)) {
+            p_exporter.writeBytes(m_dataBuffer.getBuffer(), m_dataBuffer.getOffset(0), m_dataBuffer.getSize(0));
         }
     }
 
@@ -108,5 +104,8 @@ public class GetResponse extends Response {
         if (chunk.getState() == ChunkState.OK) {
             p_importer.importObject(chunk);
         }
+
+        // report the arrival to a pending asynchronous request
+        request.responseReceived(this);
     }
 }
@@ -69,6 +69,9 @@ public class PutResponse extends Response {
 
         request.getChunk().setState(
                 ChunkState.values()[p_importer.readByte((byte) request.getChunk().getState().ordinal())]);
+
+        // report the arrival to a pending asynchronous request
+        request.responseReceived(this);
     }
 
 }
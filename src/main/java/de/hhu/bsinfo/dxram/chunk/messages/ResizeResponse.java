@@ -71,5 +71,8 @@ public class ResizeResponse extends Response {
     @Override
     protected final void readPayload(final AbstractMessageImporter p_importer) {
         m_chunkStatusCodes = p_importer.readByteArray(m_chunkStatusCodes);
+
+        // report the arrival to a pending asynchronous request
+        ((ResizeRequest) getCorrespondingRequest()).responseReceived(this);
     }
 }
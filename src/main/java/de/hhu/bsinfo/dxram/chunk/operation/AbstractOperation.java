@@ -1,13 +1,19 @@
 package de.hhu.bsinfo.dxram.chunk.operation;
 
+import java.util.concurrent.CompletionException;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import de.hhu.bsinfo.dxmem.data.ChunkState;
+import de.hhu.bsinfo.dxnet.NetworkResponseDelayedException;
 import de.hhu.bsinfo.dxram.backup.BackupComponent;
 import de.hhu.bsinfo.dxram.boot.AbstractBootComponent;
 import de.hhu.bsinfo.dxram.chunk.ChunkComponent;
 import de.hhu.bsinfo.dxram.engine.AbstractDXRAMService;
 import de.hhu.bsinfo.dxram.lookup.LookupComponent;
+import de.hhu.bsinfo.dxram.lookup.LookupRange;
+import de.hhu.bsinfo.dxram.lookup.LookupState;
 import de.hhu.bsinfo.dxram.nameservice.NameserviceComponent;
 import de.hhu.bsinfo.dxram.net.NetworkComponent;
 
@@ -56,4 +62,47 @@ class AbstractOperation {
         m_lookup = p_lookup;
         m_nameservice = p_nameservice;
     }
+
+    /**
+     * Translate an exception of a failed remote operation to the chunk state reported to the user
+     *
+     * @param p_exception
+     *         Exception thrown (or exceptional completion of an asynchronous request)
+     * @return Chunk error state
+     */
+    ChunkState getRemoteErrorState(final Throwable p_exception) {
+        Throwable cause = p_exception;
+
+        if (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+
+        if (m_backup.isActive()) {
+            return ChunkState.DATA_TEMPORARY_UNAVAILABLE;
+        } else if (cause instanceof NetworkResponseDelayedException) {
+            return ChunkState.REMOTE_REQUEST_TIMEOUT;
+        } else {
+            return ChunkState.DATA_LOST;
+        }
+    }
+
+    /**
+     * Resolve the locations of multiple chunks with a single batched lookup. Ranges which are temporarily unavailable
+     * (e.g. during recovery) are looked up again once the responsible superpeer reports them available.
+     *
+     * @param p_chunkIDs
+     *         ChunkIDs to resolve
+     * @return LookupRanges, one entry per ChunkID (same order as p_chunkIDs)
+     */
+    LookupRange[] getLookupRanges(final long[] p_chunkIDs) {
+        LookupRange[] locations = m_lookup.getLookupRanges(p_chunkIDs);
+
+        for (int i = 0; i < locations.length; i++) {
+            if (locations[i] == null || locations[i].getState() == LookupState.DATA_TEMPORARY_UNAVAILABLE) {
+                locations[i] = m_lookup.getAvailableLookupRange(p_chunkIDs[i]);
+            }
+        }
+
+        return locations;
+    }
 }
@@ -1,6 +1,7 @@
 package de.hhu.bsinfo.dxram.chunk.operation;
 
 import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
 
 import de.hhu.bsinfo.dxmem.data.AbstractChunk;
 import de.hhu.bsinfo.dxmem.data.ChunkID;
@@ -177,6 +178,76 @@ public class Create extends AbstractOperation implements MessageReceiver {
         return created;
     }
 
+    /**
+     * Create one or multiple chunks of the same size without blocking the caller if the target node is a remote
+     * node. Chunks on the current node are created synchronously and the returned future is already completed.
+     *
+     * @param p_targetNodeId
+     *         Node id of target remote node to create chunk(s) on
+     * @param p_cids
+     *         Pre-allocated array for the CIDs returned. Must not be accessed until the future is completed
+     * @param p_offset
+     *         Offset in array to start putting the CIDs to
+     * @param p_count
+     *         Number of chunks to allocate
+     * @param p_size
+     *         Size of a single chunk
+     * @param p_consecutive
+     *         True to enforce consecutive CIDs for all chunks to allocate, false might assign non
+     *         consecutive CIDs if available.
+     * @return Future completed with the number of chunks successfully created
+     */
+    public CompletableFuture<Integer> createAsync(final short p_targetNodeId, final long[] p_cids, final int p_offset,
+            final int p_count, final int p_size, final boolean p_consecutive) {
+        m_logger.trace("createAsync[nodeId %X, cids.length %d, offset %d, size %d, count %d, consecutive %b]",
+                p_targetNodeId, p_cids.length, p_offset, p_size, p_count, p_consecutive);
+
+        if (p_targetNodeId == m_boot.getNodeId()) {
+            return CompletableFuture.completedFuture(create(p_targetNodeId, p_cids, p_offset, p_count, p_size,
+                    p_consecutive));
+        }
+
+        NodeRole role = m_boot.getNodeRole(p_targetNodeId);
+
+        if (role == null || role != NodeRole.PEER) {
+            throw new InvalidNodeRoleException(
+                    "Remote node " + NodeID.toHexString(p_targetNodeId) + " does not exist or is not a peer");
+        }
+
+        int[] sizes = new int[p_count];
+        Arrays.fill(sizes, p_size);
+
+        CreateRequest request = new CreateRequest(p_targetNodeId, p_consecutive, sizes);
+
+        return m_network.sendAsync(request).handle((p_response, p_exception) -> {
+            int created;
+
+            if (p_exception == null) {
+                CreateResponse response = (CreateResponse) p_response;
+
+                created = response.getChunkIDs().length;
+
+                System.arraycopy(response.getChunkIDs(), 0, p_cids, p_offset, created);
+
+                // fill up with invalid IDs if not matching requested number
+                for (int i = created; i < p_count; i++) {
+                    p_cids[p_offset + i] = ChunkID.INVALID_ID;
+                }
+            } else {
+                m_logger.error("Sending CreateRequest to peer %s failed: %s", NodeID.toHexString(p_targetNodeId),
+                        p_exception);
+
+                created = 0;
+            }
+
+            if (created < p_count) {
+                SOP_REMOTE_ERROR.add(p_count - created);
+            }
+
+            return created;
+        });
+    }
+
     /**
      * Create one or multiple chunks of the same size
      *
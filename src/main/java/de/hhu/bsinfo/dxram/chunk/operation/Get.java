@@ -1,9 +1,10 @@
 package de.hhu.bsinfo.dxram.chunk.operation;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
 
 import de.hhu.bsinfo.dxmem.data.AbstractChunk;
-import de.hhu.bsinfo.dxmem.data.ChunkByteArray;
 import de.hhu.bsinfo.dxmem.data.ChunkID;
 import de.hhu.bsinfo.dxmem.data.ChunkLockOperation;
 import de.hhu.bsinfo.dxmem.data.ChunkState;
@@ -16,6 +17,7 @@ import de.hhu.bsinfo.dxram.backup.BackupComponent;
 import de.hhu.bsinfo.dxram.boot.AbstractBootComponent;
 import de.hhu.bsinfo.dxram.chunk.ChunkComponent;
 import de.hhu.bsinfo.dxram.chunk.ChunkService;
+import de.hhu.bsinfo.dxram.chunk.data.ChunkReadBuffer;
 import de.hhu.bsinfo.dxram.chunk.messages.ChunkMessages;
 import de.hhu.bsinfo.dxram.chunk.messages.GetMultiRequest;
 import de.hhu.bsinfo.dxram.chunk.messages.GetMultiResponse;
@@ -53,6 +55,8 @@ public class Get extends AbstractOperation implements MessageReceiver {
     private static final ValuePool SOP_INCOMING_ERROR = new ValuePool(ChunkService.class, "GetIncomingError");
     private static final ValuePool SOP_MULTI_INCOMING_ERROR =
             new ValuePool(ChunkService.class, "GetMultiIncomingError");
+    private static final ValuePool SOP_ASYNC = new ValuePool(ChunkService.class, "GetAsync");
+    private static final ValuePool SOP_ASYNC_ERROR = new ValuePool(ChunkService.class, "GetAsyncError");
 
     static {
         StatisticsManager.get().registerOperation(Get.class, SOP_DEFAULT);
@@ -63,6 +67,8 @@ public class Get extends AbstractOperation implements MessageReceiver {
         StatisticsManager.get().registerOperation(Get.class, SOP_MULTI_ERROR);
         StatisticsManager.get().registerOperation(Get.class, SOP_INCOMING_ERROR);
         StatisticsManager.get().registerOperation(Get.class, SOP_MULTI_INCOMING_ERROR);
+        StatisticsManager.get().registerOperation(Get.class, SOP_ASYNC);
+        StatisticsManager.get().registerOperation(Get.class, SOP_ASYNC_ERROR);
     }
 
     // TODO have a max number of threads configuration parameter somewhere in engine settings?
@@ -71,6 +77,8 @@ public class Get extends AbstractOperation implements MessageReceiver {
     private final NodeIDBitfield[] m_threadLocalNodeIDBitfield = new NodeIDBitfield[4096];
     private final ArrayList<GetMultiRequest>[] m_threadLocalPendingRequests = new ArrayList[4096];
 
+    private final ThreadLocal<ChunkReadBuffer> m_threadLocalReadBuffer = ThreadLocal.withInitial(ChunkReadBuffer::new);
+
     /**
      * Constructor
      *
@@ -169,16 +177,7 @@ public class Get extends AbstractOperation implements MessageReceiver {
                     result = true;
                 } else if (p_chunk.getState() == ChunkState.DOES_NOT_EXIST) {
                     // seems like it's not available locally, check remotes for remote chunk or migrated
-                    LookupRange location = m_lookup.getLookupRange(p_chunk.getID());
-
-                    while (location.getState() == LookupState.DATA_TEMPORARY_UNAVAILABLE) {
-                        try {
-                            Thread.sleep(100);
-                        } catch (final InterruptedException ignore) {
-                        }
-
-                        location = m_lookup.getLookupRange(p_chunk.getID());
-                    }
+                    LookupRange location = m_lookup.getAvailableLookupRange(p_chunk.getID());
 
                     if (location.getState() == LookupState.OK) {
                         // currently undefined because we still have to get it from remote
@@ -242,6 +241,148 @@ public class Get extends AbstractOperation implements MessageReceiver {
         return result;
     }
 
+    /**
+     * Get the data for a single chunk without blocking the caller on remote chunks. Local chunks are read
+     * synchronously and the returned future is already completed. For remote chunks, the request is sent and the
+     * future is completed once the response arrived. This allows a single thread to keep many operations in flight.
+     *
+     * @param p_chunk
+     *         Chunk to get. Must not be modified until the future is completed
+     * @return Future completed with true if successful, false on error (check the chunk object state for errors)
+     */
+    public CompletableFuture<Boolean> getAsync(final AbstractChunk p_chunk) {
+        return getAsync(p_chunk, ChunkLockOperation.NONE, -1);
+    }
+
+    /**
+     * Get the data for a single chunk without blocking the caller on remote chunks. Local chunks are read
+     * synchronously and the returned future is already completed. For remote chunks, the request is sent and the
+     * future is completed once the response arrived. If the location is not cached, it is requested from the
+     * responsible superpeer asynchronously as well. Dependent actions are executed on the network's request
+     * completion thread (or the thread reporting an unavailable range available again) and must not block.
+     *
+     * @param p_chunk
+     *         Chunk to get. Must not be modified until the future is completed
+     * @param p_lockOperation
+     *         Lock operation to execute
+     * @param p_lockOperationTimeoutMs
+     *         Timeout for lock operation in ms (-1 for unlimited. Be careful with remote chunks here! This might lead
+     *         to network timeouts instead)
+     * @return Future completed with true if successful, false on error (check the chunk object state for errors)
+     */
+    public CompletableFuture<Boolean> getAsync(final AbstractChunk p_chunk, final ChunkLockOperation p_lockOperation,
+            final int p_lockOperationTimeoutMs) {
+        m_logger.trace("getAsync[chunk %X, lock op %s, lock timeout %d]", p_chunk.getID(), p_lockOperation,
+                p_lockOperationTimeoutMs);
+
+        SOP_ASYNC.inc();
+
+        if (p_chunk.getID() == ChunkID.INVALID_ID) {
+            p_chunk.setState(ChunkState.INVALID_ID);
+            SOP_ASYNC_ERROR.inc();
+
+            return CompletableFuture.completedFuture(false);
+        }
+
+        // try to get locally, will check first if it exists
+        if (m_chunk.isStorageEnabled()) {
+            m_chunk.getMemory().get().get(p_chunk, p_lockOperation, p_lockOperationTimeoutMs);
+        } else {
+            p_chunk.setState(ChunkState.DOES_NOT_EXIST);
+        }
+
+        if (p_chunk.getState() == ChunkState.OK) {
+            return CompletableFuture.completedFuture(true);
+        }
+
+        if (p_chunk.getState() != ChunkState.DOES_NOT_EXIST) {
+            SOP_ASYNC_ERROR.inc();
+
+            return CompletableFuture.completedFuture(false);
+        }
+
+        // seems like it's not available locally, check remotes for remote chunk or migrated. The lookup does not
+        // block the caller on a cache miss
+        return m_lookup.getAvailableLookupRangeAsync(p_chunk.getID())
+                .thenCompose(p_location -> getRemoteAsync(p_location, p_chunk, p_lockOperation,
+                        p_lockOperationTimeoutMs))
+                .exceptionally(p_exception -> {
+                    // unexpected failure of the lookup or the remote operation
+                    p_chunk.setState(ChunkState.DATA_TEMPORARY_UNAVAILABLE);
+                    SOP_ASYNC_ERROR.inc();
+
+                    return false;
+                });
+    }
+
+    /**
+     * Get the data of a single chunk from its current location without blocking the caller
+     *
+     * @param p_location
+     *         Location of the chunk
+     * @param p_chunk
+     *         Chunk to get
+     * @param p_lockOperation
+     *         Lock operation to execute
+     * @param p_lockOperationTimeoutMs
+     *         Timeout for lock operation in ms
+     * @return Future completed with true if successful, false on error
+     */
+    private CompletableFuture<Boolean> getRemoteAsync(final LookupRange p_location, final AbstractChunk p_chunk,
+            final ChunkLockOperation p_lockOperation, final int p_lockOperationTimeoutMs) {
+        if (p_location.getState() == LookupState.OK) {
+            // currently undefined because we still have to get it from remote
+            p_chunk.setState(ChunkState.UNDEFINED);
+
+            short peer = p_location.getPrimaryPeer();
+
+            if (peer == m_boot.getNodeId()) {
+                boolean result = m_chunk.getMemory().get().get(p_chunk, p_lockOperation,
+                        p_lockOperationTimeoutMs);
+
+                if (!result) {
+                    SOP_ASYNC_ERROR.inc();
+                }
+
+                return CompletableFuture.completedFuture(result);
+            }
+
+            // received data is stored to chunk in request instead of copied from response
+            GetRequest request = new GetRequest(peer, p_lockOperation, p_lockOperationTimeoutMs, p_chunk);
+
+            return m_network.sendAsync(request).handle((p_response, p_exception) -> {
+                boolean result;
+
+                if (p_exception == null) {
+                    result = p_chunk.isStateOk();
+
+                    if (!result) {
+                        m_lookup.invalidateRange(p_chunk.getID());
+                    }
+                } else {
+                    p_chunk.setState(getRemoteErrorState(p_exception));
+                    m_lookup.invalidate(p_chunk.getID());
+
+                    result = false;
+                }
+
+                if (!result) {
+                    SOP_ASYNC_ERROR.inc();
+                }
+
+                return result;
+            });
+        } else if (p_location.getState() == LookupState.DOES_NOT_EXIST) {
+            p_chunk.setState(ChunkState.DOES_NOT_EXIST);
+        } else if (p_location.getState() == LookupState.DATA_LOST) {
+            p_chunk.setState(ChunkState.DATA_LOST);
+        }
+
+        SOP_ASYNC_ERROR.inc();
+
+        return CompletableFuture.completedFuture(false);
+    }
+
     /**
      * Get the data of one or multiple chunks
      *
@@ -299,6 +440,10 @@ public class Get extends AbstractOperation implements MessageReceiver {
         ArrayListShort remotes = getThreadLocalRemotesBuffer();
         NodeIDBitfield nodeIDBitfield = getThreadLocalNodeIDBitfield();
 
+        // chunk IDs of all chunks not available locally
+        long[] missingChunkIDs = null;
+        int missingCount = 0;
+
         for (int i = p_offset; i < p_count; i++) {
             // filter null values and skip
             if (p_chunks[i] == null) {
@@ -320,22 +465,37 @@ public class Get extends AbstractOperation implements MessageReceiver {
 
             if (p_chunks[i].getState() == ChunkState.OK) {
                 totalChunksGot++;
-
-                // start at index 0 for location buffer, remote invalid because local
-                remoteLocIndexBuffer.add(i - p_offset, NodeID.INVALID_ID);
             } else if (p_chunks[i].getState() == ChunkState.DOES_NOT_EXIST) {
-                // seems like it's not available locally, check remotes for remote chunk or migrated
-                LookupRange location = m_lookup.getLookupRange(p_chunks[i].getID());
+                if (missingChunkIDs == null) {
+                    missingChunkIDs = new long[p_count - i];
+                }
 
-                while (location.getState() == LookupState.DATA_TEMPORARY_UNAVAILABLE) {
-                    try {
-                        Thread.sleep(100);
-                    } catch (final InterruptedException ignore) {
-                    }
+                missingChunkIDs[missingCount++] = p_chunks[i].getID();
+            } else {
+                throw new IllegalStateException("Unhandled chunk state: " + p_chunks[i].getState());
+            }
+        }
 
-                    location = m_lookup.getLookupRange(p_chunks[i].getID());
-                }
+        // seems like they are not available locally, resolve all remote or migrated chunks with a single lookup
+        LookupRange[] locations = null;
+
+        if (missingCount > 0) {
+            locations = getLookupRanges(Arrays.copyOf(missingChunkIDs, missingCount));
+        }
+
+        int locationIndex = 0;
 
+        for (int i = p_offset; i < p_count; i++) {
+            // skip filtered chunks
+            if (p_chunks[i] == null || p_chunks[i].getState() == ChunkState.INVALID_ID) {
+                continue;
+            }
+
+            if (p_chunks[i].getState() == ChunkState.OK) {
+                // start at index 0 for location buffer, remote invalid because local
+                remoteLocIndexBuffer.add(i - p_offset, NodeID.INVALID_ID);
+            } else {
+                LookupRange location = locations[locationIndex++];
                 short remotePeer;
 
                 if (location.getState() == LookupState.OK) {
@@ -359,8 +519,6 @@ public class Get extends AbstractOperation implements MessageReceiver {
 
                 // start at index 0 for location buffer
                 remoteLocIndexBuffer.add(i - p_offset, remotePeer);
-            } else {
-                throw new IllegalStateException("Unhandled chunk state: " + p_chunks[i].getState());
             }
         }
 
@@ -466,18 +624,19 @@ public class Get extends AbstractOperation implements MessageReceiver {
 
                 boolean successful;
 
-                ChunkByteArray chunk = m_chunk.getMemory().get().get(request.getChunkID(), request.getLockOperation(),
-                        request.getLockOperationTimeoutMs());
+                // read the chunk into a reused buffer which is written to the outgoing buffer on sending
+                ChunkReadBuffer buffer = getThreadLocalReadBuffer();
 
-                successful = chunk.isStateOk();
+                successful = buffer.read(m_chunk.getMemory(), request.getChunkID(), request.getLockOperation(),
+                        request.getLockOperationTimeoutMs());
 
-                GetResponse response = new GetResponse(request, chunk);
+                GetResponse response = new GetResponse(request, buffer);
 
                 try {
                     m_network.sendMessage(response);
                 } catch (final NetworkException e) {
-                    m_logger.error("Sending GetResponse for chunk %s failed: %s", ChunkID.toHexString(chunk.getID()),
-                            e);
+                    m_logger.error("Sending GetResponse for chunk %s failed: %s",
+                            ChunkID.toHexString(request.getChunkID()), e);
 
                     successful = false;
                 }
@@ -496,30 +655,31 @@ public class Get extends AbstractOperation implements MessageReceiver {
 
                 SOP_MULTI_INCOMING.start(request.getChunkIDs().length);
 
-                ChunkByteArray[] chunks = new ChunkByteArray[request.getChunkIDs().length];
+                long[] chunkIDs = request.getChunkIDs();
                 int successfulGets = 0;
 
-                for (int i = 0; i < chunks.length; i++) {
-                    chunks[i] = m_chunk.getMemory().get().get(request.getChunkIDs()[i], request.getLockOperation(),
-                            request.getLockOperationTimeoutMs());
+                // read all chunks into a single reused buffer which is written to the outgoing buffer on sending
+                ChunkReadBuffer buffer = getThreadLocalReadBuffer();
 
-                    if (chunks[i].isStateOk()) {
+                for (long chunkID : chunkIDs) {
+                    if (buffer.read(m_chunk.getMemory(), chunkID, request.getLockOperation(),
+                            request.getLockOperationTimeoutMs())) {
                         successfulGets++;
                     }
                 }
 
-                GetMultiResponse response = new GetMultiResponse(request, chunks);
+                GetMultiResponse response = new GetMultiResponse(request, buffer);
 
                 try {
                     m_network.sendMessage(response);
                 } catch (final NetworkException e) {
-                    m_logger.error("Sending GetMultiResponse for %d chunks failed: %s", chunks.length, e);
+                    m_logger.error("Sending GetMultiResponse for %d chunks failed: %s", chunkIDs.length, e);
 
                     successfulGets = 0;
                 }
 
-                if (successfulGets < chunks.length) {
-                    SOP_MULTI_INCOMING_ERROR.add(chunks.length - successfulGets);
+                if (successfulGets < chunkIDs.length) {
+                    SOP_MULTI_INCOMING_ERROR.add(chunkIDs.length - successfulGets);
                 }
 
                 SOP_MULTI_INCOMING.stop();
@@ -576,4 +736,16 @@ public class Get extends AbstractOperation implements MessageReceiver {
 
         return requests;
     }
+
+    /**
+     * Get a thread local buffer to read chunks for responses to remote requests avoiding allocations
+     *
+     * @return Thread local instance (reset)
+     */
+    private ChunkReadBuffer getThreadLocalReadBuffer() {
+        ChunkReadBuffer buffer = m_threadLocalReadBuffer.get();
+        buffer.reset();
+
+        return buffer;
+    }
 }
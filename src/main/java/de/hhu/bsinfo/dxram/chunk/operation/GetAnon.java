@@ -1,6 +1,7 @@
 package de.hhu.bsinfo.dxram.chunk.operation;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.TreeMap;
 
@@ -16,6 +17,7 @@ import de.hhu.bsinfo.dxram.backup.BackupComponent;
 import de.hhu.bsinfo.dxram.boot.AbstractBootComponent;
 import de.hhu.bsinfo.dxram.chunk.ChunkComponent;
 import de.hhu.bsinfo.dxram.chunk.data.ChunkAnon;
+import de.hhu.bsinfo.dxram.chunk.data.ChunkReadBuffer;
 import de.hhu.bsinfo.dxram.chunk.messages.ChunkMessages;
 import de.hhu.bsinfo.dxram.chunk.messages.GetAnonRequest;
 import de.hhu.bsinfo.dxram.chunk.messages.GetAnonResponse;
@@ -45,6 +47,8 @@ public class GetAnon extends AbstractOperation implements MessageReceiver {
         StatisticsManager.get().registerOperation(ChunkAnon.class, SOP_INCOMING_GET);
     }
 
+    private final ThreadLocal<ChunkReadBuffer> m_threadLocalReadBuffer = ThreadLocal.withInitial(ChunkReadBuffer::new);
+
     /**
      * Constructor
      *
@@ -138,6 +142,9 @@ public class GetAnon extends AbstractOperation implements MessageReceiver {
 
         // sort by local and remote data first
         Map<Short, ArrayList<Integer>> remoteChunkIDsByPeers = new TreeMap<>();
+        long[] missingChunkIDs = null;
+        int[] missingIndexes = null;
+        int missingCount = 0;
 
         for (int i = 0; i < p_count; i++) {
             // try to get locally, will check first if it exists and
@@ -150,32 +157,34 @@ public class GetAnon extends AbstractOperation implements MessageReceiver {
                 p_retChunks[i].setState(ChunkState.OK);
                 numChunks++;
             } else {
-                // remote or migrated, figure out location and sort by peers
-                LookupRange lookupRange;
-
-                lookupRange = m_lookup.getLookupRange(p_cids[p_offset + i]);
-
-                while (lookupRange.getState() == LookupState.DATA_TEMPORARY_UNAVAILABLE) {
-                    try {
-                        Thread.sleep(100);
-                    } catch (final InterruptedException ignore) {
-                    }
-
-                    lookupRange = m_lookup.getLookupRange(p_cids[p_offset + i]);
+                if (missingChunkIDs == null) {
+                    missingChunkIDs = new long[p_count - i];
+                    missingIndexes = new int[p_count - i];
                 }
 
-                if (lookupRange.getState() == LookupState.OK) {
-                    short peer = lookupRange.getPrimaryPeer();
+                missingChunkIDs[missingCount] = p_cids[p_offset + i];
+                // Add the index in ChunkID array not the ChunkID itself
+                missingIndexes[missingCount++] = p_offset + i;
+            }
+        }
 
+        if (missingCount > 0) {
+            // remote or migrated, figure out locations with a single lookup and sort by peers
+            LookupRange[] locations = getLookupRanges(Arrays.copyOf(missingChunkIDs, missingCount));
+
+            for (int i = 0; i < missingCount; i++) {
+                if (locations[i].getState() == LookupState.OK) {
                     ArrayList<Integer> remoteChunkIDsOfPeer =
-                            remoteChunkIDsByPeers.computeIfAbsent(peer, a -> new ArrayList<>());
-                    // Add the index in ChunkID array not the ChunkID itself
-                    remoteChunkIDsOfPeer.add(p_offset + i);
+                            remoteChunkIDsByPeers.computeIfAbsent(locations[i].getPrimaryPeer(),
+                                    a -> new ArrayList<>());
+                    remoteChunkIDsOfPeer.add(missingIndexes[i]);
                 }
             }
         }
 
-        // go for remote ones by each peer
+        ArrayList<GetAnonRequest> pendingRequests = new ArrayList<>(remoteChunkIDsByPeers.size());
+
+        // go for remote ones by each peer, send all requests before waiting for any response
         for (final Map.Entry<Short, ArrayList<Integer>> peerWithChunks : remoteChunkIDsByPeers.entrySet()) {
             short peer = peerWithChunks.getKey();
             ArrayList<Integer> remoteChunkIDIndexes = peerWithChunks.getValue();
@@ -185,9 +194,12 @@ public class GetAnon extends AbstractOperation implements MessageReceiver {
                 for (final int index : remoteChunkIDIndexes) {
                     ChunkByteArray data = m_chunk.getMemory().get().get(p_cids[index], ChunkLockOperation.NONE, -1);
 
-                    p_retChunks[numChunks] = new ChunkAnon(p_cids[index], data.getData());
-                    p_retChunks[numChunks].setState(ChunkState.OK);
-                    numChunks++;
+                    p_retChunks[index] = new ChunkAnon(p_cids[index], data.getData());
+                    p_retChunks[index].setState(data.getState());
+
+                    if (data.isStateOk()) {
+                        numChunks++;
+                    }
                 }
             } else {
                 // Remote get from specified peer
@@ -202,16 +214,12 @@ public class GetAnon extends AbstractOperation implements MessageReceiver {
                 GetAnonRequest request = new GetAnonRequest(peer, p_lockOperation, p_lockOperationTimeoutMs, chunks);
 
                 try {
-                    m_network.sendSync(request);
+                    m_network.sendSync(request, false);
                 } catch (final NetworkException e) {
-                    if (m_backup.isActive()) {
-                        for (ChunkAnon chunk : chunks) {
-                            chunk.setState(ChunkState.DATA_TEMPORARY_UNAVAILABLE);
-                        }
-                    } else {
-                        for (ChunkAnon chunk : chunks) {
-                            chunk.setState(ChunkState.DATA_LOST);
-                        }
+                    ChunkState errorState = getRemoteErrorState(e);
+
+                    for (ChunkAnon chunk : chunks) {
+                        chunk.setState(errorState);
                     }
 
                     m_logger.error("Sending chunk get request to peer 0x%X failed: %s", peer, e);
@@ -219,11 +227,34 @@ public class GetAnon extends AbstractOperation implements MessageReceiver {
                     continue;
                 }
 
-                // check chunk status written to chunk
-                for (ChunkAnon chunk : chunks) {
-                    if (chunk.isStateOk()) {
-                        numChunks++;
-                    }
+                pendingRequests.add(request);
+            }
+        }
+
+        // collect responses
+        for (GetAnonRequest request : pendingRequests) {
+            try {
+                request.waitForResponse(m_network.getRequestTimeoutMs());
+            } catch (final NetworkException e) {
+                m_network.cancelRequest(request);
+
+                ChunkState errorState = getRemoteErrorState(e);
+
+                for (ChunkAnon chunk : request.getChunks()) {
+                    chunk.setState(errorState);
+                    m_lookup.invalidate(chunk.getID());
+                }
+
+                m_logger.error("Waiting for chunk get response of peer 0x%X failed: %s", request.getDestination(),
+                        e);
+
+                continue;
+            }
+
+            // check chunk status written to chunk
+            for (ChunkAnon chunk : request.getChunks()) {
+                if (chunk.isStateOk()) {
+                    numChunks++;
                 }
             }
         }
@@ -240,15 +271,17 @@ public class GetAnon extends AbstractOperation implements MessageReceiver {
             GetAnonRequest request = (GetAnonRequest) p_message;
 
             long[] chunkIDs = request.getChunkIDs();
-            ChunkByteArray[] chunks = new ChunkByteArray[chunkIDs.length];
 
             SOP_INCOMING_GET.start(request.getChunkIDs().length);
 
-            for (int i = 0; i < chunks.length; i++) {
-                chunks[i] = m_chunk.getMemory().get().get(chunkIDs[i], ChunkLockOperation.NONE, -1);
+            // read all chunks into a single reused buffer which is written to the outgoing buffer on sending
+            ChunkReadBuffer buffer = getThreadLocalReadBuffer();
+
+            for (long chunkID : chunkIDs) {
+                buffer.read(m_chunk.getMemory(), chunkID, ChunkLockOperation.NONE, -1);
             }
 
-            GetAnonResponse response = new GetAnonResponse(request, chunks);
+            GetAnonResponse response = new GetAnonResponse(request, buffer);
 
             try {
                 m_network.sendMessage(response);
@@ -259,4 +292,16 @@ public class GetAnon extends AbstractOperation implements MessageReceiver {
             SOP_INCOMING_GET.stop();
         }
     }
+
+    /**
+     * Get a thread local buffer to read chunks for responses to remote requests avoiding allocations
+     *
+     * @return Thread local instance (reset)
+     */
+    private ChunkReadBuffer getThreadLocalReadBuffer() {
+        ChunkReadBuffer buffer = m_threadLocalReadBuffer.get();
+        buffer.reset();
+
+        return buffer;
+    }
 }
@@ -3,6 +3,7 @@ package de.hhu.bsinfo.dxram.chunk.operation;
 import java.util.ArrayList;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
 
 import de.hhu.bsinfo.dxmem.data.AbstractChunk;
 import de.hhu.bsinfo.dxmem.data.ChunkID;
@@ -153,16 +154,7 @@ public class Lock extends AbstractOperation implements MessageReceiver {
                 totalChunks++;
             } else if (p_chunks[i].getState() == ChunkState.DOES_NOT_EXIST) {
                 // seems like it's not available locally, check remotes for remote chunk or migrated
-                LookupRange location = m_lookup.getLookupRange(p_chunks[i].getID());
-
-                while (location.getState() == LookupState.DATA_TEMPORARY_UNAVAILABLE) {
-                    try {
-                        Thread.sleep(100);
-                    } catch (final InterruptedException ignore) {
-                    }
-
-                    location = m_lookup.getLookupRange(p_chunks[i].getID());
-                }
+                LookupRange location = m_lookup.getAvailableLookupRange(p_chunks[i].getID());
 
                 if (location.getState() == LookupState.OK) {
                     // currently undefined because we still have to get it from remote
@@ -252,6 +244,118 @@ public class Lock extends AbstractOperation implements MessageReceiver {
         return totalChunks;
     }
 
+    /**
+     * Lock or unlock a single chunk without blocking the caller if the chunk is stored on a remote node. Local
+     * chunks are locked synchronously and the returned future is already completed.
+     *
+     * @param p_lock
+     *         True to lock, false to unlock
+     * @param p_writeLock
+     *         True for write lock, false for read lock
+     * @param p_lockTimeoutMs
+     *         Timeout for lock operation in ms (-1 for unlimited. Be careful with remote chunks here! This might lead
+     *         to network timeouts instead)
+     * @param p_chunk
+     *         Chunk to lock. Must not be modified until the future is completed
+     * @return Future completed with true if successful, false on error (check the chunk object state for errors)
+     */
+    public CompletableFuture<Boolean> lockAsync(final boolean p_lock, final boolean p_writeLock,
+            final int p_lockTimeoutMs, final AbstractChunk p_chunk) {
+        m_logger.trace("lockAsync[lock %b, writeLock %b, timeout %d, chunk %X]", p_lock, p_writeLock,
+                p_lockTimeoutMs, p_chunk.getID());
+
+        if (p_chunk.getID() == ChunkID.INVALID_ID) {
+            p_chunk.setState(ChunkState.INVALID_ID);
+            SOP_ERROR.inc();
+
+            return CompletableFuture.completedFuture(false);
+        }
+
+        // try locally
+        if (p_lock) {
+            m_chunk.getMemory().lock().lock(p_chunk, p_writeLock, p_lockTimeoutMs);
+        } else {
+            m_chunk.getMemory().lock().unlock(p_chunk, p_writeLock);
+        }
+
+        if (p_chunk.getState() == ChunkState.OK) {
+            return CompletableFuture.completedFuture(true);
+        }
+
+        if (p_chunk.getState() != ChunkState.DOES_NOT_EXIST) {
+            SOP_ERROR.inc();
+
+            return CompletableFuture.completedFuture(false);
+        }
+
+        // seems like it's not available locally, check remotes for remote chunk or migrated. The lookup does not
+        // block the caller on a cache miss
+        return m_lookup.getAvailableLookupRangeAsync(p_chunk.getID())
+                .thenCompose(p_location -> lockRemoteAsync(p_location, p_lock, p_writeLock, p_lockTimeoutMs, p_chunk))
+                .exceptionally(p_exception -> {
+                    // unexpected failure of the lookup or the remote operation
+                    p_chunk.setState(ChunkState.DATA_TEMPORARY_UNAVAILABLE);
+                    SOP_ERROR.inc();
+
+                    return false;
+                });
+    }
+
+    /**
+     * Lock or unlock a single chunk at its current location without blocking the caller
+     *
+     * @param p_location
+     *         Location of the chunk
+     * @param p_lock
+     *         True to lock, false to unlock
+     * @param p_writeLock
+     *         True for write lock, false for read lock
+     * @param p_lockTimeoutMs
+     *         Timeout for lock operation in ms
+     * @param p_chunk
+     *         Chunk to lock
+     * @return Future completed with true if successful, false on error
+     */
+    private CompletableFuture<Boolean> lockRemoteAsync(final LookupRange p_location, final boolean p_lock,
+            final boolean p_writeLock, final int p_lockTimeoutMs, final AbstractChunk p_chunk) {
+        if (p_location.getState() == LookupState.OK && p_location.getPrimaryPeer() != m_boot.getNodeId()) {
+            // currently undefined because we still have to lock it on the remote
+            p_chunk.setState(ChunkState.UNDEFINED);
+
+            LockRequest request = new LockRequest(p_location.getPrimaryPeer(), p_lock, p_writeLock,
+                    p_lockTimeoutMs, p_chunk);
+
+            return m_network.sendAsync(request).handle((p_response, p_exception) -> {
+                if (p_exception == null) {
+                    LockResponse response = (LockResponse) p_response;
+
+                    p_chunk.setState(ChunkState.values()[response.getStatusCodes()[0]]);
+
+                    if (!p_chunk.isStateOk()) {
+                        m_lookup.invalidateRange(p_chunk.getID());
+                    }
+                } else {
+                    p_chunk.setState(getRemoteErrorState(p_exception));
+                    m_lookup.invalidate(p_chunk.getID());
+                }
+
+                if (!p_chunk.isStateOk()) {
+                    SOP_ERROR.inc();
+                }
+
+                return p_chunk.isStateOk();
+            });
+        } else if (p_location.getState() == LookupState.DOES_NOT_EXIST) {
+            p_chunk.setState(ChunkState.DOES_NOT_EXIST);
+        } else if (p_location.getState() == LookupState.DATA_LOST) {
+            p_chunk.setState(ChunkState.DATA_LOST);
+        }
+
+        SOP_ERROR.inc();
+
+        return CompletableFuture.completedFuture(false);
+    }
+
     @Override
     public void onIncomingMessage(final Message p_message) {
         if (p_message.getType() == DXRAMMessageTypes.CHUNK_MESSAGES_TYPE &&
@@ -1,8 +1,11 @@
 package de.hhu.bsinfo.dxram.chunk.operation;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
 
 import de.hhu.bsinfo.dxmem.data.AbstractChunk;
+import de.hhu.bsinfo.dxmem.data.ChunkByteArray;
 import de.hhu.bsinfo.dxmem.data.ChunkID;
 import de.hhu.bsinfo.dxmem.data.ChunkLockOperation;
 import de.hhu.bsinfo.dxmem.data.ChunkState;
@@ -12,7 +15,6 @@ import de.hhu.bsinfo.dxnet.core.Message;
 import de.hhu.bsinfo.dxnet.core.NetworkException;
 import de.hhu.bsinfo.dxram.DXRAMMessageTypes;
 import de.hhu.bsinfo.dxram.backup.BackupComponent;
-import de.hhu.bsinfo.dxram.backup.BackupRange;
 import de.hhu.bsinfo.dxram.boot.AbstractBootComponent;
 import de.hhu.bsinfo.dxram.chunk.ChunkComponent;
 import de.hhu.bsinfo.dxram.chunk.ChunkService;
@@ -53,6 +55,8 @@ public class Put extends AbstractOperation implements MessageReceiver {
     private static final ValuePool SOP_INCOMING_ERROR = new ValuePool(ChunkService.class, "GetIncomingError");
     private static final ValuePool SOP_MULTI_INCOMING_ERROR =
             new ValuePool(ChunkService.class, "GetMultiIncomingError");
+    private static final ValuePool SOP_ASYNC = new ValuePool(ChunkService.class, "PutAsync");
+    private static final ValuePool SOP_ASYNC_ERROR = new ValuePool(ChunkService.class, "PutAsyncError");
 
     static {
         StatisticsManager.get().registerOperation(Get.class, SOP_DEFAULT);
@@ -63,6 +67,8 @@ public class Put extends AbstractOperation implements MessageReceiver {
         StatisticsManager.get().registerOperation(Get.class, SOP_MULTI_ERROR);
         StatisticsManager.get().registerOperation(Get.class, SOP_INCOMING_ERROR);
         StatisticsManager.get().registerOperation(Get.class, SOP_MULTI_INCOMING_ERROR);
+        StatisticsManager.get().registerOperation(Put.class, SOP_ASYNC);
+        StatisticsManager.get().registerOperation(Put.class, SOP_ASYNC_ERROR);
     }
 
     // TODO have a max number of threads configuration parameter somewhere in engine settings?
@@ -167,19 +173,16 @@ public class Put extends AbstractOperation implements MessageReceiver {
                 }
 
                 if (p_chunk.getState() == ChunkState.OK) {
-                    result = true;
+                    if (m_backup.isActive()) {
+                        // wait for the backup peers' acknowledgements or for space in the full replication buffers.
+                        // The chunk state is set to REMOTE_REQUEST_TIMEOUT if it was not acknowledged
+                        result = m_backup.replicate(p_chunk).join() == 0;
+                    } else {
+                        result = true;
+                    }
                 } else if (p_chunk.getState() == ChunkState.DOES_NOT_EXIST) {
                     // seems like it's not available locally, check remotes for remote chunk or migrated
-                    LookupRange location = m_lookup.getLookupRange(p_chunk.getID());
-
-                    while (location.getState() == LookupState.DATA_TEMPORARY_UNAVAILABLE) {
-                        try {
-                            Thread.sleep(100);
-                        } catch (final InterruptedException ignore) {
-                        }
-
-                        location = m_lookup.getLookupRange(p_chunk.getID());
-                    }
+                    LookupRange location = m_lookup.getAvailableLookupRange(p_chunk.getID());
 
                     if (location.getState() == LookupState.OK) {
                         // currently undefined because we still have to get it from remote
@@ -243,6 +246,161 @@ public class Put extends AbstractOperation implements MessageReceiver {
         return result;
     }
 
+    /**
+     * Put the data for a single chunk without blocking the caller on remote chunks. Local chunks are written
+     * synchronously and the returned future is completed once they are replicated (already completed without
+     * acknowledgements from the backup peers). For remote chunks, the request is sent and the
+     * future is completed once the response arrived. This allows a single thread to keep many operations in flight.
+     *
+     * @param p_chunk
+     *         Chunk to put. Must not be modified until the future is completed
+     * @return Future completed with true if successful, false on error (check the chunk object state for errors)
+     */
+    public CompletableFuture<Boolean> putAsync(final AbstractChunk p_chunk) {
+        return putAsync(p_chunk, ChunkLockOperation.NONE, -1);
+    }
+
+    /**
+     * Put the data for a single chunk without blocking the caller on remote chunks. Local chunks are written
+     * synchronously and the returned future is completed once they are replicated (already completed without
+     * acknowledgements from the backup peers). For remote chunks, the request is sent and the
+     * future is completed once the response arrived. If the location is not cached, it is requested from the
+     * responsible superpeer asynchronously as well. Dependent actions are executed on the network's request
+     * completion thread (or the thread reporting an unavailable range available again) and must not block.
+     *
+     * @param p_chunk
+     *         Chunk to put. Must not be modified until the future is completed
+     * @param p_lockOperation
+     *         Lock operation to execute
+     * @param p_lockOperationTimeoutMs
+     *         Timeout for lock operation in ms (-1 for unlimited. Be careful with remote chunks here! This might lead
+     *         to network timeouts instead)
+     * @return Future completed with true if successful, false on error (check the chunk object state for errors)
+     */
+    public CompletableFuture<Boolean> putAsync(final AbstractChunk p_chunk, final ChunkLockOperation p_lockOperation,
+            final int p_lockOperationTimeoutMs) {
+        m_logger.trace("putAsync[chunk %X, lock op %s, lock timeout %d]", p_chunk.getID(), p_lockOperation,
+                p_lockOperationTimeoutMs);
+
+        SOP_ASYNC.inc();
+
+        if (p_chunk.getID() == ChunkID.INVALID_ID) {
+            p_chunk.setState(ChunkState.INVALID_ID);
+            SOP_ASYNC_ERROR.inc();
+
+            return CompletableFuture.completedFuture(false);
+        }
+
+        // try to put locally, will check first if it exists
+        if (m_chunk.isStorageEnabled()) {
+            m_chunk.getMemory().put().put(p_chunk, p_lockOperation, p_lockOperationTimeoutMs);
+        } else {
+            p_chunk.setState(ChunkState.DOES_NOT_EXIST);
+        }
+
+        if (p_chunk.getState() == ChunkState.OK) {
+            if (m_backup.isActive()) {
+                // the chunk state is set to REMOTE_REQUEST_TIMEOUT if it was not acknowledged
+                return m_backup.replicate(p_chunk).thenApply(p_notReplicated -> {
+                    if (p_notReplicated > 0) {
+                        SOP_ASYNC_ERROR.inc();
+                    }
+
+                    return p_notReplicated == 0;
+                });
+            }
+
+            return CompletableFuture.completedFuture(true);
+        }
+
+        if (p_chunk.getState() != ChunkState.DOES_NOT_EXIST) {
+            SOP_ASYNC_ERROR.inc();
+
+            return CompletableFuture.completedFuture(false);
+        }
+
+        // seems like it's not available locally, check remotes for remote chunk or migrated. The lookup does not
+        // block the caller on a cache miss
+        return m_lookup.getAvailableLookupRangeAsync(p_chunk.getID())
+                .thenCompose(p_location -> putRemoteAsync(p_location, p_chunk, p_lockOperation,
+                        p_lockOperationTimeoutMs))
+                .exceptionally(p_exception -> {
+                    // unexpected failure of the lookup or the remote operation
+                    p_chunk.setState(ChunkState.DATA_TEMPORARY_UNAVAILABLE);
+                    SOP_ASYNC_ERROR.inc();
+
+                    return false;
+                });
+    }
+
+    /**
+     * Put the data of a single chunk to its current location without blocking the caller
+     *
+     * @param p_location
+     *         Location of the chunk
+     * @param p_chunk
+     *         Chunk to put
+     * @param p_lockOperation
+     *         Lock operation to execute
+     * @param p_lockOperationTimeoutMs
+     *         Timeout for lock operation in ms
+     * @return Future completed with true if successful, false on error
+     */
+    private CompletableFuture<Boolean> putRemoteAsync(final LookupRange p_location, final AbstractChunk p_chunk,
+            final ChunkLockOperation p_lockOperation, final int p_lockOperationTimeoutMs) {
+        if (p_location.getState() == LookupState.OK) {
+            // currently undefined because we still have to put it to the remote
+            p_chunk.setState(ChunkState.UNDEFINED);
+
+            short peer = p_location.getPrimaryPeer();
+
+            if (peer == m_boot.getNodeId()) {
+                boolean result = m_chunk.getMemory().put().put(p_chunk, p_lockOperation,
+                        p_lockOperationTimeoutMs);
+
+                if (!result) {
+                    SOP_ASYNC_ERROR.inc();
+                }
+
+                return CompletableFuture.completedFuture(result);
+            }
+
+            // the state of the chunk is updated when receiving the response
+            PutRequest request = new PutRequest(peer, p_lockOperation, p_lockOperationTimeoutMs, p_chunk);
+
+            return m_network.sendAsync(request).handle((p_response, p_exception) -> {
+                boolean result;
+
+                if (p_exception == null) {
+                    result = p_chunk.isStateOk();
+
+                    if (!result) {
+                        m_lookup.invalidateRange(p_chunk.getID());
+                    }
+                } else {
+                    p_chunk.setState(getRemoteErrorState(p_exception));
+                    m_lookup.invalidate(p_chunk.getID());
+
+                    result = false;
+                }
+
+                if (!result) {
+                    SOP_ASYNC_ERROR.inc();
+                }
+
+                return result;
+            });
+        } else if (p_location.getState() == LookupState.DOES_NOT_EXIST) {
+            p_chunk.setState(ChunkState.DOES_NOT_EXIST);
+        } else if (p_location.getState() == LookupState.DATA_LOST) {
+            p_chunk.setState(ChunkState.DATA_LOST);
+        }
+
+        SOP_ASYNC_ERROR.inc();
+
+        return CompletableFuture.completedFuture(false);
+    }
+
     /**
      * Put the data of one or multiple chunks
      *
@@ -301,6 +459,10 @@ public class Put extends AbstractOperation implements MessageReceiver {
         ArrayListShort remotes = getThreadLocalRemotesBuffer();
         NodeIDBitfield nodeIDBitfield = getThreadLocalNodeIDBitfield();
 
+        // chunk IDs of all chunks not available locally
+        long[] missingChunkIDs = null;
+        int missingCount = 0;
+
         for (int i = p_offset; i < p_count; i++) {
             // filter null values and skip
             if (p_chunks[i] == null) {
@@ -322,26 +484,49 @@ public class Put extends AbstractOperation implements MessageReceiver {
 
             if (p_chunks[i].getState() == ChunkState.OK) {
                 totalChunksGot++;
-
-                // start at index 0 for location buffer, remote invalid because local
-                remoteLocIndexBuffer.add(i - p_offset, NodeID.INVALID_ID);
             } else if (p_chunks[i].getState() == ChunkState.DOES_NOT_EXIST) {
-                // seems like it's not available locally, check remotes for remote chunk or migrated
-                LookupRange location = m_lookup.getLookupRange(p_chunks[i].getID());
+                if (missingChunkIDs == null) {
+                    missingChunkIDs = new long[p_count - i];
+                }
 
-                while (location.getState() == LookupState.DATA_TEMPORARY_UNAVAILABLE) {
-                    try {
-                        Thread.sleep(100);
-                    } catch (final InterruptedException ignore) {
-                    }
+                missingChunkIDs[missingCount++] = p_chunks[i].getID();
+            } else {
+                throw new IllegalStateException("Unhandled chunk state: " + p_chunks[i].getState());
+            }
+        }
 
-                    location = m_lookup.getLookupRange(p_chunks[i].getID());
-                }
+        CompletableFuture<Integer> replicated = null;
 
+        if (m_backup.isActive() && totalChunksGot > 0) {
+            // only the local chunks are in state OK at this point, remote ones are replicated by their owners. The
+            // remote chunks are put while the local ones are replicated
+            replicated = m_backup.replicate(p_offset, p_count - p_offset, p_chunks);
+        }
+
+        // seems like they are not available locally, resolve all remote or migrated chunks with a single lookup
+        LookupRange[] locations = null;
+
+        if (missingCount > 0) {
+            locations = getLookupRanges(Arrays.copyOf(missingChunkIDs, missingCount));
+        }
+
+        int locationIndex = 0;
+
+        for (int i = p_offset; i < p_count; i++) {
+            // skip filtered chunks
+            if (p_chunks[i] == null || p_chunks[i].getState() == ChunkState.INVALID_ID) {
+                continue;
+            }
+
+            if (p_chunks[i].getState() == ChunkState.OK) {
+                // start at index 0 for location buffer, remote invalid because local
+                remoteLocIndexBuffer.add(i - p_offset, NodeID.INVALID_ID);
+            } else {
+                LookupRange location = locations[locationIndex++];
                 short remotePeer;
 
                 if (location.getState() == LookupState.OK) {
-                    // currently undefined because we still have to get it from remote
+                    // currently undefined because we still have to put it to remote
                     p_chunks[i].setState(ChunkState.UNDEFINED);
 
                     remotePeer = location.getPrimaryPeer();
@@ -361,8 +546,6 @@ public class Put extends AbstractOperation implements MessageReceiver {
 
                 // start at index 0 for location buffer
                 remoteLocIndexBuffer.add(i - p_offset, remotePeer);
-            } else {
-                throw new IllegalStateException("Unhandled chunk state: " + p_chunks[i].getState());
             }
         }
 
@@ -444,6 +627,12 @@ public class Put extends AbstractOperation implements MessageReceiver {
         remotes.clear();
         remoteLocIndexBuffer.clear();
 
+        if (replicated != null) {
+            // wait for the backup peers' acknowledgements or for space in the full replication buffers. Chunks not
+            // acknowledged are in state REMOTE_REQUEST_TIMEOUT
+            failures += replicated.join();
+        }
+
         totalChunksGot = p_count - failures;
 
         if (totalChunksGot < p_count) {
@@ -478,23 +667,30 @@ public class Put extends AbstractOperation implements MessageReceiver {
                 statusChunks = (byte) state.ordinal();
                 successful = state == ChunkState.OK;
 
-                if (successful) {
-                    if (m_backup.isActive()) {
-                        // sort by backup peers
-                        BackupRange backupRange = m_backup.getBackupRange(chunkID);
-                        // TODO backup?
-                    }
-                }
+                if (successful && m_backup.isActive()) {
+                    ChunkByteArray chunk = new ChunkByteArray(chunkID, data);
+                    chunk.setState(ChunkState.OK);
 
-                // send response to remote
-                PutResponse response = new PutResponse(request, statusChunks);
+                    // respond once the chunk is replicated without blocking the handler thread. The remote sender
+                    // waits for the response which applies the back-pressure. The response is sent on every outcome
+                    m_backup.replicate(chunk).whenComplete((p_notReplicated, p_exception) -> {
+                        if (p_exception != null) {
+                            m_logger.error("Replicating chunk 0x%X failed: %s", chunkID, p_exception);
+                            chunk.setState(ChunkState.REMOTE_REQUEST_TIMEOUT);
+                        }
 
-                try {
-                    m_network.sendMessage(response);
-                } catch (final NetworkException e) {
-                    m_logger.error("Sending PutResponse to request %s failed: %s", request, e);
+                        boolean replicated = chunk.getState() == ChunkState.OK;
 
-                    successful = false;
+                        if (!replicated) {
+                            SOP_INCOMING_ERROR.inc();
+                        }
+
+                        sendResponse(new PutResponse(request, (byte) chunk.getState().ordinal()), SOP_INCOMING_ERROR,
+                                replicated ? 1 : 0);
+                    });
+                } else {
+                    // send response to remote
+                    sendResponse(new PutResponse(request, statusChunks), SOP_INCOMING_ERROR, successful ? 1 : 0);
                 }
 
                 if (!successful) {
@@ -526,14 +722,43 @@ public class Put extends AbstractOperation implements MessageReceiver {
                     }
                 }
 
-                PutMultiResponse response = new PutMultiResponse(request, chunkStates);
+                if (successfulPuts > 0 && m_backup.isActive()) {
+                    ChunkByteArray[] chunks = new ChunkByteArray[chunkStates.length];
 
-                try {
-                    m_network.sendMessage(response);
-                } catch (final NetworkException e) {
-                    m_logger.error("Sending PutMultiResponse for %d chunks failed: %s", chunkStates.length, e);
+                    for (int i = 0; i < chunkStates.length; i++) {
+                        if (chunkStates[i] == ChunkState.OK.ordinal()) {
+                            chunks[i] = new ChunkByteArray(request.getChunkIDs()[i], request.getChunkData()[i]);
+                            chunks[i].setState(ChunkState.OK);
+                        }
+                    }
+
+                    int puts = successfulPuts;
 
-                    successfulPuts = 0;
+                    // respond once the chunks are replicated without blocking the handler thread. The response is
+                    // sent on every outcome and reports the chunks which were not acknowledged by the backup peers
+                    m_backup.replicate(0, chunks.length, chunks).whenComplete((p_notReplicated, p_exception) -> {
+                        int notReplicated = p_exception == null ? p_notReplicated : puts;
+
+                        if (p_exception != null) {
+                            m_logger.error("Replicating %d chunks failed: %s", puts, p_exception);
+                        }
+
+                        for (int i = 0; i < chunks.length; i++) {
+                            if (chunks[i] != null && (p_exception != null || !chunks[i].isStateOk())) {
+                                chunkStates[i] = (byte) ChunkState.REMOTE_REQUEST_TIMEOUT.ordinal();
+                            }
+                        }
+
+                        if (notReplicated > 0) {
+                            SOP_MULTI_INCOMING_ERROR.add(notReplicated);
+                        }
+
+                        sendResponse(new PutMultiResponse(request, chunkStates), SOP_MULTI_INCOMING_ERROR,
+                                puts - notReplicated);
+                    });
+                } else {
+                    sendResponse(new PutMultiResponse(request, chunkStates), SOP_MULTI_INCOMING_ERROR,
+                            successfulPuts);
                 }
 
                 if (successfulPuts < chunkStates.length) {
@@ -545,6 +770,27 @@ public class Put extends AbstractOperation implements MessageReceiver {
         }
     }
 
+    /**
+     * Send a response to an incoming put request. Called on the handler thread or, if the put chunks are replicated
+     * with acknowledgements, on the thread completing the replication
+     *
+     * @param p_response
+     *         the response
+     * @param p_errors
+     *         the error statistics
+     * @param p_successfulPuts
+     *         the number of successful puts, counted as errors if sending fails
+     */
+    private void sendResponse(final Message p_response, final ValuePool p_errors, final int p_successfulPuts) {
+        try {
+            m_network.sendMessage(p_response);
+        } catch (final NetworkException e) {
+            m_logger.error("Sending %s failed: %s", p_response, e);
+
+            p_errors.add(p_successfulPuts);
+        }
+    }
+
     /**
      * Get a thread local instance avoiding allocations
      *
@@ -1,6 +1,8 @@
 package de.hhu.bsinfo.dxram.chunk.operation;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.TreeMap;
 
@@ -135,6 +137,11 @@ public class PutAnon extends AbstractOperation implements MessageReceiver {
         Map<Short, ArrayList<ChunkAnon>> remoteChunksByPeers = new TreeMap<>();
         Map<BackupRange, ArrayList<ChunkAnon>> remoteChunksByBackupRange = new TreeMap<>();
 
+        // chunks not available locally
+        ChunkAnon[] missingChunks = null;
+        long[] missingChunkIDs = null;
+        int missingCount = 0;
+
         // sort by local/remote chunks
         for (int i = 0; i < p_count; i++) {
             // filter null values
@@ -155,35 +162,42 @@ public class PutAnon extends AbstractOperation implements MessageReceiver {
                     remoteChunksOfBackupRange.add(p_chunks[i + p_offset]);
                 }
             } else {
-                // remote or migrated, figure out location and sort by peers
-                LookupRange location = m_lookup.getLookupRange(p_chunks[i + p_offset].getID());
+                if (missingChunks == null) {
+                    missingChunks = new ChunkAnon[p_count - i];
+                    missingChunkIDs = new long[p_count - i];
+                }
 
-                while (location.getState() == LookupState.DATA_TEMPORARY_UNAVAILABLE) {
-                    try {
-                        Thread.sleep(100);
-                    } catch (final InterruptedException ignore) {
-                    }
+                missingChunks[missingCount] = p_chunks[i + p_offset];
+                missingChunkIDs[missingCount++] = p_chunks[i + p_offset].getID();
+            }
+        }
 
-                    location = m_lookup.getLookupRange(p_chunks[i + p_offset].getID());
-                }
+        if (missingCount > 0) {
+            // remote or migrated, figure out locations with a single lookup and sort by peers
+            LookupRange[] locations = getLookupRanges(Arrays.copyOf(missingChunkIDs, missingCount));
+
+            for (int i = 0; i < missingCount; i++) {
+                LookupRange location = locations[i];
 
                 if (location.getState() == LookupState.OK) {
-                    // currently undefined because we still have to get it from remote
-                    p_chunks[i + p_offset].setState(ChunkState.UNDEFINED);
+                    // currently undefined because we still have to put it to the remote
+                    missingChunks[i].setState(ChunkState.UNDEFINED);
                     short peer = location.getPrimaryPeer();
 
                     ArrayList<ChunkAnon> remoteChunksOfPeer =
                             remoteChunksByPeers.computeIfAbsent(peer, a -> new ArrayList<>());
-                    remoteChunksOfPeer.add(p_chunks[i + p_offset]);
+                    remoteChunksOfPeer.add(missingChunks[i]);
                 } else if (location.getState() == LookupState.DOES_NOT_EXIST) {
-                    p_chunks[i + p_offset].setState(ChunkState.DOES_NOT_EXIST);
+                    missingChunks[i].setState(ChunkState.DOES_NOT_EXIST);
                 } else if (location.getState() == LookupState.DATA_LOST) {
-                    p_chunks[i + p_offset].setState(ChunkState.DATA_LOST);
+                    missingChunks[i].setState(ChunkState.DATA_LOST);
                 }
             }
         }
 
-        // go for remote chunks
+        Map<PutAnonRequest, ArrayList<ChunkAnon>> pendingRequests = new HashMap<>();
+
+        // go for remote chunks, send all requests before waiting for any response
         for (Map.Entry<Short, ArrayList<ChunkAnon>> entry : remoteChunksByPeers.entrySet()) {
             short peer = entry.getKey();
 
@@ -201,43 +215,50 @@ public class PutAnon extends AbstractOperation implements MessageReceiver {
                         chunksToPut.toArray(new ChunkAnon[0]));
 
                 try {
-                    m_network.sendSync(request);
+                    m_network.sendSync(request, false);
                 } catch (final NetworkException e) {
-                    if (m_backup.isActive()) {
-                        for (ChunkAnon chunk : chunksToPut) {
-                            chunk.setState(ChunkState.DATA_TEMPORARY_UNAVAILABLE);
-                        }
-                    } else {
-                        for (ChunkAnon chunk : chunksToPut) {
-                            chunk.setState(ChunkState.DATA_LOST);
-                        }
-                    }
-
-                    for (ChunkAnon chunk : chunksToPut) {
-                        m_lookup.invalidate(chunk.getID());
-                    }
+                    setRemoteErrorState(chunksToPut, m_backup.isActive() ? ChunkState.DATA_TEMPORARY_UNAVAILABLE :
+                            ChunkState.DATA_LOST);
 
                     continue;
                 }
 
-                PutAnonResponse response = request.getResponse(PutAnonResponse.class);
+                pendingRequests.put(request, chunksToPut);
+            }
+        }
 
-                byte[] statusCodes = response.getStatusCodes();
+        // collect responses
+        for (Map.Entry<PutAnonRequest, ArrayList<ChunkAnon>> entry : pendingRequests.entrySet()) {
+            PutAnonRequest request = entry.getKey();
+            ArrayList<ChunkAnon> chunksToPut = entry.getValue();
 
-                // try short cut, i.e. all puts successful
-                if (statusCodes.length == 1 && statusCodes[0] == ChunkState.OK.ordinal()) {
-                    chunksPut += chunksToPut.size();
+            try {
+                request.waitForResponse(m_network.getRequestTimeoutMs());
+            } catch (final NetworkException e) {
+                m_network.cancelRequest(request);
 
-                    for (ChunkAnon chunk : chunksToPut) {
-                        chunk.setState(ChunkState.OK);
-                    }
-                } else {
-                    for (int i = 0; i < statusCodes.length; i++) {
-                        chunksToPut.get(i).setState(ChunkState.values()[statusCodes[i]]);
+                setRemoteErrorState(chunksToPut, ChunkState.REMOTE_REQUEST_TIMEOUT);
 
-                        if (statusCodes[i] == ChunkState.OK.ordinal()) {
-                            chunksPut++;
-                        }
+                continue;
+            }
+
+            PutAnonResponse response = request.getResponse(PutAnonResponse.class);
+
+            byte[] statusCodes = response.getStatusCodes();
+
+            // try short cut, i.e. all puts successful
+            if (statusCodes.length == 1 && statusCodes[0] == ChunkState.OK.ordinal()) {
+                chunksPut += chunksToPut.size();
+
+                for (ChunkAnon chunk : chunksToPut) {
+                    chunk.setState(ChunkState.OK);
+                }
+            } else {
+                for (int i = 0; i < statusCodes.length; i++) {
+                    chunksToPut.get(i).setState(ChunkState.values()[statusCodes[i]]);
+
+                    if (statusCodes[i] == ChunkState.OK.ordinal()) {
+                        chunksPut++;
                     }
                 }
             }
@@ -275,6 +296,21 @@ public class PutAnon extends AbstractOperation implements MessageReceiver {
         return chunksPut;
     }
 
+    /**
+     * Set an error state for chunks of a failed remote put and invalidate their cached locations
+     *
+     * @param p_chunks
+     *         Chunks of the failed request
+     * @param p_state
+     *         Error state to set
+     */
+    private void setRemoteErrorState(final ArrayList<ChunkAnon> p_chunks, final ChunkState p_state) {
+        for (ChunkAnon chunk : p_chunks) {
+            chunk.setState(p_state);
+            m_lookup.invalidate(chunk.getID());
+        }
+    }
+
     @Override
     public void onIncomingMessage(final Message p_message) {
         if (p_message.getType() == DXRAMMessageTypes.CHUNK_MESSAGES_TYPE &&
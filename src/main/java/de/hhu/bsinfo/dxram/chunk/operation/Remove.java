@@ -189,16 +189,7 @@ public class Remove extends AbstractOperation implements MessageReceiver {
                 }
             } else {
                 // remote or migrated, figure out location and sort by peers
-                LookupRange location = m_lookup.getLookupRange(p_cids[i + p_offset]);
-
-                while (location.getState() == LookupState.DATA_TEMPORARY_UNAVAILABLE) {
-                    try {
-                        Thread.sleep(100);
-                    } catch (final InterruptedException ignore) {
-                    }
-
-                    location = m_lookup.getLookupRange(p_cids[i + p_offset]);
-                }
+                LookupRange location = m_lookup.getAvailableLookupRange(p_cids[i + p_offset]);
 
                 if (location.getState() == LookupState.OK) {
                     short peer = location.getPrimaryPeer();
@@ -3,6 +3,7 @@ package de.hhu.bsinfo.dxram.chunk.operation;
 import java.util.ArrayList;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
 
 import de.hhu.bsinfo.dxmem.data.AbstractChunk;
 import de.hhu.bsinfo.dxmem.data.ChunkID;
@@ -93,16 +94,7 @@ public class Resize extends AbstractOperation implements MessageReceiver {
                 totalChunks++;
             } else if (p_chunks[i].getState() == ChunkState.DOES_NOT_EXIST) {
                 // seems like it's not available locally, check remotes for remote chunk or migrated
-                LookupRange location = m_lookup.getLookupRange(p_chunks[i].getID());
-
-                while (location.getState() == LookupState.DATA_TEMPORARY_UNAVAILABLE) {
-                    try {
-                        Thread.sleep(100);
-                    } catch (final InterruptedException ignore) {
-                    }
-
-                    location = m_lookup.getLookupRange(p_chunks[i].getID());
-                }
+                LookupRange location = m_lookup.getAvailableLookupRange(p_chunks[i].getID());
 
                 if (location.getState() == LookupState.OK) {
                     // currently undefined because we still have to get it from remote
@@ -192,6 +184,97 @@ public class Resize extends AbstractOperation implements MessageReceiver {
         return totalChunks;
     }
 
+    /**
+     * Resize a single chunk to the size of the provided chunk object without blocking the caller if the chunk is
+     * stored on a remote node. Local chunks are resized synchronously and the returned future is already completed.
+     *
+     * @param p_chunk
+     *         Chunk to resize. Must not be modified until the future is completed
+     * @return Future completed with true if successful, false on error (check the chunk object state for errors)
+     */
+    public CompletableFuture<Boolean> resizeAsync(final AbstractChunk p_chunk) {
+        m_logger.trace("resizeAsync[chunk %X]", p_chunk.getID());
+
+        if (p_chunk.getID() == ChunkID.INVALID_ID) {
+            p_chunk.setState(ChunkState.INVALID_ID);
+            SOP_ERROR.inc();
+
+            return CompletableFuture.completedFuture(false);
+        }
+
+        // try to resize locally
+        p_chunk.setState(m_chunk.getMemory().resize().resize(p_chunk.getID(), p_chunk.sizeofObject()));
+
+        if (p_chunk.getState() == ChunkState.OK) {
+            return CompletableFuture.completedFuture(true);
+        }
+
+        if (p_chunk.getState() != ChunkState.DOES_NOT_EXIST) {
+            SOP_ERROR.inc();
+
+            return CompletableFuture.completedFuture(false);
+        }
+
+        // seems like it's not available locally, check remotes for remote chunk or migrated. The lookup does not
+        // block the caller on a cache miss
+        return m_lookup.getAvailableLookupRangeAsync(p_chunk.getID())
+                .thenCompose(p_location -> resizeRemoteAsync(p_location, p_chunk))
+                .exceptionally(p_exception -> {
+                    // unexpected failure of the lookup or the remote operation
+                    p_chunk.setState(ChunkState.DATA_TEMPORARY_UNAVAILABLE);
+                    SOP_ERROR.inc();
+
+                    return false;
+                });
+    }
+
+    /**
+     * Resize a single chunk at its current location without blocking the caller
+     *
+     * @param p_location
+     *         Location of the chunk
+     * @param p_chunk
+     *         Chunk to resize
+     * @return Future completed with true if successful, false on error
+     */
+    private CompletableFuture<Boolean> resizeRemoteAsync(final LookupRange p_location, final AbstractChunk p_chunk) {
+        if (p_location.getState() == LookupState.OK && p_location.getPrimaryPeer() != m_boot.getNodeId()) {
+            // currently undefined because we still have to resize it on the remote
+            p_chunk.setState(ChunkState.UNDEFINED);
+
+            ResizeRequest request = new ResizeRequest(p_location.getPrimaryPeer(), p_chunk);
+
+            return m_network.sendAsync(request).handle((p_response, p_exception) -> {
+                if (p_exception == null) {
+                    ResizeResponse response = (ResizeResponse) p_response;
+
+                    p_chunk.setState(ChunkState.values()[response.getStatusCodes()[0]]);
+
+                    if (!p_chunk.isStateOk()) {
+                        m_lookup.invalidateRange(p_chunk.getID());
+                    }
+                } else {
+                    p_chunk.setState(getRemoteErrorState(p_exception));
+                    m_lookup.invalidate(p_chunk.getID());
+                }
+
+                if (!p_chunk.isStateOk()) {
+                    SOP_ERROR.inc();
+                }
+
+                return p_chunk.isStateOk();
+            });
+        } else if (p_location.getState() == LookupState.DOES_NOT_EXIST) {
+            p_chunk.setState(ChunkState.DOES_NOT_EXIST);
+        } else if (p_location.getState() == LookupState.DATA_LOST) {
+            p_chunk.setState(ChunkState.DATA_LOST);
+        }
+
+        SOP_ERROR.inc();
+
+        return CompletableFuture.completedFuture(false);
+    }
+
     @Override
     public void onIncomingMessage(final Message p_message) {
         if (p_message.getType() == DXRAMMessageTypes.CHUNK_MESSAGES_TYPE &&
@@ -0,0 +1,294 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.chunk.operation;
+
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import de.hhu.bsinfo.dxmem.DXMem;
+import de.hhu.bsinfo.dxmem.data.ChunkIDRanges;
+import de.hhu.bsinfo.dxmem.data.ChunkLockOperation;
+import de.hhu.bsinfo.dxram.backup.BackupComponent;
+import de.hhu.bsinfo.dxram.boot.AbstractBootComponent;
+import de.hhu.bsinfo.dxram.chunk.ChunkComponent;
+import de.hhu.bsinfo.dxram.chunk.ChunkLocalService;
+import de.hhu.bsinfo.dxram.chunk.data.ScannedChunk;
+import de.hhu.bsinfo.dxram.engine.AbstractDXRAMService;
+import de.hhu.bsinfo.dxram.lookup.LookupComponent;
+import de.hhu.bsinfo.dxram.nameservice.NameserviceComponent;
+import de.hhu.bsinfo.dxram.net.NetworkComponent;
+import de.hhu.bsinfo.dxutils.stats.StatisticsManager;
+import de.hhu.bsinfo.dxutils.stats.ValuePool;
+
+/**
+ * Iterate all chunks stored locally (created on this node and migrated to this node) in ChunkID order (local only).
+ * The payloads are read into a buffer which is reused for every chunk, i.e. there is no allocation per chunk. The
+ * spliterator can be split to scan with multiple threads (e.g. using a parallel stream). Chunks created or removed
+ * while scanning might or might not be visited.
+ */
+public class Scan extends AbstractOperation {
+    private static final ValuePool SOP_SCAN = new ValuePool(ChunkLocalService.class, "Scan");
+    private static final ValuePool SOP_SCAN_ERROR = new ValuePool(ChunkLocalService.class, "ScanError");
+
+    static {
+        StatisticsManager.get().registerOperation(ChunkLocalService.class, SOP_SCAN);
+        StatisticsManager.get().registerOperation(ChunkLocalService.class, SOP_SCAN_ERROR);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param p_parentService
+     *         Instance of parent service this operation belongs to
+     * @param p_boot
+     *         Instance of BootComponent
+     * @param p_backup
+     *         Instance of BackupComponent
+     * @param p_chunk
+     *         Instance of ChunkComponent
+     * @param p_network
+     *         Instance of NetworkComponent
+     * @param p_lookup
+     *         Instance of LookupComponent
+     * @param p_nameservice
+     *         Instance of NameserviceComponent
+     */
+    public Scan(final Class<? extends AbstractDXRAMService> p_parentService,
+            final AbstractBootComponent p_boot, final BackupComponent p_backup, final ChunkComponent p_chunk,
+            final NetworkComponent p_network, final LookupComponent p_lookup,
+            final NameserviceComponent p_nameservice) {
+        super(p_parentService, p_boot, p_backup, p_chunk, p_network, p_lookup, p_nameservice);
+    }
+
+    /**
+     * Visit all chunks stored locally in ChunkID order with the calling thread
+     *
+     * @param p_visitor
+     *         Called for every chunk. The chunk object and its buffer are reused for the next chunk
+     */
+    public void scan(final Consumer<ScannedChunk> p_visitor) {
+        spliterator().forEachRemaining(p_visitor);
+    }
+
+    /**
+     * Create a stream over all chunks stored locally
+     *
+     * @param p_parallel
+     *         True to scan with multiple threads (common fork join pool)
+     * @return Stream of chunks. The chunk objects and their buffers are reused, i.e. do not collect them
+     */
+    public Stream<ScannedChunk> stream(final boolean p_parallel) {
+        return StreamSupport.stream(spliterator(), p_parallel);
+    }
+
+    /**
+     * Create a spliterator over all chunks stored locally. Determines the ChunkID ranges to scan once
+     *
+     * @return Spliterator which can be split to scan the ranges with multiple threads
+     */
+    public Spliterator<ScannedChunk> spliterator() {
+        m_logger.trace("scan");
+
+        long[] ranges = getLocalRanges();
+        long[] firstIndexes = new long[ranges.length / 2 + 1];
+
+        for (int i = 0; i < ranges.length / 2; i++) {
+            firstIndexes[i + 1] = firstIndexes[i] + ranges[i * 2 + 1] - ranges[i * 2] + 1;
+        }
+
+        return new ChunkSpliterator(m_chunk.getMemory(), ranges, firstIndexes, 0,
+                firstIndexes[firstIndexes.length - 1]);
+    }
+
+    /**
+     * Get the ChunkID ranges of all chunks created on this node and migrated to this node sorted by ChunkID
+     *
+     * @return Ranges, start and end (inclusive) of each range
+     */
+    private long[] getLocalRanges() {
+        ChunkIDRanges ownRanges = m_chunk.getMemory().cidStatus().getCIDRangesOfLocalChunks();
+        ChunkIDRanges migratedRanges = m_chunk.getMemory().cidStatus().getAllMigratedChunkIDRanges();
+        long[][] ranges = new long[ownRanges.size() + migratedRanges.size()][];
+
+        for (int i = 0; i < ownRanges.size(); i++) {
+            ranges[i] = new long[] {ownRanges.getRangeStart(i), ownRanges.getRangeEnd(i)};
+        }
+
+        for (int i = 0; i < migratedRanges.size(); i++) {
+            ranges[ownRanges.size() + i] = new long[] {migratedRanges.getRangeStart(i), migratedRanges.getRangeEnd(i)};
+        }
+
+        // ChunkIDs of creators >= 0x8000 are negative
+        Arrays.sort(ranges, (p_range1, p_range2) -> Long.compareUnsigned(p_range1[0], p_range2[0]));
+
+        long[] ret = new long[ranges.length * 2];
+
+        for (int i = 0; i < ranges.length; i++) {
+            ret[i * 2] = ranges[i][0];
+            ret[i * 2 + 1] = ranges[i][1];
+        }
+
+        return ret;
+    }
+
+    /**
+     * Spliterator over ChunkID ranges. The ChunkIDs of all ranges are numbered consecutively (index) and a spliterator
+     * covers a part of these indexes. ChunkIDs of the ranges which are not in use are skipped
+     */
+    private static final class ChunkSpliterator implements Spliterator<ScannedChunk> {
+        private static final int MIN_SPLIT_SIZE = 4096;
+        private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+        private static final int MAX_BUFFER_SIZE = 1024 * 1024 * 1024;
+
+        private final DXMem m_memory;
+        // shared by all splits
+        private final long[] m_ranges;
+        private final long[] m_firstIndexes;
+
+        private long m_index;
+        private final long m_fence;
+        private int m_range;
+
+        private byte[] m_buffer;
+        private final ScannedChunk m_chunk = new ScannedChunk();
+
+        /**
+         * Constructor
+         *
+         * @param p_memory
+         *         Memory to read the chunks from
+         * @param p_ranges
+         *         Sorted ChunkID ranges (start and end inclusive)
+         * @param p_firstIndexes
+         *         Index of the first ChunkID of every range, last entry is the total number of ChunkIDs
+         * @param p_index
+         *         First index to visit
+         * @param p_fence
+         *         Index after the last index to visit
+         */
+        private ChunkSpliterator(final DXMem p_memory, final long[] p_ranges, final long[] p_firstIndexes,
+                final long p_index, final long p_fence) {
+            m_memory = p_memory;
+            m_ranges = p_ranges;
+            m_firstIndexes = p_firstIndexes;
+            m_index = p_index;
+            m_fence = p_fence;
+            m_range = findRange(p_index);
+        }
+
+        @Override
+        public boolean tryAdvance(final Consumer<? super ScannedChunk> p_action) {
+            while (m_index < m_fence) {
+                while (m_index >= m_firstIndexes[m_range + 1]) {
+                    m_range++;
+                }
+
+                long chunkID = m_ranges[m_range * 2] + m_index - m_firstIndexes[m_range];
+                m_index++;
+
+                int bytes = read(chunkID);
+
+                if (bytes > 0) {
+                    m_chunk.set(chunkID, m_buffer, 0, bytes);
+                    p_action.accept(m_chunk);
+
+                    SOP_SCAN.inc();
+
+                    return true;
+                } else if (bytes == 0) {
+                    // chunk is larger than the maximum buffer size
+                    SOP_SCAN_ERROR.inc();
+                }
+
+                // else: ChunkID not in use (anymore), skip it
+            }
+
+            return false;
+        }
+
+        @Override
+        public Spliterator<ScannedChunk> trySplit() {
+            long remaining = m_fence - m_index;
+
+            if (remaining < MIN_SPLIT_SIZE * 2) {
+                return null;
+            }
+
+            long mid = m_index + remaining / 2;
+            ChunkSpliterator prefix = new ChunkSpliterator(m_memory, m_ranges, m_firstIndexes, m_index, mid);
+
+            m_index = mid;
+            m_range = findRange(mid);
+
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return m_fence - m_index;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | DISTINCT | NONNULL;
+        }
+
+        /**
+         * Find the range containing the ChunkID with the given index
+         *
+         * @param p_index
+         *         Index of the ChunkID
+         * @return Index of the range
+         */
+        private int findRange(final long p_index) {
+            // ranges are not empty, i.e. the first indexes are strictly increasing
+            int pos = Arrays.binarySearch(m_firstIndexes, p_index);
+
+            if (pos < 0) {
+                pos = -pos - 2;
+            }
+
+            return Math.max(0, Math.min(pos, m_firstIndexes.length - 2));
+        }
+
+        /**
+         * Read a chunk into the buffer of this spliterator, grow the buffer if necessary
+         *
+         * @param p_chunkID
+         *         ID of the chunk to read
+         * @return Size of the chunk, 0 if the chunk exceeds the maximum buffer size, negative if the chunk does not
+         * exist
+         */
+        private int read(final long p_chunkID) {
+            if (m_buffer == null) {
+                m_buffer = new byte[INITIAL_BUFFER_SIZE];
+            }
+
+            int bytes = m_memory.get().get(p_chunkID, m_buffer, 0, m_buffer.length, ChunkLockOperation.NONE, -1);
+
+            while (bytes == 0 && m_buffer.length < MAX_BUFFER_SIZE) {
+                m_buffer = new byte[Math.min(MAX_BUFFER_SIZE, m_buffer.length * 2)];
+                bytes = m_memory.get().get(p_chunkID, m_buffer, 0, m_buffer.length, ChunkLockOperation.NONE, -1);
+            }
+
+            return bytes;
+        }
+    }
+}
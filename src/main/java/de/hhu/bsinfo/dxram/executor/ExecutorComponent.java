@@ -0,0 +1,391 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.executor;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.hhu.bsinfo.dxram.DXRAMComponentOrder;
+import de.hhu.bsinfo.dxram.engine.AbstractDXRAMComponent;
+import de.hhu.bsinfo.dxram.engine.AbstractDXRAMModule;
+import de.hhu.bsinfo.dxram.engine.DXRAMComponentAccessor;
+import de.hhu.bsinfo.dxram.engine.DXRAMConfig;
+import de.hhu.bsinfo.dxram.engine.DXRAMJNIManager;
+import de.hhu.bsinfo.dxutils.stats.StatisticsManager;
+import de.hhu.bsinfo.dxutils.stats.ValuePool;
+
+/**
+ * Shared thread pool for tasks outsourced by message handlers (e.g. informing backup superpeers or recovering a
+ * backup range) instead of creating a new thread per task.
+ * The number of concurrently executed tasks is limited per category. Tasks exceeding the limit wait in the backlog
+ * of their category. If the backlogs of all categories exceed the configured size, new tasks are rejected and
+ * counted. Tasks are never executed by the submitting thread: most submitters are message handlers which must not
+ * block on the (often blocking) network operations of a task.
+ */
+@AbstractDXRAMModule.Attributes(supportsSuperpeer = true, supportsPeer = true)
+@AbstractDXRAMComponent.Attributes(priorityInit = DXRAMComponentOrder.Init.EXECUTOR,
+        priorityShutdown = DXRAMComponentOrder.Shutdown.EXECUTOR)
+public class ExecutorComponent extends AbstractDXRAMComponent<ExecutorComponentConfig> {
+    private static final ValuePool SOP_SUBMITTED = new ValuePool(ExecutorComponent.class, "Submitted");
+    private static final ValuePool SOP_REJECTED = new ValuePool(ExecutorComponent.class, "Rejected");
+
+    static {
+        StatisticsManager.get().registerOperation(ExecutorComponent.class, SOP_SUBMITTED);
+        StatisticsManager.get().registerOperation(ExecutorComponent.class, SOP_REJECTED);
+    }
+
+    private ThreadPoolExecutor m_executor;
+    private Category[] m_categories;
+    private int m_maxQueuedTasks;
+    private final AtomicInteger m_queuedTasks = new AtomicInteger(0);
+
+    /**
+     * Execute a task asynchronously. The task is never executed by the calling thread
+     *
+     * @param p_category
+     *         the category of the task
+     * @param p_task
+     *         the task to execute
+     * @return true if the task was accepted, false if it was rejected because all backlogs are full or the executor
+     * is shut down
+     */
+    public boolean execute(final TaskCategory p_category, final Runnable p_task) {
+        Category category = m_categories[p_category.ordinal()];
+
+        SOP_SUBMITTED.inc();
+
+        if (category.tryAcquire()) {
+            return submit(category, p_task);
+        }
+
+        if (m_queuedTasks.incrementAndGet() > m_maxQueuedTasks) {
+            m_queuedTasks.decrementAndGet();
+
+            SOP_REJECTED.inc();
+            category.m_rejected.incrementAndGet();
+
+            LOGGER.warn("Rejected task of category %s, backlogs of all categories are full (%d tasks)",
+                    p_category, m_maxQueuedTasks);
+
+            return false;
+        }
+
+        category.enqueue(p_task);
+
+        // A task of this category might have finished in the meantime
+        drain(category);
+
+        return true;
+    }
+
+    /**
+     * Get the number of tasks waiting for execution
+     *
+     * @param p_category
+     *         the task category
+     * @return the number of waiting tasks
+     */
+    public int getQueueDepth(final TaskCategory p_category) {
+        return m_categories[p_category.ordinal()].m_queued.get();
+    }
+
+    /**
+     * Get the max number of tasks waiting for execution since startup
+     *
+     * @param p_category
+     *         the task category
+     * @return the max number of waiting tasks
+     */
+    public int getMaxQueueDepth(final TaskCategory p_category) {
+        return m_categories[p_category.ordinal()].m_maxQueued.get();
+    }
+
+    /**
+     * Get the number of tasks currently executed (or handed to the thread pool)
+     *
+     * @param p_category
+     *         the task category
+     * @return the number of active tasks
+     */
+    public int getActiveTasks(final TaskCategory p_category) {
+        return m_categories[p_category.ordinal()].m_active.get();
+    }
+
+    /**
+     * Get the number of executed tasks since startup
+     *
+     * @param p_category
+     *         the task category
+     * @return the number of executed tasks
+     */
+    public long getCompletedTasks(final TaskCategory p_category) {
+        return m_categories[p_category.ordinal()].m_completed.get();
+    }
+
+    /**
+     * Get the number of tasks rejected because all backlogs were full
+     *
+     * @param p_category
+     *         the task category
+     * @return the number of rejected tasks
+     */
+    public long getRejectedTasks(final TaskCategory p_category) {
+        return m_categories[p_category.ordinal()].m_rejected.get();
+    }
+
+    /**
+     * Get a summary of all task categories
+     *
+     * @return the summary
+     */
+    public String getStatus() {
+        StringBuilder builder = new StringBuilder();
+
+        for (TaskCategory category : TaskCategory.values()) {
+            Category state = m_categories[category.ordinal()];
+
+            builder.append(String.format("%s: active %d/%d, queued %d (max %d), completed %d, rejected %d\n",
+                    category, state.m_active.get(), state.m_limit, state.m_queued.get(), state.m_maxQueued.get(),
+                    state.m_completed.get(), state.m_rejected.get()));
+        }
+
+        return builder.toString();
+    }
+
+    @Override
+    protected void resolveComponentDependencies(final DXRAMComponentAccessor p_componentAccessor) {
+        // no dependencies
+    }
+
+    @Override
+    protected boolean initComponent(final DXRAMConfig p_config, final DXRAMJNIManager p_jniManager) {
+        LOGGER.info("Executor: Initialising %d threads", getConfig().getThreadCount());
+
+        m_maxQueuedTasks = getConfig().getMaxQueuedTasks();
+
+        m_categories = new Category[TaskCategory.values().length];
+        for (TaskCategory category : TaskCategory.values()) {
+            m_categories[category.ordinal()] = new Category(category, getConfig().getMaxConcurrentTasks(category));
+        }
+
+        // One thread per execution slot: a busy category cannot hold threads another category is allowed to use.
+        // A task is handed to the pool only with a slot acquired and a finishing task hands over the next one before
+        // its thread returns to the pool, so the pool queue holds at most one task per slot
+        int threads = getConfig().getThreadCount();
+        m_executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(threads), new ExecutorThreadFactory());
+
+        return true;
+    }
+
+    @Override
+    protected boolean shutdownComponent() {
+        m_executor.shutdown();
+
+        try {
+            if (!m_executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                LOGGER.warn("Executor did not finish all tasks in time");
+            }
+        } catch (final InterruptedException e) {
+            LOGGER.warn("Could not wait for executor thread pool to finish. Interrupted");
+        }
+
+        LOGGER.debug("Executor status on shutdown:\n%s", getStatus());
+
+        return true;
+    }
+
+    /**
+     * Hand over a task to the thread pool. The caller must have acquired an execution slot of the category
+     *
+     * @param p_category
+     *         the category of the task
+     * @param p_task
+     *         the task to execute
+     * @return true if the task was handed over, false if the executor is shut down
+     */
+    private boolean submit(final Category p_category, final Runnable p_task) {
+        try {
+            m_executor.execute(() -> {
+                run(p_category, p_task);
+
+                p_category.release();
+                drain(p_category);
+            });
+        } catch (final RejectedExecutionException e) {
+            p_category.release();
+
+            LOGGER.error("Executing task of category %s failed, executor is shut down", p_category.m_category);
+
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Hand over waiting tasks of a category to the thread pool as long as the category has free execution slots
+     *
+     * @param p_category
+     *         the category
+     */
+    private void drain(final Category p_category) {
+        while (p_category.hasQueued() && p_category.tryAcquire()) {
+            Runnable task = p_category.dequeue();
+
+            if (task == null) {
+                // Dequeued by another thread
+                p_category.release();
+                continue;
+            }
+
+            m_queuedTasks.decrementAndGet();
+            submit(p_category, task);
+        }
+    }
+
+    /**
+     * Run a task on a thread of the pool
+     *
+     * @param p_category
+     *         the category of the task
+     * @param p_task
+     *         the task to execute
+     */
+    private void run(final Category p_category, final Runnable p_task) {
+        try {
+            p_task.run();
+        } catch (final Exception e) {
+            LOGGER.error("Executing task of category %s failed", p_category.m_category, e);
+        }
+
+        p_category.m_completed.incrementAndGet();
+    }
+
+    /**
+     * State of a task category
+     */
+    private static final class Category {
+        private final TaskCategory m_category;
+        private final int m_limit;
+
+        private final ConcurrentLinkedQueue<Runnable> m_backlog = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger m_active = new AtomicInteger(0);
+        private final AtomicInteger m_queued = new AtomicInteger(0);
+        private final AtomicInteger m_maxQueued = new AtomicInteger(0);
+        private final AtomicLong m_completed = new AtomicLong(0);
+        private final AtomicLong m_rejected = new AtomicLong(0);
+
+        /**
+         * Constructor
+         *
+         * @param p_category
+         *         the task category
+         * @param p_limit
+         *         the max number of concurrently executed tasks
+         */
+        private Category(final TaskCategory p_category, final int p_limit) {
+            m_category = p_category;
+            m_limit = p_limit;
+        }
+
+        /**
+         * Acquire an execution slot
+         *
+         * @return true if a slot was free, false if the limit is reached
+         */
+        private boolean tryAcquire() {
+            int active;
+
+            do {
+                active = m_active.get();
+
+                if (active >= m_limit) {
+                    return false;
+                }
+            } while (!m_active.compareAndSet(active, active + 1));
+
+            return true;
+        }
+
+        /**
+         * Release an execution slot
+         */
+        private void release() {
+            m_active.decrementAndGet();
+        }
+
+        /**
+         * Check if tasks are waiting
+         *
+         * @return true if tasks are waiting
+         */
+        private boolean hasQueued() {
+            return !m_backlog.isEmpty();
+        }
+
+        /**
+         * Add a task to the backlog
+         *
+         * @param p_task
+         *         the task
+         */
+        private void enqueue(final Runnable p_task) {
+            int queued = m_queued.incrementAndGet();
+
+            m_backlog.add(p_task);
+            m_maxQueued.accumulateAndGet(queued, Math::max);
+        }
+
+        /**
+         * Remove a task from the backlog
+         *
+         * @return the task or null if the backlog is empty
+         */
+        private Runnable dequeue() {
+            Runnable ret = m_backlog.poll();
+
+            if (ret != null) {
+                m_queued.decrementAndGet();
+            }
+
+            return ret;
+        }
+    }
+
+    /**
+     * Creates named daemon threads for the executor
+     */
+    private static final class ExecutorThreadFactory implements ThreadFactory {
+        private final AtomicInteger m_threadNumber = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(final Runnable p_runnable) {
+            Thread thread = new Thread(p_runnable, "Executor-thread-" + m_threadNumber.getAndIncrement());
+
+            thread.setDaemon(true);
+
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package de.hhu.bsinfo.dxram.executor;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.experimental.Accessors;
+
+import com.google.gson.annotations.Expose;
+
+import de.hhu.bsinfo.dxram.engine.DXRAMConfig;
+import de.hhu.bsinfo.dxram.engine.DXRAMModuleConfig;
+
+/**
+ * Config for the ExecutorComponent
+ */
+@Data
+@Accessors(prefix = "m_")
+@EqualsAndHashCode(callSuper = false)
+public class ExecutorComponentConfig extends DXRAMModuleConfig {
+    private static final int THREAD_COUNT_MAX = 64;
+
+    /**
+     * Max number of tasks waiting for execution (all categories). If exceeded, new tasks are rejected
+     */
+    @Expose
+    private int m_maxQueuedTasks = 10000;
+
+    /**
+     * Max number of concurrently executed tasks per category. Categories not listed use their default limit. The
+     * executor runs one thread per execution slot, i.e. the sum of all limits
+     */
+    @Expose
+    private Map<TaskCategory, Integer> m_maxConcurrentTasks = defaultMaxConcurrentTasks();
+
+    /**
+     * Constructor
+     */
+    public ExecutorComponentConfig() {
+        super(ExecutorComponent.class);
+    }
+
+    /**
+     * Get the max number of concurrently executed tasks of a category
+     *
+     * @param p_category
+     *         the task category
+     * @return the configured limit or the default limit of the category
+     */
+    public int getMaxConcurrentTasks(final TaskCategory p_category) {
+        Integer limit = m_maxConcurrentTasks.get(p_category);
+
+        return limit != null ? limit : p_category.getDefaultMaxConcurrentTasks();
+    }
+
+    /**
+     * Get the number of threads of the executor, which is the sum of the limits of all task categories
+     *
+     * @return the number of threads
+     */
+    public int getThreadCount() {
+        int ret = 0;
+
+        for (TaskCategory category : TaskCategory.values()) {
+            ret += getMaxConcurrentTasks(category);
+        }
+
+        return ret;
+    }
+
+    @Override
+    protected boolean verify(final DXRAMConfig p_config) {
+        if (m_maxQueuedTasks < 0) {
+            LOGGER.error("Invalid value (%d) for m_maxQueuedTasks", m_maxQueuedTasks);
+            return false;
+        }
+
+        for (Map.Entry<TaskCategory, Integer> entry : m_maxConcurrentTasks.entrySet()) {
+            if (entry.getKey() == null) {
+                LOGGER.error("Unknown task category in m_maxConcurrentTasks");
+                return false;
+            }
+
+            if (entry.getValue() == null || entry.getValue() < 1) {
+                LOGGER.error("Invalid value (%s) for m_maxConcurrentTasks of %s", entry.getValue(), entry.getKey());
+                return false;
+            }
+        }
+
+        if (getThreadCount() > THREAD_COUNT_MAX) {
+            LOGGER.error("Max limit for the sum of m_maxConcurrentTasks: %d", THREAD_COUNT_MAX);
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Get the default limits of all task categories
+     *
+     * @return the default limits
+     */
+    private static Map<TaskCategory, Integer> defaultMaxConcurrentTasks() {
+        Map<TaskCategory, Integer> ret = new HashMap<>();
+
+        for (TaskCategory category : TaskCategory.values()) {
+            ret.put(category, category.getDefaultMaxConcurrentTasks());
+        }
+
+        return ret;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.executor;
+
+/**
+ * Categories of tasks executed by the ExecutorComponent. The number of concurrently executed tasks is limited per
+ * category, i.e. a burst of tasks of one category cannot occupy all threads of the executor.
+ */
+public enum TaskCategory {
+    /**
+     * Informing superpeers and peers about joined nodes
+     */
+    NODE_EVENT(1),
+
+    /**
+     * Migrations on peers
+     */
+    MIGRATION(4),
+
+    /**
+     * Synchronous replication of lookup tree updates (removals and migrations) to backup superpeers
+     */
+    METADATA_REPLICATION(4),
+
+    /**
+     * Handover of metadata to joining superpeers (chunked)
+     */
+    METADATA_TRANSFER(1),
+
+    /**
+     * Replication of initialized backup ranges and replaced backup peers to backup superpeers
+     */
+    BACKUP_RANGE(2),
+
+    /**
+     * Replication of barrier operations to backup superpeers
+     */
+    BARRIER(2),
+
+    /**
+     * Replication of superpeer storage operations to backup superpeers
+     */
+    STORAGE(2),
+
+    /**
+     * Recovery of backup ranges on peers
+     */
+    RECOVERY(4),
+
+    /**
+     * Initialization of the next backup range on peers before the current one is full
+     */
+    BACKUP_RANGE_INIT(1),
+
+    /**
+     * Reading chunks of a backup range for re-replication to a new backup peer
+     */
+    REPLICATION(4);
+
+    private final int m_defaultMaxConcurrentTasks;
+
+    /**
+     * Constructor
+     *
+     * @param p_defaultMaxConcurrentTasks
+     *         the default limit of concurrently executed tasks
+     */
+    TaskCategory(final int p_defaultMaxConcurrentTasks) {
+        m_defaultMaxConcurrentTasks = p_defaultMaxConcurrentTasks;
+    }
+
+    /**
+     * Get the default limit of concurrently executed tasks of this category
+     *
+     * @return the default limit
+     */
+    public int getDefaultMaxConcurrentTasks() {
+        return m_defaultMaxConcurrentTasks;
+    }
+}
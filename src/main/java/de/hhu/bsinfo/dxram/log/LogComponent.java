@@ -17,6 +17,9 @@
 package de.hhu.bsinfo.dxram.log;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 import de.hhu.bsinfo.dxlog.DXLog;
 import de.hhu.bsinfo.dxlog.storage.header.AbstractSecLogEntryHeader;
@@ -24,6 +27,7 @@ import de.hhu.bsinfo.dxlog.storage.recovery.RecoveryMetadata;
 import de.hhu.bsinfo.dxmem.data.AbstractChunk;
 import de.hhu.bsinfo.dxnet.core.MessageHeader;
 import de.hhu.bsinfo.dxnet.core.NetworkException;
+import de.hhu.bsinfo.dxnet.core.Request;
 import de.hhu.bsinfo.dxram.DXRAMComponentOrder;
 import de.hhu.bsinfo.dxram.backup.BackupComponent;
 import de.hhu.bsinfo.dxram.backup.BackupPeer;
@@ -52,6 +56,9 @@ import de.hhu.bsinfo.dxram.util.NodeRole;
 @AbstractDXRAMComponent.Attributes(priorityInit = DXRAMComponentOrder.Init.LOG,
         priorityShutdown = DXRAMComponentOrder.Shutdown.LOG)
 public final class LogComponent extends AbstractDXRAMComponent<DXRAMModuleConfig> {
+    private static final int INIT_MAX_ATTEMPTS = 10;
+    private static final long INIT_RETRY_DELAY_MIN_MS = 10;
+    private static final long INIT_RETRY_DELAY_MAX_MS = 1000;
 
     // component dependencies
     private NetworkComponent m_network;
@@ -79,48 +86,28 @@ public final class LogComponent extends AbstractDXRAMComponent<DXRAMModuleConfig
     }
 
     /**
-     * Initializes a new backup range
+     * Initializes a new backup range on all backup peers in parallel
      *
      * @param p_backupRange
      *         the backup range
+     * @return whether the backup range was initialized on all backup peers
      */
-    public void initBackupRange(final BackupRange p_backupRange) {
-        BackupPeer[] backupPeers;
-        InitBackupRangeRequest request;
-        InitBackupRangeResponse response;
+    public boolean initBackupRange(final BackupRange p_backupRange) {
+        boolean ret;
         long time;
 
-        backupPeers = p_backupRange.getBackupPeers();
-
         time = System.currentTimeMillis();
-        if (backupPeers != null) {
-            for (int i = 0; i < backupPeers.length; i++) {
-                if (backupPeers[i] != null) {
-                    // The last peer is new in a recovered backup range
-                    request = new InitBackupRangeRequest(backupPeers[i].getNodeID(), p_backupRange.getRangeID());
-
-                    try {
-                        m_network.sendSync(request);
-                    } catch (final NetworkException ignore) {
-                        i--;
-                        continue;
-                    }
-
-                    response = request.getResponse(InitBackupRangeResponse.class);
-
-                    if (!response.getStatus()) {
-                        i--;
-                    }
-                }
-            }
-        }
+        ret = initBackupRangeOnPeers(p_backupRange,
+                p_backupPeer -> new InitBackupRangeRequest(p_backupPeer, p_backupRange.getRangeID()),
+                p_request -> p_request.getResponse(InitBackupRangeResponse.class).getStatus());
 
         LOGGER.trace("Time to initialize range: %d", System.currentTimeMillis() - time);
 
+        return ret;
     }
 
     /**
-     * Initializes a recovered backup range
+     * Initializes a recovered backup range on all backup peers in parallel
      *
      * @param p_backupRange
      *         the backup range
@@ -128,63 +115,108 @@ public final class LogComponent extends AbstractDXRAMComponent<DXRAMModuleConfig
      *         the old backup range on the failed peer
      * @param p_failedPeer
      *         the failed peer
+     * @param p_newBackupPeer
+     *         the backup peer replacing this peer (the backup range is new for it)
+     * @return whether the backup range was initialized on all backup peers
      */
-    public void initRecoveredBackupRange(final BackupRange p_backupRange, final short p_oldBackupRange,
+    public boolean initRecoveredBackupRange(final BackupRange p_backupRange, final short p_oldBackupRange,
             final short p_failedPeer, final short p_newBackupPeer) {
-        BackupPeer[] backupPeers = p_backupRange.getBackupPeers();
-        if (backupPeers != null) {
-            for (int i = 0; i < backupPeers.length; i++) {
-                if (backupPeers[i] != null) {
-                    if (backupPeers[i].getNodeID() == p_newBackupPeer) {
-                        initBackupRangeOnPeer(backupPeers[i].getNodeID(), p_backupRange.getRangeID(), p_oldBackupRange,
-                                p_failedPeer, true);
-                    } else {
-                        initBackupRangeOnPeer(backupPeers[i].getNodeID(), p_backupRange.getRangeID(), p_oldBackupRange,
-                                p_failedPeer, false);
-                    }
-                }
-            }
-        }
+        boolean ret;
+        long time;
+
+        time = System.currentTimeMillis();
+        ret = initBackupRangeOnPeers(p_backupRange,
+                p_backupPeer -> new InitRecoveredBackupRangeRequest(p_backupPeer, p_backupRange.getRangeID(),
+                        p_oldBackupRange, p_failedPeer, p_backupPeer == p_newBackupPeer),
+                p_request -> p_request.getResponse(InitRecoveredBackupRangeResponse.class).getStatus());
+
+        LOGGER.trace("Time to initialize range: %d", System.currentTimeMillis() - time);
+
+        return ret;
     }
 
     /**
-     * Initializes a new backup range
+     * Sends the initialization requests to all backup peers at once and waits for all responses. Backup peers which
+     * could not be reached or failed to initialize the backup range are retried with an increasing delay
      *
-     * @param p_backupPeer
-     *         the backup peer
-     * @param p_rangeID
-     *         the new range ID
-     * @param p_originalRangeID
-     *         the old range ID
-     * @param p_originalOwner
-     *         the failed peer
-     * @param p_isNewPeer
-     *         whether this backup range is new for given backup peer or already stored for failed peer
+     * @param p_backupRange
+     *         the backup range
+     * @param p_requestFactory
+     *         creates the initialization request for a backup peer
+     * @param p_initialized
+     *         checks the response of a request
+     * @return whether the backup range was initialized on all backup peers
      */
-    private void initBackupRangeOnPeer(final short p_backupPeer, final short p_rangeID, final short p_originalRangeID,
-            final short p_originalOwner, final boolean p_isNewPeer) {
-        InitRecoveredBackupRangeRequest request;
-        InitRecoveredBackupRangeResponse response;
-        long time;
+    private boolean initBackupRangeOnPeers(final BackupRange p_backupRange,
+            final Function<Short, Request> p_requestFactory, final Predicate<Request> p_initialized) {
+        BackupPeer[] backupPeers = p_backupRange.getBackupPeers();
+        ArrayList<Short> pending = new ArrayList<>();
+        long backoff = INIT_RETRY_DELAY_MIN_MS;
 
-        time = System.currentTimeMillis();
-        request = new InitRecoveredBackupRangeRequest(p_backupPeer, p_rangeID, p_originalRangeID, p_originalOwner,
-                p_isNewPeer);
-        try {
-            m_network.sendSync(request);
-        } catch (final NetworkException ignore) {
+        if (backupPeers == null) {
+            return true;
         }
 
-        response = request.getResponse(InitRecoveredBackupRangeResponse.class);
+        for (BackupPeer backupPeer : backupPeers) {
+            if (backupPeer != null) {
+                pending.add(backupPeer.getNodeID());
+            }
+        }
 
-        if (response == null || !response.getStatus()) {
+        for (int attempt = 1; ; attempt++) {
+            Request[] requests = new Request[pending.size()];
+            ArrayList<Short> failed = new ArrayList<>();
 
-            LOGGER.error("Backup range could not be initialized on 0x%X!", p_backupPeer);
+            for (int i = 0; i < requests.length; i++) {
+                requests[i] = p_requestFactory.apply(pending.get(i));
 
-        }
+                try {
+                    m_network.sendSync(requests[i], false);
+                } catch (final NetworkException ignore) {
+                    requests[i] = null;
+                }
+            }
 
-        LOGGER.trace("Time to initialize range: %d", System.currentTimeMillis() - time);
+            for (int i = 0; i < requests.length; i++) {
+                if (requests[i] != null) {
+                    try {
+                        requests[i].waitForResponse(m_network.getRequestTimeoutMs());
 
+                        if (p_initialized.test(requests[i])) {
+                            continue;
+                        }
+                    } catch (final NetworkException ignore) {
+                        m_network.cancelRequest(requests[i]);
+                    }
+                }
+
+                failed.add(pending.get(i));
+            }
+
+            if (failed.isEmpty()) {
+                return true;
+            }
+
+            if (attempt == INIT_MAX_ATTEMPTS) {
+                for (short backupPeer : failed) {
+                    LOGGER.error("Backup range %d could not be initialized on 0x%X!", p_backupRange.getRangeID(),
+                            backupPeer);
+                }
+
+                return false;
+            }
+
+            LOGGER.warn("Backup range %d could not be initialized on %d backup peer(s), retrying in %d ms",
+                    p_backupRange.getRangeID(), failed.size(), backoff);
+
+            try {
+                Thread.sleep(backoff);
+            } catch (final InterruptedException ignore) {
+            }
+
+            backoff = Math.min(backoff * 2, INIT_RETRY_DELAY_MAX_MS);
+            pending = failed;
+        }
     }
 
     /**
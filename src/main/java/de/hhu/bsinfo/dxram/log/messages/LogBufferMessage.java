@@ -17,14 +17,11 @@
 package de.hhu.bsinfo.dxram.log.messages;
 
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 
 import de.hhu.bsinfo.dxnet.core.AbstractMessageExporter;
 import de.hhu.bsinfo.dxnet.core.AbstractMessageImporter;
 import de.hhu.bsinfo.dxnet.core.Message;
 import de.hhu.bsinfo.dxram.DXRAMMessageTypes;
-import de.hhu.bsinfo.dxram.backup.RangeID;
-import de.hhu.bsinfo.dxutils.ByteBufferHelper;
 
 /**
  * Message for logging an anonymous chunk on a remote node
@@ -35,10 +32,7 @@ import de.hhu.bsinfo.dxutils.ByteBufferHelper;
 public class LogBufferMessage extends Message {
 
     // Attributes
-    private short m_rangeID;
-    private ByteBuffer m_buffer;
-    private int m_numberOfDSs;
-    private int m_bytes;
+    private final LogBufferPayload m_payload;
 
     // Constructors
 
@@ -48,10 +42,7 @@ public class LogBufferMessage extends Message {
     public LogBufferMessage() {
         super();
 
-        m_rangeID = RangeID.INVALID_ID;
-        m_buffer = null;
-        m_bytes = 0;
-        m_numberOfDSs = 0;
+        m_payload = new LogBufferPayload();
     }
 
     /**
@@ -64,16 +55,13 @@ public class LogBufferMessage extends Message {
      * @param p_numberOfDSs
      *         the number of data structures stored in p_buffer
      * @param p_buffer
-     *         the chunks to store with ChunkID and payload size prepended
+     *         the chunks to store with ChunkID and payload size prepended (from position to limit)
      */
     public LogBufferMessage(final short p_destination, final short p_rangeID, final int p_numberOfDSs,
             final ByteBuffer p_buffer) {
         super(p_destination, DXRAMMessageTypes.LOG_MESSAGES_TYPE, LogMessages.SUBTYPE_LOG_BUFFER_MESSAGE, true);
 
-        m_rangeID = p_rangeID;
-        m_buffer = p_buffer;
-        m_numberOfDSs = p_numberOfDSs;
-        m_bytes = m_buffer.limit() + Short.BYTES + Integer.BYTES;
+        m_payload = new LogBufferPayload(p_rangeID, p_numberOfDSs, p_buffer);
     }
 
     // Getters
@@ -84,7 +72,7 @@ public class LogBufferMessage extends Message {
      * @return the rangeID
      */
     public final short getRangeID() {
-        return m_rangeID;
+        return m_payload.getRangeID();
     }
 
     /**
@@ -93,7 +81,7 @@ public class LogBufferMessage extends Message {
      * @return the number of data structures
      */
     public final int getNumberOfDataStructures() {
-        return m_numberOfDSs;
+        return m_payload.getNumberOfDataStructures();
     }
 
     /**
@@ -102,35 +90,23 @@ public class LogBufferMessage extends Message {
      * @return the message buffer
      */
     public final ByteBuffer getMessageBuffer() {
-        return m_buffer;
+        return m_payload.getMessageBuffer();
     }
 
     @Override
     protected final int getPayloadLength() {
-        return m_bytes;
+        return m_payload.getPayloadLength();
     }
 
     // Methods
     @Override
     protected final void writePayload(final AbstractMessageExporter p_exporter) {
-        p_exporter.writeShort(m_rangeID);
-        p_exporter.writeInt(m_numberOfDSs);
-        p_exporter.writeBytes(m_buffer.array());
+        m_payload.writePayload(p_exporter);
     }
 
     @Override
     protected final void readPayload(final AbstractMessageImporter p_importer, final int p_payloadSize) {
-        m_rangeID = p_importer.readShort(m_rangeID);
-        m_numberOfDSs = p_importer.readInt(m_numberOfDSs);
-
-        // Just copy all bytes, will be serialized into primary write buffer later
-        int payloadSize = p_payloadSize - Short.BYTES - Integer.BYTES;
-        if (m_buffer == null) {
-            m_buffer = ByteBuffer.allocateDirect(payloadSize);
-            m_buffer.order(ByteOrder.LITTLE_ENDIAN);
-        }
-        p_importer.readBytes(ByteBufferHelper.getDirectAddress(m_buffer), 0, payloadSize);
-        m_bytes = m_buffer.capacity() + Short.BYTES + Integer.BYTES;
+        m_payload.readPayload(p_importer, p_payloadSize);
     }
 
 }
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+package de.hhu.bsinfo.dxram.log.messages;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import de.hhu.bsinfo.dxnet.core.AbstractMessageExporter;
+import de.hhu.bsinfo.dxnet.core.AbstractMessageImporter;
+import de.hhu.bsinfo.dxram.backup.RangeID;
+import de.hhu.bsinfo.dxutils.ByteBufferHelper;
+
+/**
+ * Payload of LogBufferMessage and LogBufferRequest: a batch of chunks of one backup range
+ */
+final class LogBufferPayload {
+
+    // Attributes
+    private short m_rangeID;
+    private ByteBuffer m_buffer;
+    private int m_numberOfDSs;
+    private int m_bytes;
+
+    // Constructors
+
+    /**
+     * Creates an instance of LogBufferPayload.
+     * This constructor is used when receiving the message
+     */
+    LogBufferPayload() {
+        m_rangeID = RangeID.INVALID_ID;
+        m_buffer = null;
+        m_bytes = 0;
+        m_numberOfDSs = 0;
+    }
+
+    /**
+     * Creates an instance of LogBufferPayload.
+     * This constructor is used when sending the message
+     *
+     * @param p_rangeID
+     *         the RangeID
+     * @param p_numberOfDSs
+     *         the number of data structures stored in p_buffer
+     * @param p_buffer
+     *         the chunks to store with ChunkID and payload size prepended (from position to limit)
+     */
+    LogBufferPayload(final short p_rangeID, final int p_numberOfDSs, final ByteBuffer p_buffer) {
+        m_rangeID = p_rangeID;
+        m_buffer = p_buffer;
+        m_numberOfDSs = p_numberOfDSs;
+        m_bytes = m_buffer.remaining() + Short.BYTES + Integer.BYTES;
+    }
+
+    // Getters
+
+    /**
+     * Get the rangeID
+     *
+     * @return the rangeID
+     */
+    short getRangeID() {
+        return m_rangeID;
+    }
+
+    /**
+     * Get the number of data structures
+     *
+     * @return the number of data structures
+     */
+    int getNumberOfDataStructures() {
+        return m_numberOfDSs;
+    }
+
+    /**
+     * Get the message buffer
+     *
+     * @return the message buffer
+     */
+    ByteBuffer getMessageBuffer() {
+        return m_buffer;
+    }
+
+    /**
+     * Get the size of the payload
+     *
+     * @return the size in bytes
+     */
+    int getPayloadLength() {
+        return m_bytes;
+    }
+
+    // Methods
+
+    /**
+     * Write the payload
+     *
+     * @param p_exporter
+     *         the exporter of the message
+     */
+    void writePayload(final AbstractMessageExporter p_exporter) {
+        p_exporter.writeShort(m_rangeID);
+        p_exporter.writeInt(m_numberOfDSs);
+        // write the used part of the buffer, only (the backing array may be larger)
+        p_exporter.writeBytes(m_buffer.array(), m_buffer.arrayOffset() + m_buffer.position(), m_buffer.remaining());
+    }
+
+    /**
+     * Read the payload
+     *
+     * @param p_importer
+     *         the importer of the message
+     * @param p_payloadSize
+     *         the size of the payload
+     */
+    void readPayload(final AbstractMessageImporter p_importer, final int p_payloadSize) {
+        m_rangeID = p_importer.readShort(m_rangeID);
+        m_numberOfDSs = p_importer.readInt(m_numberOfDSs);
+
+        // Just copy all bytes, will be serialized into primary write buffer later
+        int payloadSize = p_payloadSize - Short.BYTES - Integer.BYTES;
+        if (m_buffer == null) {
+            m_buffer = ByteBuffer.allocateDirect(payloadSize);
+            m_buffer.order(ByteOrder.LITTLE_ENDIAN);
+        }
+        p_importer.readBytes(ByteBufferHelper.getDirectAddress(m_buffer), 0, payloadSize);
+        m_bytes = m_buffer.capacity() + Short.BYTES + Integer.BYTES;
+    }
+}
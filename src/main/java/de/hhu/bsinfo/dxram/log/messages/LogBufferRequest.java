@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.log.messages;
+
+import java.nio.ByteBuffer;
+
+import de.hhu.bsinfo.dxnet.core.AbstractMessageExporter;
+import de.hhu.bsinfo.dxnet.core.AbstractMessageImporter;
+import de.hhu.bsinfo.dxram.DXRAMMessageTypes;
+import de.hhu.bsinfo.dxram.net.AbstractAsyncRequest;
+
+/**
+ * Request for logging a batch of chunks on a remote node. Same as LogBufferMessage, but the backup peer
+ * acknowledges the batch after logging it
+ */
+public class LogBufferRequest extends AbstractAsyncRequest {
+
+    // Attributes
+    private final LogBufferPayload m_payload;
+
+    // Constructors
+
+    /**
+     * Creates an instance of LogBufferRequest
+     */
+    public LogBufferRequest() {
+        super();
+
+        m_payload = new LogBufferPayload();
+    }
+
+    /**
+     * Creates an instance of LogBufferRequest
+     *
+     * @param p_destination
+     *         the destination
+     * @param p_rangeID
+     *         the RangeID
+     * @param p_numberOfDSs
+     *         the number of data structures stored in p_buffer
+     * @param p_buffer
+     *         the chunks to store with ChunkID and payload size prepended (from position to limit)
+     */
+    public LogBufferRequest(final short p_destination, final short p_rangeID, final int p_numberOfDSs,
+            final ByteBuffer p_buffer) {
+        super(p_destination, DXRAMMessageTypes.LOG_MESSAGES_TYPE, LogMessages.SUBTYPE_LOG_BUFFER_REQUEST, true);
+
+        m_payload = new LogBufferPayload(p_rangeID, p_numberOfDSs, p_buffer);
+    }
+
+    // Getters
+
+    /**
+     * Get the rangeID
+     *
+     * @return the rangeID
+     */
+    public final short getRangeID() {
+        return m_payload.getRangeID();
+    }
+
+    /**
+     * Get the number of data structures
+     *
+     * @return the number of data structures
+     */
+    public final int getNumberOfDataStructures() {
+        return m_payload.getNumberOfDataStructures();
+    }
+
+    /**
+     * Get the message buffer
+     *
+     * @return the message buffer
+     */
+    public final ByteBuffer getMessageBuffer() {
+        return m_payload.getMessageBuffer();
+    }
+
+    @Override
+    protected final int getPayloadLength() {
+        return m_payload.getPayloadLength();
+    }
+
+    // Methods
+    @Override
+    protected final void writePayload(final AbstractMessageExporter p_exporter) {
+        m_payload.writePayload(p_exporter);
+    }
+
+    @Override
+    protected final void readPayload(final AbstractMessageImporter p_importer, final int p_payloadSize) {
+        m_payload.readPayload(p_importer, p_payloadSize);
+    }
+
+}
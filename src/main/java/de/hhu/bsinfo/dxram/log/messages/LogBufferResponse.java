@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.log.messages;
+
+import de.hhu.bsinfo.dxnet.core.AbstractMessageExporter;
+import de.hhu.bsinfo.dxnet.core.AbstractMessageImporter;
+import de.hhu.bsinfo.dxnet.core.Response;
+
+/**
+ * Response to a LogBufferRequest, sent after the chunks were logged
+ */
+public class LogBufferResponse extends Response {
+
+    // Attributes
+    private int m_numberOfDSs;
+
+    /**
+     * Creates an instance of LogBufferResponse
+     */
+    public LogBufferResponse() {
+        super();
+    }
+
+    /**
+     * Creates an instance of LogBufferResponse
+     *
+     * @param p_request
+     *         the corresponding LogBufferRequest
+     */
+    public LogBufferResponse(final LogBufferRequest p_request) {
+        super(p_request, LogMessages.SUBTYPE_LOG_BUFFER_RESPONSE);
+
+        m_numberOfDSs = p_request.getNumberOfDataStructures();
+    }
+
+    /**
+     * Get the number of logged data structures
+     *
+     * @return the number of data structures
+     */
+    public final int getNumberOfDataStructures() {
+        return m_numberOfDSs;
+    }
+
+    @Override
+    protected final int getPayloadLength() {
+        return Integer.BYTES;
+    }
+
+    @Override
+    protected final void writePayload(final AbstractMessageExporter p_exporter) {
+        p_exporter.writeInt(m_numberOfDSs);
+    }
+
+    @Override
+    protected final void readPayload(final AbstractMessageImporter p_importer) {
+        m_numberOfDSs = p_importer.readInt(m_numberOfDSs);
+
+        // report the arrival to a pending asynchronous request
+        ((LogBufferRequest) getCorrespondingRequest()).responseReceived(this);
+    }
+
+}
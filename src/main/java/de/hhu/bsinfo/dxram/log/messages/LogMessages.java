@@ -33,6 +33,8 @@ public final class LogMessages {
 
     public static final byte SUBTYPE_GET_UTILIZATION_REQUEST = 9;
     public static final byte SUBTYPE_GET_UTILIZATION_RESPONSE = 10;
+    public static final byte SUBTYPE_LOG_BUFFER_REQUEST = 11;
+    public static final byte SUBTYPE_LOG_BUFFER_RESPONSE = 12;
 
     /**
      * Hidden constructor
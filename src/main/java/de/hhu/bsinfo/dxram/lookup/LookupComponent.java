@@ -17,6 +17,8 @@
 package de.hhu.bsinfo.dxram.lookup;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
 
 import de.hhu.bsinfo.dxmem.data.AbstractChunk;
 import de.hhu.bsinfo.dxmem.data.ChunkID;
@@ -35,13 +37,17 @@ import de.hhu.bsinfo.dxram.engine.DXRAMJNIManager;
 import de.hhu.bsinfo.dxram.event.AbstractEvent;
 import de.hhu.bsinfo.dxram.event.EventComponent;
 import de.hhu.bsinfo.dxram.event.EventListener;
+import de.hhu.bsinfo.dxram.executor.ExecutorComponent;
 import de.hhu.bsinfo.dxram.failure.events.NodeFailureEvent;
+import de.hhu.bsinfo.dxram.lookup.events.LookupRangesAvailableEvent;
 import de.hhu.bsinfo.dxram.lookup.events.NameserviceCacheEntryUpdateEvent;
 import de.hhu.bsinfo.dxram.lookup.overlay.OverlayPeer;
 import de.hhu.bsinfo.dxram.lookup.overlay.OverlaySuperpeer;
 import de.hhu.bsinfo.dxram.lookup.overlay.cache.CacheTree;
+import de.hhu.bsinfo.dxram.lookup.overlay.cache.ChunkIDRangeCache;
+import de.hhu.bsinfo.dxram.lookup.overlay.cache.CopyOnWriteRangeCache;
+import de.hhu.bsinfo.dxram.lookup.overlay.storage.AbstractLookupTree;
 import de.hhu.bsinfo.dxram.lookup.overlay.storage.BarrierStatus;
-import de.hhu.bsinfo.dxram.lookup.overlay.storage.LookupTree;
 import de.hhu.bsinfo.dxram.lookup.overlay.storage.NameserviceEntry;
 import de.hhu.bsinfo.dxram.lookup.overlay.storage.SuperpeerStorage;
 import de.hhu.bsinfo.dxram.nameservice.NameserviceComponent;
@@ -55,6 +61,8 @@ import de.hhu.bsinfo.dxram.util.NodeRole;
 import de.hhu.bsinfo.dxutils.ArrayListLong;
 import de.hhu.bsinfo.dxutils.Cache;
 import de.hhu.bsinfo.dxutils.NodeID;
+import de.hhu.bsinfo.dxutils.stats.StatisticsManager;
+import de.hhu.bsinfo.dxutils.stats.ValuePool;
 import de.hhu.bsinfo.dxutils.unit.IPV4Unit;
 
 /**
@@ -69,18 +77,29 @@ public class LookupComponent extends AbstractDXRAMComponent<LookupComponentConfi
         implements EventListener<AbstractEvent> {
     private static final short ORDER = 10;
 
+    private static final ValuePool SOP_CACHE_HIT = new ValuePool(LookupComponent.class, "CacheHit");
+    private static final ValuePool SOP_CACHE_MISS = new ValuePool(LookupComponent.class, "CacheMiss");
+
+    static {
+        StatisticsManager.get().registerOperation(LookupComponent.class, SOP_CACHE_HIT);
+        StatisticsManager.get().registerOperation(LookupComponent.class, SOP_CACHE_MISS);
+    }
+
     // component dependencies
     private AbstractBootComponent m_boot;
     private BackupComponent m_backup;
     private EventComponent m_event;
+    private ExecutorComponent m_executor;
     private NetworkComponent m_network;
 
     private OverlaySuperpeer m_superpeer;
     private OverlayPeer m_peer;
 
-    private CacheTree m_chunkIDCacheTree;
+    private ChunkIDRangeCache m_chunkIDCacheTree;
     private Cache<Integer, Long> m_applicationIDCache;
 
+    private final RangeAvailabilityMonitor m_rangeAvailability = new RangeAvailabilityMonitor();
+
     /**
      * Get the number of entries in name service
      *
@@ -138,6 +157,8 @@ public class LookupComponent extends AbstractDXRAMComponent<LookupComponentConfi
             // Read from cache
             ret = m_chunkIDCacheTree.getMetadata(p_chunkID);
             if (ret == null) {
+                SOP_CACHE_MISS.inc();
+
                 // Cache miss -> get LookupRange from superpeer
                 ret = m_peer.getLookupRange(p_chunkID);
 
@@ -146,6 +167,8 @@ public class LookupComponent extends AbstractDXRAMComponent<LookupComponentConfi
                     m_chunkIDCacheTree.cacheRange(((long) ChunkID.getCreatorID(p_chunkID) << 48) + ret.getRange()[0],
                             ((long) ChunkID.getCreatorID(p_chunkID) << 48) + ret.getRange()[1], ret.getPrimaryPeer());
                 }
+            } else {
+                SOP_CACHE_HIT.inc();
             }
         } else {
             ret = m_peer.getLookupRange(p_chunkID);
@@ -156,6 +179,121 @@ public class LookupComponent extends AbstractDXRAMComponent<LookupComponentConfi
         return ret;
     }
 
+    /**
+     * Get the corresponding LookupRange for the given ChunkID. If the range is temporarily unavailable (e.g. during
+     * recovery), the caller is parked until the responsible superpeer reports the range available again or the
+     * configured retry interval elapsed and the range is looked up again.
+     *
+     * @param p_chunkID
+     *         the ChunkID
+     * @return the current location and the range borders, never DATA_TEMPORARY_UNAVAILABLE
+     */
+    public LookupRange getAvailableLookupRange(final long p_chunkID) {
+        short creator = ChunkID.getCreatorID(p_chunkID);
+        long epoch = m_rangeAvailability.getEpoch(creator);
+        LookupRange ret = getLookupRange(p_chunkID);
+
+        while (ret == null || ret.getState() == LookupState.DATA_TEMPORARY_UNAVAILABLE) {
+            LOGGER.trace("Range of 0x%X temporarily unavailable, waiting for notification", p_chunkID);
+
+            m_rangeAvailability.await(creator, epoch, getConfig().getUnavailableRangeRetryInterval().getMs());
+
+            epoch = m_rangeAvailability.getEpoch(creator);
+            ret = getLookupRange(p_chunkID);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Get the corresponding LookupRange for the given ChunkID without blocking the caller. If the range is cached,
+     * the returned future is completed already. Otherwise, the range is requested from the responsible superpeer
+     * asynchronously. If the range is temporarily unavailable, it is requested again when the superpeer reports it
+     * available or the configured retry interval elapsed (see getAvailableLookupRange).
+     *
+     * @param p_chunkID
+     *         the ChunkID
+     * @return future completed with the current location and the range borders (never DATA_TEMPORARY_UNAVAILABLE).
+     * Dependent actions must not block, they are executed on the request completion thread or the thread reporting
+     * the range available
+     */
+    public CompletableFuture<LookupRange> getAvailableLookupRangeAsync(final long p_chunkID) {
+        NodeRole.assertNodeRole(NodeRole.PEER, m_boot.getNodeRole());
+
+        if (getConfig().isCachesEnabled()) {
+            // Only available ranges are cached
+            LookupRange ret = m_chunkIDCacheTree.getMetadata(p_chunkID);
+
+            if (ret != null) {
+                SOP_CACHE_HIT.inc();
+
+                return CompletableFuture.completedFuture(ret);
+            }
+
+            SOP_CACHE_MISS.inc();
+        }
+
+        CompletableFuture<LookupRange> future = new CompletableFuture<>();
+
+        lookUpAvailableRangeAsync(p_chunkID, future);
+
+        return future;
+    }
+
+    /**
+     * Get the corresponding LookupRanges for multiple ChunkIDs. Cached ranges are resolved locally. All other ChunkIDs
+     * are sorted and resolved with a single request per responsible superpeer which returns every covering range
+     * once.
+     *
+     * @param p_chunkIDs
+     *         the ChunkIDs
+     * @return the current locations and range borders, one entry per ChunkID (same order as p_chunkIDs). ChunkIDs in
+     * the same range share the same LookupRange instance. An entry is null if the responsible superpeer is unknown
+     */
+    public LookupRange[] getLookupRanges(final long[] p_chunkIDs) {
+        LookupRange[] ret = new LookupRange[p_chunkIDs.length];
+        long[] missing = new long[p_chunkIDs.length];
+        int missingCount = 0;
+
+        NodeRole.assertNodeRole(NodeRole.PEER, m_boot.getNodeRole());
+
+        LOGGER.trace("Entering getLookupRanges with: %d chunkIDs", p_chunkIDs.length);
+
+        for (int i = 0; i < p_chunkIDs.length; i++) {
+            if (getConfig().isCachesEnabled()) {
+                ret[i] = m_chunkIDCacheTree.getMetadata(p_chunkIDs[i]);
+
+                if (ret[i] != null) {
+                    SOP_CACHE_HIT.inc();
+                } else {
+                    SOP_CACHE_MISS.inc();
+                }
+            }
+
+            if (ret[i] == null) {
+                missing[missingCount++] = p_chunkIDs[i];
+            }
+        }
+
+        if (missingCount > 0) {
+            // sort to resolve every uncached range once, only
+            missing = Arrays.copyOf(missing, missingCount);
+            Arrays.sort(missing);
+
+            LookupRange[] resolved = resolveLookupRanges(missing);
+
+            for (int i = 0; i < p_chunkIDs.length; i++) {
+                if (ret[i] == null) {
+                    ret[i] = resolved[Arrays.binarySearch(missing, p_chunkIDs[i])];
+                }
+            }
+        }
+
+        LOGGER.trace("Exiting getLookupRanges");
+
+        return ret;
+    }
+
     /**
      * Remove the ChunkIDs from range after deletion of that chunks
      *
@@ -246,6 +384,89 @@ public class LookupComponent extends AbstractDXRAMComponent<LookupComponentConfi
         return ret;
     }
 
+    /**
+     * Insert multiple name service entries with one request per responsible superpeer
+     *
+     * @param p_ids
+     *         the AIDs
+     * @param p_chunkIDs
+     *         the ChunkIDs, one per AID
+     */
+    public void insertNameserviceEntries(final int[] p_ids, final long[] p_chunkIDs) {
+        NodeRole.assertNodeRole(NodeRole.PEER, m_boot.getNodeRole());
+
+        LOGGER.trace("Entering insertIDs with: %d entries", p_ids.length);
+
+        if (getConfig().isCachesEnabled()) {
+            for (int i = 0; i < p_ids.length; i++) {
+                m_applicationIDCache.put(p_ids[i], p_chunkIDs[i]);
+            }
+        }
+
+        m_peer.insertNameserviceEntries(p_ids, p_chunkIDs);
+
+        LOGGER.trace("Exiting insertIDs");
+    }
+
+    /**
+     * Get ChunkIDs for multiple AIDs with one request per responsible superpeer
+     *
+     * @param p_ids
+     *         the AIDs
+     * @param p_timeoutMs
+     *         Timeout for trying to get the entries (if they do not exist, yet).
+     *         set this to -1 for infinite loop if you know for sure, that the entries have to exist
+     * @return the corresponding ChunkIDs, one per AID
+     */
+    public long[] getChunkIDsForNameserviceEntries(final int[] p_ids, final int p_timeoutMs) {
+        long[] ret;
+
+        NodeRole.assertNodeRole(NodeRole.PEER, m_boot.getNodeRole());
+
+        LOGGER.trace("Entering getChunkIDs with: %d ids", p_ids.length);
+
+        if (getConfig().isCachesEnabled()) {
+            ret = new long[p_ids.length];
+            int[] missingIndexes = new int[p_ids.length];
+            int missingCount = 0;
+
+            // Read from application cache first
+            for (int i = 0; i < p_ids.length; i++) {
+                final Long chunkID = m_applicationIDCache.get(p_ids[i]);
+
+                if (chunkID == null) {
+                    missingIndexes[missingCount++] = i;
+                } else {
+                    ret[i] = chunkID;
+                }
+            }
+
+            if (missingCount > 0) {
+                // Cache misses -> ask superpeers
+                int[] missingIDs = new int[missingCount];
+
+                for (int i = 0; i < missingCount; i++) {
+                    missingIDs[i] = p_ids[missingIndexes[i]];
+                }
+
+                long[] chunkIDs = m_peer.getChunkIDsForNameserviceEntries(missingIDs, p_timeoutMs);
+
+                for (int i = 0; i < missingCount; i++) {
+                    ret[missingIndexes[i]] = chunkIDs[i];
+
+                    // Cache response
+                    m_applicationIDCache.put(missingIDs[i], chunkIDs[i]);
+                }
+            }
+        } else {
+            ret = m_peer.getChunkIDsForNameserviceEntries(p_ids, p_timeoutMs);
+        }
+
+        LOGGER.trace("Exiting getChunkIDs");
+
+        return ret;
+    }
+
     /**
      * Store migration of given ChunkID to a new location
      *
@@ -356,9 +577,24 @@ public class LookupComponent extends AbstractDXRAMComponent<LookupComponentConfi
      */
     public void invalidate(final long... p_chunkIDs) {
         if (getConfig().isCachesEnabled()) {
-            for (long chunkID : p_chunkIDs) {
-                assert chunkID != ChunkID.INVALID_ID;
-                m_chunkIDCacheTree.invalidateChunkID(chunkID);
+            int i = 0;
+
+            // coalesce consecutive ChunkIDs to a single range invalidation
+            while (i < p_chunkIDs.length) {
+                int end = i;
+
+                while (end + 1 < p_chunkIDs.length && p_chunkIDs[end + 1] == p_chunkIDs[end] + 1) {
+                    end++;
+                }
+
+                if (end == i) {
+                    assert p_chunkIDs[i] != ChunkID.INVALID_ID;
+                    m_chunkIDCacheTree.invalidateChunkID(p_chunkIDs[i]);
+                } else {
+                    invalidate(p_chunkIDs[i], p_chunkIDs[end]);
+                }
+
+                i = end + 1;
             }
         }
     }
@@ -467,6 +703,26 @@ public class LookupComponent extends AbstractDXRAMComponent<LookupComponentConfi
         return m_peer.barrierSignOn(p_barrierId, p_customData, true);
     }
 
+    /**
+     * Sign on to a barrier using a combining tree of the participants and wait for it getting released.
+     *
+     * @param p_barrierId
+     *         Id of the barrier to sign on to.
+     * @param p_customData
+     *         Custom data to pass along with the sign on
+     * @param p_participants
+     *         Node ids of all peers signing on (same for all participants)
+     * @param p_fanout
+     *         Max. number of children per peer in the tree
+     * @return BarrierStatus, null on error
+     */
+    public BarrierStatus barrierSignOn(final int p_barrierId, final long p_customData, final short[] p_participants,
+            final int p_fanout) {
+        NodeRole.assertNodeRole(NodeRole.PEER, m_boot.getNodeRole());
+
+        return m_peer.barrierSignOn(p_barrierId, p_customData, p_participants, p_fanout);
+    }
+
     /**
      * Get the status of a specific barrier.
      *
@@ -667,14 +923,26 @@ public class LookupComponent extends AbstractDXRAMComponent<LookupComponentConfi
                 if (getConfig().isCachesEnabled()) {
                     m_chunkIDCacheTree.invalidatePeer(event.getNodeID());
                 }
+            } else if (event.getRole() == NodeRole.SUPERPEER) {
+                // the failed superpeer cannot send notifications anymore, let the waiting threads look up again
+                m_rangeAvailability.signalAll();
             }
 
+        } else if (p_event instanceof LookupRangesAvailableEvent) {
+
+            m_rangeAvailability.signal(((LookupRangesAvailableEvent) p_event).getCreator());
+
         } else if (p_event instanceof NameserviceCacheEntryUpdateEvent) {
 
             NameserviceCacheEntryUpdateEvent event = (NameserviceCacheEntryUpdateEvent) p_event;
-            // update if available to avoid caching all entries
-            if (m_applicationIDCache.contains(event.getId())) {
-                m_applicationIDCache.put(event.getId(), event.getChunkID());
+            int[] ids = event.getIds();
+            long[] chunkIDs = event.getChunkIDs();
+
+            for (int i = 0; i < ids.length; i++) {
+                // update if available to avoid caching all entries
+                if (m_applicationIDCache.contains(ids[i])) {
+                    m_applicationIDCache.put(ids[i], chunkIDs[i]);
+                }
             }
         }
     }
@@ -695,6 +963,7 @@ public class LookupComponent extends AbstractDXRAMComponent<LookupComponentConfi
         m_backup = p_componentAccessor.getComponent(BackupComponent.class);
         m_boot = p_componentAccessor.getComponent(AbstractBootComponent.class);
         m_event = p_componentAccessor.getComponent(EventComponent.class);
+        m_executor = p_componentAccessor.getComponent(ExecutorComponent.class);
         m_network = p_componentAccessor.getComponent(NetworkComponent.class);
     }
 
@@ -710,27 +979,30 @@ public class LookupComponent extends AbstractDXRAMComponent<LookupComponentConfi
         BackupRange.setBackupRangeSize(backupConfig.getBackupRangeSize().getBytes());
 
         if (getConfig().isCachesEnabled()) {
-            m_chunkIDCacheTree = new CacheTree(ORDER, getConfig().getCacheTtl().getMs(),
-                    getConfig().getMaxCacheEntries());
+            m_chunkIDCacheTree = createChunkIDCache();
 
             // TODO: Check cache! If number of entries is smaller than number of entries in nameservice, bg won't terminate.
             m_applicationIDCache = new Cache<>(nameserviceConfig.getNameserviceCacheEntries());
             // m_aidCache.enableTTL();
-
-            m_event.registerListener(this, NodeFailureEvent.class);
         }
 
+        m_event.registerListener(this, NodeFailureEvent.class);
+
         if (m_boot.getNodeRole() == NodeRole.SUPERPEER) {
             m_superpeer = new OverlaySuperpeer(m_boot.getNodeId(), m_boot.getBootstrapId(),
                     m_boot.getNumberOfAvailableSuperpeers(), (int) getConfig().getStabilizationBreakTime().getMs(),
                     synchronizationConfig.getMaxBarriersPerSuperpeer(),
                     temporaryStorageConfig.getStorageMaxNumEntries(),
                     (int) temporaryStorageConfig.getStorageMaxSize().getBytes(), backupConfig.isBackupActive(),
-                    m_boot, m_network, m_event);
+                    "Flat".equalsIgnoreCase(getConfig().getLookupTreeType()),
+                    "Sync".equalsIgnoreCase(getConfig().getMetadataReplication()),
+                    (int) getConfig().getMetadataTransferChunkSize().getBytes(),
+                    getConfig().getMetadataTransferWindow(), m_boot, m_network, m_event, m_executor);
         } else {
             m_peer = new OverlayPeer(m_boot.getNodeId(), m_boot.getBootstrapId(),
                     m_boot.getNumberOfAvailableSuperpeers(), m_boot, m_network, m_event);
             m_event.registerListener(this, NameserviceCacheEntryUpdateEvent.class);
+            m_event.registerListener(this, LookupRangesAvailableEvent.class);
         }
 
         return true;
@@ -738,6 +1010,8 @@ public class LookupComponent extends AbstractDXRAMComponent<LookupComponentConfi
 
     @Override
     protected boolean shutdownComponent() {
+        m_rangeAvailability.shutdown();
+
         if (m_superpeer != null) {
             m_superpeer.shutdown();
         }
@@ -756,6 +1030,38 @@ public class LookupComponent extends AbstractDXRAMComponent<LookupComponentConfi
         return true;
     }
 
+    /**
+     * Request the LookupRange of a ChunkID from the responsible superpeer until it is available. Neither the caller
+     * nor any other thread is blocked while waiting for the superpeer or for the range to become available
+     *
+     * @param p_chunkID
+     *         the ChunkID
+     * @param p_future
+     *         the future to complete with the available range
+     */
+    private void lookUpAvailableRangeAsync(final long p_chunkID, final CompletableFuture<LookupRange> p_future) {
+        short creator = ChunkID.getCreatorID(p_chunkID);
+        long epoch = m_rangeAvailability.getEpoch(creator);
+
+        m_peer.getLookupRangeAsync(p_chunkID).whenComplete((p_range, p_exception) -> {
+            if (p_exception != null) {
+                p_future.completeExceptionally(p_exception);
+            } else if (p_range == null || p_range.getState() == LookupState.DATA_TEMPORARY_UNAVAILABLE) {
+                LOGGER.trace("Range of 0x%X temporarily unavailable, waiting for notification", p_chunkID);
+
+                m_rangeAvailability.awaitAsync(creator, epoch, getConfig().getUnavailableRangeRetryInterval().getMs())
+                        .thenRun(() -> lookUpAvailableRangeAsync(p_chunkID, p_future));
+            } else {
+                if (getConfig().isCachesEnabled() && p_range.getState() == LookupState.OK) {
+                    m_chunkIDCacheTree.cacheRange(((long) creator << 48) + p_range.getRange()[0],
+                            ((long) creator << 48) + p_range.getRange()[1], p_range.getPrimaryPeer());
+                }
+
+                p_future.complete(p_range);
+            }
+        });
+    }
+
     /**
      * Returns all known superpeers
      *
@@ -784,6 +1090,8 @@ public class LookupComponent extends AbstractDXRAMComponent<LookupComponentConfi
             // Read from cache
             ret = m_chunkIDCacheTree.getPrimaryPeer(p_chunkID);
             if (ret == NodeID.INVALID_ID) {
+                SOP_CACHE_MISS.inc();
+
                 // Cache miss -> get LookupRange from superpeer
                 lookupRange = m_peer.getLookupRange(p_chunkID);
 
@@ -796,6 +1104,8 @@ public class LookupComponent extends AbstractDXRAMComponent<LookupComponentConfi
 
                     ret = lookupRange.getPrimaryPeer();
                 }
+            } else {
+                SOP_CACHE_HIT.inc();
             }
         } else {
             lookupRange = m_peer.getLookupRange(p_chunkID);
@@ -832,8 +1142,8 @@ public class LookupComponent extends AbstractDXRAMComponent<LookupComponentConfi
      * @return LookupTree from SuperPeerOverlay
      * @note This method must be called by a superpeer
      */
-    LookupTree superPeerGetLookUpTree(final short p_nodeID) {
-        LookupTree ret;
+    AbstractLookupTree superPeerGetLookUpTree(final short p_nodeID) {
+        AbstractLookupTree ret;
 
         NodeRole.assertNodeRole(NodeRole.SUPERPEER, m_boot.getNodeRole());
 
@@ -846,7 +1156,46 @@ public class LookupComponent extends AbstractDXRAMComponent<LookupComponentConfi
     }
 
     /**
-     * Invalidates the cache entry for given ChunkID range
+     * Resolve the LookupRanges of sorted ChunkIDs on the superpeers with one request per responsible superpeer. All
+     * ranges resolved are added to the cache at once.
+     *
+     * @param p_sortedChunkIDs
+     *         the ChunkIDs sorted in ascending order
+     * @return the LookupRanges, one entry per ChunkID
+     */
+    private LookupRange[] resolveLookupRanges(final long[] p_sortedChunkIDs) {
+        LookupRange[] ret = m_peer.getLookupRanges(p_sortedChunkIDs);
+
+        if (getConfig().isCachesEnabled()) {
+            long[] startCIDs = new long[ret.length];
+            long[] endCIDs = new long[ret.length];
+            short[] nodeIDs = new short[ret.length];
+            int count = 0;
+
+            for (int i = 0; i < ret.length; i++) {
+                // ChunkIDs in the same range share the same instance
+                if (ret[i] == null || ret[i].getState() != LookupState.OK || i > 0 && ret[i] == ret[i - 1]) {
+                    continue;
+                }
+
+                // superpeers return LocalIDs, the cache stores full ChunkIDs
+                long creator = (long) ChunkID.getCreatorID(p_sortedChunkIDs[i]) << 48;
+
+                startCIDs[count] = creator + ret[i].getRange()[0];
+                endCIDs[count] = creator + ret[i].getRange()[1];
+                nodeIDs[count++] = ret[i].getPrimaryPeer();
+            }
+
+            if (count > 0) {
+                m_chunkIDCacheTree.cacheRanges(startCIDs, endCIDs, nodeIDs, count);
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Invalidates the cache entries for given ChunkID range with a single cache update
      *
      * @param p_startCID
      *         the first ChunkID
@@ -854,9 +1203,23 @@ public class LookupComponent extends AbstractDXRAMComponent<LookupComponentConfi
      *         the last ChunkID
      */
     private void invalidate(final long p_startCID, final long p_endCID) {
-        long iter = p_startCID;
-        while (iter <= p_endCID) {
-            invalidate(iter++);
+        assert p_startCID != ChunkID.INVALID_ID && p_endCID != ChunkID.INVALID_ID;
+
+        m_chunkIDCacheTree.invalidateChunkIDRange(p_startCID, p_endCID);
+    }
+
+    /**
+     * Create the ChunkID range cache of the configured type
+     *
+     * @return the ChunkID range cache
+     */
+    private ChunkIDRangeCache createChunkIDCache() {
+        switch (getConfig().getCacheType().toLowerCase()) {
+            case "copyonwrite":
+                return new CopyOnWriteRangeCache(getConfig().getMaxCacheEntries());
+            case "cachetree":
+            default:
+                return new CacheTree(ORDER, getConfig().getCacheTtl().getMs(), getConfig().getMaxCacheEntries());
         }
     }
 
@@ -866,8 +1229,7 @@ public class LookupComponent extends AbstractDXRAMComponent<LookupComponentConfi
     @SuppressWarnings("unused")
     private void clear() {
         if (getConfig().isCachesEnabled()) {
-            m_chunkIDCacheTree = new CacheTree(ORDER, getConfig().getCacheTtl().getMs(),
-                    getConfig().getMaxCacheEntries());
+            m_chunkIDCacheTree = createChunkIDCache();
             m_applicationIDCache.clear();
         }
     }
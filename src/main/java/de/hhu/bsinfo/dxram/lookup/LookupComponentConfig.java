@@ -8,6 +8,7 @@ import com.google.gson.annotations.Expose;
 
 import de.hhu.bsinfo.dxram.engine.DXRAMConfig;
 import de.hhu.bsinfo.dxram.engine.DXRAMModuleConfig;
+import de.hhu.bsinfo.dxutils.unit.StorageUnit;
 import de.hhu.bsinfo.dxutils.unit.TimeUnit;
 
 /**
@@ -26,7 +27,14 @@ public class LookupComponentConfig extends DXRAMModuleConfig {
     private boolean m_cachesEnabled = true;
 
     /**
-     * Maximum number of entries in cache tree. Currently unused!
+     * Implementation of the ChunkID range cache: "CacheTree" (btree with read-write lock) or "CopyOnWrite"
+     * (lock-free reads, for many concurrent application threads).
+     */
+    @Expose
+    private String m_cacheType = "CacheTree";
+
+    /**
+     * Maximum number of entries in the ChunkID cache. Ranges not used recently are evicted if exceeded
      */
     @Expose
     private long m_maxCacheEntries = 1000L;
@@ -37,12 +45,47 @@ public class LookupComponentConfig extends DXRAMModuleConfig {
     @Expose
     private TimeUnit m_cacheTtl = new TimeUnit(1, TimeUnit.SEC);
 
+    /**
+     * Maximum time to wait for a notification of the responsible superpeer if a range is temporarily unavailable
+     * (e.g. during recovery). The range is looked up again afterwards.
+     */
+    @Expose
+    private TimeUnit m_unavailableRangeRetryInterval = new TimeUnit(1, TimeUnit.SEC);
+
     /**
      * The break time between superpeer stabilization routines (such as pinging all peers and check neighbors).
      */
     @Expose
     private TimeUnit m_stabilizationBreakTime = new TimeUnit(1, TimeUnit.SEC);
 
+    /**
+     * Implementation of the superpeer's per peer range storage: "BTree" (LookupTree) or "Flat" (FlatLookupTree, sorted
+     * primitive arrays, for a lower heap usage and GC pressure with many migrated ranges).
+     */
+    @Expose
+    private String m_lookupTreeType = "BTree";
+
+    /**
+     * Consistency level of lookup tree updates (removals and migrations) on backup superpeers: "Async" (peers are
+     * acknowledged once the responsible superpeer applied the update, backup superpeers are updated in batches) or
+     * "Sync" (peers are acknowledged after all backup superpeers applied the update).
+     */
+    @Expose
+    private String m_metadataReplication = "Async";
+
+    /**
+     * Size of the chunks metadata is handed over in (superpeer joining or spreading backups of a failed superpeer).
+     * A single lookup tree or superpeer storage exceeding the size is sent in one chunk.
+     */
+    @Expose
+    private StorageUnit m_metadataTransferChunkSize = new StorageUnit(1, StorageUnit.MB);
+
+    /**
+     * Number of metadata chunks in flight while handing over metadata to another superpeer
+     */
+    @Expose
+    private int m_metadataTransferWindow = 2;
+
     /**
      * Constructor
      */
@@ -56,6 +99,37 @@ public class LookupComponentConfig extends DXRAMModuleConfig {
             LOGGER.warn("A high effort is needed to satisfy TTL!");
         }
 
+        if (!"CacheTree".equalsIgnoreCase(m_cacheType) && !"CopyOnWrite".equalsIgnoreCase(m_cacheType)) {
+            LOGGER.error("Unknown cache type %s, valid types: CacheTree, CopyOnWrite", m_cacheType);
+            return false;
+        }
+
+        if (!"BTree".equalsIgnoreCase(m_lookupTreeType) && !"Flat".equalsIgnoreCase(m_lookupTreeType)) {
+            LOGGER.error("Unknown lookup tree type %s, valid types: BTree, Flat", m_lookupTreeType);
+            return false;
+        }
+
+        if (!"Async".equalsIgnoreCase(m_metadataReplication) && !"Sync".equalsIgnoreCase(m_metadataReplication)) {
+            LOGGER.error("Unknown metadata replication %s, valid types: Async, Sync", m_metadataReplication);
+            return false;
+        }
+
+        if (m_metadataTransferChunkSize.getBytes() < 4096L ||
+                m_metadataTransferChunkSize.getBytes() > Integer.MAX_VALUE) {
+            LOGGER.error("Metadata transfer chunk size must be between 4 KB and 2 GB");
+            return false;
+        }
+
+        if (m_metadataTransferWindow < 1) {
+            LOGGER.error("Metadata transfer window must be at least 1");
+            return false;
+        }
+
+        if (m_unavailableRangeRetryInterval.getMs() < 1L) {
+            LOGGER.error("Retry interval for unavailable ranges must be at least 1 ms");
+            return false;
+        }
+
         if (m_stabilizationBreakTime.getMs() < 100L) {
             LOGGER.warn("Low break time might cause high CPU load!");
         } else if (m_stabilizationBreakTime.getMs() > 1000L) {
@@ -123,6 +123,23 @@ public final class LookupRange implements Importable, Exportable {
         return m_state;
     }
 
+    /**
+     * Checks if the LocalID of given ChunkID is within the range borders. The creator is not checked
+     *
+     * @param p_chunkID
+     *         the ChunkID
+     * @return true if the state is OK and the LocalID is covered by this range
+     */
+    public boolean isInRange(final long p_chunkID) {
+        if (m_state != LookupState.OK || m_range == null) {
+            return false;
+        }
+
+        long localID = ChunkID.getLocalID(p_chunkID);
+
+        return localID >= ChunkID.getLocalID(m_range[0]) && localID <= ChunkID.getLocalID(m_range[1]);
+    }
+
     // Getter
 
     @Override
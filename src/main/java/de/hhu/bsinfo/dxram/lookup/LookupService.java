@@ -33,7 +33,7 @@ import de.hhu.bsinfo.dxram.lookup.messages.GetLookupTreeResponse;
 import de.hhu.bsinfo.dxram.lookup.messages.GetMetadataSummaryRequest;
 import de.hhu.bsinfo.dxram.lookup.messages.GetMetadataSummaryResponse;
 import de.hhu.bsinfo.dxram.lookup.messages.LookupMessages;
-import de.hhu.bsinfo.dxram.lookup.overlay.storage.LookupTree;
+import de.hhu.bsinfo.dxram.lookup.overlay.storage.AbstractLookupTree;
 import de.hhu.bsinfo.dxram.net.NetworkComponent;
 
 /**
@@ -115,9 +115,9 @@ public class LookupService extends AbstractDXRAMService<DXRAMModuleConfig> imple
      *         node id which lookuptree to get
      * @return requested lookup Tree
      */
-    public LookupTree getLookupTreeFromSuperpeer(final short p_superPeerNid, final short p_nodeId) {
+    public AbstractLookupTree getLookupTreeFromSuperpeer(final short p_superPeerNid, final short p_nodeId) {
 
-        LookupTree retTree;
+        AbstractLookupTree retTree;
 
         GetLookupTreeRequest lookupTreeRequest;
         GetLookupTreeResponse lookupTreeResponse;
@@ -192,7 +192,7 @@ public class LookupService extends AbstractDXRAMService<DXRAMModuleConfig> imple
      *         the LookupTreeRequest
      */
     private void incomingRequestLookupTreeOnServerMessage(final GetLookupTreeRequest p_message) {
-        LookupTree tree = m_lookup.superPeerGetLookUpTree(p_message.getTreeNodeID());
+        AbstractLookupTree tree = m_lookup.superPeerGetLookUpTree(p_message.getTreeNodeID());
 
         try {
             m_network.sendMessage(new GetLookupTreeResponse(p_message, tree));
@@ -0,0 +1,212 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.lookup;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Parks threads waiting for temporarily unavailable ranges of a creator until the responsible superpeer reports
+ * them available again. Every notification increments the creator's epoch. A waiter reads the epoch before looking up
+ * the range, so notifications arriving between the lookup and parking are not lost.
+ * Asynchronous waiters are not parked but get a future which is completed on notification or by a single timer
+ * thread after the timeout.
+ */
+class RangeAvailabilityMonitor {
+    private final AtomicLongArray m_epochs = new AtomicLongArray(0x10000);
+
+    private final ReentrantLock m_lock = new ReentrantLock(false);
+    private final Condition m_cond = m_lock.newCondition();
+
+    private final ConcurrentLinkedQueue<AsyncWaiter> m_asyncWaiters = new ConcurrentLinkedQueue<>();
+    private final ScheduledThreadPoolExecutor m_timer;
+
+    /**
+     * Constructor
+     */
+    RangeAvailabilityMonitor() {
+        m_timer = new ScheduledThreadPoolExecutor(1, p_runnable -> {
+            Thread thread = new Thread(p_runnable, "RangeAvailabilityTimer");
+            thread.setDaemon(true);
+
+            return thread;
+        });
+        m_timer.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Get the current epoch of a creator
+     *
+     * @param p_creator
+     *         the creator
+     * @return the epoch
+     */
+    long getEpoch(final short p_creator) {
+        return m_epochs.get(p_creator & 0xFFFF);
+    }
+
+    /**
+     * Wake up all threads waiting for ranges of a creator
+     *
+     * @param p_creator
+     *         the creator whose ranges are available again
+     */
+    void signal(final short p_creator) {
+        m_epochs.incrementAndGet(p_creator & 0xFFFF);
+
+        m_lock.lock();
+        m_cond.signalAll();
+        m_lock.unlock();
+
+        for (AsyncWaiter waiter : m_asyncWaiters) {
+            if (waiter.m_creator == p_creator) {
+                waiter.complete();
+            }
+        }
+    }
+
+    /**
+     * Wake up all waiting threads, e.g. after the superpeer overlay changed
+     */
+    void signalAll() {
+        for (int i = 0; i < m_epochs.length(); i++) {
+            m_epochs.incrementAndGet(i);
+        }
+
+        m_lock.lock();
+        m_cond.signalAll();
+        m_lock.unlock();
+
+        for (AsyncWaiter waiter : m_asyncWaiters) {
+            waiter.complete();
+        }
+    }
+
+    /**
+     * Wait until the epoch of a creator changed or the timeout elapsed
+     *
+     * @param p_creator
+     *         the creator
+     * @param p_epoch
+     *         the epoch read before the range was looked up
+     * @param p_timeoutMs
+     *         the maximum time to wait in ms
+     */
+    void await(final short p_creator, final long p_epoch, final long p_timeoutMs) {
+        long remainingNs = TimeUnit.MILLISECONDS.toNanos(p_timeoutMs);
+
+        m_lock.lock();
+
+        try {
+            while (getEpoch(p_creator) == p_epoch && remainingNs > 0) {
+                remainingNs = m_cond.awaitNanos(remainingNs);
+            }
+        } catch (final InterruptedException ignore) {
+        } finally {
+            m_lock.unlock();
+        }
+    }
+
+    /**
+     * Wait without blocking the caller until the epoch of a creator changed or the timeout elapsed
+     *
+     * @param p_creator
+     *         the creator
+     * @param p_epoch
+     *         the epoch read before the range was looked up
+     * @param p_timeoutMs
+     *         the maximum time to wait in ms
+     * @return future completed on notification or timeout. Dependent actions must not block, they are executed by
+     * the notifying thread or the timer thread
+     */
+    CompletableFuture<Void> awaitAsync(final short p_creator, final long p_epoch, final long p_timeoutMs) {
+        AsyncWaiter waiter = new AsyncWaiter(p_creator);
+
+        m_asyncWaiters.add(waiter);
+
+        // the epoch is incremented before waiters are completed, so a notification is either seen here or completes
+        // the registered waiter
+        if (getEpoch(p_creator) != p_epoch) {
+            waiter.complete();
+        } else {
+            try {
+                waiter.m_timeout = m_timer.schedule(waiter::complete, p_timeoutMs, TimeUnit.MILLISECONDS);
+            } catch (final RejectedExecutionException ignored) {
+                // shut down
+                waiter.complete();
+            }
+
+            if (waiter.m_future.isDone() && waiter.m_timeout != null) {
+                waiter.m_timeout.cancel(false);
+            }
+        }
+
+        return waiter.m_future;
+    }
+
+    /**
+     * Stop the timer and complete all asynchronous waiters
+     */
+    void shutdown() {
+        m_timer.shutdownNow();
+
+        for (AsyncWaiter waiter : m_asyncWaiters) {
+            waiter.complete();
+        }
+    }
+
+    /**
+     * A caller waiting asynchronously for ranges of a creator
+     */
+    private final class AsyncWaiter {
+        private final short m_creator;
+        private final CompletableFuture<Void> m_future = new CompletableFuture<>();
+        private volatile ScheduledFuture<?> m_timeout;
+
+        /**
+         * Constructor
+         *
+         * @param p_creator
+         *         the creator
+         */
+        private AsyncWaiter(final short p_creator) {
+            m_creator = p_creator;
+        }
+
+        /**
+         * Remove the waiter and complete its future, once only
+         */
+        private void complete() {
+            if (m_asyncWaiters.remove(this)) {
+                ScheduledFuture<?> timeout = m_timeout;
+
+                if (timeout != null) {
+                    timeout.cancel(false);
+                }
+
+                m_future.complete(null);
+            }
+        }
+    }
+}
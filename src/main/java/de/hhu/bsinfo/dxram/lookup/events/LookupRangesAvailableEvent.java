@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.lookup.events;
+
+import de.hhu.bsinfo.dxram.event.AbstractEvent;
+
+/**
+ * This event is fired when the responsible superpeer reports the ranges of a creator available again.
+ */
+public class LookupRangesAvailableEvent extends AbstractEvent {
+
+    private short m_creator;
+
+    /**
+     * Constructor
+     *
+     * @param p_sourceClass
+     *         The calling class
+     * @param p_creator
+     *         Creator whose ranges are available again
+     */
+    public LookupRangesAvailableEvent(final String p_sourceClass, final short p_creator) {
+        super(p_sourceClass);
+
+        m_creator = p_creator;
+    }
+
+    /**
+     * Get the creator whose ranges are available again.
+     *
+     * @return Creator.
+     */
+    public short getCreator() {
+        return m_creator;
+    }
+}
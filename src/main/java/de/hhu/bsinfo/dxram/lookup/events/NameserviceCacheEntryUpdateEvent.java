@@ -19,47 +19,47 @@ package de.hhu.bsinfo.dxram.lookup.events;
 import de.hhu.bsinfo.dxram.event.AbstractEvent;
 
 /**
- * This event is fired when an existing nameservice entry is updated.
+ * This event is fired when existing nameservice entries are updated.
  *
  * @author Stefan Nothaas, stefan.nothaas@hhu.de, 19.04.2016
  */
 public class NameserviceCacheEntryUpdateEvent extends AbstractEvent {
 
-    private int m_id;
-    private long m_chunkID;
+    private int[] m_ids;
+    private long[] m_chunkIDs;
 
     /**
      * Constructor
      *
      * @param p_sourceClass
      *         The calling class
-     * @param p_id
-     *         Id for the mapping.
-     * @param p_chunkId
-     *         Chunk id mapped to the id
+     * @param p_ids
+     *         Ids for the mappings.
+     * @param p_chunkIds
+     *         Chunk ids mapped to the ids, one per id
      */
-    public NameserviceCacheEntryUpdateEvent(final String p_sourceClass, final int p_id, final long p_chunkId) {
+    public NameserviceCacheEntryUpdateEvent(final String p_sourceClass, final int[] p_ids, final long[] p_chunkIds) {
         super(p_sourceClass);
 
-        m_id = p_id;
-        m_chunkID = p_chunkId;
+        m_ids = p_ids;
+        m_chunkIDs = p_chunkIds;
     }
 
     /**
-     * Get the id for the mapping.
+     * Get the ids for the mappings.
      *
-     * @return Id.
+     * @return Ids.
      */
-    public int getId() {
-        return m_id;
+    public int[] getIds() {
+        return m_ids;
     }
 
     /**
-     * Get the chunk id mapped to the id.
+     * Get the chunk ids mapped to the ids.
      *
-     * @return Chunk id.
+     * @return Chunk ids, one per id.
      */
-    public long getChunkID() {
-        return m_chunkID;
+    public long[] getChunkIDs() {
+        return m_chunkIDs;
     }
 }
@@ -33,7 +33,11 @@ public class AskAboutBackupsRequest extends Request {
 
     // Attributes
     private ArrayList<Short> m_peers;
+    private long[] m_syncedVersions;
     private int m_numberOfNameserviceEntries;
+    private long m_nameserviceEpoch;
+    private long m_nameserviceVersion;
+    private short m_nameservicePredecessor;
     private int m_numberOfStorages;
     private int m_numberOfBarriers;
 
@@ -57,19 +61,33 @@ public class AskAboutBackupsRequest extends Request {
      *         the destination
      * @param p_peers
      *         all peers for which this superpeer stores backups
+     * @param p_syncedVersions
+     *         the epoch and version per peer the backups were synchronized with
      * @param p_numberOfNameserviceEntries
      *         the number of expected nameservice entries
+     * @param p_nameserviceEpoch
+     *         the epoch of the last nameservice synchronization
+     * @param p_nameserviceVersion
+     *         the version of the last nameservice synchronization
+     * @param p_nameservicePredecessor
+     *         the destination's predecessor at the last nameservice synchronization
      * @param p_numberOfStorages
      *         the number of expected storages
      * @param p_numberOfBarriers
      *         the number of expected barriers
      */
     public AskAboutBackupsRequest(final short p_destination, final ArrayList<Short> p_peers,
-            final int p_numberOfNameserviceEntries, final int p_numberOfStorages, final int p_numberOfBarriers) {
+            final long[] p_syncedVersions, final int p_numberOfNameserviceEntries, final long p_nameserviceEpoch,
+            final long p_nameserviceVersion, final short p_nameservicePredecessor, final int p_numberOfStorages,
+            final int p_numberOfBarriers) {
         super(p_destination, DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE, LookupMessages.SUBTYPE_ASK_ABOUT_BACKUPS_REQUEST);
 
         m_peers = p_peers;
+        m_syncedVersions = p_syncedVersions;
         m_numberOfNameserviceEntries = p_numberOfNameserviceEntries;
+        m_nameserviceEpoch = p_nameserviceEpoch;
+        m_nameserviceVersion = p_nameserviceVersion;
+        m_nameservicePredecessor = p_nameservicePredecessor;
         m_numberOfStorages = p_numberOfStorages;
         m_numberOfBarriers = p_numberOfBarriers;
     }
@@ -85,6 +103,42 @@ public class AskAboutBackupsRequest extends Request {
         return m_peers;
     }
 
+    /**
+     * Get the epoch and version per peer the backups were synchronized with
+     *
+     * @return the epochs and versions
+     */
+    public final long[] getSyncedVersions() {
+        return m_syncedVersions;
+    }
+
+    /**
+     * Get the epoch of the last nameservice synchronization
+     *
+     * @return the epoch
+     */
+    public final long getNameserviceEpoch() {
+        return m_nameserviceEpoch;
+    }
+
+    /**
+     * Get the version of the last nameservice synchronization
+     *
+     * @return the version
+     */
+    public final long getNameserviceVersion() {
+        return m_nameserviceVersion;
+    }
+
+    /**
+     * Get the destination's predecessor at the last nameservice synchronization
+     *
+     * @return the predecessor
+     */
+    public final short getNameservicePredecessor() {
+        return m_nameservicePredecessor;
+    }
+
     /**
      * Get the expected number of nameservice entries
      *
@@ -121,7 +175,8 @@ public class AskAboutBackupsRequest extends Request {
         } else {
             ret = Byte.BYTES;
         }
-        ret += 3 * Integer.BYTES;
+        ret += ObjectSizeUtil.sizeofLongArray(m_syncedVersions);
+        ret += 3 * Integer.BYTES + 2 * Long.BYTES + Short.BYTES;
 
         return ret;
     }
@@ -137,7 +192,11 @@ public class AskAboutBackupsRequest extends Request {
                 p_exporter.writeShort(peer);
             }
         }
+        p_exporter.writeLongArray(m_syncedVersions);
         p_exporter.writeInt(m_numberOfNameserviceEntries);
+        p_exporter.writeLong(m_nameserviceEpoch);
+        p_exporter.writeLong(m_nameserviceVersion);
+        p_exporter.writeShort(m_nameservicePredecessor);
         p_exporter.writeInt(m_numberOfStorages);
         p_exporter.writeInt(m_numberOfBarriers);
     }
@@ -154,7 +213,11 @@ public class AskAboutBackupsRequest extends Request {
                 m_peers.add(peer);
             }
         }
+        m_syncedVersions = p_importer.readLongArray(m_syncedVersions);
         m_numberOfNameserviceEntries = p_importer.readInt(m_numberOfNameserviceEntries);
+        m_nameserviceEpoch = p_importer.readLong(m_nameserviceEpoch);
+        m_nameserviceVersion = p_importer.readLong(m_nameserviceVersion);
+        m_nameservicePredecessor = p_importer.readShort(m_nameservicePredecessor);
         m_numberOfStorages = p_importer.readInt(m_numberOfStorages);
         m_numberOfBarriers = p_importer.readInt(m_numberOfBarriers);
     }
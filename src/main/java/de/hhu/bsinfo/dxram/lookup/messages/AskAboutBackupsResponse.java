@@ -30,6 +30,9 @@ public class AskAboutBackupsResponse extends Response {
 
     // Attributes
     private byte[] m_missingMetadata;
+    private long m_nameserviceEpoch;
+    private long m_nameserviceVersion;
+    private short m_predecessor;
 
     // Constructors
 
@@ -49,11 +52,21 @@ public class AskAboutBackupsResponse extends Response {
      *         the corresponding AskAboutBackupsRequest
      * @param p_missingMetadata
      *         the missing metadata
+     * @param p_nameserviceEpoch
+     *         the epoch of the nameservice the missing metadata was gathered from
+     * @param p_nameserviceVersion
+     *         the version of the nameservice the missing metadata was gathered from
+     * @param p_predecessor
+     *         the responding superpeer's predecessor (bounds the nameservice area)
      */
-    public AskAboutBackupsResponse(final AskAboutBackupsRequest p_request, final byte[] p_missingMetadata) {
+    public AskAboutBackupsResponse(final AskAboutBackupsRequest p_request, final byte[] p_missingMetadata,
+            final long p_nameserviceEpoch, final long p_nameserviceVersion, final short p_predecessor) {
         super(p_request, LookupMessages.SUBTYPE_ASK_ABOUT_BACKUPS_RESPONSE);
 
         m_missingMetadata = p_missingMetadata;
+        m_nameserviceEpoch = p_nameserviceEpoch;
+        m_nameserviceVersion = p_nameserviceVersion;
+        m_predecessor = p_predecessor;
     }
 
     // Getters
@@ -67,13 +80,44 @@ public class AskAboutBackupsResponse extends Response {
         return m_missingMetadata;
     }
 
+    /**
+     * Get the epoch of the nameservice the missing metadata was gathered from
+     *
+     * @return the epoch
+     */
+    public final long getNameserviceEpoch() {
+        return m_nameserviceEpoch;
+    }
+
+    /**
+     * Get the version of the nameservice the missing metadata was gathered from
+     *
+     * @return the version
+     */
+    public final long getNameserviceVersion() {
+        return m_nameserviceVersion;
+    }
+
+    /**
+     * Get the responding superpeer's predecessor
+     *
+     * @return the predecessor
+     */
+    public final short getPredecessor() {
+        return m_predecessor;
+    }
+
     @Override
     protected final int getPayloadLength() {
+        int ret;
+
         if (m_missingMetadata != null && m_missingMetadata.length > 0) {
-            return ObjectSizeUtil.sizeofByteArray(m_missingMetadata);
+            ret = ObjectSizeUtil.sizeofByteArray(m_missingMetadata);
         } else {
-            return Byte.BYTES;
+            ret = Byte.BYTES;
         }
+
+        return ret + 2 * Long.BYTES + Short.BYTES;
     }
 
     // Methods
@@ -84,11 +128,17 @@ public class AskAboutBackupsResponse extends Response {
         } else {
             p_exporter.writeByteArray(m_missingMetadata);
         }
+        p_exporter.writeLong(m_nameserviceEpoch);
+        p_exporter.writeLong(m_nameserviceVersion);
+        p_exporter.writeShort(m_predecessor);
     }
 
     @Override
     protected final void readPayload(final AbstractMessageImporter p_importer) {
         m_missingMetadata = p_importer.readByteArray(m_missingMetadata);
+        m_nameserviceEpoch = p_importer.readLong(m_nameserviceEpoch);
+        m_nameserviceVersion = p_importer.readLong(m_nameserviceVersion);
+        m_predecessor = p_importer.readShort(m_predecessor);
     }
 
 }
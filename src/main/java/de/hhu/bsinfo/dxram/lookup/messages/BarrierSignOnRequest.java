@@ -20,6 +20,7 @@ import de.hhu.bsinfo.dxnet.core.AbstractMessageExporter;
 import de.hhu.bsinfo.dxnet.core.AbstractMessageImporter;
 import de.hhu.bsinfo.dxnet.core.Request;
 import de.hhu.bsinfo.dxram.DXRAMMessageTypes;
+import de.hhu.bsinfo.dxutils.serialization.ObjectSizeUtil;
 
 /**
  * Request to sign on at a barrier
@@ -29,6 +30,8 @@ import de.hhu.bsinfo.dxram.DXRAMMessageTypes;
 public class BarrierSignOnRequest extends Request {
     private int m_barrierId = -1;
     private long m_customData = -1;
+    private short[] m_forwardedNodeIds = new short[0];
+    private long[] m_forwardedCustomData = new long[0];
 
     /**
      * Creates an instance of SlaveSyncBarrierSignOnMessage.
@@ -56,6 +59,29 @@ public class BarrierSignOnRequest extends Request {
         m_customData = p_customData;
     }
 
+    /**
+     * Creates an instance of SlaveSyncBarrierSignOnMessage.
+     * This constructor is used by the root of a combining tree barrier to sign on all peers of the tree.
+     *
+     * @param p_destination
+     *         the destination node id.
+     * @param p_barrierId
+     *         Id of the barrier to sign on
+     * @param p_customData
+     *         Custom data to pass along with the sign on
+     * @param p_forwardedNodeIds
+     *         Node ids of the peers signed on by the sender, released by the sender
+     * @param p_forwardedCustomData
+     *         Custom data of the peers signed on by the sender (indices match node id array)
+     */
+    public BarrierSignOnRequest(final short p_destination, final int p_barrierId, final long p_customData,
+            final short[] p_forwardedNodeIds, final long[] p_forwardedCustomData) {
+        this(p_destination, p_barrierId, p_customData);
+
+        m_forwardedNodeIds = p_forwardedNodeIds;
+        m_forwardedCustomData = p_forwardedCustomData;
+    }
+
     /**
      * Get the id of the barrier to sign on.
      *
@@ -74,20 +100,43 @@ public class BarrierSignOnRequest extends Request {
         return m_customData;
     }
 
+    /**
+     * Get the node ids of the peers signed on by the sender (combining tree barrier).
+     *
+     * @return Node ids, empty if the sender signs on itself, only
+     */
+    public short[] getForwardedNodeIds() {
+        return m_forwardedNodeIds;
+    }
+
+    /**
+     * Get the custom data of the peers signed on by the sender (combining tree barrier).
+     *
+     * @return Custom data (indices match node id array)
+     */
+    public long[] getForwardedCustomData() {
+        return m_forwardedCustomData;
+    }
+
     @Override
     protected final int getPayloadLength() {
-        return Integer.BYTES + Long.BYTES;
+        return Integer.BYTES + Long.BYTES + ObjectSizeUtil.sizeofShortArray(m_forwardedNodeIds) +
+                ObjectSizeUtil.sizeofLongArray(m_forwardedCustomData);
     }
 
     @Override
     protected final void writePayload(final AbstractMessageExporter p_exporter) {
         p_exporter.writeInt(m_barrierId);
         p_exporter.writeLong(m_customData);
+        p_exporter.writeShortArray(m_forwardedNodeIds);
+        p_exporter.writeLongArray(m_forwardedCustomData);
     }
 
     @Override
     protected final void readPayload(final AbstractMessageImporter p_importer) {
         m_barrierId = p_importer.readInt(m_barrierId);
         m_customData = p_importer.readLong(m_customData);
+        m_forwardedNodeIds = p_importer.readShortArray(m_forwardedNodeIds);
+        m_forwardedCustomData = p_importer.readLongArray(m_forwardedCustomData);
     }
 }
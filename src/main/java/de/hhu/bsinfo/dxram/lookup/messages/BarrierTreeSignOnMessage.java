@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.lookup.messages;
+
+import de.hhu.bsinfo.dxnet.core.AbstractMessageExporter;
+import de.hhu.bsinfo.dxnet.core.AbstractMessageImporter;
+import de.hhu.bsinfo.dxnet.core.Message;
+import de.hhu.bsinfo.dxram.DXRAMMessageTypes;
+import de.hhu.bsinfo.dxutils.serialization.ObjectSizeUtil;
+
+/**
+ * Message to pass the combined sign ons of a subtree to the parent peer in a combining tree barrier.
+ */
+public class BarrierTreeSignOnMessage extends Message {
+    private int m_barrierId = -1;
+    private short[] m_nodeIds;
+    private long[] m_customData;
+
+    /**
+     * Creates an instance of BarrierTreeSignOnMessage.
+     * This constructor is used when receiving this message.
+     */
+    public BarrierTreeSignOnMessage() {
+        super();
+    }
+
+    /**
+     * Creates an instance of BarrierTreeSignOnMessage.
+     * This constructor is used when sending this message.
+     *
+     * @param p_destination
+     *         the destination node id (parent in the combining tree).
+     * @param p_barrierId
+     *         Id of the barrier to sign on
+     * @param p_nodeIds
+     *         Node ids of all peers of the subtree
+     * @param p_customData
+     *         Custom data of all peers of the subtree (indices match node id array)
+     */
+    public BarrierTreeSignOnMessage(final short p_destination, final int p_barrierId, final short[] p_nodeIds,
+            final long[] p_customData) {
+        super(p_destination, DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
+                LookupMessages.SUBTYPE_BARRIER_TREE_SIGN_ON_MESSAGE);
+
+        m_barrierId = p_barrierId;
+        m_nodeIds = p_nodeIds;
+        m_customData = p_customData;
+    }
+
+    /**
+     * Get the id of the barrier to sign on.
+     *
+     * @return Barrier id
+     */
+    public int getBarrierId() {
+        return m_barrierId;
+    }
+
+    /**
+     * Get the node ids of all peers of the subtree
+     *
+     * @return Node ids
+     */
+    public short[] getNodeIds() {
+        return m_nodeIds;
+    }
+
+    /**
+     * Get the custom data of all peers of the subtree
+     *
+     * @return Custom data (indices match node id array)
+     */
+    public long[] getCustomData() {
+        return m_customData;
+    }
+
+    @Override
+    protected final int getPayloadLength() {
+        return Integer.BYTES + ObjectSizeUtil.sizeofShortArray(m_nodeIds) +
+                ObjectSizeUtil.sizeofLongArray(m_customData);
+    }
+
+    @Override
+    protected final void writePayload(final AbstractMessageExporter p_exporter) {
+        p_exporter.writeInt(m_barrierId);
+        p_exporter.writeShortArray(m_nodeIds);
+        p_exporter.writeLongArray(m_customData);
+    }
+
+    @Override
+    protected final void readPayload(final AbstractMessageImporter p_importer) {
+        m_barrierId = p_importer.readInt(m_barrierId);
+        m_nodeIds = p_importer.readShortArray(m_nodeIds);
+        m_customData = p_importer.readLongArray(m_customData);
+    }
+}
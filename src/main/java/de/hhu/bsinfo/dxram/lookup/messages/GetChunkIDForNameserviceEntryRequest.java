@@ -30,6 +30,7 @@ public class GetChunkIDForNameserviceEntryRequest extends Request {
 
     // Attributes
     private int m_id;
+    private int m_watchTimeoutMs;
 
     // Constructors
 
@@ -40,6 +41,7 @@ public class GetChunkIDForNameserviceEntryRequest extends Request {
         super();
 
         m_id = -1;
+        m_watchTimeoutMs = 0;
     }
 
     /**
@@ -55,6 +57,24 @@ public class GetChunkIDForNameserviceEntryRequest extends Request {
                 LookupMessages.SUBTYPE_GET_CHUNKID_FOR_NAMESERVICE_ENTRY_REQUEST);
 
         m_id = p_id;
+        m_watchTimeoutMs = 0;
+    }
+
+    /**
+     * Creates an instance of GetChunkIDRequest which is answered by the superpeer once the id is registered
+     *
+     * @param p_destination
+     *         the destination
+     * @param p_id
+     *         the id
+     * @param p_watchTimeoutMs
+     *         max time in ms the superpeer delays the response if the id is not registered, yet
+     */
+    public GetChunkIDForNameserviceEntryRequest(final short p_destination, final int p_id,
+            final int p_watchTimeoutMs) {
+        this(p_destination, p_id);
+
+        m_watchTimeoutMs = p_watchTimeoutMs;
     }
 
     // Getters
@@ -68,20 +88,31 @@ public class GetChunkIDForNameserviceEntryRequest extends Request {
         return m_id;
     }
 
+    /**
+     * Get the max time the superpeer delays the response if the id is not registered, yet
+     *
+     * @return the watch timeout in ms (0 to respond immediately)
+     */
+    public final int getWatchTimeoutMs() {
+        return m_watchTimeoutMs;
+    }
+
     @Override
     protected final int getPayloadLength() {
-        return Integer.BYTES;
+        return Integer.BYTES * 2;
     }
 
     // Methods
     @Override
     protected final void writePayload(final AbstractMessageExporter p_exporter) {
         p_exporter.writeInt(m_id);
+        p_exporter.writeInt(m_watchTimeoutMs);
     }
 
     @Override
     protected final void readPayload(final AbstractMessageImporter p_importer) {
         m_id = p_importer.readInt(m_id);
+        m_watchTimeoutMs = p_importer.readInt(m_watchTimeoutMs);
     }
 
 }
@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.lookup.messages;
+
+import de.hhu.bsinfo.dxnet.core.AbstractMessageExporter;
+import de.hhu.bsinfo.dxnet.core.AbstractMessageImporter;
+import de.hhu.bsinfo.dxnet.core.Request;
+import de.hhu.bsinfo.dxram.DXRAMMessageTypes;
+import de.hhu.bsinfo.dxutils.serialization.ObjectSizeUtil;
+
+/**
+ * Request for the ChunkIDs of multiple nameservice ids handled by the same superpeer in a single round trip
+ */
+public class GetChunkIDsForNameserviceEntriesRequest extends Request {
+
+    // Attributes
+    private int[] m_ids;
+    private int m_watchTimeoutMs;
+
+    // Constructors
+
+    /**
+     * Creates an instance of GetChunkIDsForNameserviceEntriesRequest
+     */
+    public GetChunkIDsForNameserviceEntriesRequest() {
+        super();
+
+        m_ids = null;
+        m_watchTimeoutMs = 0;
+    }
+
+    /**
+     * Creates an instance of GetChunkIDsForNameserviceEntriesRequest
+     *
+     * @param p_destination
+     *         the destination
+     * @param p_ids
+     *         the nameservice ids
+     */
+    public GetChunkIDsForNameserviceEntriesRequest(final short p_destination, final int[] p_ids) {
+        super(p_destination, DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
+                LookupMessages.SUBTYPE_GET_CHUNKIDS_FOR_NAMESERVICE_ENTRIES_REQUEST);
+
+        m_ids = p_ids;
+        m_watchTimeoutMs = 0;
+    }
+
+    /**
+     * Creates an instance of GetChunkIDsForNameserviceEntriesRequest which is answered by the superpeer once all ids
+     * are registered
+     *
+     * @param p_destination
+     *         the destination
+     * @param p_ids
+     *         the nameservice ids
+     * @param p_watchTimeoutMs
+     *         max time in ms the superpeer delays the response if ids are not registered, yet
+     */
+    public GetChunkIDsForNameserviceEntriesRequest(final short p_destination, final int[] p_ids,
+            final int p_watchTimeoutMs) {
+        this(p_destination, p_ids);
+
+        m_watchTimeoutMs = p_watchTimeoutMs;
+    }
+
+    // Getters
+
+    /**
+     * Get the nameservice ids
+     *
+     * @return the nameservice ids
+     */
+    public final int[] getIDs() {
+        return m_ids;
+    }
+
+    /**
+     * Get the max time the superpeer delays the response if ids are not registered, yet
+     *
+     * @return the watch timeout in ms (0 to respond immediately)
+     */
+    public final int getWatchTimeoutMs() {
+        return m_watchTimeoutMs;
+    }
+
+    @Override
+    protected final int getPayloadLength() {
+        return ObjectSizeUtil.sizeofIntArray(m_ids) + Integer.BYTES;
+    }
+
+    // Methods
+    @Override
+    protected final void writePayload(final AbstractMessageExporter p_exporter) {
+        p_exporter.writeIntArray(m_ids);
+        p_exporter.writeInt(m_watchTimeoutMs);
+    }
+
+    @Override
+    protected final void readPayload(final AbstractMessageImporter p_importer) {
+        m_ids = p_importer.readIntArray(m_ids);
+        m_watchTimeoutMs = p_importer.readInt(m_watchTimeoutMs);
+    }
+
+}
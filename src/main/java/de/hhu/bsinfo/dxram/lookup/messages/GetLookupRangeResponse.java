@@ -84,6 +84,9 @@ public class GetLookupRangeResponse extends Response {
             m_lookupRange = new LookupRange();
         }
         p_importer.importObject(m_lookupRange);
+
+        // report the arrival to a pending asynchronous request
+        ((GetLookupRangeRequest) getCorrespondingRequest()).responseReceived(this);
     }
 
 }
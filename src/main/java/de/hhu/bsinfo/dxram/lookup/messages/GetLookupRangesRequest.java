@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.lookup.messages;
+
+import de.hhu.bsinfo.dxnet.core.AbstractMessageExporter;
+import de.hhu.bsinfo.dxnet.core.AbstractMessageImporter;
+import de.hhu.bsinfo.dxnet.core.Request;
+import de.hhu.bsinfo.dxram.DXRAMMessageTypes;
+import de.hhu.bsinfo.dxutils.serialization.ObjectSizeUtil;
+
+/**
+ * Request for the LookupRanges of multiple ChunkIDs in a single round trip
+ */
+public class GetLookupRangesRequest extends Request {
+
+    // Attributes
+    private long[] m_chunkIDs;
+
+    // Constructors
+
+    /**
+     * Creates an instance of GetLookupRangesRequest
+     */
+    public GetLookupRangesRequest() {
+        super();
+
+        m_chunkIDs = null;
+    }
+
+    /**
+     * Creates an instance of GetLookupRangesRequest
+     *
+     * @param p_destination
+     *         the destination
+     * @param p_chunkIDs
+     *         the ChunkIDs of the requested objects, sorted ascending
+     */
+    public GetLookupRangesRequest(final short p_destination, final long[] p_chunkIDs) {
+        super(p_destination, DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE, LookupMessages.SUBTYPE_GET_LOOKUP_RANGES_REQUEST);
+
+        assert p_chunkIDs != null;
+
+        m_chunkIDs = p_chunkIDs;
+    }
+
+    // Getters
+
+    /**
+     * Get the ChunkIDs
+     *
+     * @return the ChunkIDs, sorted ascending
+     */
+    public final long[] getChunkIDs() {
+        return m_chunkIDs;
+    }
+
+    @Override
+    protected final int getPayloadLength() {
+        return ObjectSizeUtil.sizeofLongArray(m_chunkIDs);
+    }
+
+    // Methods
+    @Override
+    protected final void writePayload(final AbstractMessageExporter p_exporter) {
+        p_exporter.writeLongArray(m_chunkIDs);
+    }
+
+    @Override
+    protected final void readPayload(final AbstractMessageImporter p_importer) {
+        m_chunkIDs = p_importer.readLongArray(m_chunkIDs);
+    }
+
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.lookup.messages;
+
+import de.hhu.bsinfo.dxnet.core.AbstractMessageExporter;
+import de.hhu.bsinfo.dxnet.core.AbstractMessageImporter;
+import de.hhu.bsinfo.dxnet.core.Response;
+import de.hhu.bsinfo.dxram.lookup.LookupRange;
+import de.hhu.bsinfo.dxutils.serialization.ObjectSizeUtil;
+
+/**
+ * Response to a GetLookupRangesRequest. Contains every covering LookupRange once with the number of consecutive
+ * (sorted) requested ChunkIDs it covers
+ */
+public class GetLookupRangesResponse extends Response {
+
+    // Attributes
+    private LookupRange[] m_lookupRanges;
+    private int[] m_chunkIDCounts;
+
+    // Constructors
+
+    /**
+     * Creates an instance of GetLookupRangesResponse
+     */
+    public GetLookupRangesResponse() {
+        super();
+
+        m_lookupRanges = null;
+        m_chunkIDCounts = null;
+    }
+
+    /**
+     * Creates an instance of GetLookupRangesResponse
+     *
+     * @param p_request
+     *         the corresponding GetLookupRangesRequest
+     * @param p_lookupRanges
+     *         the deduplicated LookupRanges in order of the requested ChunkIDs
+     * @param p_chunkIDCounts
+     *         the number of requested ChunkIDs covered by each LookupRange
+     */
+    public GetLookupRangesResponse(final GetLookupRangesRequest p_request, final LookupRange[] p_lookupRanges,
+            final int[] p_chunkIDCounts) {
+        super(p_request, LookupMessages.SUBTYPE_GET_LOOKUP_RANGES_RESPONSE);
+
+        assert p_lookupRanges.length == p_chunkIDCounts.length;
+
+        m_lookupRanges = p_lookupRanges;
+        m_chunkIDCounts = p_chunkIDCounts;
+    }
+
+    // Getters
+
+    /**
+     * Get the LookupRanges
+     *
+     * @return the deduplicated LookupRanges
+     */
+    public final LookupRange[] getLookupRanges() {
+        return m_lookupRanges;
+    }
+
+    /**
+     * Get the number of requested ChunkIDs covered by each LookupRange
+     *
+     * @return the ChunkID counts
+     */
+    public final int[] getChunkIDCounts() {
+        return m_chunkIDCounts;
+    }
+
+    @Override
+    protected final int getPayloadLength() {
+        int ret = ObjectSizeUtil.sizeofCompactedNumber(m_lookupRanges.length);
+
+        for (int i = 0; i < m_lookupRanges.length; i++) {
+            ret += m_lookupRanges[i].sizeofObject() + ObjectSizeUtil.sizeofCompactedNumber(m_chunkIDCounts[i]);
+        }
+
+        return ret;
+    }
+
+    // Methods
+    @Override
+    protected final void writePayload(final AbstractMessageExporter p_exporter) {
+        p_exporter.writeCompactNumber(m_lookupRanges.length);
+
+        for (int i = 0; i < m_lookupRanges.length; i++) {
+            p_exporter.exportObject(m_lookupRanges[i]);
+            p_exporter.writeCompactNumber(m_chunkIDCounts[i]);
+        }
+    }
+
+    @Override
+    protected final void readPayload(final AbstractMessageImporter p_importer) {
+        int length = p_importer.readCompactNumber(0);
+        if (m_lookupRanges == null) {
+            m_lookupRanges = new LookupRange[length];
+            m_chunkIDCounts = new int[length];
+        }
+        for (int i = 0; i < m_lookupRanges.length; i++) {
+            if (m_lookupRanges[i] == null) {
+                m_lookupRanges[i] = new LookupRange();
+            }
+            p_importer.importObject(m_lookupRanges[i]);
+            m_chunkIDCounts[i] = p_importer.readCompactNumber(m_chunkIDCounts[i]);
+        }
+    }
+
+}
@@ -19,6 +19,7 @@ package de.hhu.bsinfo.dxram.lookup.messages;
 import de.hhu.bsinfo.dxnet.core.AbstractMessageExporter;
 import de.hhu.bsinfo.dxnet.core.AbstractMessageImporter;
 import de.hhu.bsinfo.dxnet.core.Response;
+import de.hhu.bsinfo.dxram.lookup.overlay.storage.AbstractLookupTree;
 import de.hhu.bsinfo.dxram.lookup.overlay.storage.LookupTree;
 
 /**
@@ -29,7 +30,7 @@ import de.hhu.bsinfo.dxram.lookup.overlay.storage.LookupTree;
 public class GetLookupTreeResponse extends Response {
 
     // Attributes
-    private LookupTree m_tree;
+    private AbstractLookupTree m_tree;
 
     // Constructors
 
@@ -50,7 +51,7 @@ public class GetLookupTreeResponse extends Response {
      * @param p_trees
      *         the CIDTrees
      */
-    public GetLookupTreeResponse(final GetLookupTreeRequest p_request, final LookupTree p_trees) {
+    public GetLookupTreeResponse(final GetLookupTreeRequest p_request, final AbstractLookupTree p_trees) {
         super(p_request, LookupMessages.SUBTYPE_GET_LOOKUP_TREE_RESPONSE);
 
         m_tree = p_trees;
@@ -63,7 +64,7 @@ public class GetLookupTreeResponse extends Response {
      *
      * @return the CIDTrees
      */
-    public final LookupTree getCIDTree() {
+    public final AbstractLookupTree getCIDTree() {
         return m_tree;
     }
 
@@ -91,6 +92,7 @@ public class GetLookupTreeResponse extends Response {
     protected final void readPayload(final AbstractMessageImporter p_importer) {
         if (p_importer.readByte((byte) 1) == 1 /* Cannot be 0 if we get here again */) {
             if (m_tree == null) {
+                // Serialization format is the same for all lookup tree implementations
                 m_tree = new LookupTree();
             }
             p_importer.importObject(m_tree);
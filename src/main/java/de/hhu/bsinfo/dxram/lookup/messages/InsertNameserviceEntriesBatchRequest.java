@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.lookup.messages;
+
+import de.hhu.bsinfo.dxnet.core.AbstractMessageExporter;
+import de.hhu.bsinfo.dxnet.core.AbstractMessageImporter;
+import de.hhu.bsinfo.dxnet.core.Request;
+import de.hhu.bsinfo.dxram.DXRAMMessageTypes;
+import de.hhu.bsinfo.dxutils.serialization.ObjectSizeUtil;
+
+/**
+ * Request for storing multiple id to ChunkID mappings handled by the same superpeer in a single round trip
+ */
+public class InsertNameserviceEntriesBatchRequest extends Request {
+
+    // Attributes
+    private int[] m_ids;
+    private long[] m_chunkIDs;
+    private boolean m_isBackup;
+
+    // Constructors
+
+    /**
+     * Creates an instance of InsertNameserviceEntriesBatchRequest
+     */
+    public InsertNameserviceEntriesBatchRequest() {
+        super();
+
+        m_ids = null;
+        m_chunkIDs = null;
+        m_isBackup = false;
+    }
+
+    /**
+     * Creates an instance of InsertNameserviceEntriesBatchRequest
+     *
+     * @param p_destination
+     *         the destination
+     * @param p_ids
+     *         the ids to store
+     * @param p_chunkIDs
+     *         the ChunkIDs to store, one per id
+     * @param p_isBackup
+     *         whether this is a backup message or not
+     */
+    public InsertNameserviceEntriesBatchRequest(final short p_destination, final int[] p_ids, final long[] p_chunkIDs,
+            final boolean p_isBackup) {
+        super(p_destination, DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
+                LookupMessages.SUBTYPE_INSERT_NAMESERVICE_ENTRIES_BATCH_REQUEST);
+
+        assert p_ids.length == p_chunkIDs.length;
+
+        m_ids = p_ids;
+        m_chunkIDs = p_chunkIDs;
+        m_isBackup = p_isBackup;
+    }
+
+    // Getters
+
+    /**
+     * Get the ids to store
+     *
+     * @return the ids to store
+     */
+    public final int[] getIDs() {
+        return m_ids;
+    }
+
+    /**
+     * Get the ChunkIDs to store
+     *
+     * @return the ChunkIDs to store, one per id
+     */
+    public final long[] getChunkIDs() {
+        return m_chunkIDs;
+    }
+
+    /**
+     * Returns whether this is a backup message or not
+     *
+     * @return whether this is a backup message or not
+     */
+    public final boolean isBackup() {
+        return m_isBackup;
+    }
+
+    @Override
+    protected final int getPayloadLength() {
+        return ObjectSizeUtil.sizeofIntArray(m_ids) + ObjectSizeUtil.sizeofLongArray(m_chunkIDs) + Byte.BYTES;
+    }
+
+    // Methods
+    @Override
+    protected final void writePayload(final AbstractMessageExporter p_exporter) {
+        p_exporter.writeIntArray(m_ids);
+        p_exporter.writeLongArray(m_chunkIDs);
+        p_exporter.writeBoolean(m_isBackup);
+    }
+
+    @Override
+    protected final void readPayload(final AbstractMessageImporter p_importer) {
+        m_ids = p_importer.readIntArray(m_ids);
+        m_chunkIDs = p_importer.readLongArray(m_chunkIDs);
+        m_isBackup = p_importer.readBoolean(m_isBackup);
+    }
+
+}
@@ -40,7 +40,6 @@ public class JoinResponse extends Response {
     private ArrayList<Short> m_superpeers;
     private ArrayList<Short> m_peers;
     private ArrayList<NodesConfiguration.NodeEntry> m_onlineNodes;
-    private byte[] m_metadata;
 
     private int m_superpeersToRead; // Used for serialization, only
     private int m_peersToRead; // Used for serialization, only
@@ -60,7 +59,6 @@ public class JoinResponse extends Response {
         m_superpeers = null;
         m_peers = null;
         m_onlineNodes = null;
-        m_metadata = null;
     }
 
     /**
@@ -80,14 +78,11 @@ public class JoinResponse extends Response {
      *         the peers the superpeer is responsible for
      * @param p_onlineNodes
      *         all available nodes with address, role, ...
-     * @param p_metadata
-     *         the metadata
      */
     public JoinResponse(final JoinRequest p_request, final short p_newContactSuperpeer, final short p_predecessor,
             final short p_successor,
             final ArrayList<Short> p_superpeers, final ArrayList<Short> p_peers,
-            final ArrayList<NodesConfiguration.NodeEntry> p_onlineNodes,
-            final byte[] p_metadata) {
+            final ArrayList<NodesConfiguration.NodeEntry> p_onlineNodes) {
         super(p_request, LookupMessages.SUBTYPE_JOIN_RESPONSE);
 
         m_newContactSuperpeer = p_newContactSuperpeer;
@@ -96,7 +91,6 @@ public class JoinResponse extends Response {
         m_superpeers = p_superpeers;
         m_peers = p_peers;
         m_onlineNodes = new ArrayList<>();
-        m_metadata = p_metadata;
     }
 
     // Getters
@@ -155,15 +149,6 @@ public class JoinResponse extends Response {
         return m_onlineNodes;
     }
 
-    /**
-     * Get metadata
-     *
-     * @return the byte array
-     */
-    public final byte[] getMetadata() {
-        return m_metadata;
-    }
-
     @Override
     protected final int getPayloadLength() {
         int ret;
@@ -191,12 +176,6 @@ public class JoinResponse extends Response {
             } else {
                 ret += Byte.BYTES;
             }
-
-            if (m_metadata != null && m_metadata.length > 0) {
-                ret += ObjectSizeUtil.sizeofByteArray(m_metadata);
-            } else {
-                ret += Byte.BYTES;
-            }
         } else {
             ret = Short.BYTES;
         }
@@ -238,12 +217,6 @@ public class JoinResponse extends Response {
                     p_exporter.exportObject(entry);
                 }
             }
-
-            if (m_metadata == null || m_metadata.length == 0) {
-                p_exporter.writeCompactNumber(0);
-            } else {
-                p_exporter.writeByteArray(m_metadata);
-            }
         } else {
             p_exporter.writeShort(m_newContactSuperpeer);
         }
@@ -293,8 +266,6 @@ public class JoinResponse extends Response {
                     m_onlineNodes.add(node);
                 }
             }
-
-            m_metadata = p_importer.readByteArray(m_metadata);
         }
     }
 
@@ -53,7 +53,6 @@ public final class LookupMessages {
     public static final byte SUBTYPE_NODE_JOIN_EVENT_REQUEST = 27;
     public static final byte SUBTYPE_NODE_JOIN_EVENT_RESPONSE = 28;
 
-    public static final byte SUBTYPE_SEND_BACKUPS_MESSAGE = 29;
     public static final byte SUBTYPE_SEND_SUPERPEERS_MESSAGE = 30;
     public static final byte SUBTYPE_ASK_ABOUT_BACKUPS_REQUEST = 31;
     public static final byte SUBTYPE_ASK_ABOUT_BACKUPS_RESPONSE = 32;
@@ -96,6 +95,18 @@ public final class LookupMessages {
     public static final byte SUBTYPE_GET_LOOKUP_TREE_RESPONSE = 65;
     public static final byte SUBTYPE_GET_METADATA_SUMMARY_REQUEST = 66;
     public static final byte SUBTYPE_GET_METADATA_SUMMARY_RESPONSE = 67;
+    public static final byte SUBTYPE_GET_LOOKUP_RANGES_REQUEST = 68;
+    public static final byte SUBTYPE_GET_LOOKUP_RANGES_RESPONSE = 69;
+    public static final byte SUBTYPE_LOOKUP_RANGES_AVAILABLE_MESSAGE = 70;
+    public static final byte SUBTYPE_INSERT_NAMESERVICE_ENTRIES_BATCH_REQUEST = 71;
+    public static final byte SUBTYPE_INSERT_NAMESERVICE_ENTRIES_BATCH_RESPONSE = 72;
+    public static final byte SUBTYPE_GET_CHUNKIDS_FOR_NAMESERVICE_ENTRIES_REQUEST = 73;
+    public static final byte SUBTYPE_GET_CHUNKIDS_FOR_NAMESERVICE_ENTRIES_RESPONSE = 74;
+    public static final byte SUBTYPE_REPLICATE_METADATA_REQUEST = 75;
+    public static final byte SUBTYPE_REPLICATE_METADATA_RESPONSE = 76;
+    public static final byte SUBTYPE_SEND_METADATA_CHUNK_REQUEST = 77;
+    public static final byte SUBTYPE_SEND_METADATA_CHUNK_RESPONSE = 78;
+    public static final byte SUBTYPE_BARRIER_TREE_SIGN_ON_MESSAGE = 79;
 
     /**
      * Hidden constructor
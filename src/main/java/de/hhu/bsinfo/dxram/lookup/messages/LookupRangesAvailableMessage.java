@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.lookup.messages;
+
+import de.hhu.bsinfo.dxnet.core.AbstractMessageExporter;
+import de.hhu.bsinfo.dxnet.core.AbstractMessageImporter;
+import de.hhu.bsinfo.dxnet.core.Message;
+import de.hhu.bsinfo.dxram.DXRAMMessageTypes;
+import de.hhu.bsinfo.dxutils.NodeID;
+
+/**
+ * Message to notify a peer that the ranges of a creator are available again (e.g. after recovery). Sent by the
+ * responsible superpeer to all peers which got DATA_TEMPORARY_UNAVAILABLE for one of the creator's ranges
+ */
+public class LookupRangesAvailableMessage extends Message {
+
+    // Attributes
+    private short m_creator;
+
+    // Constructors
+
+    /**
+     * Creates an instance of LookupRangesAvailableMessage
+     */
+    public LookupRangesAvailableMessage() {
+        super();
+
+        m_creator = NodeID.INVALID_ID;
+    }
+
+    /**
+     * Creates an instance of LookupRangesAvailableMessage
+     *
+     * @param p_destination
+     *         the destination
+     * @param p_creator
+     *         the creator whose ranges are available again
+     */
+    public LookupRangesAvailableMessage(final short p_destination, final short p_creator) {
+        super(p_destination, DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
+                LookupMessages.SUBTYPE_LOOKUP_RANGES_AVAILABLE_MESSAGE);
+
+        m_creator = p_creator;
+    }
+
+    // Getters
+
+    /**
+     * Get the creator whose ranges are available again
+     *
+     * @return the creator
+     */
+    public final short getCreator() {
+        return m_creator;
+    }
+
+    @Override
+    protected final int getPayloadLength() {
+        return Short.BYTES;
+    }
+
+    // Methods
+    @Override
+    protected final void writePayload(final AbstractMessageExporter p_exporter) {
+        p_exporter.writeShort(m_creator);
+    }
+
+    @Override
+    protected final void readPayload(final AbstractMessageImporter p_importer) {
+        m_creator = p_importer.readShort(m_creator);
+    }
+
+}
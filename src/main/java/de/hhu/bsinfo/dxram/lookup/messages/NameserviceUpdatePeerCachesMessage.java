@@ -16,22 +16,23 @@
 
 package de.hhu.bsinfo.dxram.lookup.messages;
 
-import de.hhu.bsinfo.dxmem.data.ChunkID;
 import de.hhu.bsinfo.dxnet.core.AbstractMessageExporter;
 import de.hhu.bsinfo.dxnet.core.AbstractMessageImporter;
 import de.hhu.bsinfo.dxnet.core.Request;
 import de.hhu.bsinfo.dxram.DXRAMMessageTypes;
+import de.hhu.bsinfo.dxutils.serialization.ObjectSizeUtil;
 
 /**
- * Message to notify peers about an update in the nameservice to update their local caches
+ * Message to notify peers about updates in the nameservice to update their local caches. Updates for the same peer
+ * are coalesced by the superpeer and sent as a batch
  *
  * @author Stefan Nothaas, stefan.nothaas@hhu.de, 19.04.2016
  */
 public class NameserviceUpdatePeerCachesMessage extends Request {
 
     // Attributes
-    private int m_id;
-    private long m_chunkID;
+    private int[] m_ids;
+    private long[] m_chunkIDs;
 
     // Constructors
 
@@ -41,8 +42,8 @@ public class NameserviceUpdatePeerCachesMessage extends Request {
     public NameserviceUpdatePeerCachesMessage() {
         super();
 
-        m_id = -1;
-        m_chunkID = ChunkID.INVALID_ID;
+        m_ids = null;
+        m_chunkIDs = null;
     }
 
     /**
@@ -50,55 +51,57 @@ public class NameserviceUpdatePeerCachesMessage extends Request {
      *
      * @param p_destination
      *         the destination
-     * @param p_id
-     *         the id to store
-     * @param p_chunkID
-     *         the ChunkID to store
+     * @param p_ids
+     *         the ids to store
+     * @param p_chunkIDs
+     *         the ChunkIDs to store, one per id
      */
-    public NameserviceUpdatePeerCachesMessage(final short p_destination, final int p_id, final long p_chunkID) {
+    public NameserviceUpdatePeerCachesMessage(final short p_destination, final int[] p_ids, final long[] p_chunkIDs) {
         super(p_destination, DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
                 LookupMessages.SUBTYPE_NAMESERVICE_UPDATE_PEER_CACHES_MESSAGE);
 
-        m_id = p_id;
-        m_chunkID = p_chunkID;
+        assert p_ids.length == p_chunkIDs.length;
+
+        m_ids = p_ids;
+        m_chunkIDs = p_chunkIDs;
     }
 
     // Getters
 
     /**
-     * Get the id to store
+     * Get the ids to store
      *
-     * @return the id to store
+     * @return the ids to store
      */
-    public final int getID() {
-        return m_id;
+    public final int[] getIDs() {
+        return m_ids;
     }
 
     /**
-     * Get the ChunkID to store
+     * Get the ChunkIDs to store
      *
-     * @return the ChunkID to store
+     * @return the ChunkIDs to store, one per id
      */
-    public final long getChunkID() {
-        return m_chunkID;
+    public final long[] getChunkIDs() {
+        return m_chunkIDs;
     }
 
     @Override
     protected final int getPayloadLength() {
-        return Integer.BYTES + Long.BYTES;
+        return ObjectSizeUtil.sizeofIntArray(m_ids) + ObjectSizeUtil.sizeofLongArray(m_chunkIDs);
     }
 
     // Methods
     @Override
     protected final void writePayload(final AbstractMessageExporter p_exporter) {
-        p_exporter.writeInt(m_id);
-        p_exporter.writeLong(m_chunkID);
+        p_exporter.writeIntArray(m_ids);
+        p_exporter.writeLongArray(m_chunkIDs);
     }
 
     @Override
     protected final void readPayload(final AbstractMessageImporter p_importer) {
-        m_id = p_importer.readInt(m_id);
-        m_chunkID = p_importer.readLong(m_chunkID);
+        m_ids = p_importer.readIntArray(m_ids);
+        m_chunkIDs = p_importer.readLongArray(m_chunkIDs);
     }
 
 }
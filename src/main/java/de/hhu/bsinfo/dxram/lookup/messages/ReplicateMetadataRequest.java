@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.lookup.messages;
+
+import de.hhu.bsinfo.dxnet.core.AbstractMessageExporter;
+import de.hhu.bsinfo.dxnet.core.AbstractMessageImporter;
+import de.hhu.bsinfo.dxnet.core.Request;
+import de.hhu.bsinfo.dxram.DXRAMMessageTypes;
+import de.hhu.bsinfo.dxutils.serialization.ObjectSizeUtil;
+
+/**
+ * Request for replicating a batch of lookup tree updates (removals and migrations) from the responsible superpeer
+ * to a backup superpeer. The updates are applied in order
+ */
+public class ReplicateMetadataRequest extends Request {
+
+    public static final byte OPERATION_REMOVE = 0;
+    public static final byte OPERATION_MIGRATE = 1;
+    public static final byte OPERATION_MIGRATE_RANGE = 2;
+
+    // Attributes
+    private byte[] m_operations;
+    private long[] m_firstChunkIDs;
+    private long[] m_lastChunkIDs;
+    private short[] m_owners;
+
+    // Constructors
+
+    /**
+     * Creates an instance of ReplicateMetadataRequest
+     */
+    public ReplicateMetadataRequest() {
+        super();
+
+        m_operations = null;
+        m_firstChunkIDs = null;
+        m_lastChunkIDs = null;
+        m_owners = null;
+    }
+
+    /**
+     * Creates an instance of ReplicateMetadataRequest
+     *
+     * @param p_destination
+     *         the backup superpeer
+     * @param p_operations
+     *         the operations, one per update
+     * @param p_firstChunkIDs
+     *         the (first) ChunkIDs, one per update
+     * @param p_lastChunkIDs
+     *         the last ChunkIDs (equal to the first ChunkID if a single ChunkID is updated), one per update
+     * @param p_owners
+     *         the new owners (unused for removals), one per update
+     */
+    public ReplicateMetadataRequest(final short p_destination, final byte[] p_operations,
+            final long[] p_firstChunkIDs, final long[] p_lastChunkIDs, final short[] p_owners) {
+        super(p_destination, DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
+                LookupMessages.SUBTYPE_REPLICATE_METADATA_REQUEST);
+
+        assert p_operations.length == p_firstChunkIDs.length && p_operations.length == p_lastChunkIDs.length &&
+                p_operations.length == p_owners.length;
+
+        m_operations = p_operations;
+        m_firstChunkIDs = p_firstChunkIDs;
+        m_lastChunkIDs = p_lastChunkIDs;
+        m_owners = p_owners;
+    }
+
+    // Getters
+
+    /**
+     * Get the operations
+     *
+     * @return the operations, one per update
+     */
+    public final byte[] getOperations() {
+        return m_operations;
+    }
+
+    /**
+     * Get the (first) ChunkIDs
+     *
+     * @return the (first) ChunkIDs, one per update
+     */
+    public final long[] getFirstChunkIDs() {
+        return m_firstChunkIDs;
+    }
+
+    /**
+     * Get the last ChunkIDs
+     *
+     * @return the last ChunkIDs, one per update
+     */
+    public final long[] getLastChunkIDs() {
+        return m_lastChunkIDs;
+    }
+
+    /**
+     * Get the new owners
+     *
+     * @return the new owners, one per update
+     */
+    public final short[] getOwners() {
+        return m_owners;
+    }
+
+    @Override
+    protected final int getPayloadLength() {
+        return ObjectSizeUtil.sizeofByteArray(m_operations) + ObjectSizeUtil.sizeofLongArray(m_firstChunkIDs) +
+                ObjectSizeUtil.sizeofLongArray(m_lastChunkIDs) + ObjectSizeUtil.sizeofShortArray(m_owners);
+    }
+
+    // Methods
+    @Override
+    protected final void writePayload(final AbstractMessageExporter p_exporter) {
+        p_exporter.writeByteArray(m_operations);
+        p_exporter.writeLongArray(m_firstChunkIDs);
+        p_exporter.writeLongArray(m_lastChunkIDs);
+        p_exporter.writeShortArray(m_owners);
+    }
+
+    @Override
+    protected final void readPayload(final AbstractMessageImporter p_importer) {
+        m_operations = p_importer.readByteArray(m_operations);
+        m_firstChunkIDs = p_importer.readLongArray(m_firstChunkIDs);
+        m_lastChunkIDs = p_importer.readLongArray(m_lastChunkIDs);
+        m_owners = p_importer.readShortArray(m_owners);
+    }
+
+}
@@ -18,49 +18,53 @@ package de.hhu.bsinfo.dxram.lookup.messages;
 
 import de.hhu.bsinfo.dxnet.core.AbstractMessageExporter;
 import de.hhu.bsinfo.dxnet.core.AbstractMessageImporter;
-import de.hhu.bsinfo.dxnet.core.Message;
+import de.hhu.bsinfo.dxnet.core.Request;
 import de.hhu.bsinfo.dxram.DXRAMMessageTypes;
 import de.hhu.bsinfo.dxutils.serialization.ObjectSizeUtil;
 
 /**
- * Send Backups Message
- *
- * @author Kevin Beineke, kevin.beineke@hhu.de, 06.09.2012
+ * Request to store a chunk of metadata handed over to another superpeer (superpeer join or spreading backups).
+ * The receiver responds after storing the chunk; the sender limits the number of chunks in flight.
  */
-public class SendBackupsMessage extends Message {
+public class SendMetadataChunkRequest extends Request {
 
     // Attributes
     private byte[] m_metadata;
+    private boolean m_lastChunk;
 
     // Constructors
 
     /**
-     * Creates an instance of SendBackupsMessage
+     * Creates an instance of SendMetadataChunkRequest
      */
-    public SendBackupsMessage() {
+    public SendMetadataChunkRequest() {
         super();
 
         m_metadata = null;
     }
 
     /**
-     * Creates an instance of SendBackupsMessage
+     * Creates an instance of SendMetadataChunkRequest
      *
      * @param p_destination
      *         the destination
      * @param p_metadata
-     *         the metadata
+     *         the metadata chunk
+     * @param p_lastChunk
+     *         whether this is the last chunk of the transfer (all previous chunks were stored)
      */
-    public SendBackupsMessage(final short p_destination, final byte[] p_metadata) {
-        super(p_destination, DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE, LookupMessages.SUBTYPE_SEND_BACKUPS_MESSAGE);
+    public SendMetadataChunkRequest(final short p_destination, final byte[] p_metadata, final boolean p_lastChunk) {
+        super(p_destination, DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
+                LookupMessages.SUBTYPE_SEND_METADATA_CHUNK_REQUEST);
 
         m_metadata = p_metadata;
+        m_lastChunk = p_lastChunk;
     }
 
     // Getters
 
     /**
-     * Get metadata
+     * Get the metadata chunk
      *
      * @return the byte array
      */
@@ -68,13 +72,26 @@ public class SendBackupsMessage extends Message {
         return m_metadata;
     }
 
+    /**
+     * Returns whether this is the last chunk of the transfer
+     *
+     * @return true if this is the last chunk
+     */
+    public final boolean isLastChunk() {
+        return m_lastChunk;
+    }
+
     @Override
     protected final int getPayloadLength() {
+        int ret;
+
         if (m_metadata != null && m_metadata.length > 0) {
-            return ObjectSizeUtil.sizeofByteArray(m_metadata);
+            ret = ObjectSizeUtil.sizeofByteArray(m_metadata);
         } else {
-            return Byte.BYTES;
+            ret = Byte.BYTES;
         }
+
+        return ret + ObjectSizeUtil.sizeofBoolean();
     }
 
     // Methods
@@ -85,11 +102,13 @@ public class SendBackupsMessage extends Message {
         } else {
             p_exporter.writeByteArray(m_metadata);
         }
+        p_exporter.writeBoolean(m_lastChunk);
     }
 
     @Override
     protected final void readPayload(final AbstractMessageImporter p_importer) {
         m_metadata = p_importer.readByteArray(m_metadata);
+        m_lastChunk = p_importer.readBoolean(m_lastChunk);
     }
 
 }
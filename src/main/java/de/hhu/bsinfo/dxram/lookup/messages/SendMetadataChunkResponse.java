@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.lookup.messages;
+
+import de.hhu.bsinfo.dxnet.core.Response;
+
+/**
+ * Response to a SendMetadataChunkRequest (sent after the chunk was stored)
+ */
+public class SendMetadataChunkResponse extends Response {
+
+    // Constructors
+
+    /**
+     * Creates an instance of SendMetadataChunkResponse
+     */
+    public SendMetadataChunkResponse() {
+        super();
+    }
+
+    /**
+     * Creates an instance of SendMetadataChunkResponse
+     *
+     * @param p_request
+     *         the corresponding SendMetadataChunkRequest
+     */
+    public SendMetadataChunkResponse(final SendMetadataChunkRequest p_request) {
+        super(p_request, LookupMessages.SUBTYPE_SEND_METADATA_CHUNK_RESPONSE);
+    }
+
+}
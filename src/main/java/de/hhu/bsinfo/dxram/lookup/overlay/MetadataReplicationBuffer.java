@@ -0,0 +1,314 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.lookup.overlay;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.hhu.bsinfo.dxnet.core.NetworkException;
+import de.hhu.bsinfo.dxram.lookup.messages.ReplicateMetadataRequest;
+import de.hhu.bsinfo.dxram.net.NetworkComponent;
+import de.hhu.bsinfo.dxutils.NodeID;
+
+/**
+ * Replicates lookup tree updates of the responsible superpeer to its backup superpeers asynchronously. Updates are
+ * buffered per backup superpeer and sent as a single ReplicateMetadataRequest. Only one request is in flight per
+ * backup superpeer (the updates must be applied in order), all updates added in the meantime are sent with the next
+ * request, i.e. the batches grow with the load. Updates are added by message handlers which must never block. If
+ * too many updates are buffered, further updates are dropped and counted. The backup superpeers catch up on dropped
+ * updates with the next backup maintenance (change log or full transfer)
+ */
+class MetadataReplicationBuffer extends Thread {
+    private static final Logger LOGGER = LogManager.getFormatterLogger(
+            MetadataReplicationBuffer.class.getSimpleName());
+
+    private static final int MAX_BUFFERED_UPDATES = 64 * 1024;
+    private static final int INITIAL_BATCH_ENTRIES = 64;
+
+    private final NetworkComponent m_network;
+
+    private final HashMap<Short, Batch> m_batches = new HashMap<>();
+    private int m_bufferedUpdates;
+    private long m_droppedUpdates;
+
+    private volatile boolean m_run = true;
+
+    /**
+     * Constructor
+     *
+     * @param p_network
+     *         NetworkComponent to send the batches with
+     */
+    MetadataReplicationBuffer(final NetworkComponent p_network) {
+        super(MetadataReplicationBuffer.class.getSimpleName());
+
+        m_network = p_network;
+
+        setDaemon(true);
+    }
+
+    /**
+     * Replicate the removal of ChunkIDs
+     *
+     * @param p_backupSuperpeers
+     *         the backup superpeers
+     * @param p_chunkIDs
+     *         the removed ChunkIDs
+     */
+    void remove(final short[] p_backupSuperpeers, final long[] p_chunkIDs) {
+        synchronized (m_batches) {
+            for (long chunkID : p_chunkIDs) {
+                add(p_backupSuperpeers, ReplicateMetadataRequest.OPERATION_REMOVE, chunkID, chunkID,
+                        NodeID.INVALID_ID);
+            }
+        }
+    }
+
+    /**
+     * Replicate the migration of a ChunkID
+     *
+     * @param p_backupSuperpeers
+     *         the backup superpeers
+     * @param p_chunkID
+     *         the migrated ChunkID
+     * @param p_owner
+     *         the new owner
+     */
+    void migrate(final short[] p_backupSuperpeers, final long p_chunkID, final short p_owner) {
+        synchronized (m_batches) {
+            add(p_backupSuperpeers, ReplicateMetadataRequest.OPERATION_MIGRATE, p_chunkID, p_chunkID, p_owner);
+        }
+    }
+
+    /**
+     * Replicate the migration of a ChunkID range
+     *
+     * @param p_backupSuperpeers
+     *         the backup superpeers
+     * @param p_firstChunkID
+     *         the first migrated ChunkID
+     * @param p_lastChunkID
+     *         the last migrated ChunkID
+     * @param p_owner
+     *         the new owner
+     */
+    void migrateRange(final short[] p_backupSuperpeers, final long p_firstChunkID, final long p_lastChunkID,
+            final short p_owner) {
+        synchronized (m_batches) {
+            add(p_backupSuperpeers, ReplicateMetadataRequest.OPERATION_MIGRATE_RANGE, p_firstChunkID, p_lastChunkID,
+                    p_owner);
+        }
+    }
+
+    /**
+     * Get the number of updates dropped because the buffer was full
+     *
+     * @return the number of dropped updates
+     */
+    long getDroppedUpdates() {
+        synchronized (m_batches) {
+            return m_droppedUpdates;
+        }
+    }
+
+    /**
+     * Shut down the thread. Buffered updates are sent before
+     */
+    void shutdown() {
+        m_run = false;
+
+        synchronized (m_batches) {
+            m_batches.notifyAll();
+        }
+
+        try {
+            join();
+        } catch (final InterruptedException ignored) {
+        }
+    }
+
+    @Override
+    public void run() {
+        ArrayList<ReplicateMetadataRequest> requests = new ArrayList<>();
+
+        while (true) {
+            synchronized (m_batches) {
+                while (m_bufferedUpdates == 0 && m_run) {
+                    try {
+                        m_batches.wait();
+                    } catch (final InterruptedException ignored) {
+                    }
+                }
+
+                if (m_bufferedUpdates == 0) {
+                    // Shut down and everything is sent
+                    break;
+                }
+
+                for (Batch batch : m_batches.values()) {
+                    if (batch.m_count > 0) {
+                        requests.add(batch.take());
+                    }
+                }
+
+                m_bufferedUpdates = 0;
+                m_batches.notifyAll();
+            }
+
+            send(requests);
+            requests.clear();
+        }
+    }
+
+    /**
+     * Add an update for all backup superpeers. Caller must synchronize on m_batches
+     *
+     * @param p_backupSuperpeers
+     *         the backup superpeers
+     * @param p_operation
+     *         the operation
+     * @param p_firstChunkID
+     *         the (first) ChunkID
+     * @param p_lastChunkID
+     *         the last ChunkID
+     * @param p_owner
+     *         the new owner
+     */
+    private void add(final short[] p_backupSuperpeers, final byte p_operation, final long p_firstChunkID,
+            final long p_lastChunkID, final short p_owner) {
+        if (m_bufferedUpdates >= MAX_BUFFERED_UPDATES) {
+            // Do not block the message handler, the next backup maintenance synchronizes the backup superpeers
+            if (m_droppedUpdates++ % MAX_BUFFERED_UPDATES == 0) {
+                LOGGER.warn("Replication buffer for backup superpeers full, dropped %d updates so far",
+                        m_droppedUpdates);
+            }
+
+            return;
+        }
+
+        for (short backupSuperpeer : p_backupSuperpeers) {
+            if (backupSuperpeer == NodeID.INVALID_ID) {
+                continue;
+            }
+
+            m_batches.computeIfAbsent(backupSuperpeer, Batch::new).add(p_operation, p_firstChunkID, p_lastChunkID,
+                    p_owner);
+
+            if (m_bufferedUpdates++ == 0) {
+                m_batches.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Send batches to their backup superpeers in parallel and wait for the responses
+     *
+     * @param p_requests
+     *         the requests, one per backup superpeer
+     */
+    private void send(final ArrayList<ReplicateMetadataRequest> p_requests) {
+        for (int i = 0; i < p_requests.size(); i++) {
+            try {
+                m_network.sendSync(p_requests.get(i), false);
+            } catch (final NetworkException e) {
+                // Ignore superpeer failure, superpeer will fix this later
+                p_requests.set(i, null);
+            }
+        }
+
+        for (ReplicateMetadataRequest request : p_requests) {
+            if (request == null) {
+                continue;
+            }
+
+            try {
+                request.waitForResponse(m_network.getRequestTimeoutMs());
+            } catch (final NetworkException e) {
+                // Ignore superpeer failure, superpeer will fix this later
+                m_network.cancelRequest(request);
+            }
+        }
+    }
+
+    /**
+     * Updates buffered for a single backup superpeer
+     */
+    private static final class Batch {
+        private final short m_backupSuperpeer;
+        private byte[] m_operations = new byte[INITIAL_BATCH_ENTRIES];
+        private long[] m_firstChunkIDs = new long[INITIAL_BATCH_ENTRIES];
+        private long[] m_lastChunkIDs = new long[INITIAL_BATCH_ENTRIES];
+        private short[] m_owners = new short[INITIAL_BATCH_ENTRIES];
+        private int m_count;
+
+        /**
+         * Constructor
+         *
+         * @param p_backupSuperpeer
+         *         the backup superpeer
+         */
+        private Batch(final short p_backupSuperpeer) {
+            m_backupSuperpeer = p_backupSuperpeer;
+        }
+
+        /**
+         * Add an update
+         *
+         * @param p_operation
+         *         the operation
+         * @param p_firstChunkID
+         *         the (first) ChunkID
+         * @param p_lastChunkID
+         *         the last ChunkID
+         * @param p_owner
+         *         the new owner
+         */
+        private void add(final byte p_operation, final long p_firstChunkID, final long p_lastChunkID,
+                final short p_owner) {
+            if (m_count == m_operations.length) {
+                m_operations = Arrays.copyOf(m_operations, m_count * 2);
+                m_firstChunkIDs = Arrays.copyOf(m_firstChunkIDs, m_count * 2);
+                m_lastChunkIDs = Arrays.copyOf(m_lastChunkIDs, m_count * 2);
+                m_owners = Arrays.copyOf(m_owners, m_count * 2);
+            }
+
+            m_operations[m_count] = p_operation;
+            m_firstChunkIDs[m_count] = p_firstChunkID;
+            m_lastChunkIDs[m_count] = p_lastChunkID;
+            m_owners[m_count] = p_owner;
+            m_count++;
+        }
+
+        /**
+         * Create a request from the buffered updates and reset the batch
+         *
+         * @return the request to send
+         */
+        private ReplicateMetadataRequest take() {
+            ReplicateMetadataRequest request = new ReplicateMetadataRequest(m_backupSuperpeer,
+                    Arrays.copyOf(m_operations, m_count), Arrays.copyOf(m_firstChunkIDs, m_count),
+                    Arrays.copyOf(m_lastChunkIDs, m_count), Arrays.copyOf(m_owners, m_count));
+            m_count = 0;
+
+            return request;
+        }
+    }
+}
@@ -0,0 +1,335 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.lookup.overlay;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+import de.hhu.bsinfo.dxmem.data.ChunkID;
+import de.hhu.bsinfo.dxnet.core.NetworkException;
+import de.hhu.bsinfo.dxnet.core.Request;
+import de.hhu.bsinfo.dxnet.core.Response;
+import de.hhu.bsinfo.dxram.lookup.messages.GetChunkIDForNameserviceEntryRequest;
+import de.hhu.bsinfo.dxram.lookup.messages.GetChunkIDForNameserviceEntryResponse;
+import de.hhu.bsinfo.dxram.lookup.messages.GetChunkIDsForNameserviceEntriesRequest;
+import de.hhu.bsinfo.dxram.lookup.messages.GetChunkIDsForNameserviceEntriesResponse;
+import de.hhu.bsinfo.dxram.net.NetworkComponent;
+
+/**
+ * Parks nameservice lookups for ids which are not registered, yet. A parked request is answered as soon as all of its
+ * ids are registered or with an invalid ChunkID for the missing ids once its watch timeout expired. This replaces the
+ * peers spinning on the superpeer until the entries appear
+ */
+class NameserviceWatchTable extends Thread {
+    private final NetworkComponent m_network;
+
+    private final HashMap<Integer, ArrayList<Watch>> m_watchesByID = new HashMap<>();
+    private final PriorityQueue<Watch> m_deadlines = new PriorityQueue<>(
+            (p_a, p_b) -> Long.compare(p_a.m_deadline, p_b.m_deadline));
+
+    private volatile boolean m_run = true;
+
+    /**
+     * Constructor
+     *
+     * @param p_network
+     *         NetworkComponent to send the responses with
+     */
+    NameserviceWatchTable(final NetworkComponent p_network) {
+        super(NameserviceWatchTable.class.getSimpleName());
+
+        m_network = p_network;
+
+        setDaemon(true);
+    }
+
+    /**
+     * Park a request until the requested id is registered or the watch timeout of the request expired.
+     * The caller has to check for a concurrent registration of the id after parking the request
+     *
+     * @param p_request
+     *         the request to park
+     */
+    void watch(final GetChunkIDForNameserviceEntryRequest p_request) {
+        park(new Watch(p_request, new int[] {p_request.getID()}, new long[] {ChunkID.INVALID_ID},
+                p_request.getWatchTimeoutMs()));
+    }
+
+    /**
+     * Park a request until all requested ids are registered or the watch timeout of the request expired.
+     * The caller has to check for a concurrent registration of the missing ids after parking the request
+     *
+     * @param p_request
+     *         the request to park
+     * @param p_chunkIDs
+     *         the ChunkIDs known so far, one per requested id (ChunkID.INVALID_ID for the missing ones)
+     */
+    void watch(final GetChunkIDsForNameserviceEntriesRequest p_request, final long[] p_chunkIDs) {
+        park(new Watch(p_request, p_request.getIDs(), p_chunkIDs, p_request.getWatchTimeoutMs()));
+    }
+
+    /**
+     * Answer all requests waiting for an id
+     *
+     * @param p_id
+     *         the registered id
+     * @param p_chunkID
+     *         the ChunkID the id is mapped to
+     */
+    void notifyRegistered(final int p_id, final long p_chunkID) {
+        ArrayList<Watch> watches;
+        ArrayList<Watch> completed = null;
+
+        synchronized (m_watchesByID) {
+            if (m_watchesByID.isEmpty()) {
+                return;
+            }
+
+            watches = m_watchesByID.remove(p_id);
+
+            if (watches == null) {
+                return;
+            }
+
+            for (Watch watch : watches) {
+                if (watch.resolve(p_id, p_chunkID)) {
+                    if (completed == null) {
+                        completed = new ArrayList<>(watches.size());
+                    }
+
+                    completed.add(watch);
+                }
+            }
+
+            if (completed != null) {
+                m_deadlines.removeAll(completed);
+            }
+        }
+
+        if (completed != null) {
+            for (Watch watch : completed) {
+                watch.answer();
+            }
+        }
+    }
+
+    /**
+     * Shut down the thread. All parked requests are answered with an invalid ChunkID
+     */
+    void shutdown() {
+        m_run = false;
+        LockSupport.unpark(this);
+
+        try {
+            join();
+        } catch (final InterruptedException ignored) {
+        }
+    }
+
+    @Override
+    public void run() {
+        ArrayList<Watch> expired = new ArrayList<>();
+
+        while (m_run) {
+            long parkTime = 0;
+
+            synchronized (m_watchesByID) {
+                long now = System.nanoTime();
+
+                while (!m_deadlines.isEmpty()) {
+                    Watch watch = m_deadlines.peek();
+
+                    if (watch.m_deadline > now) {
+                        parkTime = watch.m_deadline - now;
+                        break;
+                    }
+
+                    m_deadlines.poll();
+                    expired.add(watch);
+                    removeWatch(watch);
+                }
+            }
+
+            for (Watch watch : expired) {
+                watch.answer();
+            }
+
+            expired.clear();
+
+            if (parkTime == 0) {
+                // nothing parked, wait for the next watch
+                LockSupport.park();
+            } else {
+                LockSupport.parkNanos(parkTime);
+            }
+        }
+
+        synchronized (m_watchesByID) {
+            expired.addAll(m_deadlines);
+            m_deadlines.clear();
+            m_watchesByID.clear();
+        }
+
+        for (Watch watch : expired) {
+            watch.answer();
+        }
+    }
+
+    /**
+     * Register a watch for all of its missing ids
+     *
+     * @param p_watch
+     *         the watch to register
+     */
+    private void park(final Watch p_watch) {
+        boolean earliest;
+
+        synchronized (m_watchesByID) {
+            for (int i = 0; i < p_watch.m_ids.length; i++) {
+                if (p_watch.m_chunkIDs[i] == ChunkID.INVALID_ID) {
+                    ArrayList<Watch> watches = m_watchesByID.computeIfAbsent(p_watch.m_ids[i],
+                            p_id -> new ArrayList<>());
+
+                    // an id might be requested more than once
+                    if (watches.isEmpty() || watches.get(watches.size() - 1) != p_watch) {
+                        watches.add(p_watch);
+                    }
+                }
+            }
+
+            m_deadlines.add(p_watch);
+            earliest = m_deadlines.peek() == p_watch;
+        }
+
+        if (earliest) {
+            LockSupport.unpark(this);
+        }
+    }
+
+    /**
+     * Remove a watch from the id table
+     *
+     * @param p_watch
+     *         the watch to remove
+     * @note assumes m_watchesByID is locked
+     */
+    private void removeWatch(final Watch p_watch) {
+        for (int id : p_watch.m_ids) {
+            ArrayList<Watch> watches = m_watchesByID.get(id);
+
+            if (watches != null) {
+                watches.remove(p_watch);
+
+                if (watches.isEmpty()) {
+                    m_watchesByID.remove(id);
+                }
+            }
+        }
+    }
+
+    /**
+     * A parked request. Every request is answered exactly once, either on registration of all ids or on expiry
+     */
+    private final class Watch {
+        private final Request m_request;
+        private final int[] m_ids;
+        private final long[] m_chunkIDs;
+        private final long m_deadline;
+        private final AtomicBoolean m_answered = new AtomicBoolean(false);
+
+        // guarded by m_watchesByID
+        private int m_missing;
+
+        /**
+         * Constructor
+         *
+         * @param p_request
+         *         the parked request
+         * @param p_ids
+         *         the requested ids
+         * @param p_chunkIDs
+         *         the ChunkIDs known so far, one per requested id
+         * @param p_watchTimeoutMs
+         *         max time in ms until the response
+         */
+        private Watch(final Request p_request, final int[] p_ids, final long[] p_chunkIDs,
+                final int p_watchTimeoutMs) {
+            m_request = p_request;
+            m_ids = p_ids;
+            m_chunkIDs = p_chunkIDs;
+            m_deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(p_watchTimeoutMs);
+
+            for (long chunkID : p_chunkIDs) {
+                if (chunkID == ChunkID.INVALID_ID) {
+                    m_missing++;
+                }
+            }
+        }
+
+        /**
+         * Store the ChunkID of a registered id
+         *
+         * @param p_id
+         *         the registered id
+         * @param p_chunkID
+         *         the ChunkID the id is mapped to
+         * @return true if all requested ids are registered now
+         * @note assumes m_watchesByID is locked
+         */
+        private boolean resolve(final int p_id, final long p_chunkID) {
+            for (int i = 0; i < m_ids.length; i++) {
+                if (m_ids[i] == p_id && m_chunkIDs[i] == ChunkID.INVALID_ID) {
+                    m_chunkIDs[i] = p_chunkID;
+                    m_missing--;
+                }
+            }
+
+            return m_missing == 0;
+        }
+
+        /**
+         * Answer the request with the ChunkIDs registered so far if it was not answered, yet
+         */
+        private void answer() {
+            if (!m_answered.compareAndSet(false, true)) {
+                return;
+            }
+
+            Response response;
+
+            synchronized (m_watchesByID) {
+                if (m_request instanceof GetChunkIDForNameserviceEntryRequest) {
+                    response = new GetChunkIDForNameserviceEntryResponse(
+                            (GetChunkIDForNameserviceEntryRequest) m_request, m_chunkIDs[0]);
+                } else {
+                    response = new GetChunkIDsForNameserviceEntriesResponse(
+                            (GetChunkIDsForNameserviceEntriesRequest) m_request, m_chunkIDs.clone());
+                }
+            }
+
+            try {
+                m_network.sendMessage(response);
+            } catch (final NetworkException e) {
+                // Requesting peer is not available anymore, ignore it
+            }
+        }
+    }
+}
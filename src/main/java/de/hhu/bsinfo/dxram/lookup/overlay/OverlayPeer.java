@@ -17,7 +17,14 @@
 package de.hhu.bsinfo.dxram.lookup.overlay;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -36,6 +43,7 @@ import de.hhu.bsinfo.dxram.chunk.data.ChunkAnon;
 import de.hhu.bsinfo.dxram.event.EventComponent;
 import de.hhu.bsinfo.dxram.lookup.LookupRange;
 import de.hhu.bsinfo.dxram.lookup.LookupState;
+import de.hhu.bsinfo.dxram.lookup.events.LookupRangesAvailableEvent;
 import de.hhu.bsinfo.dxram.lookup.events.NameserviceCacheEntryUpdateEvent;
 import de.hhu.bsinfo.dxram.lookup.events.NodeJoinEvent;
 import de.hhu.bsinfo.dxram.lookup.messages.AskAboutSuccessorRequest;
@@ -51,24 +59,32 @@ import de.hhu.bsinfo.dxram.lookup.messages.BarrierGetStatusResponse;
 import de.hhu.bsinfo.dxram.lookup.messages.BarrierReleaseMessage;
 import de.hhu.bsinfo.dxram.lookup.messages.BarrierSignOnRequest;
 import de.hhu.bsinfo.dxram.lookup.messages.BarrierSignOnResponse;
+import de.hhu.bsinfo.dxram.lookup.messages.BarrierTreeSignOnMessage;
 import de.hhu.bsinfo.dxram.lookup.messages.FinishedStartupMessage;
 import de.hhu.bsinfo.dxram.lookup.messages.GetAllBackupRangesRequest;
 import de.hhu.bsinfo.dxram.lookup.messages.GetAllBackupRangesResponse;
 import de.hhu.bsinfo.dxram.lookup.messages.GetChunkIDForNameserviceEntryRequest;
 import de.hhu.bsinfo.dxram.lookup.messages.GetChunkIDForNameserviceEntryResponse;
+import de.hhu.bsinfo.dxram.lookup.messages.GetChunkIDsForNameserviceEntriesRequest;
+import de.hhu.bsinfo.dxram.lookup.messages.GetChunkIDsForNameserviceEntriesResponse;
 import de.hhu.bsinfo.dxram.lookup.messages.GetLookupRangeRequest;
 import de.hhu.bsinfo.dxram.lookup.messages.GetLookupRangeResponse;
+import de.hhu.bsinfo.dxram.lookup.messages.GetLookupRangesRequest;
+import de.hhu.bsinfo.dxram.lookup.messages.GetLookupRangesResponse;
 import de.hhu.bsinfo.dxram.lookup.messages.GetNameserviceEntriesRequest;
 import de.hhu.bsinfo.dxram.lookup.messages.GetNameserviceEntriesResponse;
 import de.hhu.bsinfo.dxram.lookup.messages.GetNameserviceEntryCountRequest;
 import de.hhu.bsinfo.dxram.lookup.messages.GetNameserviceEntryCountResponse;
 import de.hhu.bsinfo.dxram.lookup.messages.InitRangeRequest;
 import de.hhu.bsinfo.dxram.lookup.messages.InitRangeResponse;
+import de.hhu.bsinfo.dxram.lookup.messages.InsertNameserviceEntriesBatchRequest;
+import de.hhu.bsinfo.dxram.lookup.messages.InsertNameserviceEntriesBatchResponse;
 import de.hhu.bsinfo.dxram.lookup.messages.InsertNameserviceEntriesRequest;
 import de.hhu.bsinfo.dxram.lookup.messages.InsertNameserviceEntriesResponse;
 import de.hhu.bsinfo.dxram.lookup.messages.JoinRequest;
 import de.hhu.bsinfo.dxram.lookup.messages.JoinResponse;
 import de.hhu.bsinfo.dxram.lookup.messages.LookupMessages;
+import de.hhu.bsinfo.dxram.lookup.messages.LookupRangesAvailableMessage;
 import de.hhu.bsinfo.dxram.lookup.messages.MigrateRangeRequest;
 import de.hhu.bsinfo.dxram.lookup.messages.MigrateRangeResponse;
 import de.hhu.bsinfo.dxram.lookup.messages.MigrateRequest;
@@ -116,6 +132,8 @@ public class OverlayPeer implements MessageReceiver {
     private static final Logger LOGGER = LogManager.getFormatterLogger(OverlayPeer.class.getSimpleName());
 
     private static final int MSG_TIMEOUT_MS = 100;
+    // max time a superpeer parks a nameservice lookup for an id which is not registered, yet
+    private static final int NAMESERVICE_WATCH_TIMEOUT_MS = 1000;
 
     // Attributes
     private AbstractBootComponent m_boot;
@@ -128,6 +146,10 @@ public class OverlayPeer implements MessageReceiver {
     private int m_initialNumberOfSuperpeers;
     private ReentrantReadWriteLock m_overlayLock;
 
+    // Sign ons of child peers in combining tree barriers (might arrive before signing on locally)
+    private final Map<Integer, BlockingQueue<BarrierTreeSignOnMessage>> m_barrierTreeSignOns =
+            new ConcurrentHashMap<>();
+
     /**
      * Creates an instance of OverlayPeer
      *
@@ -289,6 +311,195 @@ public class OverlayPeer implements MessageReceiver {
         return ret;
     }
 
+    /**
+     * Get the corresponding LookupRange for the given ChunkID without blocking the caller
+     *
+     * @param p_chunkID
+     *         the ChunkID
+     * @return future completed with the current location and the range borders (DATA_TEMPORARY_UNAVAILABLE if the
+     * responsible superpeer is not available) or null if the responsible superpeer is unknown. Dependent actions are
+     * executed on the request completion thread and must not block
+     */
+    public CompletableFuture<LookupRange> getLookupRangeAsync(final long p_chunkID) {
+        short responsibleSuperpeer;
+        boolean check = false;
+
+        m_overlayLock.readLock().lock();
+        if (!OverlayHelper.isOverlayStable(m_initialNumberOfSuperpeers, m_superpeers.size())) {
+            check = true;
+        }
+        responsibleSuperpeer = getResponsibleSuperpeer(ChunkID.getCreatorID(p_chunkID), check);
+        m_overlayLock.readLock().unlock();
+
+        if (responsibleSuperpeer == NodeID.INVALID_ID) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        GetLookupRangeRequest request = new GetLookupRangeRequest(responsibleSuperpeer, p_chunkID);
+
+        return m_network.sendAsync(request).handle((p_response, p_exception) -> {
+            if (p_exception != null) {
+                // Responsible superpeer is not available
+                return new LookupRange(LookupState.DATA_TEMPORARY_UNAVAILABLE);
+            }
+
+            return ((GetLookupRangeResponse) p_response).getLookupRange();
+        });
+    }
+
+    /**
+     * Get the corresponding LookupRanges for multiple ChunkIDs. One request is sent to every responsible superpeer
+     * and all requests are sent before waiting for the responses
+     *
+     * @param p_chunkIDs
+     *         the ChunkIDs, sorted ascending
+     * @return the current locations and range borders, one entry per ChunkID. ChunkIDs in the same range share the
+     * same LookupRange instance. An entry is null if the responsible superpeer is unknown
+     */
+    public LookupRange[] getLookupRanges(final long[] p_chunkIDs) {
+        LookupRange[] ret = new LookupRange[p_chunkIDs.length];
+        Map<Short, ArrayList<Integer>> indexesBySuperpeer = new TreeMap<>();
+        short responsibleSuperpeer = NodeID.INVALID_ID;
+        boolean check = false;
+
+        // sort ChunkIDs by responsible superpeers, ChunkIDs of the same creator are consecutive
+        m_overlayLock.readLock().lock();
+        if (!OverlayHelper.isOverlayStable(m_initialNumberOfSuperpeers, m_superpeers.size())) {
+            check = true;
+        }
+        for (int i = 0; i < p_chunkIDs.length; i++) {
+            if (i == 0 || ChunkID.getCreatorID(p_chunkIDs[i - 1]) != ChunkID.getCreatorID(p_chunkIDs[i])) {
+                responsibleSuperpeer = getResponsibleSuperpeer(ChunkID.getCreatorID(p_chunkIDs[i]), check);
+            }
+
+            if (responsibleSuperpeer != NodeID.INVALID_ID) {
+                indexesBySuperpeer.computeIfAbsent(responsibleSuperpeer, a -> new ArrayList<>()).add(i);
+            }
+        }
+        m_overlayLock.readLock().unlock();
+
+        GetLookupRangesRequest[] requests = new GetLookupRangesRequest[indexesBySuperpeer.size()];
+        ArrayList<ArrayList<Integer>> requestIndexes = new ArrayList<>(indexesBySuperpeer.size());
+
+        for (Map.Entry<Short, ArrayList<Integer>> entry : indexesBySuperpeer.entrySet()) {
+            ArrayList<Integer> indexes = entry.getValue();
+            long[] chunkIDs = new long[indexes.size()];
+
+            for (int i = 0; i < chunkIDs.length; i++) {
+                chunkIDs[i] = p_chunkIDs[indexes.get(i)];
+            }
+
+            GetLookupRangesRequest request = new GetLookupRangesRequest(entry.getKey(), chunkIDs);
+
+            try {
+                m_network.sendSync(request, false);
+                requests[requestIndexes.size()] = request;
+            } catch (final NetworkException e) {
+                // Responsible superpeer is not available
+                setLookupRanges(ret, indexes, new LookupRange(LookupState.DATA_TEMPORARY_UNAVAILABLE));
+            }
+
+            requestIndexes.add(indexes);
+        }
+
+        for (int i = 0; i < requests.length; i++) {
+            if (requests[i] == null) {
+                continue;
+            }
+
+            try {
+                requests[i].waitForResponse(m_network.getRequestTimeoutMs());
+            } catch (final NetworkException e) {
+                // Responsible superpeer is not available
+                m_network.cancelRequest(requests[i]);
+                setLookupRanges(ret, requestIndexes.get(i), new LookupRange(LookupState.DATA_TEMPORARY_UNAVAILABLE));
+
+                continue;
+            }
+
+            GetLookupRangesResponse response = requests[i].getResponse(GetLookupRangesResponse.class);
+            LookupRange[] lookupRanges = response.getLookupRanges();
+            int[] chunkIDCounts = response.getChunkIDCounts();
+            ArrayList<Integer> indexes = requestIndexes.get(i);
+            int pos = 0;
+
+            for (int j = 0; j < lookupRanges.length; j++) {
+                for (int k = 0; k < chunkIDCounts[j]; k++) {
+                    ret[indexes.get(pos++)] = lookupRanges[j];
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Group nameservice entries by the superpeer responsible for the hash of their ids
+     *
+     * @param p_ids
+     *         the nameservice ids
+     * @param p_indexes
+     *         the indexes of the ids to group
+     * @return the indexes of the ids grouped by responsible superpeer
+     */
+    private Map<Short, ArrayList<Integer>> groupNameserviceEntriesBySuperpeer(final int[] p_ids,
+            final ArrayList<Integer> p_indexes) {
+        Map<Short, ArrayList<Integer>> ret = new TreeMap<>();
+        boolean check = false;
+
+        m_overlayLock.readLock().lock();
+        if (!OverlayHelper.isOverlayStable(m_initialNumberOfSuperpeers, m_superpeers.size())) {
+            check = true;
+        }
+        for (int index : p_indexes) {
+            short responsibleSuperpeer = getResponsibleSuperpeer(CRC16.hash(p_ids[index]), check);
+
+            // entries without a known responsible superpeer are grouped under NodeID.INVALID_ID
+            ret.computeIfAbsent(responsibleSuperpeer, a -> new ArrayList<>()).add(index);
+        }
+        m_overlayLock.readLock().unlock();
+
+        return ret;
+    }
+
+    /**
+     * Select nameservice ids by index
+     *
+     * @param p_ids
+     *         all ids
+     * @param p_indexes
+     *         the indexes to select
+     * @return the selected ids
+     */
+    private static int[] selectIDs(final int[] p_ids, final ArrayList<Integer> p_indexes) {
+        int[] ret = new int[p_indexes.size()];
+
+        for (int i = 0; i < ret.length; i++) {
+            ret[i] = p_ids[p_indexes.get(i)];
+        }
+
+        return ret;
+    }
+
+    /**
+     * Select ChunkIDs by index
+     *
+     * @param p_chunkIDs
+     *         all ChunkIDs
+     * @param p_indexes
+     *         the indexes to select
+     * @return the selected ChunkIDs
+     */
+    private static long[] selectChunkIDs(final long[] p_chunkIDs, final ArrayList<Integer> p_indexes) {
+        long[] ret = new long[p_indexes.size()];
+
+        for (int i = 0; i < ret.length; i++) {
+            ret[i] = p_chunkIDs[p_indexes.get(i)];
+        }
+
+        return ret;
+    }
+
     /**
      * Returns the responsible superpeer for given peer
      *
@@ -311,14 +522,14 @@ public class OverlayPeer implements MessageReceiver {
     }
 
     /**
-     * Remove the ChunkIDs from range after deletion of that chunks
+     * Remove the ChunkIDs from range after deletion of that chunks. Takes a single round trip to the responsible
+     * superpeer
      *
      * @param p_chunkIDs
      *         the ChunkIDs
      */
     public void removeChunkIDs(final ArrayListLong p_chunkIDs) {
         short responsibleSuperpeer;
-        short[] backupSuperpeers;
 
         RemoveChunkIDsRequest request;
         RemoveChunkIDsResponse response;
@@ -343,19 +554,8 @@ public class OverlayPeer implements MessageReceiver {
 
             response = request.getResponse(RemoveChunkIDsResponse.class);
 
-            backupSuperpeers = response.getBackupSuperpeers();
-            if (backupSuperpeers != null) {
-                if (backupSuperpeers[0] != NodeID.INVALID_ID) {
-                    // Send backups
-                    for (short backupSuperpeer : backupSuperpeers) {
-                        request = new RemoveChunkIDsRequest(backupSuperpeer, p_chunkIDs, true);
-                        try {
-                            m_network.sendSync(request);
-                        } catch (final NetworkException e) {
-                            // Ignore superpeer failure, own superpeer will fix this
-                        }
-                    }
-                }
+            // The responsible superpeer replicates the removal to its backup superpeers
+            if (response.getBackupSuperpeers() != null) {
                 break;
             }
         }
@@ -431,6 +631,217 @@ public class OverlayPeer implements MessageReceiver {
         }
     }
 
+    /**
+     * Insert multiple name service entries. The entries are grouped by responsible superpeer and every group is
+     * sent with a single request. All requests are sent before waiting for the responses
+     *
+     * @param p_ids
+     *         the AIDs
+     * @param p_chunkIDs
+     *         the ChunkIDs, one per AID
+     */
+    public void insertNameserviceEntries(final int[] p_ids, final long[] p_chunkIDs) {
+        ArrayList<Integer> remaining = new ArrayList<>(p_ids.length);
+
+        for (int i = 0; i < p_ids.length; i++) {
+            assert p_ids[i] < Math.pow(2, 31) && p_ids[i] >= 0;
+
+            remaining.add(i);
+        }
+
+        while (!remaining.isEmpty()) {
+            Map<Short, ArrayList<Integer>> indexesBySuperpeer = groupNameserviceEntriesBySuperpeer(p_ids, remaining);
+
+            InsertNameserviceEntriesBatchRequest[] requests =
+                    new InsertNameserviceEntriesBatchRequest[indexesBySuperpeer.size()];
+            ArrayList<ArrayList<Integer>> requestIndexes = new ArrayList<>(indexesBySuperpeer.size());
+            ArrayList<Integer> failed = new ArrayList<>();
+            ArrayList<InsertNameserviceEntriesBatchRequest> backupRequests = new ArrayList<>();
+
+            for (Map.Entry<Short, ArrayList<Integer>> entry : indexesBySuperpeer.entrySet()) {
+                ArrayList<Integer> indexes = entry.getValue();
+
+                if (entry.getKey() == NodeID.INVALID_ID) {
+                    failed.addAll(indexes);
+                    continue;
+                }
+
+                InsertNameserviceEntriesBatchRequest request = new InsertNameserviceEntriesBatchRequest(
+                        entry.getKey(), selectIDs(p_ids, indexes), selectChunkIDs(p_chunkIDs, indexes), false);
+
+                try {
+                    m_network.sendSync(request, false);
+                    requests[requestIndexes.size()] = request;
+                } catch (final NetworkException e) {
+                    // Responsible superpeer is not available, try again (superpeers will be updated
+                    // automatically by network thread)
+                    failed.addAll(indexes);
+                }
+
+                requestIndexes.add(indexes);
+            }
+
+            for (int i = 0; i < requests.length; i++) {
+                if (requests[i] == null) {
+                    continue;
+                }
+
+                try {
+                    requests[i].waitForResponse(m_network.getRequestTimeoutMs());
+                } catch (final NetworkException e) {
+                    m_network.cancelRequest(requests[i]);
+                    failed.addAll(requestIndexes.get(i));
+
+                    continue;
+                }
+
+                short[] backupSuperpeers =
+                        requests[i].getResponse(InsertNameserviceEntriesBatchResponse.class).getBackupSuperpeers();
+
+                if (backupSuperpeers == null) {
+                    // superpeer is not responsible for all entries (anymore), regroup them
+                    failed.addAll(requestIndexes.get(i));
+                } else if (backupSuperpeers[0] != NodeID.INVALID_ID) {
+                    // Send backups
+                    for (short backupSuperpeer : backupSuperpeers) {
+                        InsertNameserviceEntriesBatchRequest backupRequest = new InsertNameserviceEntriesBatchRequest(
+                                backupSuperpeer, requests[i].getIDs(), requests[i].getChunkIDs(), true);
+
+                        try {
+                            m_network.sendSync(backupRequest, false);
+                            backupRequests.add(backupRequest);
+                        } catch (final NetworkException e) {
+                            // Ignore superpeer failure, own superpeer will fix this
+                        }
+                    }
+                }
+            }
+
+            // wait for all backup superpeers at once instead of one round trip after another
+            for (InsertNameserviceEntriesBatchRequest backupRequest : backupRequests) {
+                try {
+                    backupRequest.waitForResponse(m_network.getRequestTimeoutMs());
+                } catch (final NetworkException e) {
+                    // Ignore superpeer failure, own superpeer will fix this
+                    m_network.cancelRequest(backupRequest);
+                }
+            }
+
+            if (!failed.isEmpty() && failed.size() == remaining.size()) {
+                try {
+                    Thread.sleep(MSG_TIMEOUT_MS);
+                } catch (final InterruptedException ignored) {
+                }
+            }
+
+            remaining = failed;
+        }
+    }
+
+    /**
+     * Get ChunkIDs for multiple nameservice ids. The ids are grouped by responsible superpeer and every group is
+     * requested with a single request. All requests are sent before waiting for the responses. Superpeers delay
+     * their responses until all ids are registered (up to the watch timeout)
+     *
+     * @param p_ids
+     *         the nameservice ids
+     * @param p_timeoutMs
+     *         Timeout for trying to get the entries (if they do not exist, yet).
+     *         set this to -1 for infinite loop if you know for sure, that the entries have to exist
+     * @return the corresponding ChunkIDs, one per nameservice id (-1 if not found)
+     */
+    public long[] getChunkIDsForNameserviceEntries(final int[] p_ids, final int p_timeoutMs) {
+        long[] ret = new long[p_ids.length];
+        ArrayList<Integer> remaining = new ArrayList<>(p_ids.length);
+
+        for (int i = 0; i < p_ids.length; i++) {
+            ret[i] = ChunkID.INVALID_ID;
+            remaining.add(i);
+        }
+
+        long start = System.currentTimeMillis();
+        do {
+            long roundStart = System.currentTimeMillis();
+            Map<Short, ArrayList<Integer>> indexesBySuperpeer = groupNameserviceEntriesBySuperpeer(p_ids, remaining);
+            int watchTimeoutMs = NAMESERVICE_WATCH_TIMEOUT_MS;
+
+            if (p_timeoutMs != -1) {
+                watchTimeoutMs = (int) Math.max(0,
+                        Math.min(watchTimeoutMs, p_timeoutMs - (System.currentTimeMillis() - start)));
+            }
+
+            GetChunkIDsForNameserviceEntriesRequest[] requests =
+                    new GetChunkIDsForNameserviceEntriesRequest[indexesBySuperpeer.size()];
+            ArrayList<ArrayList<Integer>> requestIndexes = new ArrayList<>(indexesBySuperpeer.size());
+            ArrayList<Integer> missing = new ArrayList<>();
+            boolean networkError = false;
+
+            for (Map.Entry<Short, ArrayList<Integer>> entry : indexesBySuperpeer.entrySet()) {
+                ArrayList<Integer> indexes = entry.getValue();
+
+                if (entry.getKey() == NodeID.INVALID_ID) {
+                    missing.addAll(indexes);
+                    networkError = true;
+                    continue;
+                }
+
+                // the superpeer parks the request until all entries are registered instead of answering immediately
+                GetChunkIDsForNameserviceEntriesRequest request = new GetChunkIDsForNameserviceEntriesRequest(
+                        entry.getKey(), selectIDs(p_ids, indexes), watchTimeoutMs);
+
+                try {
+                    m_network.sendSync(request, false);
+                    requests[requestIndexes.size()] = request;
+                } catch (final NetworkException e) {
+                    // Responsible superpeer is not available, try again
+                    missing.addAll(indexes);
+                    networkError = true;
+                }
+
+                requestIndexes.add(indexes);
+            }
+
+            for (int i = 0; i < requests.length; i++) {
+                if (requests[i] == null) {
+                    continue;
+                }
+
+                try {
+                    requests[i].waitForResponse(watchTimeoutMs + m_network.getRequestTimeoutMs());
+                } catch (final NetworkException e) {
+                    m_network.cancelRequest(requests[i]);
+                    missing.addAll(requestIndexes.get(i));
+                    networkError = true;
+
+                    continue;
+                }
+
+                long[] chunkIDs = requests[i].getResponse(GetChunkIDsForNameserviceEntriesResponse.class).getChunkIDs();
+                ArrayList<Integer> indexes = requestIndexes.get(i);
+
+                for (int j = 0; j < chunkIDs.length; j++) {
+                    if (chunkIDs[j] != ChunkID.INVALID_ID) {
+                        ret[indexes.get(j)] = chunkIDs[j];
+                    } else {
+                        missing.add(indexes.get(j));
+                    }
+                }
+            }
+
+            remaining = missing;
+
+            // back off if the superpeers answered immediately without all entries (e.g. not responsible anymore)
+            if (networkError || !missing.isEmpty() && System.currentTimeMillis() - roundStart < MSG_TIMEOUT_MS) {
+                try {
+                    Thread.sleep(MSG_TIMEOUT_MS);
+                } catch (final InterruptedException ignored) {
+                }
+            }
+        } while (!remaining.isEmpty() && (p_timeoutMs == -1 || System.currentTimeMillis() - start < p_timeoutMs));
+
+        return ret;
+    }
+
     /* Migration */
 
     /**
@@ -461,10 +872,21 @@ public class OverlayPeer implements MessageReceiver {
         long start = System.currentTimeMillis();
         do {
             if (responsibleSuperpeer != NodeID.INVALID_ID) {
-                request = new GetChunkIDForNameserviceEntryRequest(responsibleSuperpeer, p_id);
+                // the superpeer parks the request until the entry is registered instead of answering immediately
+                int watchTimeoutMs = NAMESERVICE_WATCH_TIMEOUT_MS;
+
+                if (p_timeoutMs != -1) {
+                    watchTimeoutMs = (int) Math.max(0,
+                            Math.min(watchTimeoutMs, p_timeoutMs - (System.currentTimeMillis() - start)));
+                }
+
+                request = new GetChunkIDForNameserviceEntryRequest(responsibleSuperpeer, p_id, watchTimeoutMs);
                 try {
-                    m_network.sendSync(request);
+                    m_network.sendSync(request, false);
+                    request.waitForResponse(watchTimeoutMs + m_network.getRequestTimeoutMs());
                 } catch (final NetworkException e) {
+                    m_network.cancelRequest(request);
+
                     // Responsible superpeer is not available, try again (superpeers will be updated
                     // automatically by network thread)
                     try {
@@ -484,6 +906,12 @@ public class OverlayPeer implements MessageReceiver {
                 if (ret != -1) {
                     break;
                 }
+            } else {
+                // no responsible superpeer known, yet
+                try {
+                    Thread.sleep(MSG_TIMEOUT_MS);
+                } catch (final InterruptedException ignored) {
+                }
             }
 
             m_overlayLock.readLock().lock();
@@ -738,6 +1166,8 @@ public class OverlayPeer implements MessageReceiver {
             return false;
         }
 
+        m_barrierTreeSignOns.remove(p_barrierId);
+
         short responsibleSuperpeer = BarrierID.getOwnerID(p_barrierId);
         BarrierFreeRequest message = new BarrierFreeRequest(responsibleSuperpeer, p_barrierId, false);
 
@@ -888,6 +1318,155 @@ public class OverlayPeer implements MessageReceiver {
         }
     }
 
+    /**
+     * Sign on to a barrier using a combining tree and wait for it getting released. All participants have to use
+     * this method with the same participants and fan-out. The participants are arranged in a tree (sorted by node
+     * id). Every peer waits for the sign ons of its children and passes the combined sign ons of its subtree to its
+     * parent. The root signs on all participants at the responsible superpeer and gets released by it. The release
+     * is passed down the tree. Thus, the superpeer handles a single sign on and release per tree and the latency is
+     * logarithmic in the number of participants.
+     *
+     * @param p_barrierId
+     *         Id of the barrier to sign on to.
+     * @param p_customData
+     *         Custom data to pass along with the sign on
+     * @param p_participants
+     *         Node ids of all peers signing on with this method (must include the own node id)
+     * @param p_fanout
+     *         Max. number of children per peer in the tree
+     * @return Status of the barrier after release, null on error
+     */
+    public BarrierStatus barrierSignOn(final int p_barrierId, final long p_customData, final short[] p_participants,
+            final int p_fanout) {
+        if (p_barrierId == BarrierID.INVALID_ID) {
+            return null;
+        }
+
+        // Every participant has to determine the same tree
+        short[] participants = Arrays.copyOf(p_participants, p_participants.length);
+        Arrays.sort(participants);
+
+        int index = Arrays.binarySearch(participants, m_nodeID);
+        if (index < 0) {
+
+            LOGGER.error("Sign on barrier 0x%X failed: 0x%X is not a participant", p_barrierId, m_nodeID);
+
+            return null;
+        }
+
+        int firstChild = index * p_fanout + 1;
+        int numberOfChildren = Math.max(0, Math.min(p_fanout, participants.length - firstChild));
+
+        Semaphore waitForRelease = new Semaphore(0);
+        final BarrierReleaseMessage[] releaseMessage = {null};
+        MessageReceiver msg = p_message -> {
+            if (p_message != null && p_message.getType() == DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE &&
+                    p_message.getSubtype() == LookupMessages.SUBTYPE_BARRIER_RELEASE_MESSAGE) {
+                if (((BarrierReleaseMessage) p_message).getBarrierId() == p_barrierId) {
+                    releaseMessage[0] = (BarrierReleaseMessage) p_message;
+                    waitForRelease.release();
+                }
+            }
+        };
+
+        // make sure to register the listener BEFORE signing on to not miss the release message
+        m_network.register(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE, LookupMessages.SUBTYPE_BARRIER_RELEASE_MESSAGE,
+                msg);
+
+        // Combine the sign ons of all subtrees
+        BlockingQueue<BarrierTreeSignOnMessage> childSignOns =
+                m_barrierTreeSignOns.computeIfAbsent(p_barrierId, p_id -> new LinkedBlockingQueue<>());
+        BarrierTreeSignOnMessage[] subtrees = new BarrierTreeSignOnMessage[numberOfChildren];
+        int offset = index == 0 ? 0 : 1;
+        int size = offset;
+        try {
+            for (int i = 0; i < numberOfChildren; i++) {
+                subtrees[i] = childSignOns.take();
+                size += subtrees[i].getNodeIds().length;
+            }
+        } catch (final InterruptedException e) {
+            m_network.unregister(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE, LookupMessages.SUBTYPE_BARRIER_RELEASE_MESSAGE,
+                    msg);
+
+            return null;
+        }
+
+        short[] nodeIds = new short[size];
+        long[] customData = new long[size];
+        if (offset == 1) {
+            nodeIds[0] = m_nodeID;
+            customData[0] = p_customData;
+        }
+        for (BarrierTreeSignOnMessage subtree : subtrees) {
+            System.arraycopy(subtree.getNodeIds(), 0, nodeIds, offset, subtree.getNodeIds().length);
+            System.arraycopy(subtree.getCustomData(), 0, customData, offset, subtree.getCustomData().length);
+            offset += subtree.getNodeIds().length;
+        }
+
+        if (index == 0) {
+            short responsibleSuperpeer = BarrierID.getOwnerID(p_barrierId);
+            BarrierSignOnRequest request =
+                    new BarrierSignOnRequest(responsibleSuperpeer, p_barrierId, p_customData, nodeIds, customData);
+            try {
+                m_network.sendSync(request);
+            } catch (final NetworkException e) {
+
+                LOGGER.error("Sign on barrier 0x%X failed: %s", p_barrierId, e);
+
+                m_network.unregister(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
+                        LookupMessages.SUBTYPE_BARRIER_RELEASE_MESSAGE, msg);
+
+                return null;
+            }
+
+            BarrierSignOnResponse response = (BarrierSignOnResponse) request.getResponse();
+            if (response.getBarrierId() != p_barrierId || response.getStatus() != 0) {
+
+                LOGGER.error("Sign on barrier 0x%X failed", p_barrierId);
+
+                m_network.unregister(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
+                        LookupMessages.SUBTYPE_BARRIER_RELEASE_MESSAGE, msg);
+
+                return null;
+            }
+        } else {
+            short parent = participants[(index - 1) / p_fanout];
+            try {
+                m_network.sendMessage(new BarrierTreeSignOnMessage(parent, p_barrierId, nodeIds, customData));
+            } catch (final NetworkException e) {
+
+                LOGGER.error("Sign on barrier 0x%X at parent 0x%X failed: %s", p_barrierId, parent, e);
+
+                m_network.unregister(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
+                        LookupMessages.SUBTYPE_BARRIER_RELEASE_MESSAGE, msg);
+
+                return null;
+            }
+        }
+
+        try {
+            waitForRelease.acquire();
+        } catch (final InterruptedException ignored) {
+        }
+
+        m_network.unregister(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE, LookupMessages.SUBTYPE_BARRIER_RELEASE_MESSAGE,
+                msg);
+
+        // Pass the release down the tree
+        BarrierStatus status = releaseMessage[0].getBarrierResults();
+        for (int i = firstChild; i < firstChild + numberOfChildren; i++) {
+            try {
+                m_network.sendMessage(new BarrierReleaseMessage(participants[i], p_barrierId, status));
+            } catch (final NetworkException e) {
+
+                LOGGER.error("Releasing peer 0x%X of barrier 0x%X failed: %s", participants[i], p_barrierId, e);
+
+            }
+        }
+
+        return status;
+    }
+
     /**
      * Get the status of a barrier.
      *
@@ -1358,6 +1937,12 @@ public class OverlayPeer implements MessageReceiver {
                     case LookupMessages.SUBTYPE_NODE_JOIN_EVENT_REQUEST:
                         incomingNodeJoinEventRequest((NodeJoinEventMessage) p_message);
                         break;
+                    case LookupMessages.SUBTYPE_LOOKUP_RANGES_AVAILABLE_MESSAGE:
+                        incomingLookupRangesAvailableMessage((LookupRangesAvailableMessage) p_message);
+                        break;
+                    case LookupMessages.SUBTYPE_BARRIER_TREE_SIGN_ON_MESSAGE:
+                        incomingBarrierTreeSignOnMessage((BarrierTreeSignOnMessage) p_message);
+                        break;
                     default:
                         break;
                 }
@@ -1547,8 +2132,35 @@ public class OverlayPeer implements MessageReceiver {
      *         the NameserviceUpdatePeerCachesMessage
      */
     private void incomingNameserviceUpdatePeerCachesMessage(final NameserviceUpdatePeerCachesMessage p_message) {
-        m_event.fireEvent(new NameserviceCacheEntryUpdateEvent(getClass().getSimpleName(), p_message.getID(),
-                p_message.getChunkID()));
+        m_event.fireEvent(new NameserviceCacheEntryUpdateEvent(getClass().getSimpleName(), p_message.getIDs(),
+                p_message.getChunkIDs()));
+    }
+
+    /**
+     * Handles an incoming LookupRangesAvailableMessage
+     *
+     * @param p_message
+     *         the LookupRangesAvailableMessage
+     */
+    private void incomingLookupRangesAvailableMessage(final LookupRangesAvailableMessage p_message) {
+        LOGGER.trace("Got message: LOOKUP_RANGES_AVAILABLE_MESSAGE from 0x%X, creator 0x%X", p_message.getSource(),
+                p_message.getCreator());
+
+        m_event.fireEvent(new LookupRangesAvailableEvent(getClass().getSimpleName(), p_message.getCreator()));
+    }
+
+    /**
+     * Handles an incoming BarrierTreeSignOnMessage
+     *
+     * @param p_message
+     *         the BarrierTreeSignOnMessage
+     */
+    private void incomingBarrierTreeSignOnMessage(final BarrierTreeSignOnMessage p_message) {
+        LOGGER.trace("Got message: BARRIER_TREE_SIGN_ON_MESSAGE from 0x%X, barrier 0x%X", p_message.getSource(),
+                p_message.getBarrierId());
+
+        m_barrierTreeSignOns.computeIfAbsent(p_message.getBarrierId(), p_id -> new LinkedBlockingQueue<>())
+                .add(p_message);
     }
 
     /**
@@ -1569,6 +2181,23 @@ public class OverlayPeer implements MessageReceiver {
 
     // -----------------------------------------------------------------------------------
 
+    /**
+     * Sets the same LookupRange for multiple ChunkIDs
+     *
+     * @param p_lookupRanges
+     *         the LookupRanges of all ChunkIDs
+     * @param p_indexes
+     *         the indexes to set
+     * @param p_lookupRange
+     *         the LookupRange to set
+     */
+    private static void setLookupRanges(final LookupRange[] p_lookupRanges, final ArrayList<Integer> p_indexes,
+            final LookupRange p_lookupRange) {
+        for (int index : p_indexes) {
+            p_lookupRanges[index] = p_lookupRange;
+        }
+    }
+
     /**
      * Register network messages we use in here.
      */
@@ -1583,6 +2212,10 @@ public class OverlayPeer implements MessageReceiver {
                 LookupMessages.SUBTYPE_GET_LOOKUP_RANGE_REQUEST, GetLookupRangeRequest.class);
         m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
                 LookupMessages.SUBTYPE_GET_LOOKUP_RANGE_RESPONSE, GetLookupRangeResponse.class);
+        m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
+                LookupMessages.SUBTYPE_GET_LOOKUP_RANGES_REQUEST, GetLookupRangesRequest.class);
+        m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
+                LookupMessages.SUBTYPE_GET_LOOKUP_RANGES_RESPONSE, GetLookupRangesResponse.class);
         m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
                 LookupMessages.SUBTYPE_REMOVE_CHUNKIDS_REQUEST, RemoveChunkIDsRequest.class);
         m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
@@ -1597,6 +2230,18 @@ public class OverlayPeer implements MessageReceiver {
         m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
                 LookupMessages.SUBTYPE_GET_CHUNKID_FOR_NAMESERVICE_ENTRY_RESPONSE,
                 GetChunkIDForNameserviceEntryResponse.class);
+        m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
+                LookupMessages.SUBTYPE_INSERT_NAMESERVICE_ENTRIES_BATCH_REQUEST,
+                InsertNameserviceEntriesBatchRequest.class);
+        m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
+                LookupMessages.SUBTYPE_INSERT_NAMESERVICE_ENTRIES_BATCH_RESPONSE,
+                InsertNameserviceEntriesBatchResponse.class);
+        m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
+                LookupMessages.SUBTYPE_GET_CHUNKIDS_FOR_NAMESERVICE_ENTRIES_REQUEST,
+                GetChunkIDsForNameserviceEntriesRequest.class);
+        m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
+                LookupMessages.SUBTYPE_GET_CHUNKIDS_FOR_NAMESERVICE_ENTRIES_RESPONSE,
+                GetChunkIDsForNameserviceEntriesResponse.class);
         m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
                 LookupMessages.SUBTYPE_GET_NAMESERVICE_ENTRY_COUNT_REQUEST, GetNameserviceEntryCountRequest.class);
         m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
@@ -1608,6 +2253,8 @@ public class OverlayPeer implements MessageReceiver {
         m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
                 LookupMessages.SUBTYPE_NAMESERVICE_UPDATE_PEER_CACHES_MESSAGE,
                 NameserviceUpdatePeerCachesMessage.class);
+        m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
+                LookupMessages.SUBTYPE_LOOKUP_RANGES_AVAILABLE_MESSAGE, LookupRangesAvailableMessage.class);
         m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE, LookupMessages.SUBTYPE_MIGRATE_REQUEST,
                 MigrateRequest.class);
         m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE, LookupMessages.SUBTYPE_MIGRATE_RESPONSE,
@@ -1663,6 +2310,8 @@ public class OverlayPeer implements MessageReceiver {
                 LookupMessages.SUBTYPE_BARRIER_CHANGE_SIZE_REQUEST, BarrierChangeSizeRequest.class);
         m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
                 LookupMessages.SUBTYPE_BARRIER_CHANGE_SIZE_RESPONSE, BarrierChangeSizeResponse.class);
+        m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
+                LookupMessages.SUBTYPE_BARRIER_TREE_SIGN_ON_MESSAGE, BarrierTreeSignOnMessage.class);
 
         m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
                 LookupMessages.SUBTYPE_SUPERPEER_STORAGE_CREATE_REQUEST, SuperpeerStorageCreateRequest.class);
@@ -1702,6 +2351,10 @@ public class OverlayPeer implements MessageReceiver {
                 .register(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE, LookupMessages.SUBTYPE_SEND_SUPERPEERS_MESSAGE, this);
         m_network.register(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
                 LookupMessages.SUBTYPE_NAMESERVICE_UPDATE_PEER_CACHES_MESSAGE, this);
+        m_network.register(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
+                LookupMessages.SUBTYPE_LOOKUP_RANGES_AVAILABLE_MESSAGE, this);
+        m_network.register(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
+                LookupMessages.SUBTYPE_BARRIER_TREE_SIGN_ON_MESSAGE, this);
         m_network
                 .register(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE, LookupMessages.SUBTYPE_NODE_JOIN_EVENT_REQUEST, this);
     }
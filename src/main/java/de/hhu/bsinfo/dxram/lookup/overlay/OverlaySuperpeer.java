@@ -17,12 +17,18 @@
 package de.hhu.bsinfo.dxram.lookup.overlay;
 
 import java.net.InetSocketAddress;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.apache.logging.log4j.LogManager;
@@ -41,10 +47,13 @@ import de.hhu.bsinfo.dxram.boot.AbstractBootComponent;
 import de.hhu.bsinfo.dxram.boot.NodeRegistry;
 import de.hhu.bsinfo.dxram.chunk.data.ChunkAnon;
 import de.hhu.bsinfo.dxram.event.EventComponent;
+import de.hhu.bsinfo.dxram.executor.ExecutorComponent;
+import de.hhu.bsinfo.dxram.executor.TaskCategory;
 import de.hhu.bsinfo.dxram.failure.messages.FailureRequest;
 import de.hhu.bsinfo.dxram.failure.messages.FailureResponse;
 import de.hhu.bsinfo.dxram.lookup.LookupComponent;
 import de.hhu.bsinfo.dxram.lookup.LookupRange;
+import de.hhu.bsinfo.dxram.lookup.LookupState;
 import de.hhu.bsinfo.dxram.lookup.events.NodeJoinEvent;
 import de.hhu.bsinfo.dxram.lookup.messages.AskAboutBackupsRequest;
 import de.hhu.bsinfo.dxram.lookup.messages.AskAboutBackupsResponse;
@@ -66,8 +75,12 @@ import de.hhu.bsinfo.dxram.lookup.messages.GetAllBackupRangesRequest;
 import de.hhu.bsinfo.dxram.lookup.messages.GetAllBackupRangesResponse;
 import de.hhu.bsinfo.dxram.lookup.messages.GetChunkIDForNameserviceEntryRequest;
 import de.hhu.bsinfo.dxram.lookup.messages.GetChunkIDForNameserviceEntryResponse;
+import de.hhu.bsinfo.dxram.lookup.messages.GetChunkIDsForNameserviceEntriesRequest;
+import de.hhu.bsinfo.dxram.lookup.messages.GetChunkIDsForNameserviceEntriesResponse;
 import de.hhu.bsinfo.dxram.lookup.messages.GetLookupRangeRequest;
 import de.hhu.bsinfo.dxram.lookup.messages.GetLookupRangeResponse;
+import de.hhu.bsinfo.dxram.lookup.messages.GetLookupRangesRequest;
+import de.hhu.bsinfo.dxram.lookup.messages.GetLookupRangesResponse;
 import de.hhu.bsinfo.dxram.lookup.messages.GetMetadataSummaryRequest;
 import de.hhu.bsinfo.dxram.lookup.messages.GetMetadataSummaryResponse;
 import de.hhu.bsinfo.dxram.lookup.messages.GetNameserviceEntriesRequest;
@@ -76,11 +89,14 @@ import de.hhu.bsinfo.dxram.lookup.messages.GetNameserviceEntryCountRequest;
 import de.hhu.bsinfo.dxram.lookup.messages.GetNameserviceEntryCountResponse;
 import de.hhu.bsinfo.dxram.lookup.messages.InitRangeRequest;
 import de.hhu.bsinfo.dxram.lookup.messages.InitRangeResponse;
+import de.hhu.bsinfo.dxram.lookup.messages.InsertNameserviceEntriesBatchRequest;
+import de.hhu.bsinfo.dxram.lookup.messages.InsertNameserviceEntriesBatchResponse;
 import de.hhu.bsinfo.dxram.lookup.messages.InsertNameserviceEntriesRequest;
 import de.hhu.bsinfo.dxram.lookup.messages.InsertNameserviceEntriesResponse;
 import de.hhu.bsinfo.dxram.lookup.messages.JoinRequest;
 import de.hhu.bsinfo.dxram.lookup.messages.JoinResponse;
 import de.hhu.bsinfo.dxram.lookup.messages.LookupMessages;
+import de.hhu.bsinfo.dxram.lookup.messages.LookupRangesAvailableMessage;
 import de.hhu.bsinfo.dxram.lookup.messages.MigrateRangeRequest;
 import de.hhu.bsinfo.dxram.lookup.messages.MigrateRangeResponse;
 import de.hhu.bsinfo.dxram.lookup.messages.MigrateRequest;
@@ -94,7 +110,10 @@ import de.hhu.bsinfo.dxram.lookup.messages.RemoveChunkIDsRequest;
 import de.hhu.bsinfo.dxram.lookup.messages.RemoveChunkIDsResponse;
 import de.hhu.bsinfo.dxram.lookup.messages.ReplaceBackupPeerRequest;
 import de.hhu.bsinfo.dxram.lookup.messages.ReplaceBackupPeerResponse;
-import de.hhu.bsinfo.dxram.lookup.messages.SendBackupsMessage;
+import de.hhu.bsinfo.dxram.lookup.messages.ReplicateMetadataRequest;
+import de.hhu.bsinfo.dxram.lookup.messages.ReplicateMetadataResponse;
+import de.hhu.bsinfo.dxram.lookup.messages.SendMetadataChunkRequest;
+import de.hhu.bsinfo.dxram.lookup.messages.SendMetadataChunkResponse;
 import de.hhu.bsinfo.dxram.lookup.messages.SendSuperpeersMessage;
 import de.hhu.bsinfo.dxram.lookup.messages.SuperpeerStorageCreateRequest;
 import de.hhu.bsinfo.dxram.lookup.messages.SuperpeerStorageCreateResponse;
@@ -110,10 +129,11 @@ import de.hhu.bsinfo.dxram.lookup.messages.SuperpeerStorageRemoveMessage;
 import de.hhu.bsinfo.dxram.lookup.messages.SuperpeerStorageStatusRequest;
 import de.hhu.bsinfo.dxram.lookup.messages.SuperpeerStorageStatusResponse;
 import de.hhu.bsinfo.dxram.lookup.messages.UpdateMetadataAfterRecoveryMessage;
+import de.hhu.bsinfo.dxram.lookup.overlay.storage.AbstractLookupTree;
 import de.hhu.bsinfo.dxram.lookup.overlay.storage.BarrierID;
 import de.hhu.bsinfo.dxram.lookup.overlay.storage.BarrierStatus;
 import de.hhu.bsinfo.dxram.lookup.overlay.storage.BarriersTable;
-import de.hhu.bsinfo.dxram.lookup.overlay.storage.LookupTree;
+import de.hhu.bsinfo.dxram.lookup.overlay.storage.MetadataChunkIterator;
 import de.hhu.bsinfo.dxram.lookup.overlay.storage.MetadataHandler;
 import de.hhu.bsinfo.dxram.lookup.overlay.storage.NameserviceHashTable;
 import de.hhu.bsinfo.dxram.lookup.overlay.storage.PeerHandler;
@@ -145,6 +165,7 @@ public class OverlaySuperpeer implements MessageReceiver {
     private NetworkComponent m_network;
     private AbstractBootComponent m_boot;
     private EventComponent m_event;
+    private ExecutorComponent m_executor;
 
     private boolean m_backupActive;
 
@@ -168,7 +189,25 @@ public class OverlaySuperpeer implements MessageReceiver {
 
     private MetadataHandler m_metadata;
 
+    // Peers which got DATA_TEMPORARY_UNAVAILABLE for ranges of a creator (key) and are notified once the ranges are
+    // available again
+    private final HashMap<Short, ArrayList<Short>> m_unavailableRangeSubscribers = new HashMap<>();
+
     private SuperpeerStabilizationThread m_stabilizationThread;
+    private PeerCacheUpdateBuffer m_peerCacheUpdates;
+    private MetadataReplicationBuffer m_metadataReplication;
+    private boolean m_syncMetadataReplication;
+    private NameserviceWatchTable m_nameserviceWatches;
+
+    // Metadata is handed over in chunks with a limited number of chunks in flight
+    private int m_metadataTransferChunkSize;
+    private int m_metadataTransferWindow;
+    // Completed once the last metadata chunk was stored while joining
+    private volatile CountDownLatch m_joinMetadataTransfer;
+    private final AtomicInteger m_receivedMetadataChunks = new AtomicInteger(0);
+
+    // Peers signed on by the root of a combining tree barrier, released by the root instead of this superpeer
+    private final Map<Integer, Set<Short>> m_forwardedBarrierSignOns = new ConcurrentHashMap<>();
 
     private ReentrantReadWriteLock m_overlayLock;
 
@@ -191,20 +230,39 @@ public class OverlaySuperpeer implements MessageReceiver {
      *         Max size for the superpeer storage in bytes
      * @param p_backupActive
      *         whether backup component is active or not
+     * @param p_flatLookupTrees
+     *         whether to store the ranges of peers in FlatLookupTrees instead of LookupTrees
+     * @param p_syncMetadataReplication
+     *         whether peers are acknowledged after all backup superpeers applied a lookup tree update (true) or
+     *         after the update was applied locally (false, the update is replicated asynchronously)
+     * @param p_metadataTransferChunkSize
+     *         the size of metadata chunks handed over to other superpeers in bytes
+     * @param p_metadataTransferWindow
+     *         the number of metadata chunks in flight
      * @param p_boot
      *         the BootComponent
      * @param p_network
      *         the NetworkComponent
+     * @param p_event
+     *         the EventComponent
+     * @param p_executor
+     *         the ExecutorComponent to run tasks outsourced by message handlers
      */
     public OverlaySuperpeer(final short p_nodeID, final short p_contactSuperpeer, final int p_initialNumberOfSuperpeers,
             final int p_sleepInterval, final int p_maxNumOfBarriers, final int p_storageMaxNumEntries,
-            final int p_storageMaxSizeBytes, final boolean p_backupActive, final AbstractBootComponent p_boot,
-            final NetworkComponent p_network, final EventComponent p_event) {
+            final int p_storageMaxSizeBytes, final boolean p_backupActive, final boolean p_flatLookupTrees,
+            final boolean p_syncMetadataReplication, final int p_metadataTransferChunkSize,
+            final int p_metadataTransferWindow, final AbstractBootComponent p_boot,
+            final NetworkComponent p_network, final EventComponent p_event, final ExecutorComponent p_executor) {
         m_boot = p_boot;
         m_network = p_network;
         m_event = p_event;
+        m_executor = p_executor;
 
         m_backupActive = p_backupActive;
+        m_syncMetadataReplication = p_syncMetadataReplication;
+        m_metadataTransferChunkSize = p_metadataTransferChunkSize;
+        m_metadataTransferWindow = p_metadataTransferWindow;
 
         m_nodeID = p_nodeID;
         m_initialNumberOfSuperpeers = p_initialNumberOfSuperpeers;
@@ -215,10 +273,17 @@ public class OverlaySuperpeer implements MessageReceiver {
 
         m_metadata = new MetadataHandler(new PeerHandler[NodeID.MAX_ID], new NameserviceHashTable(1000),
                 new SuperpeerStorage(p_storageMaxNumEntries, p_storageMaxSizeBytes),
-                new BarriersTable(p_maxNumOfBarriers, m_nodeID), m_assignedPeersIncludingBackups);
+                new BarriersTable(p_maxNumOfBarriers, m_nodeID), m_assignedPeersIncludingBackups, p_flatLookupTrees);
 
         m_overlayLock = new ReentrantReadWriteLock(false);
 
+        m_peerCacheUpdates = new PeerCacheUpdateBuffer(p_network);
+        m_peerCacheUpdates.start();
+        m_metadataReplication = new MetadataReplicationBuffer(p_network);
+        m_metadataReplication.start();
+        m_nameserviceWatches = new NameserviceWatchTable(p_network);
+        m_nameserviceWatches.start();
+
         m_initialNumberOfSuperpeers--;
 
         registerNetworkMessages();
@@ -257,9 +322,13 @@ public class OverlaySuperpeer implements MessageReceiver {
     }
 
     /**
-     * Shuts down the stabilization thread
+     * Shuts down the stabilization thread and flushes pending peer cache updates and metadata replications
      */
     public void shutdown() {
+        m_peerCacheUpdates.shutdown();
+        m_metadataReplication.shutdown();
+        m_nameserviceWatches.shutdown();
+
         m_stabilizationThread.interrupt();
         m_stabilizationThread.shutdown();
         try {
@@ -278,7 +347,7 @@ public class OverlaySuperpeer implements MessageReceiver {
      *         the NodeID
      * @return the lookup tree
      */
-    public LookupTree getLookupTree(final short p_nodeID) {
+    public AbstractLookupTree getLookupTree(final short p_nodeID) {
         return m_metadata.getLookupTree(p_nodeID);
     }
 
@@ -319,9 +388,15 @@ public class OverlaySuperpeer implements MessageReceiver {
                     case LookupMessages.SUBTYPE_FINISHED_STARTUP_MESSAGE:
                         incomingFinishedStartupMessage((FinishedStartupMessage) p_message);
                         break;
+                    case LookupMessages.SUBTYPE_SEND_METADATA_CHUNK_REQUEST:
+                        incomingSendMetadataChunkRequest((SendMetadataChunkRequest) p_message);
+                        break;
                     case LookupMessages.SUBTYPE_GET_LOOKUP_RANGE_REQUEST:
                         incomingGetLookupRangeRequest((GetLookupRangeRequest) p_message);
                         break;
+                    case LookupMessages.SUBTYPE_GET_LOOKUP_RANGES_REQUEST:
+                        incomingGetLookupRangesRequest((GetLookupRangesRequest) p_message);
+                        break;
                     case LookupMessages.SUBTYPE_REMOVE_CHUNKIDS_REQUEST:
                         incomingRemoveChunkIDsRequest((RemoveChunkIDsRequest) p_message);
                         break;
@@ -331,6 +406,13 @@ public class OverlaySuperpeer implements MessageReceiver {
                     case LookupMessages.SUBTYPE_GET_CHUNKID_FOR_NAMESERVICE_ENTRY_REQUEST:
                         incomingGetChunkIDForNameserviceEntryRequest((GetChunkIDForNameserviceEntryRequest) p_message);
                         break;
+                    case LookupMessages.SUBTYPE_INSERT_NAMESERVICE_ENTRIES_BATCH_REQUEST:
+                        incomingInsertNameserviceEntriesBatchRequest((InsertNameserviceEntriesBatchRequest) p_message);
+                        break;
+                    case LookupMessages.SUBTYPE_GET_CHUNKIDS_FOR_NAMESERVICE_ENTRIES_REQUEST:
+                        incomingGetChunkIDsForNameserviceEntriesRequest(
+                                (GetChunkIDsForNameserviceEntriesRequest) p_message);
+                        break;
                     case LookupMessages.SUBTYPE_GET_NAMESERVICE_ENTRY_COUNT_REQUEST:
                         incomingGetNameserviceEntryCountRequest((GetNameserviceEntryCountRequest) p_message);
                         break;
@@ -346,6 +428,9 @@ public class OverlaySuperpeer implements MessageReceiver {
                     case LookupMessages.SUBTYPE_INIT_RANGE_REQUEST:
                         incomingInitRangeRequest((InitRangeRequest) p_message);
                         break;
+                    case LookupMessages.SUBTYPE_REPLICATE_METADATA_REQUEST:
+                        incomingReplicateMetadataRequest((ReplicateMetadataRequest) p_message);
+                        break;
                     case LookupMessages.SUBTYPE_GET_ALL_BACKUP_RANGES_REQUEST:
                         incomingGetAllBackupRangesRequest((GetAllBackupRangesRequest) p_message);
                         break;
@@ -545,24 +630,53 @@ public class OverlaySuperpeer implements MessageReceiver {
     }
 
     /**
-     * Compares given peer list with local list and returns all missing backup data
+     * Returns the epoch and version of the nameservice
+     *
+     * @return an array with epoch and version
+     */
+    long[] getNameserviceVersion() {
+        return m_metadata.getNameserviceVersion();
+    }
+
+    /**
+     * Returns the epochs and versions the backups of given peers were synchronized with
+     *
+     * @param p_peers
+     *         the peers
+     * @return an array with epoch and version per peer
+     */
+    long[] getSyncedVersions(final ArrayList<Short> p_peers) {
+        return m_metadata.getSyncedVersions(p_peers);
+    }
+
+    /**
+     * Compares given peer list with local list and returns all missing or changed backup data
      *
      * @param p_peers
      *         all peers the requesting superpeer stores backups for
+     * @param p_syncedVersions
+     *         the synchronized epoch and version per peer in p_peers
      * @param p_numberOfNameserviceEntries
      *         the number of expected nameservice entries
+     * @param p_nameserviceEpoch
+     *         the epoch of the requesting superpeer's last nameservice synchronization
+     * @param p_nameserviceVersion
+     *         the version of the requesting superpeer's last nameservice synchronization
+     * @param p_nameservicePredecessor
+     *         the predecessor at the requesting superpeer's last nameservice synchronization
      * @param p_numberOfStorages
      *         the number of expected storages
      * @param p_numberOfBarriers
      *         the number of expected barriers
-     * @return the backup data of missing peers in given peer list
-     * @lock overlay lock must be write-locked
+     * @return the backup data of missing or changed peers in given peer list
+     * @lock overlay lock must be read-locked
      */
-    byte[] compareAndReturnBackups(final ArrayList<Short> p_peers, final int p_numberOfNameserviceEntries,
-            final int p_numberOfStorages, final int p_numberOfBarriers) {
-        return m_metadata
-                .compareAndReturnBackups(p_peers, p_numberOfNameserviceEntries, p_numberOfStorages, p_numberOfBarriers,
-                        m_predecessor, m_nodeID);
+    byte[] compareAndReturnBackups(final ArrayList<Short> p_peers, final long[] p_syncedVersions,
+            final int p_numberOfNameserviceEntries, final long p_nameserviceEpoch, final long p_nameserviceVersion,
+            final short p_nameservicePredecessor, final int p_numberOfStorages, final int p_numberOfBarriers) {
+        return m_metadata.compareAndReturnBackups(p_peers, p_syncedVersions, p_numberOfNameserviceEntries,
+                p_nameserviceEpoch, p_nameserviceVersion, p_nameservicePredecessor, p_numberOfStorages,
+                p_numberOfBarriers, m_predecessor, m_nodeID);
     }
 
     /**
@@ -583,6 +697,24 @@ public class OverlaySuperpeer implements MessageReceiver {
         }
     }
 
+    /**
+     * Stores given backups returned by compareAndReturnBackups (complete lookup trees or changes)
+     *
+     * @param p_changedMetadata
+     *         the new or changed metadata in a byte array
+     * @lock overlay lock must be write-locked
+     */
+    void storeChangedBackups(final byte[] p_changedMetadata) {
+        short[] newPeers;
+
+        newPeers = m_metadata.storeChangedMetadata(p_changedMetadata);
+        if (newPeers != null) {
+            for (short peer : newPeers) {
+                addToAssignedPeers(peer);
+            }
+        }
+    }
+
     /**
      * Deletes all metadata of peers and superpeers that are not in the responsible area
      *
@@ -818,6 +950,54 @@ public class OverlaySuperpeer implements MessageReceiver {
         return ret;
     }
 
+    /**
+     * Sorts backup peers by the number of backup ranges already assigned to them for recovery
+     *
+     * @param p_backupPeers
+     *         the backup peers of a backup range
+     * @param p_numberOfRangesPerPeer
+     *         the number of assigned backup ranges, indexed by NodeID
+     * @return the sorted backup peers (copy), unavailable backup peers (null) last
+     */
+    private static BackupPeer[] sortByNumberOfRanges(final BackupPeer[] p_backupPeers,
+            final short[] p_numberOfRangesPerPeer) {
+        BackupPeer[] ret = Arrays.copyOf(p_backupPeers, p_backupPeers.length);
+
+        // Stable sort -> the order of the backup peers is kept for equally loaded peers
+        Arrays.sort(ret, (p_peer1, p_peer2) -> {
+            if (p_peer1 == null || p_peer2 == null) {
+                return p_peer1 == null ? p_peer2 == null ? 0 : 1 : -1;
+            }
+
+            return Integer.compare(p_numberOfRangesPerPeer[p_peer1.getNodeID() & 0xFFFF],
+                    p_numberOfRangesPerPeer[p_peer2.getNodeID() & 0xFFFF]);
+        });
+
+        return ret;
+    }
+
+    /**
+     * Prints the progress and throughput of the recovery of a failed peer
+     *
+     * @param p_failedNode
+     *         the failed node's NodeID
+     * @param p_recoveredRanges
+     *         the number of recovered backup ranges
+     * @param p_numberOfRanges
+     *         the number of backup ranges of the failed peer
+     * @param p_recoveredChunks
+     *         the number of recovered chunks
+     * @param p_timeStart
+     *         the start of the recovery in ms
+     */
+    private static void logRecoveryProgress(final short p_failedNode, final int p_recoveredRanges,
+            final int p_numberOfRanges, final long p_recoveredChunks, final long p_timeStart) {
+        long time = Math.max(System.currentTimeMillis() - p_timeStart, 1);
+
+        LOGGER.info("Recovery of 0x%X: %d/%d ranges, %d chunks in %d ms (%.2f chunks/s)", p_failedNode,
+                p_recoveredRanges, p_numberOfRanges, p_recoveredChunks, time, p_recoveredChunks * 1000.0 / time);
+    }
+
     /**
      * Handles a peer failure for the superpeer overlay
      *
@@ -904,7 +1084,8 @@ public class OverlaySuperpeer implements MessageReceiver {
                     requests = new RecoverBackupRangeRequest[backupRanges.length];
                     processedRequests = new RecoverBackupRangeRequest[backupRanges.length];
                     for (BackupRange backupRange : backupRanges) {
-                        backupPeers = backupRange.getBackupPeers();
+                        // Spread the backup ranges across all backup peers to recover them in parallel
+                        backupPeers = sortByNumberOfRanges(backupRange.getBackupPeers(), numberOfRangesPerPeer);
 
                         for (BackupPeer backupPeer : backupPeers) {
                             if (backupPeer != null) {
@@ -932,6 +1113,8 @@ public class OverlaySuperpeer implements MessageReceiver {
 
                     // Collect and evaluate responses
                     long timeStart = System.currentTimeMillis();
+                    int recoveredRanges = 0;
+                    long recoveredChunks = 0;
                     boolean finished = false;
                     while (!finished) {
                         finished = true;
@@ -939,28 +1122,40 @@ public class OverlaySuperpeer implements MessageReceiver {
                             RecoverBackupRangeRequest currentRequest = requests[i];
                             if (currentRequest != null) {
                                 response = currentRequest.getResponse(RecoverBackupRangeResponse.class);
-                                if (response != null) {
+                                if (response != null && response.getChunkIDRanges() != null) {
                                     long[] chunkIDRanges = response.getChunkIDRanges();
-                                    if (chunkIDRanges != null) {
 
-                                        LOGGER.info("Recovered %d chunks of range %s", response.getNumberOfChunks(),
-                                                backupRanges[i]);
+                                    LOGGER.info("Recovered %d chunks of range %s", response.getNumberOfChunks(),
+                                            backupRanges[i]);
+
+                                    // Update metadata in superpeer overlay
+                                    updateMetadata(currentRequest.getBackupRange().getRangeID(),
+                                            response.getSource(), chunkIDRanges);
+
+                                    recoveredRanges++;
+                                    recoveredChunks += response.getNumberOfChunks();
+                                    logRecoveryProgress(p_failedNode, recoveredRanges, backupRanges.length,
+                                            recoveredChunks, timeStart);
 
-                                        // Update metadata in superpeer overlay
-                                        updateMetadata(currentRequest.getBackupRange().getRangeID(),
-                                                response.getSource(), chunkIDRanges);
-                                    }
                                     requests[i] = null;
                                     processedRequests[i] = currentRequest;
                                     currentRequest.setBackupRange(response.getNewBackupRange());
                                 } else {
-                                    if (System.currentTimeMillis() >
+                                    // A response without ChunkID ranges means the backup peer could not recover the
+                                    // backup range (e.g. its executor rejected the recovery)
+                                    if (response != null || System.currentTimeMillis() >
                                             numberOfRangesPerPeer[currentRequest.getDestination() & 0xFFFF] *
                                                     waitingTimerPerBackupRange + timeStart) {
 
-                                        LOGGER.info("Backup peer 0x%X is not responding! Trying next backup peer " +
-                                                        "for %s (sync).", currentRequest.getDestination(),
-                                                currentRequest.getBackupRange());
+                                        if (response != null) {
+                                            LOGGER.info("Backup peer 0x%X could not recover %s! Trying next backup " +
+                                                            "peer (sync).", currentRequest.getDestination(),
+                                                    currentRequest.getBackupRange());
+                                        } else {
+                                            LOGGER.info("Backup peer 0x%X is not responding! Trying next backup " +
+                                                            "peer for %s (sync).", currentRequest.getDestination(),
+                                                    currentRequest.getBackupRange());
+                                        }
 
                                         // Try again with other backup peer and wait for response
                                         numberOfRecoveredChunks = 0;
@@ -980,7 +1175,7 @@ public class OverlaySuperpeer implements MessageReceiver {
                                                     response = request.getResponse(RecoverBackupRangeResponse.class);
                                                     long[] chunkIDRanges = response.getChunkIDRanges();
                                                     numberOfRecoveredChunks = response.getNumberOfChunks();
-                                                    if (numberOfRecoveredChunks > 0) {
+                                                    if (chunkIDRanges != null && numberOfRecoveredChunks > 0) {
 
                                                         LOGGER.info("Recovered %d chunks of range %s",
                                                                 numberOfRecoveredChunks, backupRanges[i]);
@@ -989,9 +1184,15 @@ public class OverlaySuperpeer implements MessageReceiver {
                                                         updateMetadata(currentRequest.getBackupRange().getRangeID(),
                                                                 response.getSource(), chunkIDRanges);
 
+                                                        // Replicate on the backup peer that recovered the range
                                                         requests[i] = null;
-                                                        processedRequests[i] = currentRequest;
-                                                        currentRequest.setBackupRange(response.getNewBackupRange());
+                                                        processedRequests[i] = request;
+                                                        request.setBackupRange(response.getNewBackupRange());
+
+                                                        recoveredRanges++;
+                                                        recoveredChunks += numberOfRecoveredChunks;
+                                                        logRecoveryProgress(p_failedNode, recoveredRanges,
+                                                                backupRanges.length, recoveredChunks, timeStart);
                                                         break;
                                                     }
                                                 } catch (final NetworkException ignored) {
@@ -1000,10 +1201,12 @@ public class OverlaySuperpeer implements MessageReceiver {
                                             }
                                         }
 
-                                        if (numberOfRecoveredChunks == 0) {
+                                        if (processedRequests[i] == null) {
 
                                             LOGGER.info("Range %s could not be recovered!", backupRanges[i]);
 
+                                            // Do not evaluate the failed request again
+                                            requests[i] = null;
                                         }
                                     } else {
                                         finished = false;
@@ -1016,6 +1219,7 @@ public class OverlaySuperpeer implements MessageReceiver {
                 }
 
                 m_metadata.setState(p_failedNode, PeerState.RECOVERED);
+                notifyUnavailableRangeSubscribers(p_failedNode);
 
                 LOGGER.info("Recovery of failed node 0x%X complete", p_failedNode);
 
@@ -1112,6 +1316,19 @@ public class OverlaySuperpeer implements MessageReceiver {
         }
     }
 
+    /**
+     * Inserts given NodeID in the list of assigned peers
+     *
+     * @param p_nodeID
+     *         the NodeID
+     * @lock overlay lock must not be locked
+     */
+    private void addToAssignedPeersLocked(final short p_nodeID) {
+        m_overlayLock.writeLock().lock();
+        addToAssignedPeers(p_nodeID);
+        m_overlayLock.writeLock().unlock();
+    }
+
     /**
      * Removes given NodeID from the list of assigned peers
      *
@@ -1137,7 +1354,7 @@ public class OverlaySuperpeer implements MessageReceiver {
         short contactSuperpeer;
         JoinRequest joinRequest;
         JoinResponse joinResponse = null;
-        short[] newPeers;
+        int receivedChunks;
 
         LOGGER.trace("Entering createOrJoinSuperpeerOverlay with: p_contactSuperpeer=0x%X", p_contactSuperpeer);
 
@@ -1167,6 +1384,7 @@ public class OverlaySuperpeer implements MessageReceiver {
                 LOGGER.debug("Contacting 0x%X to join the ring, I am 0x%X", contactSuperpeer, m_nodeID);
 
                 joinRequest = new JoinRequest(contactSuperpeer, m_boot.getDetails());
+                m_joinMetadataTransfer = new CountDownLatch(1);
                 try {
                     m_network.sendSync(joinRequest);
                 } catch (final NetworkException e) {
@@ -1184,11 +1402,22 @@ public class OverlaySuperpeer implements MessageReceiver {
 
             m_peers = joinResponse.getPeers();
 
-            newPeers = m_metadata.storeMetadata(joinResponse.getMetadata());
-            if (newPeers != null) {
-                for (short peer : newPeers) {
-                    addToAssignedPeers(peer);
+            // The metadata is sent in chunks after the JoinResponse -> wait as long as there is progress
+            receivedChunks = -1;
+            try {
+                while (!m_joinMetadataTransfer.await(m_network.getRequestTimeoutMs(), TimeUnit.MILLISECONDS)) {
+                    if (receivedChunks == m_receivedMetadataChunks.get()) {
+
+                        LOGGER.error("Handover of metadata from 0x%X timed out", joinResponse.getSource());
+
+                        return false;
+                    }
+                    receivedChunks = m_receivedMetadataChunks.get();
                 }
+            } catch (final InterruptedException e) {
+                LOGGER.error("Interrupted while waiting for metadata from 0x%X", joinResponse.getSource());
+
+                return false;
             }
 
             setSuccessor(joinResponse.getSuccessor());
@@ -1252,17 +1481,13 @@ public class OverlaySuperpeer implements MessageReceiver {
      * @lock overlay lock must be read-locked
      */
     private void spreadDataOfFailedSuperpeer(final short[] p_responsibleArea) {
-        byte[] metadata;
-
-        metadata = m_metadata.receiveMetadataInRange(p_responsibleArea[0], p_responsibleArea[1]);
-
         while (!m_superpeers.isEmpty()) {
 
             LOGGER.debug("Spreading superpeer's meta-data to 0x%X", m_successor);
 
-            try {
-                m_network.sendMessage(new SendBackupsMessage(m_successor, metadata));
-            } catch (final NetworkException e) {
+            if (sendMetadataChunks(m_successor,
+                    m_metadata.getMetadataInRange(p_responsibleArea[0], p_responsibleArea[1],
+                            m_metadataTransferChunkSize)) < 0) {
                 // Successor is not available anymore, remove from superpeer array and try next superpeer
 
                 LOGGER.error("Successor failed, too");
@@ -1284,11 +1509,9 @@ public class OverlaySuperpeer implements MessageReceiver {
         short newBackupSuperpeer;
         int index;
         boolean superpeerToSendData = false;
-        byte[] metadata;
+        int sentChunks = 0;
         String str = "Spreaded data of ";
 
-        metadata = m_metadata.receiveMetadataInRange(m_predecessor, m_nodeID);
-
         while (!m_superpeers.isEmpty()) {
             // Determine successor of last backup superpeer
             index = (short) Collections.binarySearch(m_superpeers, (short) (p_lastBackupSuperpeer + 1));
@@ -1303,9 +1526,9 @@ public class OverlaySuperpeer implements MessageReceiver {
             superpeerToSendData = true;
             str += " to " + NodeID.toHexString(newBackupSuperpeer);
 
-            try {
-                m_network.sendMessage(new SendBackupsMessage(newBackupSuperpeer, metadata));
-            } catch (final NetworkException e) {
+            sentChunks = sendMetadataChunks(newBackupSuperpeer,
+                    m_metadata.getMetadataInRange(m_predecessor, m_nodeID, m_metadataTransferChunkSize));
+            if (sentChunks < 0) {
                 // Superpeer is not available anymore, remove from superpeer array and try next superpeer
 
                 LOGGER.error("new backup superpeer (0x%X) failed, too", newBackupSuperpeer);
@@ -1315,7 +1538,7 @@ public class OverlaySuperpeer implements MessageReceiver {
             break;
         }
 
-        if (metadata.length > 0 && superpeerToSendData) {
+        if (sentChunks > 0 && superpeerToSendData) {
             LOGGER.debug(str);
         } else {
             LOGGER.debug("No need to spread data");
@@ -1323,6 +1546,66 @@ public class OverlaySuperpeer implements MessageReceiver {
 
     }
 
+    /**
+     * Sends metadata to another superpeer chunk by chunk. At most m_metadataTransferWindow chunks are in flight.
+     * The last chunk is sent after all previous chunks were acknowledged, i.e. when the receiver stored the last
+     * chunk, all metadata was stored.
+     *
+     * @param p_destination
+     *         the superpeer to send the metadata to
+     * @param p_chunks
+     *         the metadata chunks to send
+     * @return the number of non-empty chunks sent or -1 if the destination is not available
+     * @lock no need for acquiring overlay lock in this method
+     */
+    private int sendMetadataChunks(final short p_destination, final MetadataChunkIterator p_chunks) {
+        ArrayDeque<SendMetadataChunkRequest> outstanding;
+        SendMetadataChunkRequest request;
+        byte[] current;
+        byte[] next;
+        boolean lastChunk;
+        int sentChunks = 0;
+
+        outstanding = new ArrayDeque<>(m_metadataTransferWindow);
+        // Always send at least one (maybe empty) chunk marked as last one
+        current = p_chunks.hasNext() ? p_chunks.next() : new byte[0];
+        try {
+            while (current != null) {
+                next = p_chunks.hasNext() ? p_chunks.next() : null;
+                lastChunk = next == null;
+
+                // Wait for the oldest chunk if the window is full or for all chunks before sending the last one
+                while (!outstanding.isEmpty() && (lastChunk || outstanding.size() >= m_metadataTransferWindow)) {
+                    outstanding.peekFirst().waitForResponse(m_network.getRequestTimeoutMs());
+                    outstanding.pollFirst();
+                }
+
+                request = new SendMetadataChunkRequest(p_destination, current, lastChunk);
+                m_network.sendSync(request, false);
+                outstanding.addLast(request);
+                if (current.length > 0) {
+                    sentChunks++;
+                }
+
+                current = next;
+            }
+
+            outstanding.peekFirst().waitForResponse(m_network.getRequestTimeoutMs());
+        } catch (final NetworkException e) {
+            for (SendMetadataChunkRequest req : outstanding) {
+                m_network.cancelRequest(req);
+            }
+
+            LOGGER.warn("Sending metadata to 0x%X failed after %d chunks", p_destination, sentChunks);
+
+            return -1;
+        }
+
+        LOGGER.debug("Sent %d metadata chunk(s) to 0x%X", sentChunks, p_destination);
+
+        return sentChunks;
+    }
+
     /**
      * Handles an incoming JoinRequest
      *
@@ -1335,7 +1618,7 @@ public class OverlaySuperpeer implements MessageReceiver {
         Iterator<Short> iter;
         ArrayList<Short> peers;
 
-        byte[] metadata;
+        MetadataChunkIterator metadata;
         short joiningNodesPredecessor;
         short superpeer;
         short[] responsibleArea;
@@ -1368,17 +1651,30 @@ public class OverlaySuperpeer implements MessageReceiver {
                 }
 
                 responsibleArea = OverlayHelper.getResponsibleArea(joiningNode, m_predecessor, m_superpeers);
-                metadata = m_metadata.receiveMetadataInRange(responsibleArea[0], responsibleArea[1]);
+                // Metadata is serialized lazily chunk by chunk after the JoinResponse
+                metadata = m_metadata.getMetadataInRange(responsibleArea[0], responsibleArea[1],
+                        m_metadataTransferChunkSize);
 
                 try {
                     m_network.sendMessage(
                             new JoinResponse(p_joinRequest, NodeID.INVALID_ID, joiningNodesPredecessor, m_nodeID,
-                                    m_superpeers, peers, null, metadata));
+                                    m_superpeers, peers, null));
                 } catch (final NetworkException e) {
                     // Joining node is not available anymore -> ignore request and return directly
+                    m_overlayLock.writeLock().unlock();
                     return;
                 }
 
+                // Outsource the handover to another thread to avoid blocking a message handler
+                if (!m_executor.execute(TaskCategory.METADATA_TRANSFER, () -> {
+                    if (sendMetadataChunks(joiningNode, metadata) < 0) {
+                        LOGGER.error("Handover of metadata to joining superpeer 0x%X failed", joiningNode);
+                    }
+                })) {
+                    LOGGER.error("Handover of metadata to joining superpeer 0x%X rejected, executor is overloaded",
+                            joiningNode);
+                }
+
                 for (Short peer : peers) {
                     OverlayHelper.removePeer(peer, m_peers);
                 }
@@ -1406,7 +1702,7 @@ public class OverlaySuperpeer implements MessageReceiver {
                 try {
                     m_network.sendMessage(
                             new JoinResponse(p_joinRequest, superpeer, NodeID.INVALID_ID, NodeID.INVALID_ID, null, null,
-                                    null, null));
+                                    null));
                 } catch (final NetworkException e) {
                     // Joining node is not available anymore, ignore request
                 }
@@ -1422,7 +1718,7 @@ public class OverlaySuperpeer implements MessageReceiver {
                 try {
                     m_network.sendMessage(
                             new JoinResponse(p_joinRequest, NodeID.INVALID_ID, NodeID.INVALID_ID, NodeID.INVALID_ID,
-                                    m_superpeers, null, null, null));
+                                    m_superpeers, null, null));
                 } catch (final NetworkException e) {
                     // Joining node is not available anymore, ignore request
                 }
@@ -1434,7 +1730,7 @@ public class OverlaySuperpeer implements MessageReceiver {
                 try {
                     m_network.sendMessage(
                             new JoinResponse(p_joinRequest, superpeer, NodeID.INVALID_ID, NodeID.INVALID_ID, null, null,
-                                    null, null));
+                                    null));
                 } catch (final NetworkException e) {
                     // Joining node is not available anymore, ignore request
                 }
@@ -1442,6 +1738,37 @@ public class OverlaySuperpeer implements MessageReceiver {
         }
     }
 
+    /**
+     * Handles an incoming SendMetadataChunkRequest
+     *
+     * @param p_sendMetadataChunkRequest
+     *         the SendMetadataChunkRequest
+     */
+    private void incomingSendMetadataChunkRequest(final SendMetadataChunkRequest p_sendMetadataChunkRequest) {
+        CountDownLatch joinMetadataTransfer;
+
+        LOGGER.trace("Got Message: SEND_METADATA_CHUNK_REQUEST from 0x%X", p_sendMetadataChunkRequest.getSource());
+
+        m_overlayLock.writeLock().lock();
+        storeIncomingBackups(p_sendMetadataChunkRequest.getMetadata());
+        m_overlayLock.writeLock().unlock();
+
+        m_receivedMetadataChunks.incrementAndGet();
+        if (p_sendMetadataChunkRequest.isLastChunk()) {
+            // Only relevant while joining the overlay
+            joinMetadataTransfer = m_joinMetadataTransfer;
+            if (joinMetadataTransfer != null) {
+                joinMetadataTransfer.countDown();
+            }
+        }
+
+        try {
+            m_network.sendMessage(new SendMetadataChunkResponse(p_sendMetadataChunkRequest));
+        } catch (final NetworkException e) {
+            // Sender is not available anymore, ignore it
+        }
+    }
+
     /**
      * Handles an incoming FinishedStartupMessage
      *
@@ -1488,7 +1815,7 @@ public class OverlaySuperpeer implements MessageReceiver {
             m_overlayLock.readLock().unlock();
         };
 
-        new Thread(task).start();
+        executeOrRun(TaskCategory.NODE_EVENT, task);
 
         // Notify other components/services
         m_event.fireEvent(
@@ -1515,6 +1842,10 @@ public class OverlaySuperpeer implements MessageReceiver {
 
         result = m_metadata.getLookupRangeFromLookupTree(chunkID, m_backupActive);
 
+        if (result != null && result.getState() == LookupState.DATA_TEMPORARY_UNAVAILABLE) {
+            subscribeToUnavailableRanges(ChunkID.getCreatorID(chunkID), p_getLookupRangeRequest.getSource());
+        }
+
         LOGGER.trace("GET_LOOKUP_RANGE_REQUEST 0x%X chunkID 0x%X reply location: %s",
                 p_getLookupRangeRequest.getSource(), chunkID, result);
 
@@ -1525,6 +1856,92 @@ public class OverlaySuperpeer implements MessageReceiver {
         }
     }
 
+    /**
+     * Handles an incoming GetLookupRangesRequest
+     *
+     * @param p_getLookupRangesRequest
+     *         the GetLookupRangesRequest
+     */
+    private void incomingGetLookupRangesRequest(final GetLookupRangesRequest p_getLookupRangesRequest) {
+        long[] chunkIDs;
+        LookupRange[] lookupRanges;
+        int[] chunkIDCounts;
+        int numberOfRanges;
+
+        chunkIDs = p_getLookupRangesRequest.getChunkIDs();
+
+        LOGGER.trace("Got request: GET_LOOKUP_RANGES_REQUEST 0x%X, %d chunkIDs", p_getLookupRangesRequest.getSource(),
+                chunkIDs.length);
+
+        lookupRanges = new LookupRange[chunkIDs.length];
+        chunkIDCounts = new int[chunkIDs.length];
+        numberOfRanges = m_metadata.getLookupRangesFromLookupTree(chunkIDs, m_backupActive, lookupRanges,
+                chunkIDCounts);
+
+        int firstChunkID = 0;
+        for (int i = 0; i < numberOfRanges; i++) {
+            if (lookupRanges[i].getState() == LookupState.DATA_TEMPORARY_UNAVAILABLE) {
+                subscribeToUnavailableRanges(ChunkID.getCreatorID(chunkIDs[firstChunkID]),
+                        p_getLookupRangesRequest.getSource());
+            }
+
+            firstChunkID += chunkIDCounts[i];
+        }
+
+        LOGGER.trace("GET_LOOKUP_RANGES_REQUEST 0x%X reply %d ranges for %d chunkIDs",
+                p_getLookupRangesRequest.getSource(), numberOfRanges, chunkIDs.length);
+
+        try {
+            m_network.sendMessage(new GetLookupRangesResponse(p_getLookupRangesRequest,
+                    Arrays.copyOf(lookupRanges, numberOfRanges), Arrays.copyOf(chunkIDCounts, numberOfRanges)));
+        } catch (final NetworkException e) {
+            // Requesting peer is not available anymore, ignore it
+        }
+    }
+
+    /**
+     * Registers a peer to be notified once the ranges of given creator are available again
+     *
+     * @param p_creator
+     *         the creator whose ranges are temporarily unavailable
+     * @param p_peer
+     *         the peer to notify
+     */
+    private void subscribeToUnavailableRanges(final short p_creator, final short p_peer) {
+        synchronized (m_unavailableRangeSubscribers) {
+            ArrayList<Short> subscribers =
+                    m_unavailableRangeSubscribers.computeIfAbsent(p_creator, p_key -> new ArrayList<>());
+
+            if (!subscribers.contains(p_peer)) {
+                subscribers.add(p_peer);
+            }
+        }
+    }
+
+    /**
+     * Notifies all peers waiting for ranges of given creator that the ranges are available again
+     *
+     * @param p_creator
+     *         the creator whose ranges are available again
+     */
+    private void notifyUnavailableRangeSubscribers(final short p_creator) {
+        ArrayList<Short> subscribers;
+
+        synchronized (m_unavailableRangeSubscribers) {
+            subscribers = m_unavailableRangeSubscribers.remove(p_creator);
+        }
+
+        if (subscribers != null) {
+            for (short peer : subscribers) {
+                try {
+                    m_network.sendMessage(new LookupRangesAvailableMessage(peer, p_creator));
+                } catch (final NetworkException e) {
+                    // Peer is not available anymore, ignore it
+                }
+            }
+        }
+    }
+
     /**
      * Handles an incoming RemoveChunkIDsRequest
      *
@@ -1559,10 +1976,33 @@ public class OverlaySuperpeer implements MessageReceiver {
                 m_overlayLock.readLock().lock();
                 backupSuperpeers = OverlayHelper.getBackupSuperpeers(m_nodeID, m_superpeers);
                 m_overlayLock.readLock().unlock();
-                try {
-                    m_network.sendMessage(new RemoveChunkIDsResponse(p_removeChunkIDsRequest, backupSuperpeers));
-                } catch (final NetworkException e) {
-                    // Requesting peer is not available anymore, ignore it
+
+                Runnable response = () -> {
+                    try {
+                        m_network.sendMessage(new RemoveChunkIDsResponse(p_removeChunkIDsRequest, backupSuperpeers));
+                    } catch (final NetworkException e) {
+                        // Requesting peer is not available anymore, ignore it
+                    }
+                };
+
+                boolean outsourced = false;
+
+                if (m_syncMetadataReplication && backupSuperpeers[0] != NodeID.INVALID_ID) {
+                    // Outsource informing backups to another thread to avoid blocking a message handler. If the
+                    // executor is overloaded, fall back to buffered replication instead of blocking here
+                    outsourced = m_executor.execute(TaskCategory.METADATA_REPLICATION, () -> {
+                        byte[] operations = new byte[chunkIDs.length];
+                        Arrays.fill(operations, ReplicateMetadataRequest.OPERATION_REMOVE);
+
+                        replicateMetadataSync(backupSuperpeers, operations, chunkIDs, chunkIDs,
+                                new short[chunkIDs.length]);
+                        response.run();
+                    });
+                }
+
+                if (!outsourced) {
+                    m_metadataReplication.remove(backupSuperpeers, chunkIDs);
+                    response.run();
                 }
             } else {
 
@@ -1614,6 +2054,7 @@ public class OverlaySuperpeer implements MessageReceiver {
         m_overlayLock.readLock().lock();
         if (OverlayHelper.isHashInSuperpeerRange(CRC16.hash(id), m_predecessor, m_nodeID)) {
             m_metadata.putNameserviceEntry(id, p_insertIDRequest.getChunkID());
+            m_nameserviceWatches.notifyRegistered(id, p_insertIDRequest.getChunkID());
 
             backupSuperpeers = OverlayHelper.getBackupSuperpeers(m_nodeID, m_superpeers);
             try {
@@ -1622,17 +2063,8 @@ public class OverlaySuperpeer implements MessageReceiver {
                 // Requesting peer is not available anymore, ignore it
             }
 
-            ArrayList<Short> peers = m_peers;
-            // notify peers about this to update caches
-            for (short peer : peers) {
-                NameserviceUpdatePeerCachesMessage message =
-                        new NameserviceUpdatePeerCachesMessage(peer, id, p_insertIDRequest.getChunkID());
-                try {
-                    m_network.sendMessage(message);
-                } catch (final NetworkException e) {
-                    // peer is not available anymore, ignore it
-                }
-            }
+            // notify peers about this to update caches, updates are coalesced per peer
+            m_peerCacheUpdates.add(m_peers, id, p_insertIDRequest.getChunkID());
         } else if (p_insertIDRequest.isBackup()) {
             m_metadata.putNameserviceEntry(id, p_insertIDRequest.getChunkID());
 
@@ -1671,6 +2103,20 @@ public class OverlaySuperpeer implements MessageReceiver {
         if (OverlayHelper.isHashInSuperpeerRange(CRC16.hash(id), m_predecessor, m_nodeID)) {
             chunkID = m_metadata.getNameserviceEntry(id);
 
+            if (chunkID == ChunkID.INVALID_ID && p_getChunkIDForNameserviceEntryRequest.getWatchTimeoutMs() > 0) {
+                // park the request until the id is registered or the watch expires
+                m_nameserviceWatches.watch(p_getChunkIDForNameserviceEntryRequest);
+
+                // the id might have been registered between the lookup and parking the request
+                chunkID = m_metadata.getNameserviceEntry(id);
+
+                if (chunkID != ChunkID.INVALID_ID) {
+                    m_nameserviceWatches.notifyRegistered(id, chunkID);
+                }
+
+                return;
+            }
+
             LOGGER.trace("GET_CHUNKID_REQUEST from 0x%X, id %d, reply chunkID 0x%X",
                     p_getChunkIDForNameserviceEntryRequest.getSource(), id, chunkID);
 
@@ -1684,6 +2130,123 @@ public class OverlaySuperpeer implements MessageReceiver {
         }
     }
 
+    /**
+     * Handles an incoming InsertNameserviceEntriesBatchRequest. All entries are stored within a single critical
+     * section. The request is rejected as a whole if this superpeer is not responsible for all entries
+     *
+     * @param p_request
+     *         the InsertNameserviceEntriesBatchRequest
+     */
+    private void incomingInsertNameserviceEntriesBatchRequest(final InsertNameserviceEntriesBatchRequest p_request) {
+        int[] ids;
+        long[] chunkIDs;
+        boolean responsible = true;
+        short[] backupSuperpeers;
+
+        ids = p_request.getIDs();
+        chunkIDs = p_request.getChunkIDs();
+
+        LOGGER.trace("Got request: INSERT_NAMESERVICE_ENTRIES_BATCH_REQUEST from 0x%X, %d entries",
+                p_request.getSource(), ids.length);
+
+        m_overlayLock.readLock().lock();
+        for (int id : ids) {
+            if (!OverlayHelper.isHashInSuperpeerRange(CRC16.hash(id), m_predecessor, m_nodeID)) {
+                responsible = false;
+                break;
+            }
+        }
+
+        if (responsible) {
+            m_metadata.putNameserviceEntries(ids, chunkIDs);
+
+            for (int i = 0; i < ids.length; i++) {
+                m_nameserviceWatches.notifyRegistered(ids[i], chunkIDs[i]);
+            }
+
+            backupSuperpeers = OverlayHelper.getBackupSuperpeers(m_nodeID, m_superpeers);
+            try {
+                m_network.sendMessage(new InsertNameserviceEntriesBatchResponse(p_request, backupSuperpeers));
+            } catch (final NetworkException e) {
+                // Requesting peer is not available anymore, ignore it
+            }
+
+            // notify peers about this to update caches, updates are coalesced per peer
+            for (int i = 0; i < ids.length; i++) {
+                m_peerCacheUpdates.add(m_peers, ids[i], chunkIDs[i]);
+            }
+        } else if (p_request.isBackup()) {
+            m_metadata.putNameserviceEntries(ids, chunkIDs);
+
+            try {
+                m_network.sendMessage(new InsertNameserviceEntriesBatchResponse(p_request, null));
+            } catch (final NetworkException e) {
+                // Requesting peer is not available anymore, ignore it
+            }
+        } else {
+            // Not responsible for (some of) the entries
+            try {
+                m_network.sendMessage(new InsertNameserviceEntriesBatchResponse(p_request, null));
+            } catch (final NetworkException e) {
+                // Requesting peer is not available anymore, ignore it
+            }
+        }
+        m_overlayLock.readLock().unlock();
+    }
+
+    /**
+     * Handles an incoming GetChunkIDsForNameserviceEntriesRequest
+     *
+     * @param p_request
+     *         the GetChunkIDsForNameserviceEntriesRequest
+     */
+    private void incomingGetChunkIDsForNameserviceEntriesRequest(
+            final GetChunkIDsForNameserviceEntriesRequest p_request) {
+        int[] ids;
+        long[] chunkIDs;
+        boolean responsible = true;
+        boolean missing = false;
+
+        ids = p_request.getIDs();
+
+        LOGGER.trace("Got request: GET_CHUNKIDS_FOR_NAMESERVICE_ENTRIES_REQUEST from 0x%X, %d ids",
+                p_request.getSource(), ids.length);
+
+        chunkIDs = m_metadata.getNameserviceEntries(ids);
+
+        for (int i = 0; i < ids.length; i++) {
+            if (!OverlayHelper.isHashInSuperpeerRange(CRC16.hash(ids[i]), m_predecessor, m_nodeID)) {
+                chunkIDs[i] = ChunkID.INVALID_ID;
+                responsible = false;
+            } else if (chunkIDs[i] == ChunkID.INVALID_ID) {
+                missing = true;
+            }
+        }
+
+        // park the request until all ids are registered or the watch expires. Requests containing ids of other
+        // superpeers are answered immediately to let the peer regroup them
+        if (responsible && missing && p_request.getWatchTimeoutMs() > 0) {
+            m_nameserviceWatches.watch(p_request, chunkIDs);
+
+            // ids might have been registered between the lookup and parking the request
+            long[] registered = m_metadata.getNameserviceEntries(ids);
+
+            for (int i = 0; i < ids.length; i++) {
+                if (registered[i] != ChunkID.INVALID_ID) {
+                    m_nameserviceWatches.notifyRegistered(ids[i], registered[i]);
+                }
+            }
+
+            return;
+        }
+
+        try {
+            m_network.sendMessage(new GetChunkIDsForNameserviceEntriesResponse(p_request, chunkIDs));
+        } catch (final NetworkException e) {
+            // Requesting peer is not available anymore, ignore it
+        }
+    }
+
     /**
      * Handles an incoming GetNameserviceEntryCountRequest
      *
@@ -1748,27 +2311,30 @@ public class OverlaySuperpeer implements MessageReceiver {
             if (m_metadata.putChunkIDInLookupTree(chunkID, nodeID, m_backupActive)) {
                 backupSuperpeers = OverlayHelper.getBackupSuperpeers(m_nodeID, m_superpeers);
                 m_overlayLock.readLock().unlock();
-                if (backupSuperpeers[0] != NodeID.INVALID_ID) {
-                    // Outsource informing backups to another thread to avoid blocking a message handler
-                    Runnable task = () -> {
-                        // Send backups
-                        for (short backupSuperpeer : backupSuperpeers) {
-                            MigrateRequest request = new MigrateRequest(backupSuperpeer, chunkID, nodeID, true);
 
-                            try {
-                                m_network.sendSync(request);
-                            } catch (final NetworkException e) {
-                                // Ignore superpeer failure, superpeer will fix this later
-                            }
-                        }
-                    };
-                    new Thread(task).start();
+                Runnable response = () -> {
+                    try {
+                        m_network.sendMessage(new MigrateResponse(p_migrateRequest, true));
+                    } catch (final NetworkException e) {
+                        // Requesting peer is not available anymore, ignore it
+                    }
+                };
+
+                boolean outsourced = false;
+
+                if (m_syncMetadataReplication && backupSuperpeers[0] != NodeID.INVALID_ID) {
+                    // Outsource informing backups to another thread to avoid blocking a message handler. If the
+                    // executor is overloaded, fall back to buffered replication instead of blocking here
+                    outsourced = m_executor.execute(TaskCategory.METADATA_REPLICATION, () -> {
+                        replicateMetadataSync(backupSuperpeers, new byte[] {ReplicateMetadataRequest.OPERATION_MIGRATE},
+                                new long[] {chunkID}, new long[] {chunkID}, new short[] {nodeID});
+                        response.run();
+                    });
                 }
 
-                try {
-                    m_network.sendMessage(new MigrateResponse(p_migrateRequest, true));
-                } catch (final NetworkException e) {
-                    // Requesting peer is not available anymore, ignore it
+                if (!outsourced) {
+                    m_metadataReplication.migrate(backupSuperpeers, chunkID, nodeID);
+                    response.run();
                 }
             } else {
                 m_overlayLock.readLock().unlock();
@@ -1840,28 +2406,31 @@ public class OverlaySuperpeer implements MessageReceiver {
             if (m_metadata.putChunkIDRangeInLookupTree(startChunkID, endChunkID, nodeID, m_backupActive)) {
                 backupSuperpeers = OverlayHelper.getBackupSuperpeers(m_nodeID, m_superpeers);
                 m_overlayLock.readLock().unlock();
-                if (backupSuperpeers[0] != NodeID.INVALID_ID) {
-                    // Outsource informing backups to another thread to avoid blocking a message handler
-                    Runnable task = () -> {
-                        // Send backups
-                        for (short backupSuperpeer : backupSuperpeers) {
-                            MigrateRangeRequest request =
-                                    new MigrateRangeRequest(backupSuperpeer, startChunkID, endChunkID, nodeID, true);
 
-                            try {
-                                m_network.sendSync(request);
-                            } catch (final NetworkException e) {
-                                // Ignore superpeer failure, superpeer will fix this later
-                            }
-                        }
-                    };
-                    new Thread(task).start();
+                Runnable response = () -> {
+                    try {
+                        m_network.sendMessage(new MigrateRangeResponse(p_migrateRangeRequest, true));
+                    } catch (final NetworkException e) {
+                        // Requesting peer is not available anymore, ignore it
+                    }
+                };
+
+                boolean outsourced = false;
+
+                if (m_syncMetadataReplication && backupSuperpeers[0] != NodeID.INVALID_ID) {
+                    // Outsource informing backups to another thread to avoid blocking a message handler. If the
+                    // executor is overloaded, fall back to buffered replication instead of blocking here
+                    outsourced = m_executor.execute(TaskCategory.METADATA_REPLICATION, () -> {
+                        replicateMetadataSync(backupSuperpeers,
+                                new byte[] {ReplicateMetadataRequest.OPERATION_MIGRATE_RANGE},
+                                new long[] {startChunkID}, new long[] {endChunkID}, new short[] {nodeID});
+                        response.run();
+                    });
                 }
 
-                try {
-                    m_network.sendMessage(new MigrateRangeResponse(p_migrateRangeRequest, true));
-                } catch (final NetworkException e) {
-                    // Requesting peer is not available anymore, ignore it
+                if (!outsourced) {
+                    m_metadataReplication.migrateRange(backupSuperpeers, startChunkID, endChunkID, nodeID);
+                    response.run();
                 }
             } else {
                 m_overlayLock.readLock().unlock();
@@ -1899,6 +2468,62 @@ public class OverlaySuperpeer implements MessageReceiver {
         }
     }
 
+    /**
+     * Handles an incoming ReplicateMetadataRequest
+     *
+     * @param p_replicateMetadataRequest
+     *         the ReplicateMetadataRequest
+     */
+    private void incomingReplicateMetadataRequest(final ReplicateMetadataRequest p_replicateMetadataRequest) {
+        byte[] operations;
+        long[] firstChunkIDs;
+        long[] lastChunkIDs;
+        short[] owners;
+        boolean success;
+        int i = 0;
+
+        LOGGER.trace("Got Message: REPLICATE_METADATA_REQUEST from 0x%X", p_replicateMetadataRequest.getSource());
+
+        operations = p_replicateMetadataRequest.getOperations();
+        firstChunkIDs = p_replicateMetadataRequest.getFirstChunkIDs();
+        lastChunkIDs = p_replicateMetadataRequest.getLastChunkIDs();
+        owners = p_replicateMetadataRequest.getOwners();
+
+        while (i < operations.length) {
+            if (operations[i] == ReplicateMetadataRequest.OPERATION_REMOVE) {
+                // Remove consecutive ChunkIDs of the same creator at once
+                int end = i + 1;
+                while (end < operations.length && operations[end] == ReplicateMetadataRequest.OPERATION_REMOVE &&
+                        ChunkID.getCreatorID(firstChunkIDs[end]) == ChunkID.getCreatorID(firstChunkIDs[i])) {
+                    end++;
+                }
+
+                success = m_metadata.removeChunkIDsFromLookupTree(m_backupActive,
+                        Arrays.copyOfRange(firstChunkIDs, i, end));
+                i = end;
+            } else if (operations[i] == ReplicateMetadataRequest.OPERATION_MIGRATE) {
+                success = m_metadata.putChunkIDInLookupTree(firstChunkIDs[i], owners[i], m_backupActive);
+                i++;
+            } else {
+                success = m_metadata.putChunkIDRangeInLookupTree(firstChunkIDs[i], lastChunkIDs[i], owners[i],
+                        m_backupActive);
+                i++;
+            }
+
+            if (!success) {
+
+                LOGGER.warn("CIDTree range not initialized on backup superpeer 0x%X", m_nodeID);
+
+            }
+        }
+
+        try {
+            m_network.sendMessage(new ReplicateMetadataResponse(p_replicateMetadataRequest));
+        } catch (final NetworkException e) {
+            // Requesting superpeer is not available anymore, ignore it
+        }
+    }
+
     /**
      * Handles an incoming InitRangeRequest
      *
@@ -1918,14 +2543,17 @@ public class OverlaySuperpeer implements MessageReceiver {
         backupRange = p_initRangeRequest.getBackupRange();
         isBackup = p_initRangeRequest.isBackup();
 
-        m_overlayLock.writeLock().lock();
+        // The overlay is write-locked only if the range owner is new (metadata handler is locked separately)
+        m_overlayLock.readLock().lock();
         if (OverlayHelper.isPeerInSuperpeerRange(rangeOwner, m_predecessor, m_nodeID)) {
             if (m_metadata.initBackupRangeInLookupTree(rangeOwner, backupRange)) {
-                addToAssignedPeers(rangeOwner);
+                m_overlayLock.readLock().unlock();
+                addToAssignedPeersLocked(rangeOwner);
+                m_overlayLock.readLock().lock();
             }
 
             backupSuperpeers = OverlayHelper.getBackupSuperpeers(m_nodeID, m_superpeers);
-            m_overlayLock.writeLock().unlock();
+            m_overlayLock.readLock().unlock();
             if (backupSuperpeers[0] != NodeID.INVALID_ID) {
                 // Outsource informing backups to another thread to avoid blocking a message handler
                 Runnable task = () -> {
@@ -1940,7 +2568,7 @@ public class OverlaySuperpeer implements MessageReceiver {
                         }
                     }
                 };
-                new Thread(task).start();
+                executeOrRun(TaskCategory.BACKUP_RANGE, task);
             }
 
             try {
@@ -1950,9 +2578,11 @@ public class OverlaySuperpeer implements MessageReceiver {
             }
         } else if (isBackup) {
             if (m_metadata.initBackupRangeInLookupTree(rangeOwner, backupRange)) {
-                addToAssignedPeers(rangeOwner);
+                m_overlayLock.readLock().unlock();
+                addToAssignedPeersLocked(rangeOwner);
+            } else {
+                m_overlayLock.readLock().unlock();
             }
-            m_overlayLock.writeLock().unlock();
 
             try {
                 m_network.sendMessage(new InitRangeResponse(p_initRangeRequest, true));
@@ -1960,7 +2590,7 @@ public class OverlaySuperpeer implements MessageReceiver {
                 // Requesting peer is not available anymore, ignore it
             }
         } else {
-            m_overlayLock.writeLock().unlock();
+            m_overlayLock.readLock().unlock();
             // Not responsible for requesting peer
 
             try {
@@ -2090,7 +2720,7 @@ public class OverlaySuperpeer implements MessageReceiver {
                     }
                 }
             };
-            new Thread(task).start();
+            executeOrRun(TaskCategory.BARRIER, task);
         }
     }
 
@@ -2116,6 +2746,7 @@ public class OverlaySuperpeer implements MessageReceiver {
 
             response = new BarrierFreeResponse(p_request, (byte) -1);
         } else {
+            m_forwardedBarrierSignOns.remove(p_request.getBarrierId());
             response = new BarrierFreeResponse(p_request, (byte) 0);
         }
 
@@ -2149,7 +2780,7 @@ public class OverlaySuperpeer implements MessageReceiver {
                     }
                 }
             };
-            new Thread(task).start();
+            executeOrRun(TaskCategory.BARRIER, task);
         }
     }
 
@@ -2161,7 +2792,29 @@ public class OverlaySuperpeer implements MessageReceiver {
      */
     private void incomingBarrierSignOnRequest(final BarrierSignOnRequest p_request) {
         int barrierId = p_request.getBarrierId();
-        int res = m_metadata.signOnBarrier(m_nodeID, barrierId, p_request.getSource(), p_request.getCustomData());
+        short[] forwardedNodeIds = p_request.getForwardedNodeIds();
+        int res;
+
+        if (forwardedNodeIds.length > 0) {
+            // Register before signing on as the barrier might be released by a concurrent sign on
+            Set<Short> forwarded = m_forwardedBarrierSignOns.computeIfAbsent(barrierId,
+                    p_id -> ConcurrentHashMap.newKeySet());
+            for (short nodeId : forwardedNodeIds) {
+                forwarded.add(nodeId);
+            }
+
+            res = m_metadata.signOnBarrier(m_nodeID, barrierId, forwardedNodeIds, p_request.getForwardedCustomData());
+            if (res > 0) {
+                res = m_metadata.signOnBarrier(m_nodeID, barrierId, p_request.getSource(),
+                        p_request.getCustomData());
+            } else {
+                // All forwarded peers must sign on before the root
+                res = -1;
+            }
+        } else {
+            res = m_metadata.signOnBarrier(m_nodeID, barrierId, p_request.getSource(), p_request.getCustomData());
+        }
+
         BarrierSignOnResponse response = new BarrierSignOnResponse(p_request, (byte) (res >= 0 ? 0 : -1));
         try {
             m_network.sendMessage(response);
@@ -2174,8 +2827,14 @@ public class OverlaySuperpeer implements MessageReceiver {
         // release all if this was the last sign on
         if (res == 0) {
             BarrierStatus barrierStatus = m_metadata.getSignOnStatusOfBarrier(m_nodeID, barrierId);
+            Set<Short> forwarded = m_forwardedBarrierSignOns.remove(barrierId);
 
             barrierStatus.forEachSignedOnPeer((p_nodeId, p_customData) -> {
+                if (forwarded != null && forwarded.contains(p_nodeId)) {
+                    // Released by the root of its combining tree
+                    return;
+                }
+
                 BarrierReleaseMessage message = new BarrierReleaseMessage(p_nodeId, barrierId, barrierStatus);
 
                 try {
@@ -2271,7 +2930,7 @@ public class OverlaySuperpeer implements MessageReceiver {
                     }
                 }
             };
-            new Thread(task).start();
+            executeOrRun(TaskCategory.BARRIER, task);
         }
     }
 
@@ -2319,7 +2978,7 @@ public class OverlaySuperpeer implements MessageReceiver {
                     }
                 }
             };
-            new Thread(task).start();
+            executeOrRun(TaskCategory.STORAGE, task);
         }
     }
 
@@ -2433,7 +3092,7 @@ public class OverlaySuperpeer implements MessageReceiver {
                     }
                 }
             };
-            new Thread(task).start();
+            executeOrRun(TaskCategory.STORAGE, task);
         }
     }
 
@@ -2488,7 +3147,7 @@ public class OverlaySuperpeer implements MessageReceiver {
                     }
                 }
             };
-            new Thread(task).start();
+            executeOrRun(TaskCategory.STORAGE, task);
         }
     }
 
@@ -2528,7 +3187,7 @@ public class OverlaySuperpeer implements MessageReceiver {
                     }
                 }
             };
-            new Thread(task).start();
+            executeOrRun(TaskCategory.STORAGE, task);
         }
     }
 
@@ -2619,7 +3278,68 @@ public class OverlaySuperpeer implements MessageReceiver {
                     }
                 }
             };
-            new Thread(task).start();
+            executeOrRun(TaskCategory.BACKUP_RANGE, task);
+        }
+    }
+
+    /**
+     * Execute a task outsourced by a message handler on the executor. If the executor rejects the task, it is run by
+     * the calling thread instead: the task updates backup superpeers or other nodes and must not be dropped
+     *
+     * @param p_category
+     *         the category of the task
+     * @param p_task
+     *         the task to execute
+     */
+    private void executeOrRun(final TaskCategory p_category, final Runnable p_task) {
+        if (!m_executor.execute(p_category, p_task)) {
+            LOGGER.warn("Executor rejected task of category %s, running it in the message handler", p_category);
+
+            p_task.run();
+        }
+    }
+
+    /**
+     * Replicates lookup tree updates to the backup superpeers and waits until all backup superpeers applied them
+     *
+     * @param p_backupSuperpeers
+     *         the backup superpeers
+     * @param p_operations
+     *         the operations, one per update
+     * @param p_firstChunkIDs
+     *         the (first) ChunkIDs, one per update
+     * @param p_lastChunkIDs
+     *         the last ChunkIDs, one per update
+     * @param p_owners
+     *         the new owners, one per update
+     */
+    private void replicateMetadataSync(final short[] p_backupSuperpeers, final byte[] p_operations,
+            final long[] p_firstChunkIDs, final long[] p_lastChunkIDs, final short[] p_owners) {
+        ArrayList<ReplicateMetadataRequest> requests = new ArrayList<>(p_backupSuperpeers.length);
+
+        for (short backupSuperpeer : p_backupSuperpeers) {
+            if (backupSuperpeer == NodeID.INVALID_ID) {
+                continue;
+            }
+
+            ReplicateMetadataRequest request = new ReplicateMetadataRequest(backupSuperpeer, p_operations,
+                    p_firstChunkIDs, p_lastChunkIDs, p_owners);
+
+            try {
+                m_network.sendSync(request, false);
+                requests.add(request);
+            } catch (final NetworkException e) {
+                // Ignore superpeer failure, superpeer will fix this later
+            }
+        }
+
+        for (ReplicateMetadataRequest request : requests) {
+            try {
+                request.waitForResponse(m_network.getRequestTimeoutMs());
+            } catch (final NetworkException e) {
+                // Ignore superpeer failure, superpeer will fix this later
+                m_network.cancelRequest(request);
+            }
         }
     }
 
@@ -2639,6 +3359,10 @@ public class OverlaySuperpeer implements MessageReceiver {
                 LookupMessages.SUBTYPE_GET_LOOKUP_RANGE_REQUEST, GetLookupRangeRequest.class);
         m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
                 LookupMessages.SUBTYPE_GET_LOOKUP_RANGE_RESPONSE, GetLookupRangeResponse.class);
+        m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
+                LookupMessages.SUBTYPE_GET_LOOKUP_RANGES_REQUEST, GetLookupRangesRequest.class);
+        m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
+                LookupMessages.SUBTYPE_GET_LOOKUP_RANGES_RESPONSE, GetLookupRangesResponse.class);
         m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
                 LookupMessages.SUBTYPE_REMOVE_CHUNKIDS_REQUEST, RemoveChunkIDsRequest.class);
         m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
@@ -2653,6 +3377,18 @@ public class OverlaySuperpeer implements MessageReceiver {
         m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
                 LookupMessages.SUBTYPE_GET_CHUNKID_FOR_NAMESERVICE_ENTRY_RESPONSE,
                 GetChunkIDForNameserviceEntryResponse.class);
+        m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
+                LookupMessages.SUBTYPE_INSERT_NAMESERVICE_ENTRIES_BATCH_REQUEST,
+                InsertNameserviceEntriesBatchRequest.class);
+        m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
+                LookupMessages.SUBTYPE_INSERT_NAMESERVICE_ENTRIES_BATCH_RESPONSE,
+                InsertNameserviceEntriesBatchResponse.class);
+        m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
+                LookupMessages.SUBTYPE_GET_CHUNKIDS_FOR_NAMESERVICE_ENTRIES_REQUEST,
+                GetChunkIDsForNameserviceEntriesRequest.class);
+        m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
+                LookupMessages.SUBTYPE_GET_CHUNKIDS_FOR_NAMESERVICE_ENTRIES_RESPONSE,
+                GetChunkIDsForNameserviceEntriesResponse.class);
         m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
                 LookupMessages.SUBTYPE_GET_NAMESERVICE_ENTRY_COUNT_REQUEST, GetNameserviceEntryCountRequest.class);
         m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
@@ -2664,6 +3400,8 @@ public class OverlaySuperpeer implements MessageReceiver {
         m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
                 LookupMessages.SUBTYPE_NAMESERVICE_UPDATE_PEER_CACHES_MESSAGE,
                 NameserviceUpdatePeerCachesMessage.class);
+        m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
+                LookupMessages.SUBTYPE_LOOKUP_RANGES_AVAILABLE_MESSAGE, LookupRangesAvailableMessage.class);
         m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE, LookupMessages.SUBTYPE_MIGRATE_REQUEST,
                 MigrateRequest.class);
         m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE, LookupMessages.SUBTYPE_MIGRATE_RESPONSE,
@@ -2683,7 +3421,9 @@ public class OverlaySuperpeer implements MessageReceiver {
                 LookupMessages.SUBTYPE_GET_ALL_BACKUP_RANGES_RESPONSE, GetAllBackupRangesResponse.class);
 
         m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
-                LookupMessages.SUBTYPE_SEND_BACKUPS_MESSAGE, SendBackupsMessage.class);
+                LookupMessages.SUBTYPE_SEND_METADATA_CHUNK_REQUEST, SendMetadataChunkRequest.class);
+        m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
+                LookupMessages.SUBTYPE_SEND_METADATA_CHUNK_RESPONSE, SendMetadataChunkResponse.class);
         m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
                 LookupMessages.SUBTYPE_UPDATE_METADATA_AFTER_RECOVERY_MESSAGE,
                 UpdateMetadataAfterRecoveryMessage.class);
@@ -2691,6 +3431,10 @@ public class OverlaySuperpeer implements MessageReceiver {
                 LookupMessages.SUBTYPE_REPLACE_BACKUP_PEER_REQUEST, ReplaceBackupPeerRequest.class);
         m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
                 LookupMessages.SUBTYPE_REPLACE_BACKUP_PEER_RESPONSE, ReplaceBackupPeerResponse.class);
+        m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
+                LookupMessages.SUBTYPE_REPLICATE_METADATA_REQUEST, ReplicateMetadataRequest.class);
+        m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
+                LookupMessages.SUBTYPE_REPLICATE_METADATA_RESPONSE, ReplicateMetadataResponse.class);
 
         m_network.registerMessageType(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
                 LookupMessages.SUBTYPE_PING_SUPERPEER_MESSAGE, PingSuperpeerMessage.class);
@@ -2779,14 +3523,22 @@ public class OverlaySuperpeer implements MessageReceiver {
         m_network.register(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE, LookupMessages.SUBTYPE_JOIN_REQUEST, this);
         m_network.register(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE, LookupMessages.SUBTYPE_FINISHED_STARTUP_MESSAGE,
                 this);
+        m_network.register(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
+                LookupMessages.SUBTYPE_SEND_METADATA_CHUNK_REQUEST, this);
         m_network.register(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE, LookupMessages.SUBTYPE_GET_LOOKUP_RANGE_REQUEST,
                 this);
+        m_network.register(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE, LookupMessages.SUBTYPE_GET_LOOKUP_RANGES_REQUEST,
+                this);
         m_network
                 .register(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE, LookupMessages.SUBTYPE_REMOVE_CHUNKIDS_REQUEST, this);
         m_network.register(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
                 LookupMessages.SUBTYPE_INSERT_NAMESERVICE_ENTRIES_REQUEST, this);
         m_network.register(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
                 LookupMessages.SUBTYPE_GET_CHUNKID_FOR_NAMESERVICE_ENTRY_REQUEST, this);
+        m_network.register(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
+                LookupMessages.SUBTYPE_INSERT_NAMESERVICE_ENTRIES_BATCH_REQUEST, this);
+        m_network.register(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
+                LookupMessages.SUBTYPE_GET_CHUNKIDS_FOR_NAMESERVICE_ENTRIES_REQUEST, this);
         m_network.register(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
                 LookupMessages.SUBTYPE_GET_NAMESERVICE_ENTRY_COUNT_REQUEST, this);
         m_network.register(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
@@ -2800,6 +3552,8 @@ public class OverlaySuperpeer implements MessageReceiver {
                 LookupMessages.SUBTYPE_UPDATE_METADATA_AFTER_RECOVERY_MESSAGE, this);
         m_network.register(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE, LookupMessages.SUBTYPE_REPLACE_BACKUP_PEER_REQUEST,
                 this);
+        m_network.register(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE, LookupMessages.SUBTYPE_REPLICATE_METADATA_REQUEST,
+                this);
         m_network
                 .register(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE, LookupMessages.SUBTYPE_NODE_JOIN_EVENT_REQUEST, this);
         m_network.register(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE, LookupMessages.SUBTYPE_PING_SUPERPEER_MESSAGE, this);
@@ -0,0 +1,236 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.lookup.overlay;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.locks.LockSupport;
+
+import de.hhu.bsinfo.dxnet.core.NetworkException;
+import de.hhu.bsinfo.dxram.lookup.messages.NameserviceUpdatePeerCachesMessage;
+import de.hhu.bsinfo.dxram.net.NetworkComponent;
+
+/**
+ * Coalesces nameservice cache updates per destination peer. The updates of a peer are sent as a single
+ * NameserviceUpdatePeerCachesMessage once the batch reaches the size threshold or its oldest update exceeds the
+ * time threshold. All batches are sent by the buffer's thread in the order they were completed to keep the updates of
+ * a peer in order
+ */
+class PeerCacheUpdateBuffer extends Thread {
+    private static final int FLUSH_SIZE_BYTES = 4096;
+    private static final long FLUSH_INTERVAL_NS = 1000 * 1000;
+    private static final int MAX_BATCH_ENTRIES = FLUSH_SIZE_BYTES / (Integer.BYTES + Long.BYTES);
+
+    private final NetworkComponent m_network;
+
+    private final HashMap<Short, Batch> m_batches = new HashMap<>();
+    private int m_pendingBatches;
+    // completed batches to send, guarded by m_batches
+    private final ArrayDeque<NameserviceUpdatePeerCachesMessage> m_outgoing = new ArrayDeque<>();
+
+    private volatile boolean m_run = true;
+
+    /**
+     * Constructor
+     *
+     * @param p_network
+     *         NetworkComponent to send the batches with
+     */
+    PeerCacheUpdateBuffer(final NetworkComponent p_network) {
+        super(PeerCacheUpdateBuffer.class.getSimpleName());
+
+        m_network = p_network;
+
+        setDaemon(true);
+    }
+
+    /**
+     * Add a cache update for multiple peers
+     *
+     * @param p_peers
+     *         the peers to notify
+     * @param p_id
+     *         the nameservice id
+     * @param p_chunkID
+     *         the ChunkID mapped to the id
+     */
+    void add(final ArrayList<Short> p_peers, final int p_id, final long p_chunkID) {
+        for (short peer : p_peers) {
+            add(peer, p_id, p_chunkID);
+        }
+    }
+
+    /**
+     * Add a cache update for a peer
+     *
+     * @param p_peer
+     *         the peer to notify
+     * @param p_id
+     *         the nameservice id
+     * @param p_chunkID
+     *         the ChunkID mapped to the id
+     */
+    void add(final short p_peer, final int p_id, final long p_chunkID) {
+        boolean wakeUp = false;
+
+        synchronized (m_batches) {
+            Batch batch = m_batches.computeIfAbsent(p_peer, Batch::new);
+
+            if (batch.m_count == 0) {
+                batch.m_firstUpdate = System.nanoTime();
+                wakeUp = m_pendingBatches++ == 0;
+            }
+
+            batch.m_ids[batch.m_count] = p_id;
+            batch.m_chunkIDs[batch.m_count] = p_chunkID;
+            batch.m_count++;
+
+            if (batch.m_count == MAX_BATCH_ENTRIES) {
+                // hand the full batch to the thread, sending it here could overtake an expired batch of the peer
+                m_outgoing.add(batch.take());
+                m_pendingBatches--;
+                wakeUp = true;
+            }
+        }
+
+        if (wakeUp) {
+            LockSupport.unpark(this);
+        }
+    }
+
+    /**
+     * Shut down the thread. Pending updates are flushed
+     */
+    void shutdown() {
+        m_run = false;
+        LockSupport.unpark(this);
+
+        try {
+            join();
+        } catch (final InterruptedException ignored) {
+        }
+    }
+
+    @Override
+    public void run() {
+        ArrayList<NameserviceUpdatePeerCachesMessage> messages = new ArrayList<>();
+
+        while (m_run) {
+            long nextFlush = Long.MAX_VALUE;
+            long now = System.nanoTime();
+
+            synchronized (m_batches) {
+                for (Batch batch : m_batches.values()) {
+                    if (batch.m_count == 0) {
+                        continue;
+                    }
+
+                    if (now - batch.m_firstUpdate >= FLUSH_INTERVAL_NS) {
+                        m_outgoing.add(batch.take());
+                        m_pendingBatches--;
+                    } else {
+                        nextFlush = Math.min(nextFlush, batch.m_firstUpdate + FLUSH_INTERVAL_NS - now);
+                    }
+                }
+
+                messages.addAll(m_outgoing);
+                m_outgoing.clear();
+            }
+
+            for (NameserviceUpdatePeerCachesMessage message : messages) {
+                send(message);
+            }
+
+            messages.clear();
+
+            if (nextFlush == Long.MAX_VALUE) {
+                // nothing pending, wait for the next update
+                LockSupport.park();
+            } else {
+                LockSupport.parkNanos(nextFlush);
+            }
+        }
+
+        // flush everything left on shutdown
+        synchronized (m_batches) {
+            messages.addAll(m_outgoing);
+            m_outgoing.clear();
+
+            for (Batch batch : m_batches.values()) {
+                if (batch.m_count > 0) {
+                    messages.add(batch.take());
+                }
+            }
+
+            m_pendingBatches = 0;
+        }
+
+        for (NameserviceUpdatePeerCachesMessage message : messages) {
+            send(message);
+        }
+    }
+
+    /**
+     * Send a batch
+     *
+     * @param p_message
+     *         the message containing the batch
+     */
+    private void send(final NameserviceUpdatePeerCachesMessage p_message) {
+        try {
+            m_network.sendMessage(p_message);
+        } catch (final NetworkException e) {
+            // peer is not available anymore, ignore it
+        }
+    }
+
+    /**
+     * Cache updates buffered for a single peer
+     */
+    private static final class Batch {
+        private final short m_peer;
+        private final int[] m_ids = new int[MAX_BATCH_ENTRIES];
+        private final long[] m_chunkIDs = new long[MAX_BATCH_ENTRIES];
+        private int m_count;
+        private long m_firstUpdate;
+
+        /**
+         * Constructor
+         *
+         * @param p_peer
+         *         the peer to notify
+         */
+        private Batch(final short p_peer) {
+            m_peer = p_peer;
+        }
+
+        /**
+         * Create a message from the buffered updates and reset the batch
+         *
+         * @return the message to send
+         */
+        private NameserviceUpdatePeerCachesMessage take() {
+            NameserviceUpdatePeerCachesMessage message = new NameserviceUpdatePeerCachesMessage(m_peer,
+                    Arrays.copyOf(m_ids, m_count), Arrays.copyOf(m_chunkIDs, m_count));
+            m_count = 0;
+
+            return message;
+        }
+    }
+}
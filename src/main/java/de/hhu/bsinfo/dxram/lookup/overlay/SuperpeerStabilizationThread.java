@@ -17,6 +17,7 @@
 package de.hhu.bsinfo.dxram.lookup.overlay;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.apache.logging.log4j.LogManager;
@@ -33,7 +34,6 @@ import de.hhu.bsinfo.dxram.lookup.messages.AskAboutSuccessorResponse;
 import de.hhu.bsinfo.dxram.lookup.messages.LookupMessages;
 import de.hhu.bsinfo.dxram.lookup.messages.NotifyAboutNewPredecessorMessage;
 import de.hhu.bsinfo.dxram.lookup.messages.NotifyAboutNewSuccessorMessage;
-import de.hhu.bsinfo.dxram.lookup.messages.SendBackupsMessage;
 import de.hhu.bsinfo.dxram.lookup.messages.SendSuperpeersMessage;
 import de.hhu.bsinfo.dxram.net.NetworkComponent;
 import de.hhu.bsinfo.dxutils.NodeID;
@@ -64,6 +64,9 @@ class SuperpeerStabilizationThread extends Thread implements MessageReceiver {
 
     private String m_overlayFigure;
 
+    // Nameservice epoch, version and predecessor of the last synchronization per superpeer in the responsible area
+    private HashMap<Short, long[]> m_nameserviceVersions;
+
     // Constructors
 
     /**
@@ -99,6 +102,8 @@ class SuperpeerStabilizationThread extends Thread implements MessageReceiver {
         m_sleepInterval = p_sleepInterval;
         m_next = 0;
 
+        m_nameserviceVersions = new HashMap<>();
+
         registerNetworkMessageListener();
     }
 
@@ -152,9 +157,6 @@ class SuperpeerStabilizationThread extends Thread implements MessageReceiver {
         if (p_message != null) {
             if (p_message.getType() == DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE) {
                 switch (p_message.getSubtype()) {
-                    case LookupMessages.SUBTYPE_SEND_BACKUPS_MESSAGE:
-                        incomingSendBackupsMessage((SendBackupsMessage) p_message);
-                        break;
                     case LookupMessages.SUBTYPE_ASK_ABOUT_BACKUPS_REQUEST:
                         incomingAskAboutBackupsRequest((AskAboutBackupsRequest) p_message);
                         break;
@@ -342,7 +344,8 @@ class SuperpeerStabilizationThread extends Thread implements MessageReceiver {
     }
 
     /**
-     * Gather all missing metadata in the responsible area
+     * Gather all missing metadata in the responsible area. Only changes since the last synchronization are
+     * transferred if the responsible superpeer still has them
      *
      * @param p_responsibleArea
      *         the responsible area
@@ -351,6 +354,9 @@ class SuperpeerStabilizationThread extends Thread implements MessageReceiver {
         short currentSuperpeer;
         short oldSuperpeer;
         ArrayList<Short> peers;
+        long[] syncedVersions;
+        long[] nameserviceVersion;
+        HashMap<Short, long[]> nameserviceVersions;
         int numberOfNameserviceEntries;
         int numberOfStorages;
         int numberOfBarriers;
@@ -359,6 +365,8 @@ class SuperpeerStabilizationThread extends Thread implements MessageReceiver {
         AskAboutBackupsRequest request;
         AskAboutBackupsResponse response;
 
+        nameserviceVersions = new HashMap<>();
+
         m_overlayLock.readLock().lock();
         if (!m_otherSuperpeers.isEmpty()) {
             if (m_otherSuperpeers.size() <= 3) {
@@ -376,11 +384,18 @@ class SuperpeerStabilizationThread extends Thread implements MessageReceiver {
                         currentSuperpeer);
 
                 currentResponsibleArea = new short[] {oldSuperpeer, currentSuperpeer};
+                syncedVersions = m_superpeer.getSyncedVersions(peers);
                 numberOfNameserviceEntries = m_superpeer.getNumberOfNameserviceEntries(currentResponsibleArea);
                 numberOfStorages = m_superpeer.getNumberOfStorages(currentResponsibleArea);
                 numberOfBarriers = m_superpeer.getNumberOfBarriers(currentResponsibleArea);
-                request = new AskAboutBackupsRequest(currentSuperpeer, peers, numberOfNameserviceEntries,
-                        numberOfStorages, numberOfBarriers);
+                nameserviceVersion = m_nameserviceVersions.get(currentSuperpeer);
+                if (nameserviceVersion == null) {
+                    // Never synchronized -> epoch 0 is never valid
+                    nameserviceVersion = new long[] {0, 0, NodeID.INVALID_ID};
+                }
+                request = new AskAboutBackupsRequest(currentSuperpeer, peers, syncedVersions,
+                        numberOfNameserviceEntries, nameserviceVersion[0], nameserviceVersion[1],
+                        (short) nameserviceVersion[2], numberOfStorages, numberOfBarriers);
                 m_overlayLock.readLock().unlock();
 
                 try {
@@ -398,7 +413,9 @@ class SuperpeerStabilizationThread extends Thread implements MessageReceiver {
                 response = request.getResponse(AskAboutBackupsResponse.class);
 
                 m_overlayLock.writeLock().lock();
-                m_superpeer.storeIncomingBackups(response.getMissingMetadata());
+                m_superpeer.storeChangedBackups(response.getMissingMetadata());
+                nameserviceVersions.put(currentSuperpeer, new long[] {response.getNameserviceEpoch(),
+                        response.getNameserviceVersion(), response.getPredecessor()});
                 // Lock downgrade
                 m_overlayLock.readLock().lock();
                 m_overlayLock.writeLock().unlock();
@@ -417,6 +434,9 @@ class SuperpeerStabilizationThread extends Thread implements MessageReceiver {
             }
         }
         m_overlayLock.readLock().unlock();
+
+        // Forget superpeers which are not in the responsible area anymore (their entries are deleted)
+        m_nameserviceVersions = nameserviceVersions;
     }
 
     /**
@@ -462,21 +482,6 @@ class SuperpeerStabilizationThread extends Thread implements MessageReceiver {
         m_overlayFigure = superpeersFigure + peersFigure.toString();
     }
 
-    /**
-     * Handles an incoming SendBackupsMessage
-     *
-     * @param p_sendBackupsMessage
-     *         the SendBackupsMessage
-     */
-    private void incomingSendBackupsMessage(final SendBackupsMessage p_sendBackupsMessage) {
-
-        LOGGER.trace("Got Message: SEND_BACKUPS_MESSAGE from 0x%X", p_sendBackupsMessage.getSource());
-
-        m_overlayLock.writeLock().lock();
-        m_superpeer.storeIncomingBackups(p_sendBackupsMessage.getMetadata());
-        m_overlayLock.writeLock().unlock();
-    }
-
     /**
      * Handles an incoming AskAboutBackupsRequest
      *
@@ -485,17 +490,26 @@ class SuperpeerStabilizationThread extends Thread implements MessageReceiver {
      */
     private void incomingAskAboutBackupsRequest(final AskAboutBackupsRequest p_askAboutBackupsRequest) {
         byte[] missingMetadata;
+        long[] nameserviceVersion;
+        short predecessor;
 
         LOGGER.trace("Got request: ASK_ABOUT_SUCCESSOR_REQUEST from 0x%X", p_askAboutBackupsRequest.getSource());
 
         m_overlayLock.readLock().lock();
+        // Get the version before gathering the changes: the requesting superpeer might get newer changes twice but
+        // never misses one
+        nameserviceVersion = m_superpeer.getNameserviceVersion();
+        predecessor = m_superpeer.getPredecessor();
         missingMetadata = m_superpeer.compareAndReturnBackups(p_askAboutBackupsRequest.getPeers(),
-                p_askAboutBackupsRequest.getNumberOfNameserviceEntries(),
-                p_askAboutBackupsRequest.getNumberOfStorages(), p_askAboutBackupsRequest.getNumberOfBarriers());
+                p_askAboutBackupsRequest.getSyncedVersions(), p_askAboutBackupsRequest.getNumberOfNameserviceEntries(),
+                p_askAboutBackupsRequest.getNameserviceEpoch(), p_askAboutBackupsRequest.getNameserviceVersion(),
+                p_askAboutBackupsRequest.getNameservicePredecessor(), p_askAboutBackupsRequest.getNumberOfStorages(),
+                p_askAboutBackupsRequest.getNumberOfBarriers());
         m_overlayLock.readLock().unlock();
 
         try {
-            m_network.sendMessage(new AskAboutBackupsResponse(p_askAboutBackupsRequest, missingMetadata));
+            m_network.sendMessage(new AskAboutBackupsResponse(p_askAboutBackupsRequest, missingMetadata,
+                    nameserviceVersion[0], nameserviceVersion[1], predecessor));
         } catch (final NetworkException e) {
             // Requesting superpeer is not available anymore, ignore request. Superpeer will be removed by failure
             // handling.
@@ -580,7 +594,6 @@ class SuperpeerStabilizationThread extends Thread implements MessageReceiver {
                 this);
         m_network.register(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE, LookupMessages.SUBTYPE_ASK_ABOUT_SUCCESSOR_REQUEST,
                 this);
-        m_network.register(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE, LookupMessages.SUBTYPE_SEND_BACKUPS_MESSAGE, this);
         m_network.register(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
                 LookupMessages.SUBTYPE_NOTIFY_ABOUT_NEW_PREDECESSOR_MESSAGE, this);
         m_network.register(DXRAMMessageTypes.LOOKUP_MESSAGES_TYPE,
@@ -24,14 +24,23 @@ import de.hhu.bsinfo.dxmem.data.ChunkID;
 import de.hhu.bsinfo.dxram.lookup.LookupRange;
 import de.hhu.bsinfo.dxram.lookup.LookupState;
 import de.hhu.bsinfo.dxutils.NodeID;
-import de.hhu.bsinfo.dxutils.RandomUtils;
+import de.hhu.bsinfo.dxutils.stats.StatisticsManager;
+import de.hhu.bsinfo.dxutils.stats.ValuePool;
 
 /**
- * Btree to cache ranges
+ * Btree to cache ranges. Every entry is the last ChunkID of a range, i.e. an entry maps all ChunkIDs between its
+ * predecessor (exclusive) and itself (inclusive) to a primary peer. Uncached ranges are mapped to NodeID.INVALID_ID.
+ * Entries are evicted by a background thread if not accessed within the TTL or if the cache exceeds its maximum
+ * size (CLOCK approximation per leaf node). Lookups only mark accessed leaf nodes and never take the write lock.
  *
  * @author Kevin Beineke, kevin.beineke@hhu.de, 11.07.2014
  */
-public final class CacheTree {
+public final class CacheTree implements ChunkIDRangeCache {
+    private static final ValuePool SOP_EVICTION = new ValuePool(CacheTree.class, "Eviction");
+
+    static {
+        StatisticsManager.get().registerOperation(CacheTree.class, SOP_EVICTION);
+    }
 
     // Attributes
     private short m_minEntries;
@@ -77,15 +86,16 @@ public final class CacheTree {
 
         m_lock = new ReentrantReadWriteLock();
 
-        /*m_ttlHandler = new TTLHandler(p_ttl, p_cacheMaxSize);
+        m_ttlHandler = new TTLHandler(p_ttl, p_cacheMaxSize);
         Thread thread = new Thread(m_ttlHandler);
         thread.setName(TTLHandler.class.getSimpleName() + " for " + CacheTree.class.getSimpleName());
         thread.setDaemon(true);
-        thread.start();*/
+        thread.start();
     }
 
     // Methods
 
+    @Override
     public void clear() {
         m_lock.writeLock().lock();
         m_root = null;
@@ -363,8 +373,9 @@ public final class CacheTree {
     /**
      * Stops the TTLHandler
      */
+    @Override
     public void close() {
-        //m_ttlHandler.stop();
+        m_ttlHandler.stop();
     }
 
     /**
@@ -374,13 +385,14 @@ public final class CacheTree {
      *         ChunkID of requested object
      * @return the NodeID of the primary peer for given object
      */
+    @Override
     public short getPrimaryPeer(final long p_chunkID) {
         short ret;
 
         assert m_root != null;
 
         m_lock.readLock().lock();
-        ret = getNodeIDOrSuccessorsNodeID(p_chunkID);
+        ret = getNodeIDOrSuccessorsNodeID(p_chunkID, true);
         m_lock.readLock().unlock();
 
         return ret;
@@ -393,6 +405,7 @@ public final class CacheTree {
      *         ChunkID of requested object
      * @return the first and last ChunkID of the range
      */
+    @Override
     public LookupRange getMetadata(final long p_chunkID) {
         LookupRange ret = null;
         long[] range;
@@ -446,25 +459,35 @@ public final class CacheTree {
      *         the primary peer
      * @return true if insertion was successful
      */
+    @Override
     public boolean cacheRange(final long p_startCID, final long p_endCID, final short p_nodeID) {
-        Node startNode;
-
-        if (p_startCID == p_endCID) {
-            cacheChunkID(p_startCID, p_nodeID);
-        } else {
-            m_lock.writeLock().lock();
-            startNode = createOrReplaceEntry(p_startCID, p_nodeID);
-
-            mergeWithPredecessorOrBound(p_startCID, p_nodeID, startNode);
-
-            createOrReplaceEntry(p_endCID, p_nodeID);
+        m_lock.writeLock().lock();
+        insertRange(p_startCID, p_endCID, p_nodeID);
+        m_lock.writeLock().unlock();
 
-            removeEntriesWithinRange(p_startCID, p_endCID);
+        return true;
+    }
 
-            mergeWithSuccessor(p_endCID, p_nodeID);
-            m_lock.writeLock().unlock();
+    /**
+     * Caches multiple ranges with a single acquisition of the write lock
+     *
+     * @param p_startCIDs
+     *         the first ChunkIDs of the ranges
+     * @param p_endCIDs
+     *         the last ChunkIDs of the ranges
+     * @param p_nodeIDs
+     *         the primary peers of the ranges
+     * @param p_count
+     *         the number of ranges to cache
+     */
+    @Override
+    public void cacheRanges(final long[] p_startCIDs, final long[] p_endCIDs, final short[] p_nodeIDs,
+            final int p_count) {
+        m_lock.writeLock().lock();
+        for (int i = 0; i < p_count; i++) {
+            insertRange(p_startCIDs[i], p_endCIDs[i], p_nodeIDs[i]);
         }
-        return true;
+        m_lock.writeLock().unlock();
     }
 
     /**
@@ -473,9 +496,25 @@ public final class CacheTree {
      * @param p_chunkID
      *         the ChunkID
      */
+    @Override
     public void invalidateChunkID(final long p_chunkID) {
         m_lock.writeLock().lock();
-        removeEntry(p_chunkID);
+        insertRange(p_chunkID, p_chunkID, NodeID.INVALID_ID);
+        m_lock.writeLock().unlock();
+    }
+
+    /**
+     * Removes all ChunkIDs of given range from btree
+     *
+     * @param p_startCID
+     *         the first ChunkID
+     * @param p_endCID
+     *         the last ChunkID
+     */
+    @Override
+    public void invalidateChunkIDRange(final long p_startCID, final long p_endCID) {
+        m_lock.writeLock().lock();
+        insertRange(p_startCID, p_endCID, NodeID.INVALID_ID);
         m_lock.writeLock().unlock();
     }
 
@@ -485,43 +524,10 @@ public final class CacheTree {
      * @param p_chunkID
      *         the ChunkID
      */
+    @Override
     public void invalidateRange(final long p_chunkID) {
-        short nodeID;
-        long successorCID;
-        long predecessorCID = ChunkID.INVALID_ID;
-        int index;
-        Node node;
-
         m_lock.writeLock().lock();
-        // Get end of range
-        node = getNodeOrSuccessorsNode(p_chunkID, true);
-        if (node != null) {
-            index = node.indexOf(p_chunkID);
-            if (index >= 0) {
-                nodeID = node.getNodeID(index);
-                successorCID = p_chunkID;
-            } else {
-                // ChunkID was not found, but successor
-                nodeID = node.getNodeID(index * -1 - 1);
-                successorCID = node.getCID(index * -1 - 1);
-            }
-
-            if (nodeID != NodeID.INVALID_ID) {
-                // Get begin of range
-                node = getPredecessorsNode(successorCID, node);
-                if (node != null) {
-                    for (int i = node.getNumberOfEntries() - 1; i >= 0; i--) {
-                        if (p_chunkID > node.getCID(i)) {
-                            predecessorCID = node.getNodeID(i);
-                            break;
-                        }
-                    }
-                    if (predecessorCID != ChunkID.INVALID_ID) {
-                        cacheRange(predecessorCID, successorCID, NodeID.INVALID_ID);
-                    }
-                }
-            }
-        }
+        invalidateEntry(getCIDOrSuccessorsCID(p_chunkID));
         m_lock.writeLock().unlock();
     }
 
@@ -531,13 +537,13 @@ public final class CacheTree {
      * @param p_nodeID
      *         the NodeID
      */
+    @Override
     public void invalidatePeer(final short p_nodeID) {
         m_lock.writeLock().lock();
         ArrayList<CacheNodeElement> allEntries = toListFilteredInverse(p_nodeID);
 
         for (int i = 0; i < allEntries.size(); i++) {
-            removeEntry(allEntries.get(i).getChunkId());
-
+            invalidateEntry(allEntries.get(i).getChunkId());
         }
         m_lock.writeLock().unlock();
     }
@@ -547,6 +553,7 @@ public final class CacheTree {
      *
      * @return the number of entries in btree
      */
+    @Override
     public int size() {
         return m_size;
     }
@@ -566,6 +573,13 @@ public final class CacheTree {
         return ret;
     }
 
+    /**
+     * Checks for entries to evict immediately instead of waiting for the TTLHandler (used by tests)
+     */
+    void checkEviction() {
+        m_ttlHandler.check();
+    }
+
     /**
      * Prints the btree
      *
@@ -609,109 +623,68 @@ public final class CacheTree {
     }
 
     /**
-     * Caches a single ChunkID
+     * Caches a range or a single ChunkID. ChunkIDs in front of and behind the range keep their mapping, adjacent
+     * ranges of the same peer are merged
      *
-     * @param p_chunkID
-     *         the ChunkID
+     * @param p_startCID
+     *         the first ChunkID
+     * @param p_endCID
+     *         the last ChunkID
      * @param p_nodeID
-     *         the primary peer
-     * @return true if insertion was successful
+     *         the primary peer or NodeID.INVALID_ID to remove the range from the cache
+     * @note assumes m_lock has been write-locked
      */
-    private boolean cacheChunkID(final long p_chunkID, final short p_nodeID) {
-        Node node;
+    private void insertRange(final long p_startCID, final long p_endCID, final short p_nodeID) {
+        long successor;
 
-        m_lock.writeLock().lock();
-        node = createOrReplaceEntry(p_chunkID, p_nodeID);
+        // Bound the range in front of the new one
+        if (p_startCID != Long.MIN_VALUE && getCIDOrSuccessorsCID(p_startCID - 1) != p_startCID - 1) {
+            createOrReplaceEntry(p_startCID - 1, getNodeIDOrSuccessorsNodeID(p_startCID - 1, false));
+        }
 
-        mergeWithPredecessorOrBound(p_chunkID, p_nodeID, node);
+        // Remove all entries within the new range, the entries behind keep their mapping
+        successor = getCIDOrSuccessorsCID(p_startCID);
+        while (successor < p_endCID) {
+            remove(successor);
+            successor = getCIDOrSuccessorsCID(p_startCID);
+        }
 
-        mergeWithSuccessor(p_chunkID, p_nodeID);
-        m_lock.writeLock().unlock();
+        createOrReplaceEntry(p_endCID, p_nodeID);
 
-        return true;
+        // Merge with predecessor and successor
+        if (p_startCID != Long.MIN_VALUE && getCIDOrSuccessorsCID(p_startCID - 1) == p_startCID - 1 &&
+                getNodeIDOrSuccessorsNodeID(p_startCID - 1, false) == p_nodeID) {
+            remove(p_startCID - 1);
+        }
+
+        if (p_endCID != Long.MAX_VALUE && getNodeIDOrSuccessorsNodeID(p_endCID + 1, false) == p_nodeID) {
+            remove(p_endCID);
+        }
     }
 
     /**
-     * Removes given ChunkID from btree
+     * Removes the range ending with given entry from btree
      *
      * @param p_chunkID
-     *         the ChunkID
-     * @note assumes m_lock has been locked
+     *         the ChunkID of the entry
+     * @return the number of removed cache entries (0 or 1)
+     * @note assumes m_lock has been write-locked
      */
-    private void removeEntry(final long p_chunkID) {
-        int index;
+    private int invalidateEntry(final long p_chunkID) {
         Node node;
-        long currentCID;
-        Entry currentEntry;
         Entry predecessor;
-        Entry successor;
+        int index;
 
-        if (m_root != null) {
-            node = getNodeOrSuccessorsNode(p_chunkID, false);
-            if (node != null) {
-                index = node.indexOf(p_chunkID);
-                if (index >= 0) {
-                    // Entry was found
-                    currentCID = node.getCID(index);
-                    predecessor = getPredecessorsEntry(p_chunkID, node);
-                    currentEntry = new Entry(currentCID, node.getNodeID(index));
-                    successor = getSuccessorsEntry(p_chunkID, node);
-                    if (currentEntry.getNodeID() != NodeID.INVALID_ID && predecessor != null) {
-                        if (p_chunkID - 1 == predecessor.getCID()) {
-                            // Predecessor is direct neighbor: AB
-                            // Successor might be direct neighbor or not: ABC or AB___C
-                            if (successor.getNodeID() == NodeID.INVALID_ID) {
-                                // Successor is barrier: ABC -> A_C or AB___C -> A___C
-                                remove(p_chunkID);
-                            } else {
-                                // Successor is no barrier: ABC -> AXC or AB___C -> AX___C
-                                node.changeEntry(p_chunkID, NodeID.INVALID_ID, index);
-                            }
-                            if (predecessor.getNodeID() == NodeID.INVALID_ID) {
-                                // Predecessor is barrier: A_C -> ___C or AXC -> ___XC
-                                // or A___C -> ___C or AX___C -> ___X___C
-                                remove(predecessor.getCID());
-                            }
-                        } else {
-                            // Predecessor is no direct neighbor: A___B
-                            if (successor.getNodeID() == NodeID.INVALID_ID) {
-                                // Successor is barrier: A___BC -> A___C or A___B___C -> A___'___C
-                                remove(p_chunkID);
-                            } else {
-                                // Successor is no barrier: A___BC -> A___XC or A___B___C -> A___X___C
-                                node.changeEntry(p_chunkID, NodeID.INVALID_ID, index);
-                            }
-                            // Predecessor is barrier: A___C -> A___(B-1)_C or A___XC -> ___(B-1)XC
-                            // or A___'___C -> A___(B-1)___C or A___X___C -> A___(B-1)X___C
-                            createOrReplaceEntry(p_chunkID - 1, currentEntry.getNodeID());
-                        }
-                    }
-                } else {
-                    // Entry was not found
-                    index = index * -1 - 1;
-                    successor = new Entry(node.getCID(index), node.getNodeID(index));
-                    predecessor = getPredecessorsEntry(successor.getCID(), node);
-                    if (successor.getNodeID() != NodeID.INVALID_ID && predecessor != null) {
-                        // Entry is in range
-                        if (p_chunkID - 1 == predecessor.getCID()) {
-                            // Predecessor is direct neighbor: A'B'
-                            // Successor might be direct neighbor or not: A'B'C -> AXC or A'B'___C -> AX___C
-                            createOrReplaceEntry(p_chunkID, NodeID.INVALID_ID);
-                            if (predecessor.getNodeID() == NodeID.INVALID_ID) {
-                                // Predecessor is barrier: AXC -> ___XC or AX___C -> ___X___C
-                                remove(p_chunkID - 1);
-                            }
-                        } else {
-                            // Predecessor is no direct neighbor: A___'B'
-                            // Successor might be direct neighbor or not: A___'B'C -> A___(B-1)XC
-                            // or A___'B'___C -> A___(B-1)X___C
-                            createOrReplaceEntry(p_chunkID, NodeID.INVALID_ID);
-                            createOrReplaceEntry(p_chunkID - 1, successor.getNodeID());
-                        }
-                    }
-                }
-            }
+        node = getNodeOrSuccessorsNode(p_chunkID, false);
+        index = node.indexOf(p_chunkID);
+        if (index < 0 || node.getNodeID(index) == NodeID.INVALID_ID) {
+            return 0;
         }
+
+        predecessor = getPredecessorsEntry(p_chunkID, node);
+        insertRange(predecessor != null ? predecessor.getCID() + 1 : Long.MIN_VALUE, p_chunkID, NodeID.INVALID_ID);
+
+        return 1;
     }
 
     /**
@@ -783,86 +756,6 @@ public final class CacheTree {
         return ret;
     }
 
-    /**
-     * Merges the object or range with predecessor
-     *
-     * @param p_chunkID
-     *         the ChunkID
-     * @param p_nodeID
-     *         the NodeID
-     * @param p_node
-     *         anchor node
-     */
-    private void mergeWithPredecessorOrBound(final long p_chunkID, final short p_nodeID, final Node p_node) {
-        Entry predecessor;
-        Entry successor;
-
-        predecessor = getPredecessorsEntry(p_chunkID, p_node);
-        if (predecessor == null) {
-            createOrReplaceEntry(p_chunkID - 1, NodeID.INVALID_ID);
-        } else {
-            if (p_chunkID - 1 == predecessor.getCID()) {
-                if (p_nodeID == predecessor.getNodeID()) {
-                    remove(predecessor.getCID(), getPredecessorsNode(p_chunkID, p_node));
-                }
-            } else {
-                successor = getSuccessorsEntry(p_chunkID, p_node);
-                if (m_changedEntry == null) {
-                    // Successor is end of range
-                    if (p_nodeID != successor.getNodeID()) {
-                        createOrReplaceEntry(p_chunkID - 1, successor.getNodeID());
-                    } else {
-                        // New Object is in range that already was migrated to the same destination
-                        remove(p_chunkID, p_node);
-                    }
-                } else {
-                    if (p_nodeID != m_changedEntry.getNodeID()) {
-                        createOrReplaceEntry(p_chunkID - 1, m_changedEntry.getNodeID());
-                    }
-                }
-            }
-        }
-    }
-
-    /**
-     * Merges the object or range with successor
-     *
-     * @param p_chunkID
-     *         the ChunkID
-     * @param p_nodeID
-     *         the NodeID
-     */
-    private void mergeWithSuccessor(final long p_chunkID, final short p_nodeID) {
-        Node node;
-        Entry successor;
-
-        node = getNodeOrSuccessorsNode(p_chunkID, false);
-        successor = getSuccessorsEntry(p_chunkID, node);
-        if (successor != null && p_nodeID == successor.getNodeID()) {
-            remove(p_chunkID, node);
-        }
-    }
-
-    /**
-     * Removes all entries between start (inclusive) and end
-     *
-     * @param p_start
-     *         the first object in range
-     * @param p_end
-     *         the last object in range
-     */
-    private void removeEntriesWithinRange(final long p_start, final long p_end) {
-        long successor;
-
-        remove(p_start, getNodeOrSuccessorsNode(p_start, false));
-
-        successor = getCIDOrSuccessorsCID(p_start);
-        while (successor != -1 && successor < p_end) {
-            remove(successor);
-            successor = getCIDOrSuccessorsCID(p_start);
-        }
-    }
-
     /**
      * Returns the node in which the next entry to given ChunkID (could be the ChunkID itself) is stored
      *
@@ -888,7 +781,7 @@ public final class CacheTree {
                     continue;
                 } else {
                     if (p_registerAccess) {
-                        ret.setLastAccess();
+                        ret.setReferenced();
                     }
                     break;
                 }
@@ -903,7 +796,7 @@ public final class CacheTree {
                 } else {
                     ret = getSuccessorsNode(greater, ret);
                     if (p_registerAccess) {
-                        ret.setLastAccess();
+                        ret.setReferenced();
                     }
                     break;
                 }
@@ -917,11 +810,11 @@ public final class CacheTree {
                 if (index < ret.getNumberOfChildren()) {
                     ret = ret.getChild(index);
                     if (p_registerAccess) {
-                        ret.setLastAccess();
+                        ret.setReferenced();
                     }
                 } else {
                     if (p_registerAccess) {
-                        ret.setLastAccess();
+                        ret.setReferenced();
                     }
                     break;
                 }
@@ -961,14 +854,16 @@ public final class CacheTree {
      *
      * @param p_chunkID
      *         the ChunkID whose corresponding NodeID is searched
+     * @param p_registerAccess
+     *         whether the access should be registered or not
      * @return NodeID for p_chunkID if p_chunkID is in btree or successors NodeID
      */
-    private short getNodeIDOrSuccessorsNodeID(final long p_chunkID) {
+    private short getNodeIDOrSuccessorsNodeID(final long p_chunkID, final boolean p_registerAccess) {
         short ret = NodeID.INVALID_ID;
         int index;
         Node node;
 
-        node = getNodeOrSuccessorsNode(p_chunkID, true);
+        node = getNodeOrSuccessorsNode(p_chunkID, p_registerAccess);
         if (node != null) {
             index = node.indexOf(p_chunkID);
             if (index >= 0) {
@@ -1265,83 +1160,78 @@ public final class CacheTree {
 
         numberOfEntries = p_node.getNumberOfEntries();
 
-        if (numberOfEntries > 1) {
-            // Make sure the keys are sorted
-            for (int i = 1; i < numberOfEntries; i++) {
-                prev = p_node.getCID(i - 1);
-                next = p_node.getCID(i);
-                if (prev > next) {
-                    ret = false;
-                    break;
-                }
-            }
-        } else {
-            childrenSize = p_node.getNumberOfChildren();
-            if (p_node.getParent() == null) {
-                // Root
-                if (numberOfEntries > m_maxEntries) {
-                    // Check max key size. Root does not have a minimum key size
-                    ret = false;
-                } else if (childrenSize == 0) {
-                    // If root, no children, and keys are valid
-                    ret = true;
-                } else if (childrenSize < 2) {
-                    // Root should have zero or at least two children
-                    ret = false;
-                } else if (childrenSize > m_maxChildren) {
-                    ret = false;
-                }
-            } else {
-                // Non-root
-                if (numberOfEntries < m_minEntries) {
-                    ret = false;
-                } else if (numberOfEntries > m_maxEntries) {
-                    ret = false;
-                } else if (childrenSize == 0) {
-                    ret = true;
-                } else if (numberOfEntries != childrenSize - 1) {
-                    // If there are children, there should be one more child then keys
-                    ret = false;
-                } else if (childrenSize < m_minChildren) {
-                    ret = false;
-                } else if (childrenSize > m_maxChildren) {
-                    ret = false;
-                }
+        // Make sure the keys are sorted
+        for (int i = 1; i < numberOfEntries; i++) {
+            prev = p_node.getCID(i - 1);
+            next = p_node.getCID(i);
+            if (prev > next) {
+                return false;
             }
+        }
 
-            first = p_node.getChild(0);
-            // The first child's last key should be less than the node's first key
-            if (first.getCID(first.getNumberOfEntries() - 1) > p_node.getCID(0)) {
+        childrenSize = p_node.getNumberOfChildren();
+        if (p_node.getParent() == null) {
+            // Root
+            if (numberOfEntries > m_maxEntries) {
+                // Check max key size. Root does not have a minimum key size
+                ret = false;
+            } else if (childrenSize == 1) {
+                // Root should have zero or at least two children
                 ret = false;
             }
-
-            last = p_node.getChild(p_node.getNumberOfChildren() - 1);
-            // The last child's first key should be greater than the node's last key
-            if (last.getCID(0) < p_node.getCID(p_node.getNumberOfEntries() - 1)) {
+        } else {
+            // Non-root
+            if (numberOfEntries < m_minEntries) {
+                ret = false;
+            } else if (numberOfEntries > m_maxEntries) {
                 ret = false;
             }
+        }
 
-            // Check that each node's first and last key holds it's invariance
-            for (int i = 1; i < p_node.getNumberOfEntries(); i++) {
-                prev = p_node.getCID(i - 1);
-                next = p_node.getCID(i);
-                child = p_node.getChild(i);
-                if (prev > child.getCID(0)) {
-                    ret = false;
-                    break;
-                }
-                if (next < child.getCID(child.getNumberOfEntries() - 1)) {
-                    ret = false;
-                    break;
-                }
+        if (!ret || childrenSize == 0) {
+            return ret;
+        }
+
+        if (numberOfEntries != childrenSize - 1) {
+            // If there are children, there should be one more child then keys
+            return false;
+        } else if (p_node.getParent() != null && childrenSize < m_minChildren) {
+            return false;
+        } else if (childrenSize > m_maxChildren) {
+            return false;
+        }
+
+        first = p_node.getChild(0);
+        // The first child's last key should be less than the node's first key
+        if (first.getCID(first.getNumberOfEntries() - 1) > p_node.getCID(0)) {
+            ret = false;
+        }
+
+        last = p_node.getChild(p_node.getNumberOfChildren() - 1);
+        // The last child's first key should be greater than the node's last key
+        if (last.getCID(0) < p_node.getCID(p_node.getNumberOfEntries() - 1)) {
+            ret = false;
+        }
+
+        // Check that each node's first and last key holds it's invariance
+        for (int i = 1; i < p_node.getNumberOfEntries(); i++) {
+            prev = p_node.getCID(i - 1);
+            next = p_node.getCID(i);
+            child = p_node.getChild(i);
+            if (prev > child.getCID(0)) {
+                ret = false;
+                break;
+            }
+            if (next < child.getCID(child.getNumberOfEntries() - 1)) {
+                ret = false;
+                break;
             }
+        }
 
-            for (int i = 0; i < p_node.getNumberOfChildren(); i++) {
-                child = p_node.getChild(i);
-                if (!validateNode(child)) {
-                    ret = false;
-                    break;
-                }
+        for (int i = 0; i < p_node.getNumberOfChildren() && ret; i++) {
+            child = p_node.getChild(i);
+            if (child.getParent() != p_node || !validateNode(child)) {
+                ret = false;
             }
         }
 
@@ -1367,6 +1257,7 @@ public final class CacheTree {
         private short m_numberOfChildren;
 
         private long m_lastAccess;
+        private boolean m_referenced;
 
         // Constructors
 
@@ -1489,7 +1380,7 @@ public final class CacheTree {
         }
 
         /**
-         * Returns time of the last access
+         * Returns time of the last access registered by the TTLHandler
          *
          * @return the timestamp
          */
@@ -1497,6 +1388,23 @@ public final class CacheTree {
             return m_lastAccess;
         }
 
+        /**
+         * Clears the reference bit and updates the last access time if the node was accessed since the last check
+         *
+         * @param p_time
+         *         the current time
+         * @return whether the node was accessed since the last check
+         */
+        private boolean checkAndClearReferenced(final long p_time) {
+            if (m_referenced) {
+                m_referenced = false;
+                m_lastAccess = p_time;
+                return true;
+            }
+
+            return false;
+        }
+
         /**
          * Returns the number of entries
          *
@@ -1538,10 +1446,12 @@ public final class CacheTree {
         }
 
         /**
-         * Sets time of the last access
+         * Marks the node as accessed. Called on the read path: no timestamp and no write if already marked
          */
-        private void setLastAccess() {
-            m_lastAccess = System.currentTimeMillis();
+        private void setReferenced() {
+            if (!m_referenced) {
+                m_referenced = true;
+            }
         }
 
         /**
@@ -1983,7 +1893,11 @@ public final class CacheTree {
     }
 
     /**
-     * Manages the entry time-outs
+     * Manages the entry time-outs and the maximum cache size. Checks all leaf nodes periodically (CLOCK): nodes
+     * not accessed within the TTL are evicted. If the cache exceeds the maximum number of entries, nodes are evicted
+     * in ChunkID order starting where the last eviction stopped. Nodes accessed since the last check get a second
+     * chance, i.e. are evicted only if evicting all unaccessed nodes is not sufficient. Only the eviction itself takes
+     * the write lock.
      *
      * @author Florian Klein, florian.klein@hhu.de, 09.03.2012
      */
@@ -1994,9 +1908,18 @@ public final class CacheTree {
 
         // Attributes
         private long m_ttl;
+        private long m_maxCachedEntries;
 
         private volatile boolean m_running;
 
+        // Evictions in progress, collected during a check: first ChunkID, last ChunkID and number of entries
+        private final ArrayList<long[]> m_expired = new ArrayList<>();
+        private final ArrayList<long[]> m_unreferenced = new ArrayList<>();
+        private final ArrayList<long[]> m_referenced = new ArrayList<>();
+        private long m_previousCID;
+        private long[] m_previousRange;
+        private long m_clockHand;
+
         // Constructors
 
         /**
@@ -2004,49 +1927,28 @@ public final class CacheTree {
          *
          * @param p_ttl
          *         the TTL value
+         * @param p_maxCachedEntries
+         *         the maximum number of cache entries
          */
         TTLHandler(final long p_ttl, final long p_maxCachedEntries) {
             m_ttl = p_ttl;
+            m_maxCachedEntries = p_maxCachedEntries;
 
-            m_running = false;
+            m_running = true;
         }
 
         // Methods
 
-        /**
-         * When an object implementing interface {@code Runnable} is used
-         * to create a thread, starting the thread causes the object's {@code run} method to be called in that
-         * separately executing
-         * thread.
-         * The general contract of the method {@code run} is that it may take any action whatsoever.
-         *
-         * @see java.lang.Thread#run()
-         */
         @Override
         public void run() {
-            long time;
-            Node node;
-
-            m_running = true;
             while (m_running) {
                 try {
-                    Thread.sleep(SLEEP_TIME);
+                    Thread.sleep(Math.max(1, Math.min(SLEEP_TIME, m_ttl / 2)));
                 } catch (final InterruptedException ignored) {
                 }
 
                 if (m_running) {
-                    time = System.currentTimeMillis();
-
-                    m_lock.writeLock().lock();
-                    node = m_root;
-                    while (node != null && node.getNumberOfEntries() > 1) {
-                        if (time - node.getLastAccess() > m_ttl) {
-                            invalidateRange(node.getCID(0), node.getCID(node.getNumberOfEntries() - 1));
-                            break;
-                        }
-                        node = node.getChild(RandomUtils.getRandomValue(0, node.getNumberOfChildren()));
-                    }
-                    m_lock.writeLock().unlock();
+                    check();
                 }
             }
         }
@@ -2059,43 +1961,143 @@ public final class CacheTree {
         }
 
         /**
-         * Removes given range from btree
-         *
-         * @param p_startCID
-         *         the first ChunkID
-         * @param p_endCID
-         *         the last ChunkID
+         * Checks all leaf nodes and evicts expired ones and, if the cache is too large, unaccessed ones
          */
-        private void invalidateRange(final long p_startCID, final long p_endCID) {
-            Node node;
-            short startNodeID;
-            Entry successor;
+        private synchronized void check() {
+            long time = System.currentTimeMillis();
+            long entries;
+            int evicted = 0;
+
+            m_expired.clear();
+            m_unreferenced.clear();
+            m_referenced.clear();
+            m_previousCID = Long.MIN_VALUE;
+            m_previousRange = null;
+
+            m_lock.readLock().lock();
+            if (m_root != null) {
+                checkNode(m_root, time);
+            }
+            entries = m_size;
+            m_lock.readLock().unlock();
+
+            for (long[] range : m_expired) {
+                entries -= range[2];
+            }
 
-            if (p_startCID == p_endCID) {
+            entries = evictBySize(m_unreferenced, entries);
+            evictBySize(m_referenced, entries);
+
+            if (!m_expired.isEmpty()) {
                 m_lock.writeLock().lock();
-                removeEntry(p_startCID);
+                for (long[] range : m_expired) {
+                    evicted += evict(range[0], range[1]);
+                }
                 m_lock.writeLock().unlock();
-            } else {
-                m_lock.writeLock().lock();
-                // Remove all ranges between p_startCID and p_endCID (excluding p_startCID)
-                node = getNodeOrSuccessorsNode(p_endCID, false);
-                if (node.getCID(node.indexOf(p_endCID)) != ChunkID.INVALID_ID) {
-                    successor = getSuccessorsEntry(p_endCID, node);
-                    if (successor != null && successor.getNodeID() == NodeID.INVALID_ID) {
-                        remove(p_endCID);
-                    } else {
-                        node.changeEntry(p_endCID, NodeID.INVALID_ID, node.indexOf(p_endCID));
+
+                SOP_EVICTION.add(evicted);
+            }
+        }
+
+        /**
+         * Selects leaf nodes for eviction until the cache does not exceed the maximum number of entries anymore.
+         * Continues at the clock hand and wraps around
+         *
+         * @param p_candidates
+         *         the candidates, sorted by ChunkID
+         * @param p_entries
+         *         the number of cache entries left after all evictions selected so far
+         * @return the number of cache entries left
+         */
+        private long evictBySize(final ArrayList<long[]> p_candidates, final long p_entries) {
+            long entries = p_entries;
+            int first = 0;
+
+            if (entries <= m_maxCachedEntries || p_candidates.isEmpty()) {
+                return entries;
+            }
+
+            while (first < p_candidates.size() && p_candidates.get(first)[0] < m_clockHand) {
+                first++;
+            }
+
+            for (int i = 0; i < p_candidates.size() && entries > m_maxCachedEntries; i++) {
+                long[] range = p_candidates.get((first + i) % p_candidates.size());
+
+                m_expired.add(range);
+                entries -= range[2];
+                m_clockHand = range[1];
+            }
+
+            return entries;
+        }
+
+        /**
+         * Walks down the btree in ChunkID order and checks all leaf nodes
+         *
+         * @param p_node
+         *         the current node
+         * @param p_time
+         *         the current time
+         * @note assumes m_lock has been read-locked
+         */
+        private void checkNode(final Node p_node, final long p_time) {
+            if (p_node.getNumberOfChildren() > 0) {
+                for (int i = 0; i < p_node.getNumberOfChildren(); i++) {
+                    checkNode(p_node.getChild(i), p_time);
+
+                    if (i < p_node.getNumberOfEntries()) {
+                        // entries of inner nodes belong to the range of the leaf node in front of them
+                        m_previousCID = p_node.getCID(i);
+
+                        if (m_previousRange != null) {
+                            m_previousRange[1] = m_previousCID;
+                            m_previousRange[2]++;
+                        }
                     }
                 }
 
-                startNodeID = getNodeIDOrSuccessorsNodeID(p_startCID);
-                removeEntriesWithinRange(p_startCID, p_endCID);
-                if (startNodeID != NodeID.INVALID_ID) {
-                    createOrReplaceEntry(p_startCID, startNodeID);
-                }
-                m_lock.writeLock().unlock();
+                return;
+            }
+
+            if (p_node.getNumberOfEntries() == 0) {
+                return;
+            }
+
+            long[] range = {m_previousCID == Long.MIN_VALUE ? Long.MIN_VALUE : m_previousCID + 1,
+                    p_node.getCID(p_node.getNumberOfEntries() - 1), p_node.getNumberOfEntries()};
+            m_previousCID = range[1];
+            m_previousRange = range;
+
+            if (p_node.checkAndClearReferenced(p_time)) {
+                m_referenced.add(range);
+            } else if (p_time - p_node.getLastAccess() > m_ttl) {
+                m_expired.add(range);
+            } else {
+                m_unreferenced.add(range);
             }
         }
 
+        /**
+         * Removes all cached ranges ending within given range
+         *
+         * @param p_startCID
+         *         the first ChunkID
+         * @param p_endCID
+         *         the last ChunkID
+         * @return the number of evicted ranges
+         * @note assumes m_lock has been write-locked
+         */
+        private int evict(final long p_startCID, final long p_endCID) {
+            int ret = 0;
+            long chunkID = getCIDOrSuccessorsCID(p_startCID);
+
+            while (chunkID != Long.MAX_VALUE && chunkID <= p_endCID) {
+                ret += invalidateEntry(chunkID);
+                chunkID = getCIDOrSuccessorsCID(chunkID + 1);
+            }
+
+            return ret;
+        }
     }
 }
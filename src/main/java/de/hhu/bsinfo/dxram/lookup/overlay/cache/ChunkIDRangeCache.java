@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.lookup.overlay.cache;
+
+import de.hhu.bsinfo.dxram.lookup.LookupRange;
+
+/**
+ * Peer-side cache mapping ChunkID ranges to their primary peers
+ */
+public interface ChunkIDRangeCache {
+
+    /**
+     * Returns the primary peer for given object
+     *
+     * @param p_chunkID
+     *         ChunkID of requested object
+     * @return the NodeID of the primary peer for given object or NodeID.INVALID_ID if not cached
+     */
+    short getPrimaryPeer(long p_chunkID);
+
+    /**
+     * Returns the range given ChunkID is in
+     *
+     * @param p_chunkID
+     *         ChunkID of requested object
+     * @return the primary peer and the first and last ChunkID of the range or null if not cached
+     */
+    LookupRange getMetadata(long p_chunkID);
+
+    /**
+     * Caches a range
+     *
+     * @param p_startCID
+     *         the first ChunkID
+     * @param p_endCID
+     *         the last ChunkID
+     * @param p_nodeID
+     *         the primary peer
+     * @return true if insertion was successful
+     */
+    boolean cacheRange(long p_startCID, long p_endCID, short p_nodeID);
+
+    /**
+     * Caches multiple ranges at once
+     *
+     * @param p_startCIDs
+     *         the first ChunkIDs of the ranges
+     * @param p_endCIDs
+     *         the last ChunkIDs of the ranges
+     * @param p_nodeIDs
+     *         the primary peers of the ranges
+     * @param p_count
+     *         the number of ranges to cache
+     */
+    void cacheRanges(long[] p_startCIDs, long[] p_endCIDs, short[] p_nodeIDs, int p_count);
+
+    /**
+     * Removes given ChunkID from the cache
+     *
+     * @param p_chunkID
+     *         the ChunkID
+     */
+    void invalidateChunkID(long p_chunkID);
+
+    /**
+     * Removes all ChunkIDs of given range from the cache with a single update
+     *
+     * @param p_startCID
+     *         the first ChunkID
+     * @param p_endCID
+     *         the last ChunkID
+     */
+    void invalidateChunkIDRange(long p_startCID, long p_endCID);
+
+    /**
+     * Removes the cached range containing given ChunkID
+     *
+     * @param p_chunkID
+     *         the ChunkID
+     */
+    void invalidateRange(long p_chunkID);
+
+    /**
+     * Removes all ranges stored on given peer
+     *
+     * @param p_nodeID
+     *         the NodeID
+     */
+    void invalidatePeer(short p_nodeID);
+
+    /**
+     * Removes all cached ranges
+     */
+    void clear();
+
+    /**
+     * Returns the number of cache entries
+     *
+     * @return the number of cache entries
+     */
+    int size();
+
+    /**
+     * Stops all background activity of the cache
+     */
+    void close();
+}
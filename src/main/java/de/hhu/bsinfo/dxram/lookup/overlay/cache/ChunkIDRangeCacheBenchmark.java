@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.lookup.overlay.cache;
+
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares the lookup throughput of the ChunkID range cache implementations with an increasing number of threads
+ * (1 to 64). All ranges are cached upfront, i.e. every lookup is a cache hit.
+ */
+public final class ChunkIDRangeCacheBenchmark {
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32, 64};
+    private static final int WARMUP_ROUNDS = 2;
+
+    /**
+     * Hidden constructor
+     */
+    private ChunkIDRangeCacheBenchmark() {
+    }
+
+    /**
+     * Main
+     *
+     * @param p_args
+     *         program arguments
+     */
+    public static void main(final String[] p_args) throws Exception {
+        if (p_args.length != 3) {
+            System.out.println("Usage: num_creators num_ranges_per_creator num_lookups_per_thread");
+            System.exit(-1);
+        }
+
+        int creators = Integer.parseInt(p_args[0]);
+        int rangesPerCreator = Integer.parseInt(p_args[1]);
+        long lookups = Long.parseLong(p_args[2]);
+
+        ChunkIDRangeCache[] caches =
+                {new CacheTree((short) 10, 1000, Long.MAX_VALUE), new CopyOnWriteRangeCache(Long.MAX_VALUE)};
+
+        for (ChunkIDRangeCache cache : caches) {
+            fill(cache, creators, rangesPerCreator);
+
+            for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                run(cache, THREAD_COUNTS[THREAD_COUNTS.length - 1], lookups, creators, rangesPerCreator);
+            }
+
+            for (int threads : THREAD_COUNTS) {
+                double throughput = run(cache, threads, lookups, creators, rangesPerCreator);
+
+                System.out.printf("%s, %d threads: %f mops/sec\n", cache.getClass().getSimpleName(), threads,
+                        throughput / 1000.0 / 1000.0);
+            }
+
+            cache.close();
+        }
+    }
+
+    /**
+     * Caches ranges of 100 ChunkIDs each, alternating between two peers
+     *
+     * @param p_cache
+     *         the cache to fill
+     * @param p_creators
+     *         number of creators
+     * @param p_rangesPerCreator
+     *         number of ranges per creator
+     */
+    private static void fill(final ChunkIDRangeCache p_cache, final int p_creators, final int p_rangesPerCreator) {
+        for (int creator = 0; creator < p_creators; creator++) {
+            for (int range = 0; range < p_rangesPerCreator; range++) {
+                long start = ((long) creator << 48) + range * 100L + 1;
+
+                p_cache.cacheRange(start, start + 99, (short) (range % 2 + 1));
+            }
+        }
+    }
+
+    /**
+     * Runs random lookups on all threads
+     *
+     * @param p_cache
+     *         the cache to look up in
+     * @param p_threads
+     *         number of threads
+     * @param p_lookups
+     *         number of lookups per thread
+     * @param p_creators
+     *         number of creators cached
+     * @param p_rangesPerCreator
+     *         number of ranges per creator cached
+     * @return the total throughput in lookups per second
+     */
+    private static double run(final ChunkIDRangeCache p_cache, final int p_threads, final long p_lookups,
+            final int p_creators, final int p_rangesPerCreator) throws Exception {
+        Thread[] threads = new Thread[p_threads];
+        CyclicBarrier barrier = new CyclicBarrier(p_threads + 1);
+        AtomicLong misses = new AtomicLong(0);
+
+        for (int i = 0; i < p_threads; i++) {
+            threads[i] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long localMisses = 0;
+
+                try {
+                    barrier.await();
+                } catch (final Exception ignored) {
+                }
+
+                for (long j = 0; j < p_lookups; j++) {
+                    long chunkID = ((long) random.nextInt(p_creators) << 48) +
+                            random.nextLong(1, p_rangesPerCreator * 100L + 1);
+
+                    if (p_cache.getMetadata(chunkID) == null) {
+                        localMisses++;
+                    }
+                }
+
+                misses.addAndGet(localMisses);
+            });
+            threads[i].start();
+        }
+
+        barrier.await();
+        long start = System.nanoTime();
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        long time = System.nanoTime() - start;
+
+        if (misses.get() > 0) {
+            System.out.printf("Unexpected cache misses: %d\n", misses.get());
+        }
+
+        return (double) p_lookups * p_threads / time * 1000.0 * 1000.0 * 1000.0;
+    }
+}
@@ -0,0 +1,596 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.lookup.overlay.cache;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+import de.hhu.bsinfo.dxmem.data.ChunkID;
+import de.hhu.bsinfo.dxram.lookup.LookupRange;
+import de.hhu.bsinfo.dxram.lookup.LookupState;
+import de.hhu.bsinfo.dxutils.NodeID;
+
+/**
+ * Lock-free cache for ChunkID ranges. The ranges of every creator are stored in an immutable, sorted array which is
+ * replaced on every modification (copy on write). Lookups never block, only updates of the same creator contend with
+ * each other. Suited for read-mostly workloads with many application threads.
+ * The number of cached ranges is bounded. If exceeded, the ranges of creators not looked up recently are evicted
+ * (CLOCK with one reference bit per creator). If a single creator exceeds the bound, its ranges farthest from the
+ * last cached range are dropped.
+ */
+public final class CopyOnWriteRangeCache implements ChunkIDRangeCache {
+    private static final int MAX_CREATORS = 0x10000;
+
+    private final int m_maxEntries;
+
+    private final AtomicReferenceArray<Ranges> m_ranges = new AtomicReferenceArray<>(MAX_CREATORS);
+    private final AtomicInteger m_size = new AtomicInteger(0);
+    private final AtomicIntegerArray m_referenced = new AtomicIntegerArray(MAX_CREATORS);
+
+    // creators with cached ranges in clock order, guarded by m_clockLock
+    private final ReentrantLock m_clockLock = new ReentrantLock(false);
+    private final boolean[] m_inClock = new boolean[MAX_CREATORS];
+    private int[] m_clock = new int[16];
+    private int m_clockCount;
+    private int m_clockHand;
+
+    /**
+     * Creates an instance of CopyOnWriteRangeCache
+     *
+     * @param p_maxEntries
+     *         the maximum number of cached ranges
+     */
+    public CopyOnWriteRangeCache(final long p_maxEntries) {
+        m_maxEntries = (int) Math.max(1, Math.min(p_maxEntries, Integer.MAX_VALUE));
+    }
+
+    @Override
+    public short getPrimaryPeer(final long p_chunkID) {
+        Ranges ranges = m_ranges.get(ChunkID.getCreatorID(p_chunkID) & 0xFFFF);
+
+        if (ranges == null) {
+            return NodeID.INVALID_ID;
+        }
+
+        int index = ranges.indexOf(ChunkID.getLocalID(p_chunkID));
+
+        if (index < 0) {
+            return NodeID.INVALID_ID;
+        }
+
+        reference(ChunkID.getCreatorID(p_chunkID) & 0xFFFF);
+
+        return ranges.m_peers[index];
+    }
+
+    @Override
+    public LookupRange getMetadata(final long p_chunkID) {
+        Ranges ranges = m_ranges.get(ChunkID.getCreatorID(p_chunkID) & 0xFFFF);
+
+        if (ranges == null) {
+            return null;
+        }
+
+        int index = ranges.indexOf(ChunkID.getLocalID(p_chunkID));
+
+        if (index < 0) {
+            return null;
+        }
+
+        reference(ChunkID.getCreatorID(p_chunkID) & 0xFFFF);
+
+        long creator = p_chunkID & 0xFFFF000000000000L;
+
+        return new LookupRange(ranges.m_peers[index],
+                new long[] {creator + ranges.m_starts[index], creator + ranges.m_ends[index]}, LookupState.OK);
+    }
+
+    @Override
+    public boolean cacheRange(final long p_startCID, final long p_endCID, final short p_nodeID) {
+        assert ChunkID.getCreatorID(p_startCID) == ChunkID.getCreatorID(p_endCID);
+
+        int creator = ChunkID.getCreatorID(p_startCID) & 0xFFFF;
+        long start = ChunkID.getLocalID(p_startCID);
+        long end = ChunkID.getLocalID(p_endCID);
+        Ranges current;
+        Ranges updated;
+
+        do {
+            current = m_ranges.get(creator);
+
+            if (current != null && current.contains(start, end, p_nodeID)) {
+                // already cached, e.g. after concurrent lookups of the same range
+                return true;
+            }
+
+            updated = Ranges.replace(current, start, end, p_nodeID);
+        } while (!compareAndSet(creator, current, updated));
+
+        if (p_nodeID != NodeID.INVALID_ID) {
+            evict(creator, start);
+        }
+
+        return true;
+    }
+
+    @Override
+    public void cacheRanges(final long[] p_startCIDs, final long[] p_endCIDs, final short[] p_nodeIDs,
+            final int p_count) {
+        int i = 0;
+
+        while (i < p_count) {
+            int creator = ChunkID.getCreatorID(p_startCIDs[i]) & 0xFFFF;
+            int first = i;
+            Ranges current;
+            Ranges updated;
+
+            // ranges are usually grouped by creator, apply all consecutive ranges of a creator with one update
+            while (i < p_count && (ChunkID.getCreatorID(p_startCIDs[i]) & 0xFFFF) == creator) {
+                i++;
+            }
+
+            do {
+                current = m_ranges.get(creator);
+                updated = current;
+
+                for (int j = first; j < i; j++) {
+                    updated = Ranges.replace(updated, ChunkID.getLocalID(p_startCIDs[j]),
+                            ChunkID.getLocalID(p_endCIDs[j]), p_nodeIDs[j]);
+                }
+            } while (!compareAndSet(creator, current, updated));
+
+            evict(creator, ChunkID.getLocalID(p_startCIDs[i - 1]));
+        }
+    }
+
+    @Override
+    public void invalidateChunkID(final long p_chunkID) {
+        cacheRange(p_chunkID, p_chunkID, NodeID.INVALID_ID);
+    }
+
+    @Override
+    public void invalidateChunkIDRange(final long p_startCID, final long p_endCID) {
+        cacheRange(p_startCID, p_endCID, NodeID.INVALID_ID);
+    }
+
+    @Override
+    public void invalidateRange(final long p_chunkID) {
+        int creator = ChunkID.getCreatorID(p_chunkID) & 0xFFFF;
+        long localID = ChunkID.getLocalID(p_chunkID);
+        Ranges current;
+        Ranges updated;
+
+        do {
+            current = m_ranges.get(creator);
+
+            if (current == null) {
+                return;
+            }
+
+            int index = current.indexOf(localID);
+
+            if (index < 0) {
+                return;
+            }
+
+            updated = Ranges.replace(current, current.m_starts[index], current.m_ends[index], NodeID.INVALID_ID);
+        } while (!compareAndSet(creator, current, updated));
+    }
+
+    @Override
+    public void invalidatePeer(final short p_nodeID) {
+        for (int creator = 0; creator < MAX_CREATORS; creator++) {
+            Ranges current;
+            Ranges updated;
+
+            do {
+                current = m_ranges.get(creator);
+
+                if (current == null) {
+                    break;
+                }
+
+                updated = Ranges.removePeer(current, p_nodeID);
+            } while (!compareAndSet(creator, current, updated));
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (int creator = 0; creator < MAX_CREATORS; creator++) {
+            Ranges current;
+
+            do {
+                current = m_ranges.get(creator);
+
+                if (current == null) {
+                    break;
+                }
+            } while (!compareAndSet(creator, current, null));
+        }
+    }
+
+    @Override
+    public int size() {
+        return m_size.get();
+    }
+
+    @Override
+    public void close() {
+        // no background activity
+    }
+
+    /**
+     * Sets the reference bit of a creator. Only written if not set already to keep lookups free of shared writes
+     * in the common case
+     *
+     * @param p_creator
+     *         the creator
+     */
+    private void reference(final int p_creator) {
+        if (m_referenced.get(p_creator) == 0) {
+            m_referenced.lazySet(p_creator, 1);
+        }
+    }
+
+    /**
+     * Evicts ranges until the number of cached ranges does not exceed the maximum
+     *
+     * @param p_creator
+     *         the creator of the last cached range, evicted last
+     * @param p_localID
+     *         a LocalID of the last cached range, kept even if its creator exceeds the maximum on its own
+     */
+    private void evict(final int p_creator, final long p_localID) {
+        if (m_size.get() <= m_maxEntries) {
+            return;
+        }
+
+        m_clockLock.lock();
+        try {
+            // every creator is visited at most twice: once to clear its reference bit, once to evict it
+            int visits = 2 * m_clockCount;
+
+            while (m_size.get() > m_maxEntries && m_clockCount > 0 && visits-- > 0) {
+                if (m_clockHand >= m_clockCount) {
+                    m_clockHand = 0;
+                }
+
+                int creator = m_clock[m_clockHand];
+                Ranges current = m_ranges.get(creator);
+
+                if (current == null) {
+                    removeFromClock(m_clockHand);
+                } else if (creator == p_creator) {
+                    m_clockHand++;
+                } else if (m_referenced.get(creator) != 0) {
+                    // second chance
+                    m_referenced.set(creator, 0);
+                    m_clockHand++;
+                } else if (compareAndSet(creator, current, null)) {
+                    removeFromClock(m_clockHand);
+                }
+            }
+
+            // the creator of the last cached range exceeds the maximum on its own
+            Ranges current;
+            Ranges updated;
+
+            do {
+                current = m_ranges.get(p_creator);
+                int excess = m_size.get() - m_maxEntries;
+
+                if (current == null || excess <= 0) {
+                    break;
+                }
+
+                updated = current.trim(Math.max(1, current.size() - excess), p_localID);
+            } while (!compareAndSet(p_creator, current, updated));
+        } finally {
+            m_clockLock.unlock();
+        }
+    }
+
+    /**
+     * Adds a creator to the clock. Caller must hold the clock lock
+     *
+     * @param p_creator
+     *         the creator
+     */
+    private void addToClock(final int p_creator) {
+        if (m_inClock[p_creator]) {
+            return;
+        }
+
+        if (m_clockCount == m_clock.length) {
+            m_clock = Arrays.copyOf(m_clock, m_clock.length * 2);
+        }
+
+        m_clock[m_clockCount++] = p_creator;
+        m_inClock[p_creator] = true;
+        m_referenced.set(p_creator, 0);
+    }
+
+    /**
+     * Removes a creator from the clock by replacing it with the last one. Caller must hold the clock lock
+     *
+     * @param p_index
+     *         the index of the creator in the clock
+     */
+    private void removeFromClock(final int p_index) {
+        m_inClock[m_clock[p_index]] = false;
+        m_clock[p_index] = m_clock[--m_clockCount];
+    }
+
+    /**
+     * Replaces the ranges of a creator and updates the size
+     *
+     * @param p_creator
+     *         the creator
+     * @param p_expected
+     *         the ranges the update is based on
+     * @param p_new
+     *         the updated ranges
+     * @return true if the ranges were replaced, false if another update was faster
+     */
+    private boolean compareAndSet(final int p_creator, final Ranges p_expected, final Ranges p_new) {
+        if (p_expected == p_new) {
+            return true;
+        }
+
+        if (!m_ranges.compareAndSet(p_creator, p_expected, p_new)) {
+            return false;
+        }
+
+        m_size.addAndGet((p_new != null ? p_new.size() : 0) - (p_expected != null ? p_expected.size() : 0));
+
+        if (p_expected == null) {
+            // first ranges of the creator (again), new clock entry
+            m_clockLock.lock();
+            try {
+                addToClock(p_creator);
+            } finally {
+                m_clockLock.unlock();
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Immutable, sorted and non-overlapping LocalID ranges of a single creator
+     */
+    private static final class Ranges {
+        private final long[] m_starts;
+        private final long[] m_ends;
+        private final short[] m_peers;
+
+        /**
+         * Constructor
+         *
+         * @param p_starts
+         *         the first LocalIDs of the ranges
+         * @param p_ends
+         *         the last LocalIDs of the ranges
+         * @param p_peers
+         *         the primary peers of the ranges
+         */
+        private Ranges(final long[] p_starts, final long[] p_ends, final short[] p_peers) {
+            m_starts = p_starts;
+            m_ends = p_ends;
+            m_peers = p_peers;
+        }
+
+        /**
+         * Get the number of ranges
+         *
+         * @return the number of ranges
+         */
+        private int size() {
+            return m_starts.length;
+        }
+
+        /**
+         * Get the index of the range containing given LocalID
+         *
+         * @param p_localID
+         *         the LocalID
+         * @return the index or -1 if not cached
+         */
+        private int indexOf(final long p_localID) {
+            int index = Arrays.binarySearch(m_starts, p_localID);
+
+            if (index < 0) {
+                // index of the range with the greatest start smaller than the LocalID
+                index = -index - 2;
+            }
+
+            return index >= 0 && m_ends[index] >= p_localID ? index : -1;
+        }
+
+        /**
+         * Checks if a range is cached for given peer
+         *
+         * @param p_start
+         *         the first LocalID
+         * @param p_end
+         *         the last LocalID
+         * @param p_peer
+         *         the primary peer or NodeID.INVALID_ID to check if no LocalID of the range is cached
+         * @return true if the whole range is cached for the peer
+         */
+        private boolean contains(final long p_start, final long p_end, final short p_peer) {
+            int index = indexOf(p_start);
+
+            if (p_peer == NodeID.INVALID_ID) {
+                if (index >= 0) {
+                    return false;
+                }
+
+                // no range may start within the range
+                int next = Arrays.binarySearch(m_starts, p_start);
+                next = next < 0 ? -next - 1 : next;
+
+                return next >= size() || m_starts[next] > p_end;
+            }
+
+            return index >= 0 && m_peers[index] == p_peer && m_ends[index] >= p_end;
+        }
+
+        /**
+         * Creates new ranges with the given number of ranges around a LocalID
+         *
+         * @param p_keep
+         *         the number of ranges to keep
+         * @param p_localID
+         *         the LocalID
+         * @return the new ranges or the current ones if not more than p_keep ranges
+         */
+        private Ranges trim(final int p_keep, final long p_localID) {
+            if (size() <= p_keep) {
+                return this;
+            }
+
+            int index = Arrays.binarySearch(m_starts, p_localID);
+            index = index < 0 ? Math.max(0, -index - 2) : index;
+
+            int from = Math.max(0, Math.min(index - p_keep / 2, size() - p_keep));
+
+            return new Ranges(Arrays.copyOfRange(m_starts, from, from + p_keep),
+                    Arrays.copyOfRange(m_ends, from, from + p_keep), Arrays.copyOfRange(m_peers, from, from + p_keep));
+        }
+
+        /**
+         * Creates new ranges with the given range assigned to a peer. Overlapped ranges are cut and adjacent ranges
+         * of the same peer are merged
+         *
+         * @param p_ranges
+         *         the current ranges (might be null)
+         * @param p_start
+         *         the first LocalID
+         * @param p_end
+         *         the last LocalID
+         * @param p_peer
+         *         the primary peer or NodeID.INVALID_ID to remove the range
+         * @return the new ranges or null if empty
+         */
+        private static Ranges replace(final Ranges p_ranges, final long p_start, final long p_end,
+                final short p_peer) {
+            int size = p_ranges != null ? p_ranges.size() : 0;
+            Builder builder = new Builder(size + 2);
+
+            // pieces before the new range
+            for (int i = 0; i < size && p_ranges.m_starts[i] < p_start; i++) {
+                builder.add(p_ranges.m_starts[i], Math.min(p_ranges.m_ends[i], p_start - 1), p_ranges.m_peers[i]);
+            }
+
+            if (p_peer != NodeID.INVALID_ID) {
+                builder.add(p_start, p_end, p_peer);
+            }
+
+            // pieces after the new range
+            for (int i = 0; i < size; i++) {
+                if (p_ranges.m_ends[i] > p_end) {
+                    builder.add(Math.max(p_ranges.m_starts[i], p_end + 1), p_ranges.m_ends[i], p_ranges.m_peers[i]);
+                }
+            }
+
+            return builder.build();
+        }
+
+        /**
+         * Creates new ranges without all ranges of given peer
+         *
+         * @param p_ranges
+         *         the current ranges
+         * @param p_peer
+         *         the peer to remove
+         * @return the new ranges, the current ones if unchanged or null if empty
+         */
+        private static Ranges removePeer(final Ranges p_ranges, final short p_peer) {
+            Builder builder = new Builder(p_ranges.size());
+
+            for (int i = 0; i < p_ranges.size(); i++) {
+                if (p_ranges.m_peers[i] != p_peer) {
+                    builder.add(p_ranges.m_starts[i], p_ranges.m_ends[i], p_ranges.m_peers[i]);
+                }
+            }
+
+            return builder.m_count == p_ranges.size() ? p_ranges : builder.build();
+        }
+    }
+
+    /**
+     * Collects sorted ranges to create new Ranges
+     */
+    private static final class Builder {
+        private final long[] m_starts;
+        private final long[] m_ends;
+        private final short[] m_peers;
+        private int m_count;
+
+        /**
+         * Constructor
+         *
+         * @param p_capacity
+         *         the maximum number of ranges
+         */
+        private Builder(final int p_capacity) {
+            m_starts = new long[p_capacity];
+            m_ends = new long[p_capacity];
+            m_peers = new short[p_capacity];
+        }
+
+        /**
+         * Adds a range behind all ranges added before. Merges with the previous range if adjacent and on the
+         * same peer
+         *
+         * @param p_start
+         *         the first LocalID
+         * @param p_end
+         *         the last LocalID
+         * @param p_peer
+         *         the primary peer
+         */
+        private void add(final long p_start, final long p_end, final short p_peer) {
+            if (m_count > 0 && m_peers[m_count - 1] == p_peer && m_ends[m_count - 1] + 1 == p_start) {
+                m_ends[m_count - 1] = p_end;
+            } else {
+                m_starts[m_count] = p_start;
+                m_ends[m_count] = p_end;
+                m_peers[m_count++] = p_peer;
+            }
+        }
+
+        /**
+         * Creates the Ranges
+         *
+         * @return the Ranges or null if no range was added
+         */
+        private Ranges build() {
+            if (m_count == 0) {
+                return null;
+            }
+
+            return new Ranges(Arrays.copyOf(m_starts, m_count), Arrays.copyOf(m_ends, m_count),
+                    Arrays.copyOf(m_peers, m_count));
+        }
+    }
+}
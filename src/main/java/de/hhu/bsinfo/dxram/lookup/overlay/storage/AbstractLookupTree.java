@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.lookup.overlay.storage;
+
+import de.hhu.bsinfo.dxram.lookup.LookupRange;
+import de.hhu.bsinfo.dxutils.serialization.Exportable;
+import de.hhu.bsinfo.dxutils.serialization.Importable;
+
+/**
+ * Base class for the per peer storage of migrated ranges on superpeers. Every entry maps a LocalID to the NodeID
+ * storing all chunks from the predecessor's LocalID + 1 up to (including) this LocalID. Chunks without entry are
+ * stored on their creator.
+ * All implementations use the same serialization format (creator, order, number of entries and all pairs of LocalID
+ * and NodeID), i.e. superpeers using different implementations can exchange metadata.
+ */
+public abstract class AbstractLookupTree implements Importable, Exportable {
+
+    /**
+     * Creates a lookup tree of given type
+     *
+     * @param p_flat
+     *         true to create a FlatLookupTree, false for a (btree based) LookupTree
+     * @param p_order
+     *         order of the btree (ignored by FlatLookupTree but serialized)
+     * @param p_creator
+     *         the creator of all chunks stored in the tree
+     * @return the lookup tree
+     */
+    static AbstractLookupTree create(final boolean p_flat, final short p_order, final short p_creator) {
+        if (p_flat) {
+            return new FlatLookupTree(p_order, p_creator);
+        } else {
+            return new LookupTree(p_order, p_creator);
+        }
+    }
+
+    /**
+     * Returns whether getMetadata may run concurrently to modifications, i.e. it terminates and fails with a
+     * RuntimeException at worst if the tree is modified concurrently. The result must be validated afterwards
+     *
+     * @return true if lookups may be optimistic (without locking)
+     */
+    boolean supportsOptimisticReads() {
+        return false;
+    }
+
+    /**
+     * Returns the number of entries
+     *
+     * @return the number of entries
+     */
+    abstract int size();
+
+    /**
+     * Validates the tree
+     *
+     * @return whether the tree is valid or not
+     */
+    public abstract boolean validate();
+
+    /**
+     * Stores the migration for a single chunk
+     *
+     * @param p_chunkID
+     *         ChunkID of migrated object
+     * @param p_nodeID
+     *         new primary peer
+     * @return true if insertion was successful
+     */
+    abstract boolean migrate(long p_chunkID, short p_nodeID);
+
+    /**
+     * Stores the migration for a range
+     *
+     * @param p_startCID
+     *         ChunkID of first migrated object
+     * @param p_endCID
+     *         ChunkID of last migrated object
+     * @param p_nodeID
+     *         new primary peer
+     * @return true if insertion was successful
+     */
+    abstract boolean migrateRange(long p_startCID, long p_endCID, short p_nodeID);
+
+    /**
+     * Returns the range given ChunkID is in
+     *
+     * @param p_chunkID
+     *         ChunkID of requested object
+     * @return the first and last ChunkID of the range
+     */
+    abstract LookupRange getMetadata(long p_chunkID);
+
+    /**
+     * Removes given chunk from tree
+     *
+     * @param p_chunkID
+     *         ChunkID of deleted object
+     * @note should always be called if an object is deleted
+     */
+    abstract void remove(long p_chunkID);
+
+    /**
+     * Removes multiple chunks from tree
+     *
+     * @param p_chunkIDs
+     *         ChunkIDs of deleted objects
+     * @note should always be called if an object is deleted
+     */
+    void removeObjects(final long... p_chunkIDs) {
+        for (long chunkId : p_chunkIDs) {
+            remove(chunkId);
+        }
+    }
+}
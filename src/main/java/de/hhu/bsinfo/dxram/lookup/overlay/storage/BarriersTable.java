@@ -144,6 +144,26 @@ public class BarriersTable implements MetadataInterface {
         return Arrays.copyOfRange(data.array(), 0, currentSize);
     }
 
+    /**
+     * Serializes all barriers of a single creator (same format as receiveMetadataInRange)
+     *
+     * @param p_nodeId
+     *         the creator
+     * @return the serialized barriers or null if the creator has no barriers
+     */
+    byte[] receiveMetadata(final short p_nodeId) {
+        BarrierNode barrierNode;
+
+        barrierNode = m_barrierNodes[p_nodeId & 0xFFFF];
+        if (barrierNode == null) {
+            return null;
+        }
+
+        LOGGER.trace("Including barriers of 0x%X", p_nodeId);
+
+        return barrierNode.toByteArray();
+    }
+
     @Override
     public int removeMetadataOutsideOfRange(final short p_bound1, final short p_bound2) {
         int ret = 0;
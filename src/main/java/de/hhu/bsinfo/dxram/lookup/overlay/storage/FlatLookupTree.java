@@ -0,0 +1,805 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.lookup.overlay.storage;
+
+import java.util.Arrays;
+
+import de.hhu.bsinfo.dxmem.data.ChunkID;
+import de.hhu.bsinfo.dxram.lookup.LookupRange;
+import de.hhu.bsinfo.dxram.lookup.LookupState;
+import de.hhu.bsinfo.dxutils.NodeID;
+import de.hhu.bsinfo.dxutils.serialization.Exporter;
+import de.hhu.bsinfo.dxutils.serialization.Importer;
+
+/**
+ * Alternative to the LookupTree storing all entries in sorted primitive arrays. The entries are split into blocks of
+ * up to BLOCK_SIZE entries to bound the costs for inserting and removing entries. Compared to the btree, there are no
+ * objects per node or entry and no allocations on lookups, which reduces the heap usage and GC pressure on superpeers
+ * storing many (fine-grained) migrated ranges.
+ * The semantics and the serialization format are the same as for LookupTree.
+ */
+public final class FlatLookupTree extends AbstractLookupTree {
+
+    private static final int BLOCK_SIZE = 1024;
+    private static final int MIN_BLOCK_SIZE = BLOCK_SIZE / 4;
+    private static final int INITIAL_BLOCK_CAPACITY = 16;
+    private static final int INITIAL_NUMBER_OF_BLOCKS = 4;
+    private static final long NO_POSITION = -1;
+
+    // Attributes
+    private short m_order;
+    private short m_creator;
+
+    // Per block: sorted LocalIDs, corresponding NodeIDs, number of entries and last LocalID (for searching blocks)
+    private long[][] m_localIDs;
+    private short[][] m_nodeIDs;
+    private int[] m_blockSizes;
+    private long[] m_lastLocalIDs;
+    private int m_numberOfBlocks;
+
+    private int m_size;
+
+    // Set by put: whether an existing entry was replaced and its former NodeID
+    private boolean m_replaced;
+    private short m_replacedNodeID;
+
+    private int m_elementsInTree; // Used for serialization, only
+
+    // Constructors
+
+    /**
+     * Creates an instance of FlatLookupTree
+     *
+     * @param p_order
+     *         order of the btree, only used for serialization to be compatible with LookupTree
+     * @param p_creator
+     *         the creator
+     */
+    FlatLookupTree(final short p_order, final short p_creator) {
+        m_order = p_order;
+        m_creator = p_creator;
+
+        m_localIDs = new long[INITIAL_NUMBER_OF_BLOCKS][];
+        m_nodeIDs = new short[INITIAL_NUMBER_OF_BLOCKS][];
+        m_blockSizes = new int[INITIAL_NUMBER_OF_BLOCKS];
+        m_lastLocalIDs = new long[INITIAL_NUMBER_OF_BLOCKS];
+        m_numberOfBlocks = 0;
+
+        m_size = 0;
+    }
+
+    @Override
+    boolean supportsOptimisticReads() {
+        // Lookups only use binary searches on the arrays, all loops are bounded
+        return true;
+    }
+
+    @Override
+    int size() {
+        return m_size;
+    }
+
+    @Override
+    public void importObject(final Importer p_importer) {
+        m_creator = p_importer.readShort(m_creator);
+        m_order = p_importer.readShort(m_order);
+
+        m_elementsInTree = p_importer.readInt(m_elementsInTree);
+        for (int i = 0; i < m_elementsInTree; i++) {
+            long lid = p_importer.readLong(ChunkID.INVALID_ID);
+            short nid = p_importer.readShort(NodeID.INVALID_ID);
+
+            if (lid != ChunkID.INVALID_ID) {
+                put(lid, nid);
+            }
+        }
+    }
+
+    @Override
+    public void exportObject(final Exporter p_exporter) {
+        p_exporter.writeShort(m_creator);
+        p_exporter.writeShort(m_order);
+
+        if (m_size > 0) {
+            p_exporter.writeInt(m_size);
+
+            for (int i = 0; i < m_numberOfBlocks; i++) {
+                for (int j = 0; j < m_blockSizes[i]; j++) {
+                    p_exporter.writeLong(m_localIDs[i][j]);
+                    p_exporter.writeShort(m_nodeIDs[i][j]);
+                }
+            }
+        } else {
+            p_exporter.writeInt(-1);
+        }
+    }
+
+    @Override
+    public int sizeofObject() {
+        int ret = 2 * Short.BYTES + Integer.BYTES;
+
+        if (m_size > 0) {
+            ret += m_size * (Long.BYTES + Short.BYTES);
+        }
+
+        return ret;
+    }
+
+    @Override
+    public boolean validate() {
+        int size = 0;
+        long previous = -1;
+
+        for (int i = 0; i < m_numberOfBlocks; i++) {
+            if (m_blockSizes[i] == 0 || m_lastLocalIDs[i] != m_localIDs[i][m_blockSizes[i] - 1]) {
+                return false;
+            }
+
+            for (int j = 0; j < m_blockSizes[i]; j++) {
+                if (m_localIDs[i][j] <= previous) {
+                    return false;
+                }
+                previous = m_localIDs[i][j];
+            }
+
+            size += m_blockSizes[i];
+        }
+
+        return size == m_size;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder ret;
+
+        if (m_size == 0) {
+            return "Lookup tree has no entries";
+        }
+
+        ret = new StringBuilder();
+        ret.append("Size: ").append(m_size).append(", blocks: ").append(m_numberOfBlocks).append('\n');
+        for (int i = 0; i < m_numberOfBlocks; i++) {
+            for (int j = 0; j < m_blockSizes[i]; j++) {
+                ret.append(String.format("0x%X -> 0x%X\n", m_localIDs[i][j], m_nodeIDs[i][j]));
+            }
+        }
+
+        return ret.toString();
+    }
+
+    @Override
+    boolean migrate(final long p_chunkID, final short p_nodeID) {
+        long localID;
+
+        localID = p_chunkID & 0x0000FFFFFFFFFFFFL;
+
+        if (m_size == 0) {
+            put(ChunkID.MAX_LOCALID, m_creator);
+        }
+
+        put(localID, p_nodeID);
+
+        mergeWithPredecessorOrBound(localID, p_nodeID);
+
+        mergeWithSuccessor(localID, p_nodeID);
+
+        return true;
+    }
+
+    @Override
+    boolean migrateRange(final long p_startCID, final long p_endCID, final short p_nodeID) {
+        long startLID;
+        long endLID;
+
+        startLID = p_startCID & 0x0000FFFFFFFFFFFFL;
+        endLID = p_endCID & 0x0000FFFFFFFFFFFFL;
+        // end larger than start or start smaller than 1
+        assert startLID <= endLID && startLID > 0;
+
+        if (m_size == 0) {
+            put(ChunkID.MAX_LOCALID, m_creator);
+        }
+
+        if (startLID == endLID) {
+            migrate(p_startCID, p_nodeID);
+        } else {
+            put(startLID, p_nodeID);
+
+            mergeWithPredecessorOrBound(startLID, p_nodeID);
+
+            put(endLID, p_nodeID);
+
+            removeEntriesWithinRange(startLID, endLID);
+
+            mergeWithSuccessor(endLID, p_nodeID);
+        }
+
+        return true;
+    }
+
+    @Override
+    LookupRange getMetadata(final long p_chunkID) {
+        long localID;
+        long position;
+        long predecessor;
+        long[] range;
+
+        if (m_size == 0) {
+            // Lookup tree is empty -> no migrations
+            return new LookupRange(m_creator, new long[] {0, (long) (Math.pow(2, 48) - 1)}, LookupState.OK);
+        }
+
+        localID = p_chunkID & 0x0000FFFFFFFFFFFFL;
+        position = ceiling(localID);
+        if (position == NO_POSITION) {
+            // Behind the last entry -> not migrated
+            return new LookupRange(m_creator, new long[] {getLocalID(last()) + 1, (long) (Math.pow(2, 48) - 1)},
+                    LookupState.OK);
+        }
+
+        range = new long[2];
+        range[1] = getLocalID(position);
+
+        predecessor = previous(position);
+        if (predecessor != NO_POSITION) {
+            range[0] = getLocalID(predecessor) + 1;
+        } else {
+            range[0] = 0;
+        }
+
+        return new LookupRange(getNodeID(position), range, LookupState.OK);
+    }
+
+    @Override
+    void remove(final long p_chunkID) {
+        long localID;
+        long position;
+        long predecessor;
+        long successor;
+        long predecessorLID;
+        short predecessorNID;
+        short currentNID;
+        short successorNID;
+
+        if (m_size == 0) {
+            return;
+        }
+
+        localID = p_chunkID & 0x0000FFFFFFFFFFFFL;
+        position = ceiling(localID);
+        if (position == NO_POSITION) {
+            return;
+        }
+
+        if (getLocalID(position) == localID) {
+            // Entry was found
+            currentNID = getNodeID(position);
+            predecessor = previous(position);
+            if (m_creator != currentNID && predecessor != NO_POSITION) {
+                predecessorLID = getLocalID(predecessor);
+                predecessorNID = getNodeID(predecessor);
+                successor = next(position);
+                successorNID = successor != NO_POSITION ? getNodeID(successor) : m_creator;
+
+                // Successor is barrier: remove entry, otherwise the object is returned to its creator
+                if (m_creator == successorNID) {
+                    removeEntry(localID);
+                } else {
+                    put(localID, m_creator);
+                }
+
+                if (localID - 1 == predecessorLID) {
+                    if (m_creator == predecessorNID) {
+                        // Predecessor is barrier
+                        removeEntry(predecessorLID);
+                    }
+                } else {
+                    // Remaining objects of the range end one before the deleted object
+                    put(localID - 1, currentNID);
+                }
+            }
+        } else {
+            // Entry was not found
+            successorNID = getNodeID(position);
+            predecessor = previous(position);
+            if (m_creator != successorNID && predecessor != NO_POSITION) {
+                // Entry is in range
+                predecessorLID = getLocalID(predecessor);
+                predecessorNID = getNodeID(predecessor);
+
+                put(localID, m_creator);
+                if (localID - 1 == predecessorLID) {
+                    if (m_creator == predecessorNID) {
+                        // Predecessor is barrier
+                        removeEntry(localID - 1);
+                    }
+                } else {
+                    put(localID - 1, successorNID);
+                }
+            }
+        }
+    }
+
+    /**
+     * Merges the object or range with predecessor
+     *
+     * @param p_localID
+     *         the LocalID
+     * @param p_nodeID
+     *         the NodeID
+     */
+    private void mergeWithPredecessorOrBound(final long p_localID, final short p_nodeID) {
+        long predecessor;
+        long successor;
+        short successorNID;
+
+        predecessor = predecessor(p_localID);
+        if (predecessor == NO_POSITION) {
+            put(p_localID - 1, m_creator);
+        } else {
+            if (p_localID - 1 == getLocalID(predecessor)) {
+                if (p_nodeID == getNodeID(predecessor)) {
+                    removeAt(predecessor, 1);
+                }
+            } else {
+                if (!m_replaced) {
+                    // Successor is end of range
+                    successor = successor(p_localID);
+                    successorNID = getNodeID(successor);
+                    if (p_nodeID != successorNID) {
+                        put(p_localID - 1, successorNID);
+                    } else {
+                        // New Object is in range that already was migrated to the same destination
+                        removeEntry(p_localID);
+                    }
+                } else {
+                    if (p_nodeID != m_replacedNodeID) {
+                        put(p_localID - 1, m_replacedNodeID);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Merges the object or range with successor
+     *
+     * @param p_localID
+     *         the LocalID
+     * @param p_nodeID
+     *         the NodeID
+     */
+    private void mergeWithSuccessor(final long p_localID, final short p_nodeID) {
+        long successor;
+
+        successor = successor(p_localID);
+        if (successor != NO_POSITION && p_nodeID == getNodeID(successor)) {
+            removeEntry(p_localID);
+        }
+    }
+
+    /**
+     * Removes all entries between start (inclusive) and end (exclusive)
+     *
+     * @param p_start
+     *         the first object in range
+     * @param p_end
+     *         the last object in range
+     */
+    private void removeEntriesWithinRange(final long p_start, final long p_end) {
+        long position;
+        int block;
+        int from;
+        int to;
+
+        while (true) {
+            position = ceiling(p_start);
+            if (position == NO_POSITION) {
+                break;
+            }
+
+            // Remove all affected entries of this block at once
+            block = (int) (position >>> 32);
+            from = (int) position;
+            to = from;
+            while (to < m_blockSizes[block] && m_localIDs[block][to] < p_end) {
+                to++;
+            }
+
+            if (to == from) {
+                break;
+            }
+
+            removeAt(position, to - from);
+        }
+    }
+
+    /**
+     * Creates a new entry or replaces the NodeID of an existing one. Sets m_replaced and m_replacedNodeID
+     *
+     * @param p_localID
+     *         the LocalID
+     * @param p_nodeID
+     *         the NodeID
+     */
+    private void put(final long p_localID, final short p_nodeID) {
+        int block;
+        int index;
+        int size;
+
+        if (m_numberOfBlocks == 0) {
+            if (m_localIDs[0] == null) {
+                m_localIDs[0] = new long[INITIAL_BLOCK_CAPACITY];
+                m_nodeIDs[0] = new short[INITIAL_BLOCK_CAPACITY];
+            }
+            m_blockSizes[0] = 0;
+            m_numberOfBlocks = 1;
+        }
+
+        block = findBlock(p_localID);
+        if (block == m_numberOfBlocks) {
+            // Behind all entries (e.g. sorted import) -> append to last block
+            block--;
+            index = m_blockSizes[block];
+        } else {
+            index = Arrays.binarySearch(m_localIDs[block], 0, m_blockSizes[block], p_localID);
+            if (index >= 0) {
+                m_replaced = true;
+                m_replacedNodeID = m_nodeIDs[block][index];
+                m_nodeIDs[block][index] = p_nodeID;
+
+                return;
+            }
+            index = index * -1 - 1;
+        }
+        m_replaced = false;
+
+        if (m_blockSizes[block] == BLOCK_SIZE) {
+            splitBlock(block);
+            if (index > BLOCK_SIZE / 2) {
+                index -= BLOCK_SIZE / 2;
+                block++;
+            }
+        } else if (m_blockSizes[block] == m_localIDs[block].length) {
+            m_localIDs[block] = Arrays.copyOf(m_localIDs[block], Math.min(m_localIDs[block].length * 2, BLOCK_SIZE));
+            m_nodeIDs[block] = Arrays.copyOf(m_nodeIDs[block], m_localIDs[block].length);
+        }
+
+        size = m_blockSizes[block];
+        System.arraycopy(m_localIDs[block], index, m_localIDs[block], index + 1, size - index);
+        System.arraycopy(m_nodeIDs[block], index, m_nodeIDs[block], index + 1, size - index);
+        m_localIDs[block][index] = p_localID;
+        m_nodeIDs[block][index] = p_nodeID;
+        m_blockSizes[block]++;
+        m_size++;
+
+        if (index == size) {
+            m_lastLocalIDs[block] = p_localID;
+        }
+    }
+
+    /**
+     * Removes the entry of given LocalID, if there is one
+     *
+     * @param p_localID
+     *         the LocalID
+     */
+    private void removeEntry(final long p_localID) {
+        long position;
+
+        position = ceiling(p_localID);
+        if (position != NO_POSITION && getLocalID(position) == p_localID) {
+            removeAt(position, 1);
+        }
+    }
+
+    /**
+     * Removes consecutive entries of one block. Empty blocks are removed, small blocks merged with a neighbor
+     *
+     * @param p_position
+     *         the position of the first entry to remove
+     * @param p_count
+     *         the number of entries to remove (all within the same block)
+     */
+    private void removeAt(final long p_position, final int p_count) {
+        int block;
+        int index;
+        int size;
+
+        block = (int) (p_position >>> 32);
+        index = (int) p_position;
+        size = m_blockSizes[block];
+
+        System.arraycopy(m_localIDs[block], index + p_count, m_localIDs[block], index, size - index - p_count);
+        System.arraycopy(m_nodeIDs[block], index + p_count, m_nodeIDs[block], index, size - index - p_count);
+        size -= p_count;
+        m_blockSizes[block] = size;
+        m_size -= p_count;
+
+        if (size == 0) {
+            removeBlock(block);
+            return;
+        }
+
+        m_lastLocalIDs[block] = m_localIDs[block][size - 1];
+
+        if (size < MIN_BLOCK_SIZE) {
+            if (block + 1 < m_numberOfBlocks && size + m_blockSizes[block + 1] <= BLOCK_SIZE / 2) {
+                mergeBlocks(block);
+            } else if (block > 0 && size + m_blockSizes[block - 1] <= BLOCK_SIZE / 2) {
+                mergeBlocks(block - 1);
+            }
+        }
+    }
+
+    /**
+     * Splits a full block in two halves
+     *
+     * @param p_block
+     *         the block to split
+     */
+    private void splitBlock(final int p_block) {
+        int half = BLOCK_SIZE / 2;
+
+        insertBlock(p_block + 1);
+
+        m_localIDs[p_block + 1] = new long[BLOCK_SIZE];
+        m_nodeIDs[p_block + 1] = new short[BLOCK_SIZE];
+        System.arraycopy(m_localIDs[p_block], half, m_localIDs[p_block + 1], 0, BLOCK_SIZE - half);
+        System.arraycopy(m_nodeIDs[p_block], half, m_nodeIDs[p_block + 1], 0, BLOCK_SIZE - half);
+        m_blockSizes[p_block + 1] = BLOCK_SIZE - half;
+        m_lastLocalIDs[p_block + 1] = m_lastLocalIDs[p_block];
+
+        m_blockSizes[p_block] = half;
+        m_lastLocalIDs[p_block] = m_localIDs[p_block][half - 1];
+    }
+
+    /**
+     * Appends the entries of the successor block to given block and removes the successor block
+     *
+     * @param p_block
+     *         the block to merge with its successor
+     */
+    private void mergeBlocks(final int p_block) {
+        int size = m_blockSizes[p_block];
+        int nextSize = m_blockSizes[p_block + 1];
+
+        if (m_localIDs[p_block].length < size + nextSize) {
+            m_localIDs[p_block] = Arrays.copyOf(m_localIDs[p_block], BLOCK_SIZE);
+            m_nodeIDs[p_block] = Arrays.copyOf(m_nodeIDs[p_block], BLOCK_SIZE);
+        }
+
+        System.arraycopy(m_localIDs[p_block + 1], 0, m_localIDs[p_block], size, nextSize);
+        System.arraycopy(m_nodeIDs[p_block + 1], 0, m_nodeIDs[p_block], size, nextSize);
+        m_blockSizes[p_block] = size + nextSize;
+        m_lastLocalIDs[p_block] = m_lastLocalIDs[p_block + 1];
+
+        removeBlock(p_block + 1);
+    }
+
+    /**
+     * Inserts an empty block
+     *
+     * @param p_block
+     *         the index of the new block
+     */
+    private void insertBlock(final int p_block) {
+        int moved = m_numberOfBlocks - p_block;
+
+        if (m_numberOfBlocks == m_localIDs.length) {
+            int capacity = m_localIDs.length * 2;
+
+            m_localIDs = Arrays.copyOf(m_localIDs, capacity);
+            m_nodeIDs = Arrays.copyOf(m_nodeIDs, capacity);
+            m_blockSizes = Arrays.copyOf(m_blockSizes, capacity);
+            m_lastLocalIDs = Arrays.copyOf(m_lastLocalIDs, capacity);
+        }
+
+        System.arraycopy(m_localIDs, p_block, m_localIDs, p_block + 1, moved);
+        System.arraycopy(m_nodeIDs, p_block, m_nodeIDs, p_block + 1, moved);
+        System.arraycopy(m_blockSizes, p_block, m_blockSizes, p_block + 1, moved);
+        System.arraycopy(m_lastLocalIDs, p_block, m_lastLocalIDs, p_block + 1, moved);
+        m_numberOfBlocks++;
+    }
+
+    /**
+     * Removes a block
+     *
+     * @param p_block
+     *         the index of the block to remove
+     */
+    private void removeBlock(final int p_block) {
+        int moved = m_numberOfBlocks - p_block - 1;
+
+        System.arraycopy(m_localIDs, p_block + 1, m_localIDs, p_block, moved);
+        System.arraycopy(m_nodeIDs, p_block + 1, m_nodeIDs, p_block, moved);
+        System.arraycopy(m_blockSizes, p_block + 1, m_blockSizes, p_block, moved);
+        System.arraycopy(m_lastLocalIDs, p_block + 1, m_lastLocalIDs, p_block, moved);
+        m_numberOfBlocks--;
+
+        // Keep the arrays of the last block if the tree is empty now
+        if (m_numberOfBlocks > 0) {
+            m_localIDs[m_numberOfBlocks] = null;
+            m_nodeIDs[m_numberOfBlocks] = null;
+        }
+    }
+
+    /**
+     * Returns the first block containing a LocalID greater than or equal to given LocalID
+     *
+     * @param p_localID
+     *         the LocalID
+     * @return the block or m_numberOfBlocks if all LocalIDs are smaller
+     */
+    private int findBlock(final long p_localID) {
+        int low = 0;
+        int high = m_numberOfBlocks - 1;
+
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+
+            if (m_lastLocalIDs[mid] < p_localID) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Returns the position of given LocalID or its successor
+     *
+     * @param p_localID
+     *         the LocalID
+     * @return the position or NO_POSITION if all LocalIDs are smaller
+     */
+    private long ceiling(final long p_localID) {
+        int block;
+        int index;
+
+        block = findBlock(p_localID);
+        if (block == m_numberOfBlocks) {
+            return NO_POSITION;
+        }
+
+        index = Arrays.binarySearch(m_localIDs[block], 0, m_blockSizes[block], p_localID);
+        if (index < 0) {
+            index = index * -1 - 1;
+        }
+
+        return position(block, index);
+    }
+
+    /**
+     * Returns the position of the predecessor (the greatest LocalID smaller than given LocalID)
+     *
+     * @param p_localID
+     *         the LocalID
+     * @return the position or NO_POSITION if there is no predecessor
+     */
+    private long predecessor(final long p_localID) {
+        long position;
+
+        position = ceiling(p_localID);
+        if (position == NO_POSITION) {
+            return last();
+        }
+
+        return previous(position);
+    }
+
+    /**
+     * Returns the position of the successor (the smallest LocalID greater than given LocalID)
+     *
+     * @param p_localID
+     *         the LocalID
+     * @return the position or NO_POSITION if there is no successor
+     */
+    private long successor(final long p_localID) {
+        return ceiling(p_localID + 1);
+    }
+
+    /**
+     * Returns the position of the last entry
+     *
+     * @return the position or NO_POSITION if the tree is empty
+     */
+    private long last() {
+        if (m_size == 0) {
+            return NO_POSITION;
+        }
+
+        return position(m_numberOfBlocks - 1, m_blockSizes[m_numberOfBlocks - 1] - 1);
+    }
+
+    /**
+     * Returns the position before given position
+     *
+     * @param p_position
+     *         the position
+     * @return the previous position or NO_POSITION for the first entry
+     */
+    private long previous(final long p_position) {
+        int block = (int) (p_position >>> 32);
+        int index = (int) p_position;
+
+        if (index > 0) {
+            return position(block, index - 1);
+        } else if (block > 0) {
+            return position(block - 1, m_blockSizes[block - 1] - 1);
+        }
+
+        return NO_POSITION;
+    }
+
+    /**
+     * Returns the position after given position
+     *
+     * @param p_position
+     *         the position
+     * @return the next position or NO_POSITION for the last entry
+     */
+    private long next(final long p_position) {
+        int block = (int) (p_position >>> 32);
+        int index = (int) p_position;
+
+        if (index + 1 < m_blockSizes[block]) {
+            return position(block, index + 1);
+        } else if (block + 1 < m_numberOfBlocks) {
+            return position(block + 1, 0);
+        }
+
+        return NO_POSITION;
+    }
+
+    /**
+     * Returns the LocalID stored at given position
+     *
+     * @param p_position
+     *         the position
+     * @return the LocalID
+     */
+    private long getLocalID(final long p_position) {
+        return m_localIDs[(int) (p_position >>> 32)][(int) p_position];
+    }
+
+    /**
+     * Returns the NodeID stored at given position
+     *
+     * @param p_position
+     *         the position
+     * @return the NodeID
+     */
+    private short getNodeID(final long p_position) {
+        return m_nodeIDs[(int) (p_position >>> 32)][(int) p_position];
+    }
+
+    /**
+     * Combines block and index to a position
+     *
+     * @param p_block
+     *         the block
+     * @param p_index
+     *         the index within the block
+     * @return the position
+     */
+    private static long position(final int p_block, final int p_index) {
+        return (long) p_block << 32 | p_index;
+    }
+}
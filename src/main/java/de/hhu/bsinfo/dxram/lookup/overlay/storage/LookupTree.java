@@ -22,9 +22,7 @@ import de.hhu.bsinfo.dxmem.data.ChunkID;
 import de.hhu.bsinfo.dxram.lookup.LookupRange;
 import de.hhu.bsinfo.dxram.lookup.LookupState;
 import de.hhu.bsinfo.dxutils.NodeID;
-import de.hhu.bsinfo.dxutils.serialization.Exportable;
 import de.hhu.bsinfo.dxutils.serialization.Exporter;
-import de.hhu.bsinfo.dxutils.serialization.Importable;
 import de.hhu.bsinfo.dxutils.serialization.Importer;
 
 /**
@@ -33,7 +31,7 @@ import de.hhu.bsinfo.dxutils.serialization.Importer;
  * @author Kevin Beineke, kevin.beineke@hhu.de, 13.06.2013
  * @author Michael Birkhoff, michael.birkhoff@hhu.de
  */
-public final class LookupTree implements Serializable, Importable, Exportable {
+public final class LookupTree extends AbstractLookupTree implements Serializable {
 
     private static final long serialVersionUID = -3992560499375457216L;
 
@@ -343,6 +341,11 @@ public final class LookupTree implements Serializable, Importable, Exportable {
         return ret;
     }
 
+    @Override
+    int size() {
+        return m_size;
+    }
+
     @Override
     public void importObject(final Importer p_importer) {
         m_creator = p_importer.readShort(m_creator);
@@ -403,7 +406,7 @@ public final class LookupTree implements Serializable, Importable, Exportable {
      *
      * @return whether the tree is valid or not
      */
-    @SuppressWarnings("unused")
+    @Override
     public boolean validate() {
         boolean ret = true;
 
@@ -441,6 +444,7 @@ public final class LookupTree implements Serializable, Importable, Exportable {
      *         new primary peer
      * @return true if insertion was successful
      */
+    @Override
     boolean migrate(final long p_chunkID, final short p_nodeID) {
         long localID;
         Node node;
@@ -471,6 +475,7 @@ public final class LookupTree implements Serializable, Importable, Exportable {
      *         new primary peer
      * @return true if insertion was successful
      */
+    @Override
     boolean migrateRange(final long p_startCID, final long p_endCID, final short p_nodeID) {
         long startLID;
         long endLID;
@@ -508,6 +513,7 @@ public final class LookupTree implements Serializable, Importable, Exportable {
      *         ChunkID of requested object
      * @return the first and last ChunkID of the range
      */
+    @Override
     LookupRange getMetadata(final long p_chunkID) {
         LookupRange ret;
         long[] range;
@@ -522,15 +528,10 @@ public final class LookupTree implements Serializable, Importable, Exportable {
             node = getNodeOrSuccessorsNode(localID);
             index = node.indexOf(localID);
             if (index >= 0) {
-                // LocalID was found: Store NodeID and determine successor
+                // LocalID was found: The entry is the end of the range
                 range = new long[2];
                 nodeID = node.getNodeID(index);
-                Entry successor = getSuccessorsEntry(localID, node);
-                if (successor != null) {
-                    range[1] = successor.getLocalID();
-                } else {
-                    range[1] = localID;
-                }
+                range[1] = localID;
             } else {
                 // LocalID was not found, but successor: Store NodeID and LocalID of successor
                 range = new long[2];
@@ -553,20 +554,6 @@ public final class LookupTree implements Serializable, Importable, Exportable {
         return ret;
     }
 
-    /**
-     * Removes multiple chunks from btree
-     *
-     * @param p_chunkIDs
-     *         ChunkIDs of deleted objects
-     * @note should always be called if an object is deleted
-     */
-
-    void removeObjects(final long... p_chunkIDs) {
-        for (long chunkId : p_chunkIDs) {
-            remove(chunkId);
-        }
-    }
-
     /**
      * Removes given chunk from btree
      *
@@ -574,6 +561,7 @@ public final class LookupTree implements Serializable, Importable, Exportable {
      *         ChunkID of deleted object
      * @note should always be called if an object is deleted
      */
+    @Override
     void remove(final long p_chunkID) {
         int index;
         Node node;
@@ -0,0 +1,196 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.lookup.overlay.storage;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ThreadLocalRandom;
+
+import de.hhu.bsinfo.dxram.lookup.LookupRange;
+import de.hhu.bsinfo.dxram.lookup.overlay.OverlayHelper;
+
+/**
+ * Compares the lookup tree implementations of superpeers: time to store the migrated ranges, heap usage, lookup
+ * throughput and GC activity during the lookups. The ranges are migrated in random order and alternate between two
+ * peers, i.e. every range is stored as a separate entry (e.g. 10,000,000 ranges for a superpeer with heavy
+ * fine-grained migration).
+ * Run with a sufficient heap size (e.g. -Xmx8g for 10,000,000 ranges).
+ */
+public final class LookupTreeBenchmark {
+    private static final short CREATOR = 0x1;
+    private static final short[] TARGETS = {0x2, 0x3};
+    private static final int CHUNKS_PER_RANGE = 10;
+
+    /**
+     * Hidden constructor
+     */
+    private LookupTreeBenchmark() {
+    }
+
+    /**
+     * Main
+     *
+     * @param p_args
+     *         program arguments
+     */
+    public static void main(final String[] p_args) {
+        if (p_args.length < 2) {
+            System.out.println("Usage: num_ranges num_lookups [BTree|Flat]");
+            System.exit(-1);
+        }
+
+        int ranges = Integer.parseInt(p_args[0]);
+        long lookups = Long.parseLong(p_args[1]);
+
+        if (p_args.length < 3 || "BTree".equalsIgnoreCase(p_args[2])) {
+            run(false, ranges, lookups);
+        }
+
+        if (p_args.length < 3 || "Flat".equalsIgnoreCase(p_args[2])) {
+            run(true, ranges, lookups);
+        }
+    }
+
+    /**
+     * Runs the benchmark for one implementation
+     *
+     * @param p_flat
+     *         true to benchmark the FlatLookupTree, false for the LookupTree
+     * @param p_ranges
+     *         the number of ranges to store
+     * @param p_lookups
+     *         the number of lookups
+     */
+    private static void run(final boolean p_flat, final int p_ranges, final long p_lookups) {
+        AbstractLookupTree tree;
+        long heapBefore;
+        long heapAfter;
+        long start;
+        long buildTime;
+        long lookupTime;
+        long gcCount;
+        long gcTime;
+        long errors = 0;
+        int[] order;
+
+        order = shuffledOrder(p_ranges);
+
+        heapBefore = usedHeap();
+        tree = AbstractLookupTree.create(p_flat, OverlayHelper.ORDER, CREATOR);
+
+        start = System.nanoTime();
+        for (int range : order) {
+            long first = ((long) CREATOR << 48) + (long) range * CHUNKS_PER_RANGE + 1;
+
+            tree.migrateRange(first, first + CHUNKS_PER_RANGE - 1, TARGETS[range % 2]);
+        }
+        buildTime = System.nanoTime() - start;
+
+        // Release the order before measuring the heap
+        order = null;
+        heapAfter = usedHeap();
+
+        gcCount = gcCount();
+        gcTime = gcTime();
+        start = System.nanoTime();
+        for (long i = 0; i < p_lookups; i++) {
+            long localID = ThreadLocalRandom.current().nextLong((long) p_ranges * CHUNKS_PER_RANGE) + 1;
+            LookupRange range = tree.getMetadata((long) CREATOR << 48 | localID);
+
+            if (range.getPrimaryPeer() != TARGETS[(int) ((localID - 1) / CHUNKS_PER_RANGE % 2)]) {
+                errors++;
+            }
+        }
+        lookupTime = System.nanoTime() - start;
+        gcCount = gcCount() - gcCount;
+        gcTime = gcTime() - gcTime;
+
+        String name = tree.getClass().getSimpleName();
+        System.out.printf("%s, %d ranges (%d entries): build %f sec, heap %f MB, %f bytes/entry\n", name, p_ranges,
+                tree.size(), buildTime / 1000.0 / 1000.0 / 1000.0, (heapAfter - heapBefore) / 1024.0 / 1024.0,
+                (double) (heapAfter - heapBefore) / tree.size());
+        System.out.printf("%s, %d lookups: %f mops/sec, %d errors, %d GCs (%d ms)\n", name, p_lookups,
+                p_lookups / (lookupTime / 1000.0), errors, gcCount, gcTime);
+        System.out.printf("%s, serialized size: %d bytes\n", name, tree.sizeofObject());
+    }
+
+    /**
+     * Returns all range indices in random order
+     *
+     * @param p_ranges
+     *         the number of ranges
+     * @return the shuffled indices
+     */
+    private static int[] shuffledOrder(final int p_ranges) {
+        int[] ret = new int[p_ranges];
+
+        for (int i = 0; i < p_ranges; i++) {
+            ret[i] = i;
+        }
+
+        for (int i = p_ranges - 1; i > 0; i--) {
+            int j = ThreadLocalRandom.current().nextInt(i + 1);
+            int tmp = ret[i];
+
+            ret[i] = ret[j];
+            ret[j] = tmp;
+        }
+
+        return ret;
+    }
+
+    /**
+     * Returns the used heap after a full GC
+     *
+     * @return the used heap in bytes
+     */
+    private static long usedHeap() {
+        System.gc();
+
+        return Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+    }
+
+    /**
+     * Returns the number of GCs of all collectors
+     *
+     * @return the number of GCs
+     */
+    private static long gcCount() {
+        long ret = 0;
+
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            ret += Math.max(0, bean.getCollectionCount());
+        }
+
+        return ret;
+    }
+
+    /**
+     * Returns the accumulated GC time of all collectors
+     *
+     * @return the GC time in ms
+     */
+    private static long gcTime() {
+        long ret = 0;
+
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            ret += Math.max(0, bean.getCollectionTime());
+        }
+
+        return ret;
+    }
+}
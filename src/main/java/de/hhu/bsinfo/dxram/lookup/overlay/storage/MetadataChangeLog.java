@@ -0,0 +1,227 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.lookup.overlay.storage;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Bounded log of the latest modifications of a metadata table. Every modification increments the version. Other
+ * superpeers remember the epoch and version they synchronized last and request the changes since then, only. If the
+ * changes are not available anymore (log overflow, modification which cannot be logged, different epoch), a full
+ * transfer is necessary.
+ * The log is not thread-safe, it must be guarded by the lock of the table it belongs to.
+ */
+final class MetadataChangeLog {
+
+    static final byte OPERATION_REMOVE = 0;
+    static final byte OPERATION_MIGRATE = 1;
+    static final byte OPERATION_MIGRATE_RANGE = 2;
+    static final byte OPERATION_PUT = 3;
+
+    static final int SIZE_OF_CHANGE = Byte.BYTES + 2 * Long.BYTES + Short.BYTES;
+
+    // Attributes
+    private final int m_capacity;
+    private final long m_epoch;
+    private long m_version;
+    private long m_oldestVersion;
+
+    private byte[] m_operations;
+    private long[] m_firsts;
+    private long[] m_lasts;
+    private short[] m_owners;
+
+    // Constructors
+
+    /**
+     * Creates an instance of MetadataChangeLog
+     *
+     * @param p_capacity
+     *         the maximum number of logged changes
+     */
+    MetadataChangeLog(final int p_capacity) {
+        long epoch;
+
+        m_capacity = p_capacity;
+
+        // Epoch 0 is reserved for "never synchronized"
+        do {
+            epoch = ThreadLocalRandom.current().nextLong();
+        } while (epoch == 0);
+        m_epoch = epoch;
+    }
+
+    // Getters
+
+    /**
+     * Returns the epoch identifying this log (changes when the table is recreated)
+     *
+     * @return the epoch
+     */
+    long getEpoch() {
+        return m_epoch;
+    }
+
+    /**
+     * Returns the current version
+     *
+     * @return the version
+     */
+    long getVersion() {
+        return m_version;
+    }
+
+    /**
+     * Returns the operation of given change
+     *
+     * @param p_version
+     *         the version of the change
+     * @return the operation
+     */
+    byte getOperation(final long p_version) {
+        return m_operations[getIndex(p_version)];
+    }
+
+    /**
+     * Returns the first value (ChunkID or nameservice ID) of given change
+     *
+     * @param p_version
+     *         the version of the change
+     * @return the first value
+     */
+    long getFirst(final long p_version) {
+        return m_firsts[getIndex(p_version)];
+    }
+
+    /**
+     * Returns the second value (last ChunkID or ChunkID of nameservice entry) of given change
+     *
+     * @param p_version
+     *         the version of the change
+     * @return the second value
+     */
+    long getLast(final long p_version) {
+        return m_lasts[getIndex(p_version)];
+    }
+
+    /**
+     * Returns the owner of given change
+     *
+     * @param p_version
+     *         the version of the change
+     * @return the owner
+     */
+    short getOwner(final long p_version) {
+        return m_owners[getIndex(p_version)];
+    }
+
+    // Methods
+
+    /**
+     * Returns the number of changes since given version
+     *
+     * @param p_epoch
+     *         the epoch the version belongs to
+     * @param p_version
+     *         the last synchronized version
+     * @return the number of changes or -1 if the changes are not available (full transfer necessary)
+     */
+    int getNumberOfChangesSince(final long p_epoch, final long p_version) {
+        if (p_epoch != m_epoch || p_version < m_oldestVersion || p_version > m_version) {
+            return -1;
+        }
+
+        return (int) (m_version - p_version);
+    }
+
+    /**
+     * Appends a change
+     *
+     * @param p_operation
+     *         the operation
+     * @param p_first
+     *         the first value
+     * @param p_last
+     *         the second value
+     * @param p_owner
+     *         the owner
+     */
+    void append(final byte p_operation, final long p_first, final long p_last, final short p_owner) {
+        int index;
+
+        if (m_operations == null) {
+            // Allocate lazily as many tables are never modified after creation
+            m_operations = new byte[m_capacity];
+            m_firsts = new long[m_capacity];
+            m_lasts = new long[m_capacity];
+            m_owners = new short[m_capacity];
+        }
+
+        m_version++;
+        index = getIndex(m_version);
+        m_operations[index] = p_operation;
+        m_firsts[index] = p_first;
+        m_lasts[index] = p_last;
+        m_owners[index] = p_owner;
+
+        if (m_version - m_oldestVersion > m_capacity) {
+            m_oldestVersion = m_version - m_capacity;
+        }
+    }
+
+    /**
+     * Registers a modification which cannot be logged. All superpeers synchronized to an older version need a full
+     * transfer
+     */
+    void invalidate() {
+        m_version++;
+        m_oldestVersion = m_version;
+    }
+
+    /**
+     * Writes all changes since given version to given byte buffer
+     *
+     * @param p_version
+     *         the last synchronized version (changes must be available)
+     * @param p_data
+     *         the ByteBuffer
+     */
+    void writeChangesSince(final long p_version, final ByteBuffer p_data) {
+        int index;
+
+        for (long version = p_version + 1; version <= m_version; version++) {
+            index = getIndex(version);
+            p_data.put(m_operations[index]);
+            p_data.putLong(m_firsts[index]);
+            p_data.putLong(m_lasts[index]);
+            p_data.putShort(m_owners[index]);
+        }
+    }
+
+    /**
+     * Returns the index in the ring buffer of given version
+     *
+     * @param p_version
+     *         the version
+     * @return the index
+     */
+    private int getIndex(final long p_version) {
+        return (int) ((p_version - 1) % m_capacity);
+    }
+
+}
@@ -0,0 +1,362 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.lookup.overlay.storage;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReadWriteLock;
+
+import de.hhu.bsinfo.dxram.lookup.overlay.OverlayHelper;
+
+/**
+ * Serializes the metadata of an area in chunks of bounded size to hand it over to another superpeer without
+ * materializing all metadata at once. Every chunk has the format expected by MetadataHandler.storeMetadata and
+ * contains entries of one table, only. A chunk might exceed the chunk size if a single storage, barrier set or
+ * lookup tree is larger.
+ * The tables are locked per chunk, only. Modifications between two chunks are either included or repaired by the
+ * backup synchronization.
+ */
+public final class MetadataChunkIterator {
+
+    private static final int HEADER_SIZE = 4 * Integer.BYTES;
+
+    private static final int PHASE_NAMESERVICE = 0;
+    private static final int PHASE_STORAGES = 1;
+    private static final int PHASE_BARRIERS = 2;
+    private static final int PHASE_LOOKUP_TREES = 3;
+    private static final int PHASE_DONE = 4;
+
+    // Attributes
+    private final NameserviceHashTable m_nameservice;
+    private final ReadWriteLock m_nameserviceLock;
+    private final SuperpeerStorage m_storage;
+    private final ReadWriteLock m_storageLock;
+    private final BarriersTable m_barriers;
+    private final ReadWriteLock m_barriersLock;
+    private final AtomicReferenceArray<PeerHandler> m_peerHandlers;
+    private final short[] m_peers;
+
+    private final short m_beginOfArea;
+    private final short m_endOfArea;
+    private final int m_chunkSize;
+
+    private int m_phase;
+    private int m_index;
+    private int m_nameserviceCapacity;
+    private int m_nameserviceRemovals;
+    private int[] m_storageIDs;
+
+    private byte[] m_next;
+
+    // Constructors
+
+    /**
+     * Creates an instance of MetadataChunkIterator
+     *
+     * @param p_nameservice
+     *         the nameservice
+     * @param p_nameserviceLock
+     *         the nameservice lock
+     * @param p_storage
+     *         the superpeer storage
+     * @param p_storageLock
+     *         the superpeer storage lock
+     * @param p_barriers
+     *         the barriers
+     * @param p_barriersLock
+     *         the barriers lock
+     * @param p_peerHandlers
+     *         all peer handlers
+     * @param p_peers
+     *         all assigned peers in area
+     * @param p_beginOfArea
+     *         the beginning of the area
+     * @param p_endOfArea
+     *         the end of the area
+     * @param p_chunkSize
+     *         the chunk size in bytes
+     */
+    MetadataChunkIterator(final NameserviceHashTable p_nameservice, final ReadWriteLock p_nameserviceLock,
+            final SuperpeerStorage p_storage, final ReadWriteLock p_storageLock, final BarriersTable p_barriers,
+            final ReadWriteLock p_barriersLock, final AtomicReferenceArray<PeerHandler> p_peerHandlers,
+            final short[] p_peers, final short p_beginOfArea, final short p_endOfArea, final int p_chunkSize) {
+        m_nameservice = p_nameservice;
+        m_nameserviceLock = p_nameserviceLock;
+        m_storage = p_storage;
+        m_storageLock = p_storageLock;
+        m_barriers = p_barriers;
+        m_barriersLock = p_barriersLock;
+        m_peerHandlers = p_peerHandlers;
+        m_peers = p_peers;
+
+        m_beginOfArea = p_beginOfArea;
+        m_endOfArea = p_endOfArea;
+        m_chunkSize = Math.max(p_chunkSize, HEADER_SIZE + NameserviceHashTable.SIZE_OF_ENTRY);
+
+        m_phase = PHASE_NAMESERVICE;
+        m_index = 0;
+        m_nameserviceCapacity = -1;
+    }
+
+    // Methods
+
+    /**
+     * Returns whether there is another chunk. Serializes the next chunk if necessary
+     *
+     * @return true if there is another chunk
+     */
+    public boolean hasNext() {
+        while (m_next == null && m_phase != PHASE_DONE) {
+            switch (m_phase) {
+                case PHASE_NAMESERVICE:
+                    m_next = nextNameserviceChunk();
+                    break;
+                case PHASE_STORAGES:
+                    m_next = nextStorageChunk();
+                    break;
+                case PHASE_BARRIERS:
+                    m_next = nextBarrierChunk();
+                    break;
+                case PHASE_LOOKUP_TREES:
+                    m_next = nextLookupTreeChunk();
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        return m_next != null;
+    }
+
+    /**
+     * Returns the next chunk
+     *
+     * @return the next chunk (format expected by MetadataHandler.storeMetadata) or null if there is none
+     */
+    public byte[] next() {
+        byte[] ret;
+
+        if (!hasNext()) {
+            return null;
+        }
+
+        ret = m_next;
+        m_next = null;
+
+        return ret;
+    }
+
+    /**
+     * Serializes the next nameservice entries
+     *
+     * @return the chunk or null if there are no more entries in this call
+     */
+    private byte[] nextNameserviceChunk() {
+        ByteBuffer entries;
+
+        entries = ByteBuffer.allocate((m_chunkSize - HEADER_SIZE) / NameserviceHashTable.SIZE_OF_ENTRY *
+                NameserviceHashTable.SIZE_OF_ENTRY);
+
+        m_nameserviceLock.readLock().lock();
+        if (m_nameserviceCapacity != m_nameservice.capacity() ||
+                m_nameserviceRemovals != m_nameservice.getRemovals()) {
+            // Entries were moved since the last chunk -> start over (entries are sent twice which is harmless)
+            m_nameserviceCapacity = m_nameservice.capacity();
+            m_nameserviceRemovals = m_nameservice.getRemovals();
+            m_index = 0;
+        }
+        m_index = m_nameservice.receiveMetadataInRange(m_beginOfArea, m_endOfArea, m_index, entries);
+        if (m_index >= m_nameserviceCapacity) {
+            nextPhase();
+        }
+        m_nameserviceLock.readLock().unlock();
+
+        if (entries.position() == 0) {
+            return null;
+        }
+
+        return createChunk(PHASE_NAMESERVICE, entries.array(), entries.position(), 0);
+    }
+
+    /**
+     * Serializes the next storages
+     *
+     * @return the chunk or null if there are no more storages in this call
+     */
+    private byte[] nextStorageChunk() {
+        int size = 0;
+        byte[] storage;
+        ArrayList<byte[]> storages;
+
+        storages = new ArrayList<>();
+
+        m_storageLock.readLock().lock();
+        if (m_storageIDs == null) {
+            m_storageIDs = m_storage.getIDsInRange(m_beginOfArea, m_endOfArea);
+        }
+        while (m_index < m_storageIDs.length && size < m_chunkSize - HEADER_SIZE) {
+            // Storages removed in the meantime are skipped
+            storage = m_storage.receiveMetadata(m_storageIDs[m_index++]);
+            if (storage != null) {
+                storages.add(storage);
+                size += storage.length;
+            }
+        }
+        if (m_index == m_storageIDs.length) {
+            nextPhase();
+        }
+        m_storageLock.readLock().unlock();
+
+        return createChunk(PHASE_STORAGES, storages, size);
+    }
+
+    /**
+     * Serializes the barriers of the next creators
+     *
+     * @return the chunk or null if there are no more barriers in this call
+     */
+    private byte[] nextBarrierChunk() {
+        int size = 0;
+        byte[] barriers;
+        ArrayList<byte[]> allBarriers;
+
+        allBarriers = new ArrayList<>();
+
+        m_barriersLock.readLock().lock();
+        while (m_index < Short.MAX_VALUE * 2 && size < m_chunkSize - HEADER_SIZE) {
+            if (OverlayHelper.isPeerInSuperpeerRange((short) m_index, m_beginOfArea, m_endOfArea)) {
+                barriers = m_barriers.receiveMetadata((short) m_index);
+                if (barriers != null) {
+                    allBarriers.add(barriers);
+                    size += barriers.length;
+                }
+            }
+            m_index++;
+        }
+        if (m_index == Short.MAX_VALUE * 2) {
+            nextPhase();
+        }
+        m_barriersLock.readLock().unlock();
+
+        return createChunk(PHASE_BARRIERS, allBarriers, size);
+    }
+
+    /**
+     * Serializes the lookup trees of the next peers (every peer handler is locked separately)
+     *
+     * @return the chunk or null if there are no more lookup trees in this call
+     */
+    private byte[] nextLookupTreeChunk() {
+        int size = 0;
+        byte[] lookupTree;
+        ArrayList<byte[]> lookupTrees;
+        PeerHandler peerHandler;
+
+        lookupTrees = new ArrayList<>();
+        while (m_index < m_peers.length && size < m_chunkSize - HEADER_SIZE) {
+            peerHandler = m_peerHandlers.get(m_peers[m_index] & 0xFFFF);
+            // no tree available -> no chunks were created or backup system is deactivated
+            if (peerHandler != null) {
+                lookupTree = peerHandler.serializeMetadata(m_peers[m_index]);
+                lookupTrees.add(lookupTree);
+                size += lookupTree.length;
+            }
+            m_index++;
+        }
+        if (m_index == m_peers.length) {
+            nextPhase();
+        }
+
+        return createChunk(PHASE_LOOKUP_TREES, lookupTrees, size);
+    }
+
+    /**
+     * Switches to the next table
+     */
+    private void nextPhase() {
+        m_phase++;
+        m_index = 0;
+    }
+
+    /**
+     * Creates a chunk from serialized entries of one table
+     *
+     * @param p_phase
+     *         the table the entries belong to
+     * @param p_entries
+     *         the serialized entries
+     * @param p_size
+     *         the size of all entries
+     * @return the chunk or null if there are no entries
+     */
+    private static byte[] createChunk(final int p_phase, final ArrayList<byte[]> p_entries, final int p_size) {
+        ByteBuffer entries;
+
+        if (p_entries.isEmpty()) {
+            return null;
+        }
+
+        entries = ByteBuffer.allocate(p_size);
+        for (byte[] entry : p_entries) {
+            entries.put(entry);
+        }
+
+        return createChunk(p_phase, entries.array(), p_size, p_entries.size());
+    }
+
+    /**
+     * Creates a chunk from serialized entries of one table
+     *
+     * @param p_phase
+     *         the table the entries belong to
+     * @param p_entries
+     *         the serialized entries
+     * @param p_size
+     *         the number of valid bytes in p_entries
+     * @param p_count
+     *         the number of entries (only relevant for lookup trees)
+     * @return the chunk
+     */
+    private static byte[] createChunk(final int p_phase, final byte[] p_entries, final int p_size,
+            final int p_count) {
+        ByteBuffer chunk;
+
+        chunk = ByteBuffer.allocate(HEADER_SIZE + p_size);
+
+        // Nameservice entries, storages and barriers are prefixed by their size
+        for (int phase = PHASE_NAMESERVICE; phase < PHASE_LOOKUP_TREES; phase++) {
+            if (phase == p_phase) {
+                chunk.putInt(p_size);
+                chunk.put(p_entries, 0, p_size);
+            } else {
+                chunk.putInt(0);
+            }
+        }
+
+        // Lookup trees are prefixed by their number
+        if (p_phase == PHASE_LOOKUP_TREES) {
+            chunk.putInt(p_count);
+            chunk.put(p_entries, 0, p_size);
+        } else {
+            chunk.putInt(0);
+        }
+
+        return chunk.array();
+    }
+
+}
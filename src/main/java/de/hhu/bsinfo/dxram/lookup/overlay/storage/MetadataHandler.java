@@ -20,6 +20,7 @@ import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -32,10 +33,16 @@ import de.hhu.bsinfo.dxram.lookup.LookupRange;
 import de.hhu.bsinfo.dxram.lookup.LookupState;
 import de.hhu.bsinfo.dxram.lookup.overlay.OverlayHelper;
 import de.hhu.bsinfo.dxram.lookup.overlay.storage.SuperpeerStorage.Status;
+import de.hhu.bsinfo.dxutils.CRC16;
 import de.hhu.bsinfo.dxutils.NodeID;
 
 /**
- * Wrapper class for all data of one superpeer
+ * Wrapper class for all data of one superpeer.
+ * Every peer handler, the nameservice, the superpeer storage and the barriers are locked independently, i.e. a
+ * migration for one peer does not block lookups for other peers or nameservice requests. Peer handlers are
+ * created lazily without locking.
+ * Peer handlers and the nameservice are versioned to send backup superpeers the changes since their last
+ * synchronization, only.
  *
  * @author Kevin Beineke, kevin.beineke@hhu.de, 06.10.2016
  */
@@ -43,15 +50,22 @@ public final class MetadataHandler {
 
     private static final Logger LOGGER = LogManager.getFormatterLogger(MetadataHandler.class.getSimpleName());
 
+    private static final int NAMESERVICE_CHANGE_LOG_CAPACITY = 16384;
+
     // Attributes
-    private PeerHandler[] m_peerHandlers;
+    private AtomicReferenceArray<PeerHandler> m_peerHandlers;
     private NameserviceHashTable m_nameservice;
+    private MetadataChangeLog m_nameserviceChangeLog;
     private SuperpeerStorage m_storage;
     private BarriersTable m_barriers;
 
     private ArrayList<Short> m_assignedPeersIncludingBackups;
 
-    private ReadWriteLock m_dataLock;
+    private boolean m_flatLookupTrees;
+
+    private ReadWriteLock m_nameserviceLock;
+    private ReadWriteLock m_storageLock;
+    private ReadWriteLock m_barriersLock;
 
     // Constructors
 
@@ -68,18 +82,25 @@ public final class MetadataHandler {
      *         the barriers
      * @param p_assignedPeersIncludingBackups
      *         reference to all assigned peers including backups
+     * @param p_flatLookupTrees
+     *         whether to store the ranges of peers in FlatLookupTrees instead of LookupTrees
      */
     public MetadataHandler(final PeerHandler[] p_peerHandlers, final NameserviceHashTable p_nameservice,
             final SuperpeerStorage p_storage, final BarriersTable p_barriers,
-            final ArrayList<Short> p_assignedPeersIncludingBackups) {
-        m_peerHandlers = p_peerHandlers;
+            final ArrayList<Short> p_assignedPeersIncludingBackups, final boolean p_flatLookupTrees) {
+        m_peerHandlers = new AtomicReferenceArray<>(p_peerHandlers);
         m_nameservice = p_nameservice;
+        m_nameserviceChangeLog = new MetadataChangeLog(NAMESERVICE_CHANGE_LOG_CAPACITY);
         m_storage = p_storage;
         m_barriers = p_barriers;
 
         m_assignedPeersIncludingBackups = p_assignedPeersIncludingBackups;
 
-        m_dataLock = new ReentrantReadWriteLock(false);
+        m_flatLookupTrees = p_flatLookupTrees;
+
+        m_nameserviceLock = new ReentrantReadWriteLock(false);
+        m_storageLock = new ReentrantReadWriteLock(false);
+        m_barriersLock = new ReentrantReadWriteLock(false);
     }
 
     /**
@@ -89,7 +110,7 @@ public final class MetadataHandler {
      *         the peer's NodeID
      */
     public PeerState getState(final short p_nodeID) {
-        return m_peerHandlers[p_nodeID & 0xFFFF].getState();
+        return getPeerHandler(p_nodeID).getState();
     }
 
     /**
@@ -101,8 +122,10 @@ public final class MetadataHandler {
      *         the new state
      */
     public void setState(final short p_nodeID, final PeerState p_state) {
-        if (m_peerHandlers[p_nodeID & 0xFFFF] != null) {
-            m_peerHandlers[p_nodeID & 0xFFFF].setState(p_state);
+        PeerHandler peerHandler = getPeerHandler(p_nodeID);
+
+        if (peerHandler != null) {
+            peerHandler.setState(p_state);
         }
     }
 
@@ -114,9 +137,9 @@ public final class MetadataHandler {
     public Status getStorageStatus() {
         Status ret;
 
-        m_dataLock.readLock().lock();
+        m_storageLock.readLock().lock();
         ret = m_storage.getStatus();
-        m_dataLock.readLock().unlock();
+        m_storageLock.readLock().unlock();
 
         return ret;
     }
@@ -129,49 +152,38 @@ public final class MetadataHandler {
     public byte[] getAllNameserviceEntries(final short p_predecessor, final short p_nodeID) {
         byte[] ret;
 
-        m_dataLock.readLock().lock();
+        m_nameserviceLock.readLock().lock();
         ret = m_nameservice.receiveMetadataInRange(p_predecessor, p_nodeID);
-        m_dataLock.readLock().unlock();
+        m_nameserviceLock.readLock().unlock();
 
         return ret;
     }
 
     /**
-     * Serializes all metadata in given area.
+     * Returns an iterator serializing all metadata in given area chunk by chunk. Every chunk has the format
+     * expected by storeMetadata.
      *
      * @param p_beginOfArea
      *         the beginning of the area
      * @param p_endOfArea
      *         the end of the area
-     * @return all corresponding metadata in a byte array
+     * @param p_chunkSize
+     *         the chunk size in bytes
+     * @return the chunk iterator
      * @lock overlay lock must be read-locked
      */
-    public byte[] receiveMetadataInRange(final short p_beginOfArea, final short p_endOfArea) {
-        int size;
-        int count = 0;
+    public MetadataChunkIterator getMetadataInRange(final short p_beginOfArea, final short p_endOfArea,
+            final int p_chunkSize) {
         int index;
         int startIndex;
+        int count = 0;
         short currentPeer;
-        byte[] ret;
-        byte[] nameserviceEntries;
-        byte[] storages;
-        byte[] barriers;
-        ByteBuffer data;
-        PeerHandler peerHandler;
+        short[] peers;
 
-        m_dataLock.readLock().lock();
+        LOGGER.trace("Serializing metadata of area in chunks: 0x%X, 0x%X", p_beginOfArea, p_endOfArea);
 
-        LOGGER.trace("Serializing metadata of area: 0x%X, 0x%X", p_beginOfArea, p_endOfArea);
-
-        // Get all corresponding nameservice entries
-        nameserviceEntries = m_nameservice.receiveMetadataInRange(p_beginOfArea, p_endOfArea);
-        // Get all corresponding storages
-        storages = m_storage.receiveMetadataInRange(p_beginOfArea, p_endOfArea);
-        // Get all corresponding barriers
-        barriers = m_barriers.receiveMetadataInRange(p_beginOfArea, p_endOfArea);
-
-        // Get all corresponding lookup trees
-        size = nameserviceEntries.length + storages.length + barriers.length + Integer.BYTES * 4;
+        // Get all assigned peers in area, the lookup trees are serialized lazily
+        peers = new short[m_assignedPeersIncludingBackups.size()];
         if (!m_assignedPeersIncludingBackups.isEmpty()) {
             // Find beginning
             index = Collections.binarySearch(m_assignedPeersIncludingBackups, p_beginOfArea);
@@ -182,16 +194,10 @@ public final class MetadataHandler {
                 }
             }
 
-            // Iterate over assigned peers and count lookup tree sizes
             startIndex = index;
             currentPeer = m_assignedPeersIncludingBackups.get(index++);
             while (OverlayHelper.isPeerInSuperpeerRange(currentPeer, p_beginOfArea, p_endOfArea)) {
-                peerHandler = getPeerHandler(currentPeer);
-                // no tree available -> no chunks were created or backup system is deactivated
-                if (peerHandler != null) {
-                    size += peerHandler.getSize();
-                    count++;
-                }
+                peers[count++] = currentPeer;
 
                 if (index == m_assignedPeersIncludingBackups.size()) {
                     index = 0;
@@ -201,61 +207,11 @@ public final class MetadataHandler {
                 }
                 currentPeer = m_assignedPeersIncludingBackups.get(index++);
             }
-
-            // Allocate array for all data and copy already gathered data
-            ret = new byte[size];
-            data = ByteBuffer.wrap(ret);
-            data.putInt(nameserviceEntries.length);
-            data.put(nameserviceEntries);
-            data.putInt(storages.length);
-            data.put(storages);
-            data.putInt(barriers.length);
-            data.put(barriers);
-
-            // Iterate over assigned peers and write lookup trees
-            data.putInt(count);
-            index = startIndex;
-            currentPeer = m_assignedPeersIncludingBackups.get(index++);
-            while (OverlayHelper.isPeerInSuperpeerRange(currentPeer, p_beginOfArea, p_endOfArea)) {
-
-                LOGGER.trace("Including LookupTree of 0x%X", currentPeer);
-
-                peerHandler = getPeerHandler(currentPeer);
-                // no tree available -> no chunks were created or backup system is deactivated
-                if (peerHandler != null) {
-                    data.putShort(currentPeer);
-                    peerHandler.receiveMetadata(data);
-                }
-
-                if (index == m_assignedPeersIncludingBackups.size()) {
-                    index = 0;
-                }
-                if (index == startIndex) {
-                    break;
-                }
-                currentPeer = m_assignedPeersIncludingBackups.get(index++);
-            }
-        } else {
-            // There might be data in given area even without any assigned peer
-
-            // Allocate array for all data and copy gathered data
-            ret = new byte[size];
-            data = ByteBuffer.wrap(ret);
-            data.putInt(nameserviceEntries.length);
-            data.put(nameserviceEntries);
-            data.putInt(storages.length);
-            data.put(storages);
-            data.putInt(barriers.length);
-            data.put(barriers);
         }
-        m_dataLock.readLock().unlock();
 
-        // If there is no metadata in given area, return an empty array
-        if (ret.length == Integer.BYTES * 4) {
-            ret = new byte[0];
-        }
-
-        return ret;
+        return new MetadataChunkIterator(m_nameservice, m_nameserviceLock, m_storage, m_storageLock, m_barriers,
+                m_barriersLock, m_peerHandlers, Arrays.copyOf(peers, count), p_beginOfArea, p_endOfArea,
+                p_chunkSize);
     }
 
     /**
@@ -265,35 +221,45 @@ public final class MetadataHandler {
      */
     public byte[] receiveAllMetadata() {
         int size;
-        int count = 0;
         byte[] ret;
         byte[] nameserviceEntries;
         byte[] storages;
         byte[] barriers;
+        byte[] lookupTree;
+        ArrayList<byte[]> lookupTrees;
         PeerHandler peerHandler;
         ByteBuffer data;
 
-        m_dataLock.readLock().lock();
-
         LOGGER.trace("Serializing all metadata");
 
         // Get all nameservice entries
+        m_nameserviceLock.readLock().lock();
         nameserviceEntries = m_nameservice.receiveAllMetadata();
+        m_nameserviceLock.readLock().unlock();
         // Get all storages
+        m_storageLock.readLock().lock();
         storages = m_storage.receiveAllMetadata();
+        m_storageLock.readLock().unlock();
         // Get all barriers
+        m_barriersLock.readLock().lock();
         barriers = m_barriers.receiveAllMetadata();
+        m_barriersLock.readLock().unlock();
 
         // Get all nameservice entries
         size = nameserviceEntries.length + storages.length + barriers.length + Integer.BYTES * 4;
 
-        // Iterate over all peers and count lookup tree sizes
+        // Iterate over all peers and serialize lookup trees (every peer handler is locked separately)
+        lookupTrees = new ArrayList<>();
         for (int i = 0; i < Short.MAX_VALUE * 2; i++) {
             peerHandler = getPeerHandler((short) i);
             // no tree available -> no chunks were created or backup system is deactivated
             if (peerHandler != null) {
-                size += peerHandler.getSize();
-                count++;
+
+                LOGGER.trace("Including LookupTree of 0x%X", (short) i);
+
+                lookupTree = peerHandler.serializeMetadata((short) i);
+                lookupTrees.add(lookupTree);
+                size += lookupTree.length;
             }
         }
 
@@ -307,20 +273,11 @@ public final class MetadataHandler {
         data.putInt(barriers.length);
         data.put(barriers);
 
-        // Iterate over all peers and write lookup trees
-        data.putInt(count);
-        for (int i = 0; i < Short.MAX_VALUE * 2; i++) {
-            peerHandler = getPeerHandler((short) i);
-            // no tree available -> no chunks were created or backup system is deactivated
-            if (peerHandler != null) {
-
-                LOGGER.trace("Including LookupTree of 0x%X", (short) i);
-
-                data.putShort((short) i);
-                peerHandler.receiveMetadata(data);
-            }
+        // Write lookup trees
+        data.putInt(lookupTrees.size());
+        for (byte[] tree : lookupTrees) {
+            data.put(tree);
         }
-        m_dataLock.readLock().unlock();
 
         // If there is no metadata, return an empty array
         if (ret.length == Integer.BYTES * 4) {
@@ -340,9 +297,9 @@ public final class MetadataHandler {
     public int getNumberOfNameserviceEntries(final short[] p_responsibleArea) {
         int ret;
 
-        m_dataLock.readLock().lock();
+        m_nameserviceLock.readLock().lock();
         ret = m_nameservice.quantifyMetadata(p_responsibleArea[0], p_responsibleArea[1]);
-        m_dataLock.readLock().unlock();
+        m_nameserviceLock.readLock().unlock();
 
         return ret;
     }
@@ -357,9 +314,9 @@ public final class MetadataHandler {
     public int getNumberOfStorages(final short[] p_responsibleArea) {
         int ret;
 
-        m_dataLock.readLock().lock();
+        m_storageLock.readLock().lock();
         ret = m_storage.quantifyMetadata(p_responsibleArea[0], p_responsibleArea[1]);
-        m_dataLock.readLock().unlock();
+        m_storageLock.readLock().unlock();
 
         return ret;
     }
@@ -374,9 +331,48 @@ public final class MetadataHandler {
     public int getNumberOfBarriers(final short[] p_responsibleArea) {
         int ret;
 
-        m_dataLock.readLock().lock();
+        m_barriersLock.readLock().lock();
         ret = m_barriers.quantifyMetadata(p_responsibleArea[0], p_responsibleArea[1]);
-        m_dataLock.readLock().unlock();
+        m_barriersLock.readLock().unlock();
+
+        return ret;
+    }
+
+    /**
+     * Returns the epoch and version of the nameservice
+     *
+     * @return an array with epoch and version
+     */
+    public long[] getNameserviceVersion() {
+        long[] ret;
+
+        m_nameserviceLock.readLock().lock();
+        ret = new long[] {m_nameserviceChangeLog.getEpoch(), m_nameserviceChangeLog.getVersion()};
+        m_nameserviceLock.readLock().unlock();
+
+        return ret;
+    }
+
+    /**
+     * Returns the epochs and versions of the responsible superpeer's peer handlers the backups of given peers were
+     * synchronized with
+     *
+     * @param p_peers
+     *         the peers
+     * @return an array with epoch and version per peer (0 and 0 if there is no backup)
+     */
+    public long[] getSyncedVersions(final ArrayList<Short> p_peers) {
+        long[] ret;
+        PeerHandler peerHandler;
+
+        ret = new long[p_peers.size() * 2];
+        for (int i = 0; i < p_peers.size(); i++) {
+            peerHandler = getPeerHandler(p_peers.get(i));
+            if (peerHandler != null) {
+                ret[i * 2] = peerHandler.getSyncedEpoch();
+                ret[i * 2 + 1] = peerHandler.getSyncedVersion();
+            }
+        }
 
         return ret;
     }
@@ -395,16 +391,20 @@ public final class MetadataHandler {
         StringBuilder ret = new StringBuilder();
         PeerHandler peerHandler;
 
-        m_dataLock.readLock().lock();
-
+        m_nameserviceLock.readLock().lock();
         ret.append("Number of nameservice entries: ").append(m_nameservice.quantifyMetadata(p_nodeID, p_nodeID))
                 .append(", assigned: ").append(m_nameservice.quantifyMetadata(p_predecessor, p_nodeID)).append('\n');
+        m_nameserviceLock.readLock().unlock();
 
+        m_storageLock.readLock().lock();
         ret.append("Number of storages: \t\t ").append(m_storage.quantifyMetadata(p_nodeID, p_nodeID))
                 .append(", assigned: ").append(m_storage.quantifyMetadata(p_predecessor, p_nodeID)).append('\n');
+        m_storageLock.readLock().unlock();
 
+        m_barriersLock.readLock().lock();
         ret.append("Number of barriers: \t\t ").append(m_barriers.quantifyMetadata(p_nodeID, p_nodeID))
                 .append(", assigned: ").append(m_barriers.quantifyMetadata(p_predecessor, p_nodeID)).append('\n');
+        m_barriersLock.readLock().unlock();
 
         ret.append("Storing LookupTrees of following peers:\n");
 
@@ -420,8 +420,6 @@ public final class MetadataHandler {
             }
         }
 
-        m_dataLock.readLock().unlock();
-
         return ret.toString();
     }
 
@@ -429,10 +427,23 @@ public final class MetadataHandler {
      * Compares given peer list with local list and returns all missing backup data between this superpeer and his
      * predecessor.
      *
+     * Lookup trees and nameservice entries are sent incrementally: if the requesting superpeer's last synchronized
+     * version is still covered by the change log only the changes since then are included. Otherwise, the complete
+     * lookup tree is sent or all nameservice entries if the number of entries differs. Storages and barriers are
+     * compared by number, only.
+     *
      * @param p_peers
      *         all peers the requesting superpeer stores backups for
+     * @param p_syncedVersions
+     *         the synchronized epoch and version per peer in p_peers
      * @param p_numberOfNameserviceEntries
      *         the number of expected nameservice entries
+     * @param p_nameserviceEpoch
+     *         the epoch of the requesting superpeer's last nameservice synchronization
+     * @param p_nameserviceVersion
+     *         the version of the requesting superpeer's last nameservice synchronization
+     * @param p_nameservicePredecessor
+     *         the predecessor at the requesting superpeer's last nameservice synchronization
      * @param p_numberOfStorages
      *         the number of expected storages
      * @param p_numberOfBarriers
@@ -441,49 +452,63 @@ public final class MetadataHandler {
      *         the predecessor
      * @param p_nodeID
      *         the own NodeID
-     * @return the backup data of missing peers in given peer list
+     * @return the backup data of missing or changed peers in given peer list
      * @lock overlay lock must be read-locked
      */
-    public byte[] compareAndReturnBackups(final ArrayList<Short> p_peers, final int p_numberOfNameserviceEntries,
-            final int p_numberOfStorages, final int p_numberOfBarriers, final short p_predecessor,
-            final short p_nodeID) {
+    public byte[] compareAndReturnBackups(final ArrayList<Short> p_peers, final long[] p_syncedVersions,
+            final int p_numberOfNameserviceEntries, final long p_nameserviceEpoch, final long p_nameserviceVersion,
+            final short p_nameservicePredecessor, final int p_numberOfStorages, final int p_numberOfBarriers,
+            final short p_predecessor, final short p_nodeID) {
         int size;
-        int count = 0;
         int index;
         int startIndex;
+        int peerIndex;
+        int changes;
         short currentPeer;
         byte[] ret;
         byte[] nameserviceEntries = null;
         byte[] storages = null;
         byte[] barriers = null;
+        byte[] lookupTree;
+        ArrayList<byte[]> lookupTrees;
         ByteBuffer data;
         PeerHandler peerHandler;
 
-        m_dataLock.readLock().lock();
-
         LOGGER.trace("Compare and return metadata of area: 0x%X, 0x%X", p_predecessor, p_nodeID);
 
-        // TODO: Inefficient to send all data (nameservice, storages, barriers) in corresponding area if quantity
-        // differs
         size = 4 * Integer.BYTES;
-        // Compare number of actual nameservice entries with expected number
-        if (m_nameservice.quantifyMetadata(p_predecessor, p_nodeID) != p_numberOfNameserviceEntries) {
-            // Get all corresponding nameservice entries
+        m_nameserviceLock.readLock().lock();
+        // Send nameservice changes since last synchronization if the area did not change in the meantime
+        changes = -1;
+        if (p_nameservicePredecessor == p_predecessor) {
+            changes = m_nameserviceChangeLog.getNumberOfChangesSince(p_nameserviceEpoch, p_nameserviceVersion);
+        }
+        if (changes > 0) {
+            nameserviceEntries = getNameserviceChangesInRange(p_nameserviceVersion, p_predecessor, p_nodeID);
+            size += nameserviceEntries.length;
+        } else if (changes < 0 &&
+                m_nameservice.quantifyMetadata(p_predecessor, p_nodeID) != p_numberOfNameserviceEntries) {
+            // Changes are not available and the number of entries differs -> get all corresponding nameservice entries
             nameserviceEntries = m_nameservice.receiveMetadataInRange(p_predecessor, p_nodeID);
             size += nameserviceEntries.length;
         }
+        m_nameserviceLock.readLock().unlock();
         // Compare number of actual storages with expected number
+        m_storageLock.readLock().lock();
         if (m_storage.quantifyMetadata(p_predecessor, p_nodeID) != p_numberOfStorages) {
             // Get all corresponding storages
             storages = m_storage.receiveMetadataInRange(p_predecessor, p_nodeID);
             size += storages.length;
         }
+        m_storageLock.readLock().unlock();
         // Compare number of actual barriers with expected number
+        m_barriersLock.readLock().lock();
         if (m_barriers.quantifyMetadata(p_predecessor, p_nodeID) != p_numberOfBarriers) {
             // Get all corresponding barriers
             barriers = m_barriers.receiveMetadataInRange(p_predecessor, p_nodeID);
             size += barriers.length;
         }
+        m_barriersLock.readLock().unlock();
 
         // Get all corresponding lookup trees
         if (!m_assignedPeersIncludingBackups.isEmpty()) {
@@ -496,16 +521,30 @@ public final class MetadataHandler {
                 }
             }
 
-            // Iterate over assigned peers and count lookup tree sizes
+            // Iterate over assigned peers and serialize missing or changed lookup trees (every peer handler is
+            // locked separately)
+            lookupTrees = new ArrayList<>();
             startIndex = index;
             currentPeer = m_assignedPeersIncludingBackups.get(index++);
             while (OverlayHelper.isPeerInSuperpeerRange(currentPeer, p_predecessor, p_nodeID)) {
-                if (Collections.binarySearch(p_peers, currentPeer) < 0) {
-                    peerHandler = getPeerHandler(currentPeer);
-                    // no tree available -> no chunks were created or backup system is deactivated
-                    if (peerHandler != null) {
-                        size += peerHandler.getSize();
-                        count++;
+                peerHandler = getPeerHandler(currentPeer);
+                // no tree available -> no chunks were created or backup system is deactivated
+                if (peerHandler != null) {
+                    peerIndex = Collections.binarySearch(p_peers, currentPeer);
+                    if (peerIndex >= 0) {
+                        lookupTree = peerHandler.serializeMetadataSince(currentPeer, p_syncedVersions[peerIndex * 2],
+                                p_syncedVersions[peerIndex * 2 + 1]);
+                    } else {
+                        // Epoch 0 is never valid -> complete lookup tree
+                        lookupTree = peerHandler.serializeMetadataSince(currentPeer, 0, 0);
+                    }
+
+                    if (lookupTree != null) {
+
+                        LOGGER.trace("Including LookupTree (or changes) of 0x%X", currentPeer);
+
+                        lookupTrees.add(lookupTree);
+                        size += lookupTree.length;
                     }
                 }
 
@@ -540,30 +579,10 @@ public final class MetadataHandler {
                 data.putInt(0);
             }
 
-            // Iterate over assigned peers and write lookup trees
-            data.putInt(count);
-            index = startIndex;
-            currentPeer = m_assignedPeersIncludingBackups.get(index++);
-            while (OverlayHelper.isPeerInSuperpeerRange(currentPeer, p_predecessor, p_nodeID)) {
-                if (Collections.binarySearch(p_peers, currentPeer) < 0) {
-
-                    LOGGER.trace("Including LookupTree of 0x%X", currentPeer);
-
-                    peerHandler = getPeerHandler(currentPeer);
-                    // no tree available -> no chunks were created or backup system is deactivated
-                    if (peerHandler != null) {
-                        data.putShort(currentPeer);
-                        peerHandler.receiveMetadata(data);
-                    }
-                }
-
-                if (index == m_assignedPeersIncludingBackups.size()) {
-                    index = 0;
-                }
-                if (index == startIndex) {
-                    break;
-                }
-                currentPeer = m_assignedPeersIncludingBackups.get(index++);
+            // Write lookup trees
+            data.putInt(lookupTrees.size());
+            for (byte[] tree : lookupTrees) {
+                data.put(tree);
             }
         } else {
             // There might be data in given area even without any assigned peer
@@ -590,7 +609,6 @@ public final class MetadataHandler {
                 data.putInt(0);
             }
         }
-        m_dataLock.readLock().unlock();
 
         // If there is no missing metadata, return an empty array
         if (ret.length == Integer.BYTES * 4) {
@@ -615,8 +633,6 @@ public final class MetadataHandler {
         int startIndex;
         int count = 0;
 
-        m_dataLock.writeLock().lock();
-
         LOGGER.trace("Deleting all uneccessary metadata outside of area: 0x%X, 0x%X", p_responsibleArea[0],
                 p_responsibleArea[1]);
 
@@ -636,7 +652,7 @@ public final class MetadataHandler {
 
                 LOGGER.trace("Removing LookupTree of 0x%X", currentPeer);
 
-                m_peerHandlers[currentPeer & 0xFFFF] = null;
+                m_peerHandlers.set(currentPeer & 0xFFFF, null);
                 ret[count++] = currentPeer;
 
                 if (++index == m_assignedPeersIncludingBackups.size()) {
@@ -650,13 +666,17 @@ public final class MetadataHandler {
             ret = Arrays.copyOf(ret, count);
         }
         // Remove nameservice entries
+        m_nameserviceLock.writeLock().lock();
         m_nameservice.removeMetadataOutsideOfRange(p_responsibleArea[0], p_responsibleArea[1]);
+        m_nameserviceLock.writeLock().unlock();
         // Remove storages
+        m_storageLock.writeLock().lock();
         m_storage.removeMetadataOutsideOfRange(p_responsibleArea[0], p_responsibleArea[1]);
+        m_storageLock.writeLock().unlock();
         // Remove barriers
+        m_barriersLock.writeLock().lock();
         m_barriers.removeMetadataOutsideOfRange(p_responsibleArea[0], p_responsibleArea[1]);
-
-        m_dataLock.writeLock().unlock();
+        m_barriersLock.writeLock().unlock();
 
         return ret;
     }
@@ -671,7 +691,6 @@ public final class MetadataHandler {
     public short[] storeMetadata(final byte[] p_metadata) {
         short nodeID;
         int size;
-        int pos;
         short[] ret = null;
         PeerHandler peerHandler;
         ByteBuffer data;
@@ -679,55 +698,95 @@ public final class MetadataHandler {
         if (p_metadata != null && p_metadata.length != 0) {
             data = ByteBuffer.wrap(p_metadata);
 
-            m_dataLock.writeLock().lock();
-
             LOGGER.trace("Storing metadata. Length: %d", p_metadata.length);
 
-            // Put all nameservice entries
+            storeTables(p_metadata, data);
+
+            // Put all lookup trees
             size = data.getInt();
-            pos = data.position();
+            ret = new short[size];
 
-            LOGGER.trace("Storing nameservice entries. Length: %d", size);
+            LOGGER.trace("Storing lookup trees. Length: %d", size);
 
-            m_nameservice.storeMetadata(p_metadata, pos, size);
-            data.position(pos + size);
+            for (int i = 0; i < size; i++) {
+                nodeID = data.getShort();
 
-            // Put all storages
-            size = data.getInt();
-            pos = data.position();
+                LOGGER.trace("Storing lookup tree of 0x%X", nodeID);
 
-            LOGGER.trace("Storing superpeer storages. Length: %d", size);
+                peerHandler = new PeerHandler(OverlayHelper.ORDER, nodeID, m_flatLookupTrees);
+                peerHandler.storeMetadata(data);
 
-            m_storage.storeMetadata(p_metadata, pos, size);
-            data.position(pos + size);
+                // Publish the completely restored peer handler
+                m_peerHandlers.set(nodeID & 0xFFFF, peerHandler);
+                ret[i] = nodeID;
+            }
+        }
 
-            // Put all barriers
-            size = data.getInt();
-            pos = data.position();
+        return ret;
+    }
 
-            LOGGER.trace("Storing barriers. Length: %d", size);
+    /**
+     * Stores given metadata returned by compareAndReturnBackups. Lookup trees are either replaced or updated by
+     * applying the included changes.
+     *
+     * @param p_metadata
+     *         the new metadata in an byte array
+     * @return new peers to assign
+     */
+    public short[] storeChangedMetadata(final byte[] p_metadata) {
+        short nodeID;
+        int size;
+        int count = 0;
+        int numberOfChanges;
+        long epoch;
+        long version;
+        short[] ret = null;
+        PeerHandler peerHandler;
+        ByteBuffer data;
 
-            m_barriers.storeMetadata(p_metadata, pos, size);
-            data.position(pos + size);
+        if (p_metadata != null && p_metadata.length != 0) {
+            data = ByteBuffer.wrap(p_metadata);
 
-            // Put all lookup trees
+            LOGGER.trace("Storing changed metadata. Length: %d", p_metadata.length);
+
+            storeTables(p_metadata, data);
+
+            // Put all lookup trees or apply changes
             size = data.getInt();
             ret = new short[size];
 
-            LOGGER.trace("Storing lookup trees. Length: %d", size);
+            LOGGER.trace("Storing lookup trees or changes. Length: %d", size);
 
             for (int i = 0; i < size; i++) {
                 nodeID = data.getShort();
 
-                LOGGER.trace("Storing lookup tree of 0x%X", nodeID);
+                if (data.get() == PeerHandler.KIND_FULL) {
 
-                peerHandler = new PeerHandler(OverlayHelper.ORDER, nodeID);
-                peerHandler.storeMetadata(data);
+                    LOGGER.trace("Storing lookup tree of 0x%X", nodeID);
 
-                m_peerHandlers[nodeID & 0xFFFF] = peerHandler;
-                ret[i] = nodeID;
+                    peerHandler = new PeerHandler(OverlayHelper.ORDER, nodeID, m_flatLookupTrees);
+                    peerHandler.storeMetadata(data);
+
+                    // Publish the completely restored peer handler
+                    m_peerHandlers.set(nodeID & 0xFFFF, peerHandler);
+                    ret[count++] = nodeID;
+                } else {
+                    epoch = data.getLong();
+                    version = data.getLong();
+                    numberOfChanges = data.getInt();
+
+                    LOGGER.trace("Applying %d changes to lookup tree of 0x%X", numberOfChanges, nodeID);
+
+                    peerHandler = getPeerHandler(nodeID);
+                    if (peerHandler != null) {
+                        peerHandler.applyChanges(epoch, version, numberOfChanges, data);
+                    } else {
+                        // Removed in the meantime -> skip changes, lookup tree will be transferred completely
+                        data.position(data.position() + numberOfChanges * MetadataChangeLog.SIZE_OF_CHANGE);
+                    }
+                }
             }
-            m_dataLock.writeLock().unlock();
+            ret = Arrays.copyOf(ret, count);
         }
 
         return ret;
@@ -748,12 +807,10 @@ public final class MetadataHandler {
     public void updateMetadataAfterRecovery(final short p_rangeID, final short p_creator, final short p_recoveryPeer,
             final long[] p_chunkIDRanges) {
 
-        m_dataLock.writeLock().lock();
-        PeerHandler peerHandler = m_peerHandlers[p_creator & 0xFFFF];
+        PeerHandler peerHandler = getPeerHandler(p_creator);
         if (peerHandler != null) {
             peerHandler.updateMetadataAfterRecovery(p_rangeID, p_recoveryPeer, p_chunkIDRanges);
         }
-        m_dataLock.writeLock().unlock();
     }
 
     /**
@@ -769,18 +826,20 @@ public final class MetadataHandler {
         boolean ret = false;
         PeerHandler peerHandler;
 
-        m_dataLock.writeLock().lock();
         peerHandler = getPeerHandler(p_rangeOwner);
         // no tree available -> no chunks were created yet
         if (peerHandler == null) {
             // With backup activated this is the place to initialize a lookup tree
-            peerHandler = new PeerHandler(OverlayHelper.ORDER, p_rangeOwner);
-            m_peerHandlers[p_rangeOwner & 0xFFFF] = peerHandler;
-            ret = true;
+            peerHandler = new PeerHandler(OverlayHelper.ORDER, p_rangeOwner, m_flatLookupTrees);
+            if (m_peerHandlers.compareAndSet(p_rangeOwner & 0xFFFF, null, peerHandler)) {
+                ret = true;
+            } else {
+                // Created concurrently
+                peerHandler = getPeerHandler(p_rangeOwner);
+            }
         }
 
         peerHandler.initRange(p_backupRange);
-        m_dataLock.writeLock().unlock();
 
         return ret;
     }
@@ -792,16 +851,14 @@ public final class MetadataHandler {
      *         lookup tree's creator
      * @return the lookup tree
      */
-    public LookupTree getLookupTree(final short p_nodeID) {
-        LookupTree ret = null;
+    public AbstractLookupTree getLookupTree(final short p_nodeID) {
+        AbstractLookupTree ret = null;
         PeerHandler peerHandler;
 
-        m_dataLock.readLock().lock();
-        peerHandler = m_peerHandlers[p_nodeID & 0xFFFF];
+        peerHandler = getPeerHandler(p_nodeID);
         if (peerHandler != null) {
             ret = peerHandler.getLookupTree();
         }
-        m_dataLock.readLock().unlock();
 
         return ret;
     }
@@ -817,7 +874,6 @@ public final class MetadataHandler {
         LookupRange ret;
         PeerHandler peerHandler;
 
-        m_dataLock.readLock().lock();
         peerHandler = getPeerHandler(ChunkID.getCreatorID(p_chunkID));
         // no tree available -> no chunks were created or backup system is deactivated
         if (peerHandler != null) {
@@ -832,7 +888,39 @@ public final class MetadataHandler {
                 ret = new LookupRange(LookupState.DOES_NOT_EXIST);
             }
         }
-        m_dataLock.readLock().unlock();
+
+        return ret;
+    }
+
+    /**
+     * Gets the lookup ranges covering multiple ChunkIDs. Every range is looked up once, only
+     *
+     * @param p_chunkIDs
+     *         the ChunkIDs, sorted ascending
+     * @param p_backupActive
+     *         whether the backup is active or not
+     * @param p_lookupRanges
+     *         array to store the deduplicated lookup ranges in (at least as long as p_chunkIDs)
+     * @param p_chunkIDCounts
+     *         array to store the number of consecutive ChunkIDs covered by each lookup range in
+     * @return the number of lookup ranges
+     */
+    public int getLookupRangesFromLookupTree(final long[] p_chunkIDs, final boolean p_backupActive,
+            final LookupRange[] p_lookupRanges, final int[] p_chunkIDCounts) {
+        int ret = 0;
+        LookupRange current = null;
+
+        for (int i = 0; i < p_chunkIDs.length; i++) {
+            if (current != null && ChunkID.getCreatorID(p_chunkIDs[i - 1]) == ChunkID.getCreatorID(p_chunkIDs[i]) &&
+                    (p_chunkIDs[i - 1] == p_chunkIDs[i] || current.isInRange(p_chunkIDs[i]))) {
+                p_chunkIDCounts[ret - 1]++;
+                continue;
+            }
+
+            current = getLookupRangeFromLookupTree(p_chunkIDs[i], p_backupActive);
+            p_lookupRanges[ret] = current;
+            p_chunkIDCounts[ret++] = 1;
+        }
 
         return ret;
     }
@@ -847,30 +935,17 @@ public final class MetadataHandler {
      * @return whether the ChunkID could be put or not
      */
     public boolean putChunkIDInLookupTree(final long p_chunkID, final short p_owner, final boolean p_backupActive) {
-        boolean ret;
         PeerHandler peerHandler;
 
-        m_dataLock.writeLock().lock();
-        peerHandler = getPeerHandler(ChunkID.getCreatorID(p_chunkID));
-        // no tree available -> no chunks were created or backup system is deactivated
-        if (peerHandler == null) {
-            if (!p_backupActive) {
-                // With backup deactivated this is the place to initialize a peer handler
-                short creator = ChunkID.getCreatorID(p_chunkID);
-                peerHandler = new PeerHandler(OverlayHelper.ORDER, creator);
-
-                m_peerHandlers[creator & 0xFFFF] = peerHandler;
-                return peerHandler.migrate(p_chunkID, p_owner);
-            }
-            m_dataLock.writeLock().unlock();
-
-            return false;
+        if (!p_backupActive) {
+            // With backup deactivated this is the place to initialize a peer handler
+            peerHandler = getOrCreatePeerHandler(ChunkID.getCreatorID(p_chunkID));
         } else {
-            ret = peerHandler.migrate(p_chunkID, p_owner);
-            m_dataLock.writeLock().unlock();
-
-            return ret;
+            peerHandler = getPeerHandler(ChunkID.getCreatorID(p_chunkID));
         }
+
+        // no tree available -> no chunks were created
+        return peerHandler != null && peerHandler.migrate(p_chunkID, p_owner);
     }
 
     /**
@@ -886,30 +961,17 @@ public final class MetadataHandler {
      */
     public boolean putChunkIDRangeInLookupTree(final long p_firstChunkID, final long p_lastChunkID, final short p_owner,
             final boolean p_backupActive) {
-        boolean ret;
         PeerHandler peerHandler;
 
-        m_dataLock.writeLock().lock();
-        peerHandler = getPeerHandler(ChunkID.getCreatorID(p_firstChunkID));
-        // no tree available -> no chunks were created or backup system is deactivated
-        if (peerHandler == null) {
-            if (!p_backupActive) {
-                // With backup deactivated this is the place to initialize a peer handler
-                short creator = ChunkID.getCreatorID(p_firstChunkID);
-                peerHandler = new PeerHandler(OverlayHelper.ORDER, creator);
-
-                m_peerHandlers[creator & 0xFFFF] = peerHandler;
-                return peerHandler.migrateRange(p_firstChunkID, p_lastChunkID, p_owner);
-            }
-            m_dataLock.writeLock().unlock();
-
-            return false;
+        if (!p_backupActive) {
+            // With backup deactivated this is the place to initialize a peer handler
+            peerHandler = getOrCreatePeerHandler(ChunkID.getCreatorID(p_firstChunkID));
         } else {
-            ret = peerHandler.migrateRange(p_firstChunkID, p_lastChunkID, p_owner);
-            m_dataLock.writeLock().unlock();
-
-            return ret;
+            peerHandler = getPeerHandler(ChunkID.getCreatorID(p_firstChunkID));
         }
+
+        // no tree available -> no chunks were created
+        return peerHandler != null && peerHandler.migrateRange(p_firstChunkID, p_lastChunkID, p_owner);
     }
 
     /**
@@ -926,18 +988,14 @@ public final class MetadataHandler {
             return false;
         }
 
-        m_dataLock.writeLock().lock();
         peerHandler = getPeerHandler(ChunkID.getCreatorID(p_chunkIDs[0]));
         // no tree available -> no chunks were created or backup system is deactivated
         if (peerHandler == null) {
-            m_dataLock.writeLock().unlock();
-
             // Backup activated and no tree -> error
             // Backup deactivated and no migrations (-> tree is null) -> no need to remove ChunkIDs
             return !p_backupActive;
         } else {
             peerHandler.removeObjects(p_chunkIDs);
-            m_dataLock.writeLock().unlock();
 
             return true;
         }
@@ -954,13 +1012,11 @@ public final class MetadataHandler {
         BackupRange[] ret = null;
         PeerHandler peerHandler;
 
-        m_dataLock.readLock().lock();
         peerHandler = getPeerHandler(p_nodeID);
         // no tree available -> no chunks were created or backup system is deactivated
         if (peerHandler != null) {
             ret = peerHandler.getAllBackupRanges();
         }
-        m_dataLock.readLock().unlock();
 
         return ret;
     }
@@ -981,14 +1037,12 @@ public final class MetadataHandler {
             final short p_newBackupPeer) {
         PeerHandler peerHandler;
 
-        m_dataLock.writeLock().lock();
         peerHandler = getPeerHandler(p_nodeID);
         // no tree available -> no chunks were created or backup system is deactivated
         if (peerHandler != null) {
             // Replace failedPeer from specific backup peer lists
             peerHandler.replaceBackupPeer(p_rangeID, p_failedPeer, p_newBackupPeer);
         }
-        m_dataLock.writeLock().unlock();
     }
 
     /**
@@ -1001,9 +1055,9 @@ public final class MetadataHandler {
     public long getNameserviceEntry(final int p_nameserviceID) {
         long ret;
 
-        m_dataLock.readLock().lock();
+        m_nameserviceLock.readLock().lock();
         ret = m_nameservice.getChunkID(p_nameserviceID);
-        m_dataLock.readLock().unlock();
+        m_nameserviceLock.readLock().unlock();
 
         return ret;
     }
@@ -1017,9 +1071,47 @@ public final class MetadataHandler {
      *         the ChunkID
      */
     public void putNameserviceEntry(final int p_nameserviceID, final long p_chunkID) {
-        m_dataLock.writeLock().lock();
+        m_nameserviceLock.writeLock().lock();
         m_nameservice.putChunkID(p_nameserviceID, p_chunkID);
-        m_dataLock.writeLock().unlock();
+        m_nameserviceChangeLog.append(MetadataChangeLog.OPERATION_PUT, p_nameserviceID, p_chunkID, (short) 0);
+        m_nameserviceLock.writeLock().unlock();
+    }
+
+    /**
+     * Gets multiple nameservice entries.
+     *
+     * @param p_nameserviceIDs
+     *         the nameservice IDs
+     * @return the ChunkIDs, one per nameservice ID
+     */
+    public long[] getNameserviceEntries(final int[] p_nameserviceIDs) {
+        long[] ret = new long[p_nameserviceIDs.length];
+
+        m_nameserviceLock.readLock().lock();
+        for (int i = 0; i < p_nameserviceIDs.length; i++) {
+            ret[i] = m_nameservice.getChunkID(p_nameserviceIDs[i]);
+        }
+        m_nameserviceLock.readLock().unlock();
+
+        return ret;
+    }
+
+    /**
+     * Puts multiple nameservice entries within a single critical section.
+     *
+     * @param p_nameserviceIDs
+     *         the nameservice IDs
+     * @param p_chunkIDs
+     *         the ChunkIDs, one per nameservice ID
+     */
+    public void putNameserviceEntries(final int[] p_nameserviceIDs, final long[] p_chunkIDs) {
+        m_nameserviceLock.writeLock().lock();
+        for (int i = 0; i < p_nameserviceIDs.length; i++) {
+            m_nameservice.putChunkID(p_nameserviceIDs[i], p_chunkIDs[i]);
+            m_nameserviceChangeLog.append(MetadataChangeLog.OPERATION_PUT, p_nameserviceIDs[i], p_chunkIDs[i],
+                    (short) 0);
+        }
+        m_nameserviceLock.writeLock().unlock();
     }
 
     /**
@@ -1034,9 +1126,9 @@ public final class MetadataHandler {
     public int countNameserviceEntries(final short p_bound1, final short p_bound2) {
         int ret;
 
-        m_dataLock.readLock().lock();
+        m_nameserviceLock.readLock().lock();
         ret = m_nameservice.quantifyMetadata(p_bound1, p_bound2);
-        m_dataLock.readLock().unlock();
+        m_nameserviceLock.readLock().unlock();
 
         return ret;
     }
@@ -1055,9 +1147,9 @@ public final class MetadataHandler {
     public int createStorage(final int p_storageID, final int p_size) {
         int ret;
 
-        m_dataLock.writeLock().lock();
+        m_storageLock.writeLock().lock();
         ret = m_storage.create(p_storageID, p_size);
-        m_dataLock.writeLock().unlock();
+        m_storageLock.writeLock().unlock();
 
         return ret;
     }
@@ -1072,9 +1164,9 @@ public final class MetadataHandler {
     public byte[] getStorage(final int p_storageID) {
         byte[] ret;
 
-        m_dataLock.readLock().lock();
+        m_storageLock.readLock().lock();
         ret = m_storage.get(p_storageID);
-        m_dataLock.readLock().unlock();
+        m_storageLock.readLock().unlock();
 
         return ret;
     }
@@ -1091,9 +1183,9 @@ public final class MetadataHandler {
     public int putStorage(final int p_storageID, final byte[] p_data) {
         int ret;
 
-        m_dataLock.readLock().lock();
+        m_storageLock.readLock().lock();
         ret = m_storage.put(p_storageID, p_data);
-        m_dataLock.readLock().unlock();
+        m_storageLock.readLock().unlock();
 
         return ret;
     }
@@ -1108,9 +1200,9 @@ public final class MetadataHandler {
     public boolean removeStorage(final int p_storageID) {
         boolean ret;
 
-        m_dataLock.writeLock().lock();
+        m_storageLock.writeLock().lock();
         ret = m_storage.remove(p_storageID);
-        m_dataLock.writeLock().unlock();
+        m_storageLock.writeLock().unlock();
 
         return ret;
     }
@@ -1127,9 +1219,9 @@ public final class MetadataHandler {
     public int createBarrier(final short p_nodeID, final int p_size) {
         int ret;
 
-        m_dataLock.writeLock().lock();
+        m_barriersLock.writeLock().lock();
         ret = m_barriers.allocateBarrier(p_nodeID, p_size);
-        m_dataLock.writeLock().unlock();
+        m_barriersLock.writeLock().unlock();
 
         return ret;
     }
@@ -1150,9 +1242,9 @@ public final class MetadataHandler {
     public boolean changeSizeOfBarrier(final short p_nodeID, final int p_barrierID, final int p_newSize) {
         boolean ret;
 
-        m_dataLock.writeLock().lock();
+        m_barriersLock.writeLock().lock();
         ret = m_barriers.changeBarrierSize(p_nodeID, p_barrierID, p_newSize);
-        m_dataLock.writeLock().unlock();
+        m_barriersLock.writeLock().unlock();
 
         return ret;
     }
@@ -1169,9 +1261,9 @@ public final class MetadataHandler {
     public boolean removeBarrier(final short p_nodeID, final int p_barrierID) {
         boolean ret;
 
-        m_dataLock.writeLock().lock();
+        m_barriersLock.writeLock().lock();
         ret = m_barriers.freeBarrier(p_nodeID, p_barrierID);
-        m_dataLock.writeLock().unlock();
+        m_barriersLock.writeLock().unlock();
 
         return ret;
     }
@@ -1188,9 +1280,9 @@ public final class MetadataHandler {
     public boolean resetBarrier(final short p_nodeID, final int p_barrierID) {
         boolean ret;
 
-        m_dataLock.writeLock().lock();
+        m_barriersLock.writeLock().lock();
         ret = m_barriers.reset(p_nodeID, p_barrierID);
-        m_dataLock.writeLock().unlock();
+        m_barriersLock.writeLock().unlock();
 
         return ret;
     }
@@ -1212,9 +1304,38 @@ public final class MetadataHandler {
             final long p_barrierData) {
         int ret;
 
-        m_dataLock.writeLock().lock();
+        m_barriersLock.writeLock().lock();
         ret = m_barriers.signOn(p_nodeID, p_barrierID, p_nodeIDToSignOn, p_barrierData);
-        m_dataLock.writeLock().unlock();
+        m_barriersLock.writeLock().unlock();
+
+        return ret;
+    }
+
+    /**
+     * Signs-on multiple peers on barrier (combining tree barrier), the barriers lock is acquired once, only.
+     *
+     * @param p_nodeID
+     *         the creator
+     * @param p_barrierID
+     *         the barrier ID
+     * @param p_nodeIDsToSignOn
+     *         the NodeIDs
+     * @param p_barrierData
+     *         the barrier data (indices match NodeID array)
+     * @return the number of peers left to sign on, -1 on failure
+     */
+    public int signOnBarrier(final short p_nodeID, final int p_barrierID, final short[] p_nodeIDsToSignOn,
+            final long[] p_barrierData) {
+        int ret = -1;
+
+        m_barriersLock.writeLock().lock();
+        for (int i = 0; i < p_nodeIDsToSignOn.length; i++) {
+            ret = m_barriers.signOn(p_nodeID, p_barrierID, p_nodeIDsToSignOn[i], p_barrierData[i]);
+            if (ret == -1) {
+                break;
+            }
+        }
+        m_barriersLock.writeLock().unlock();
 
         return ret;
     }
@@ -1231,13 +1352,91 @@ public final class MetadataHandler {
     public BarrierStatus getSignOnStatusOfBarrier(final short p_nodeID, final int p_barrierID) {
         BarrierStatus ret;
 
-        m_dataLock.readLock().lock();
+        m_barriersLock.readLock().lock();
         ret = m_barriers.getBarrierSignOnStatus(p_nodeID, p_barrierID);
-        m_dataLock.readLock().unlock();
+        m_barriersLock.readLock().unlock();
 
         return ret;
     }
 
+    /**
+     * Stores the nameservice entries, storages and barriers of given metadata
+     *
+     * @param p_metadata
+     *         the new metadata in an byte array
+     * @param p_data
+     *         the ByteBuffer wrapping p_metadata, positioned at the nameservice entries
+     */
+    private void storeTables(final byte[] p_metadata, final ByteBuffer p_data) {
+        int size;
+        int pos;
+
+        // Put all nameservice entries
+        size = p_data.getInt();
+        pos = p_data.position();
+
+        LOGGER.trace("Storing nameservice entries. Length: %d", size);
+
+        m_nameserviceLock.writeLock().lock();
+        m_nameservice.storeMetadata(p_metadata, pos, size);
+        m_nameserviceLock.writeLock().unlock();
+        p_data.position(pos + size);
+
+        // Put all storages
+        size = p_data.getInt();
+        pos = p_data.position();
+
+        LOGGER.trace("Storing superpeer storages. Length: %d", size);
+
+        m_storageLock.writeLock().lock();
+        m_storage.storeMetadata(p_metadata, pos, size);
+        m_storageLock.writeLock().unlock();
+        p_data.position(pos + size);
+
+        // Put all barriers
+        size = p_data.getInt();
+        pos = p_data.position();
+
+        LOGGER.trace("Storing barriers. Length: %d", size);
+
+        m_barriersLock.writeLock().lock();
+        m_barriers.storeMetadata(p_metadata, pos, size);
+        m_barriersLock.writeLock().unlock();
+        p_data.position(pos + size);
+    }
+
+    /**
+     * Serializes all nameservice entries changed since given version in given range (same format as
+     * NameserviceHashTable.receiveMetadataInRange)
+     *
+     * @param p_version
+     *         the last synchronized version (changes must be available)
+     * @param p_bound1
+     *         lowest NodeID
+     * @param p_bound2
+     *         highest NodeID (might be smaller than p_bound1)
+     * @return the serialized nameservice entries
+     * @lock nameservice lock must be read-locked
+     */
+    private byte[] getNameserviceChangesInRange(final long p_version, final short p_bound1, final short p_bound2) {
+        int id;
+        int count = 0;
+        ByteBuffer data;
+
+        data = ByteBuffer.allocate((int) (m_nameserviceChangeLog.getVersion() - p_version) *
+                (Integer.BYTES + Long.BYTES));
+        for (long version = p_version + 1; version <= m_nameserviceChangeLog.getVersion(); version++) {
+            id = (int) m_nameserviceChangeLog.getFirst(version);
+            if (OverlayHelper.isHashInSuperpeerRange(CRC16.hash(id), p_bound1, p_bound2)) {
+                data.putInt(id);
+                data.putLong(m_nameserviceChangeLog.getLast(version));
+                count++;
+            }
+        }
+
+        return Arrays.copyOfRange(data.array(), 0, count * (Integer.BYTES + Long.BYTES));
+    }
+
     /**
      * Gets corresponding peer handler.
      *
@@ -1246,7 +1445,29 @@ public final class MetadataHandler {
      * @return the peer handler
      */
     private PeerHandler getPeerHandler(final short p_nodeID) {
-        return m_peerHandlers[p_nodeID & 0xFFFF];
+        return m_peerHandlers.get(p_nodeID & 0xFFFF);
+    }
+
+    /**
+     * Returns the peer handler for given peer. Creates a new one if there is none, yet
+     *
+     * @param p_nodeID
+     *         the NodeID
+     * @return the peer handler
+     */
+    private PeerHandler getOrCreatePeerHandler(final short p_nodeID) {
+        PeerHandler ret;
+
+        ret = getPeerHandler(p_nodeID);
+        if (ret == null) {
+            ret = new PeerHandler(OverlayHelper.ORDER, p_nodeID, m_flatLookupTrees);
+            if (!m_peerHandlers.compareAndSet(p_nodeID & 0xFFFF, null, ret)) {
+                // Created concurrently
+                ret = getPeerHandler(p_nodeID);
+            }
+        }
+
+        return ret;
     }
 
 }
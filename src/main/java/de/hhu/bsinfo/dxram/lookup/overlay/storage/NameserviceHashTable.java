@@ -38,6 +38,11 @@ public class NameserviceHashTable extends IntLongHashTable implements MetadataIn
 
     private static final Logger LOGGER = LogManager.getFormatterLogger(NameserviceHashTable.class.getSimpleName());
 
+    static final int SIZE_OF_ENTRY = Integer.BYTES + Long.BYTES;
+
+    // Incremented whenever entries are moved to other slots by removing an entry
+    private int m_removals;
+
     /**
      * Creates an instance of IDHashTable
      *
@@ -131,6 +136,50 @@ public class NameserviceHashTable extends IntLongHashTable implements MetadataIn
         return Arrays.copyOfRange(data.array(), 0, count * (Integer.BYTES + Long.BYTES));
     }
 
+    /**
+     * Writes entries in given range to given byte buffer starting at given slot until the buffer is full.
+     * The slots change if the table is resized or entries are removed (see getRemovals).
+     *
+     * @param p_bound1
+     *         the first bound
+     * @param p_bound2
+     *         the second bound
+     * @param p_startIndex
+     *         the first slot to check
+     * @param p_data
+     *         the ByteBuffer
+     * @return the next slot to check, capacity() if all slots were checked
+     */
+    int receiveMetadataInRange(final short p_bound1, final short p_bound2, final int p_startIndex,
+            final ByteBuffer p_data) {
+        int iter;
+        int i;
+
+        for (i = p_startIndex; i < capacity() && p_data.remaining() >= SIZE_OF_ENTRY; i++) {
+            iter = getKey(i);
+            if (iter != 0) {
+                if (OverlayHelper.isHashInSuperpeerRange(CRC16.hash(iter - 1), p_bound1, p_bound2)) {
+
+                    LOGGER.trace("Including nameservice entry: %s <-> %s", iter - 1, getValue(i));
+
+                    p_data.putInt(iter - 1);
+                    p_data.putLong(getValue(i));
+                }
+            }
+        }
+
+        return i;
+    }
+
+    /**
+     * Returns the number of removals which might have moved entries to other slots
+     *
+     * @return the number of removals
+     */
+    int getRemovals() {
+        return m_removals;
+    }
+
     @Override
     public int removeMetadataOutsideOfRange(final short p_bound1, final short p_bound2) {
         int count = 0;
@@ -207,6 +256,7 @@ public class NameserviceHashTable extends IntLongHashTable implements MetadataIn
         final int key = p_key + 1;
 
         index = (HashFunctionCollection.hash(key) & 0x7FFFFFFF) % capacity();
+        m_removals++;
 
         iter = getKey(index);
         while (iter != 0) {
@@ -17,6 +17,7 @@
 package de.hhu.bsinfo.dxram.lookup.overlay.storage;
 
 import java.nio.ByteBuffer;
+import java.util.concurrent.locks.StampedLock;
 
 import de.hhu.bsinfo.dxmem.data.ChunkID;
 import de.hhu.bsinfo.dxram.backup.BackupRange;
@@ -27,18 +28,33 @@ import de.hhu.bsinfo.dxutils.serialization.ByteBufferImExporter;
 
 /**
  * Wrapper class for all data belonging to one peer: One Btree to store ranges, one to store backup range
- * affiliation and an ArrayList for the backup ranges
+ * affiliation and an ArrayList for the backup ranges.
+ * Every peer handler has its own lock. Lookups are optimistic (without locking) if supported by the lookup tree.
+ * All modifications are versioned and the latest lookup tree modifications are logged to synchronize backup
+ * superpeers incrementally.
  *
  * @author Kevin Beineke, kevin.beineke@hhu.de, 14.02.2017
  */
 public final class PeerHandler {
 
+    static final byte KIND_FULL = 0;
+    static final byte KIND_CHANGES = 1;
+
+    private static final int CHANGE_LOG_CAPACITY = 1024;
+
     // Attributes
     private volatile PeerState m_state;
 
-    private LookupTree m_lookupTree;
+    private AbstractLookupTree m_lookupTree;
     private ArrayListLong m_backupRanges;
 
+    private final MetadataChangeLog m_changeLog = new MetadataChangeLog(CHANGE_LOG_CAPACITY);
+    // Epoch and version of the responsible superpeer's peer handler this backup was synchronized with
+    private volatile long m_syncedEpoch;
+    private volatile long m_syncedVersion;
+
+    private final StampedLock m_lock = new StampedLock();
+
     // Constructors
 
     /**
@@ -46,11 +62,15 @@ public final class PeerHandler {
      *
      * @param p_order
      *         order of the btree
+     * @param p_creator
+     *         the peer
+     * @param p_flatLookupTree
+     *         whether to store the ranges in a FlatLookupTree instead of a LookupTree
      */
-    PeerHandler(final short p_order, final short p_creator) {
+    PeerHandler(final short p_order, final short p_creator, final boolean p_flatLookupTree) {
         m_state = PeerState.ONLINE;
 
-        m_lookupTree = new LookupTree(p_order, p_creator);
+        m_lookupTree = AbstractLookupTree.create(p_flatLookupTree, p_order, p_creator);
         m_backupRanges = new ArrayListLong();
     }
 
@@ -70,7 +90,32 @@ public final class PeerHandler {
      *         ONLINE, LOST, IN_RECOVERY or RECOVERED
      */
     void setState(final PeerState p_state) {
-        m_state = p_state;
+        long stamp = m_lock.writeLock();
+
+        try {
+            m_state = p_state;
+            m_changeLog.invalidate();
+        } finally {
+            m_lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Returns the epoch of the responsible superpeer's peer handler this backup was synchronized with
+     *
+     * @return the epoch or 0 if never synchronized
+     */
+    long getSyncedEpoch() {
+        return m_syncedEpoch;
+    }
+
+    /**
+     * Returns the version of the responsible superpeer's peer handler this backup was synchronized with
+     *
+     * @return the version
+     */
+    long getSyncedVersion() {
+        return m_syncedVersion;
     }
 
     /**
@@ -78,7 +123,7 @@ public final class PeerHandler {
      *
      * @return the lookup tree
      */
-    LookupTree getLookupTree() {
+    AbstractLookupTree getLookupTree() {
         return m_lookupTree;
     }
 
@@ -93,18 +138,25 @@ public final class PeerHandler {
      *         ChunkIDs of all recovered chunks arranged in ranges
      */
     void updateMetadataAfterRecovery(final short p_rangeID, final short p_recoveryPeer, final long[] p_chunkIDRanges) {
-        // "Migrate" recovered ChunkIDs
-        for (int i = 0; i < p_chunkIDRanges.length; i += 2) {
+        long stamp = m_lock.writeLock();
 
-            if (p_chunkIDRanges[i] == -1) {
-                break;
+        try {
+            // "Migrate" recovered ChunkIDs
+            for (int i = 0; i < p_chunkIDRanges.length; i += 2) {
+
+                if (p_chunkIDRanges[i] == -1) {
+                    break;
+                }
+
+                m_lookupTree.migrateRange(p_chunkIDRanges[i], p_chunkIDRanges[i + 1], p_recoveryPeer);
             }
 
-            m_lookupTree.migrateRange(p_chunkIDRanges[i], p_chunkIDRanges[i + 1], p_recoveryPeer);
+            // Invalidate backup range
+            m_backupRanges.set(p_rangeID, -1);
+            m_changeLog.invalidate();
+        } finally {
+            m_lock.unlockWrite(stamp);
         }
-
-        // Invalidate backup range
-        m_backupRanges.set(p_rangeID, -1);
     }
 
     /**
@@ -123,7 +175,34 @@ public final class PeerHandler {
             return new LookupRange(LookupState.DATA_TEMPORARY_UNAVAILABLE);
         }
 
-        LookupRange ret = m_lookupTree.getMetadata(p_chunkID);
+        LookupRange ret = null;
+
+        if (m_lookupTree.supportsOptimisticReads()) {
+            long stamp = m_lock.tryOptimisticRead();
+
+            if (stamp != 0) {
+                try {
+                    ret = m_lookupTree.getMetadata(p_chunkID);
+                } catch (final RuntimeException ignored) {
+                    // Inconsistent state caused by a concurrent modification, validation fails below
+                }
+
+                if (!m_lock.validate(stamp)) {
+                    ret = null;
+                }
+            }
+        }
+
+        if (ret == null) {
+            long stamp = m_lock.readLock();
+
+            try {
+                ret = m_lookupTree.getMetadata(p_chunkID);
+            } finally {
+                m_lock.unlockRead(stamp);
+            }
+        }
+
         if (m_state == PeerState.RECOVERED) {
             if (ret.getPrimaryPeer() == ChunkID.getCreatorID(p_chunkID)) {
                 // Backup range was not successfully recovered
@@ -144,7 +223,18 @@ public final class PeerHandler {
      * @return true if insertion was successful
      */
     boolean migrate(final long p_chunkID, final short p_nodeID) {
-        return m_lookupTree.migrate(p_chunkID, p_nodeID);
+        long stamp = m_lock.writeLock();
+
+        try {
+            if (m_lookupTree.migrate(p_chunkID, p_nodeID)) {
+                m_changeLog.append(MetadataChangeLog.OPERATION_MIGRATE, p_chunkID, p_chunkID, p_nodeID);
+                return true;
+            }
+
+            return false;
+        } finally {
+            m_lock.unlockWrite(stamp);
+        }
     }
 
     /**
@@ -159,7 +249,18 @@ public final class PeerHandler {
      * @return true if insertion was successful
      */
     boolean migrateRange(final long p_startCID, final long p_endCID, final short p_nodeID) {
-        return m_lookupTree.migrateRange(p_startCID, p_endCID, p_nodeID);
+        long stamp = m_lock.writeLock();
+
+        try {
+            if (m_lookupTree.migrateRange(p_startCID, p_endCID, p_nodeID)) {
+                m_changeLog.append(MetadataChangeLog.OPERATION_MIGRATE_RANGE, p_startCID, p_endCID, p_nodeID);
+                return true;
+            }
+
+            return false;
+        } finally {
+            m_lock.unlockWrite(stamp);
+        }
     }
 
     /**
@@ -170,7 +271,14 @@ public final class PeerHandler {
      * @note should always be called if an object is deleted
      */
     void remove(final long p_chunkID) {
-        m_lookupTree.remove(p_chunkID);
+        long stamp = m_lock.writeLock();
+
+        try {
+            m_lookupTree.remove(p_chunkID);
+            m_changeLog.append(MetadataChangeLog.OPERATION_REMOVE, p_chunkID, p_chunkID, (short) 0);
+        } finally {
+            m_lock.unlockWrite(stamp);
+        }
     }
 
     /**
@@ -182,7 +290,16 @@ public final class PeerHandler {
      */
 
     void removeObjects(final long... p_chunkIDs) {
-        m_lookupTree.removeObjects(p_chunkIDs);
+        long stamp = m_lock.writeLock();
+
+        try {
+            m_lookupTree.removeObjects(p_chunkIDs);
+            for (long chunkID : p_chunkIDs) {
+                m_changeLog.append(MetadataChangeLog.OPERATION_REMOVE, chunkID, chunkID, (short) 0);
+            }
+        } finally {
+            m_lock.unlockWrite(stamp);
+        }
     }
 
     /**
@@ -192,7 +309,14 @@ public final class PeerHandler {
      *         the backup range to initialize
      */
     void initRange(final BackupRange p_backupRange) {
-        m_backupRanges.add(p_backupRange.getRangeID(), BackupRange.convert(p_backupRange.getBackupPeers()));
+        long stamp = m_lock.writeLock();
+
+        try {
+            m_backupRanges.add(p_backupRange.getRangeID(), BackupRange.convert(p_backupRange.getBackupPeers()));
+            m_changeLog.invalidate();
+        } finally {
+            m_lock.unlockWrite(stamp);
+        }
     }
 
     /**
@@ -207,15 +331,21 @@ public final class PeerHandler {
      */
     void replaceBackupPeer(final short p_rangeID, final short p_toBeReplacedPeer, final short p_replacement) {
         long backupPeers;
+        long stamp = m_lock.writeLock();
+
+        try {
+            if (p_toBeReplacedPeer == -1) {
+                backupPeers = BackupRange.addBackupPeer(m_backupRanges.get(p_rangeID), p_replacement);
+            } else {
+                backupPeers =
+                        BackupRange.replaceBackupPeer(m_backupRanges.get(p_rangeID), p_toBeReplacedPeer, p_replacement);
+            }
 
-        if (p_toBeReplacedPeer == -1) {
-            backupPeers = BackupRange.addBackupPeer(m_backupRanges.get(p_rangeID), p_replacement);
-        } else {
-            backupPeers =
-                    BackupRange.replaceBackupPeer(m_backupRanges.get(p_rangeID), p_toBeReplacedPeer, p_replacement);
+            m_backupRanges.set(p_rangeID, backupPeers);
+            m_changeLog.invalidate();
+        } finally {
+            m_lock.unlockWrite(stamp);
         }
-
-        m_backupRanges.set(p_rangeID, backupPeers);
     }
 
     /**
@@ -227,13 +357,18 @@ public final class PeerHandler {
         BackupRange[] ret;
         long[] backupRanges;
         int counter = 0;
-
-        backupRanges = m_backupRanges.getArray();
-        ret = new BackupRange[backupRanges.length];
-        for (int i = 0; i < backupRanges.length; i++) {
-            if (backupRanges[i] != -1) {
-                ret[counter++] = new BackupRange((short) i, BackupRange.convert(backupRanges[i]));
+        long stamp = m_lock.readLock();
+
+        try {
+            backupRanges = m_backupRanges.getArray();
+            ret = new BackupRange[backupRanges.length];
+            for (int i = 0; i < backupRanges.length; i++) {
+                if (backupRanges[i] != -1) {
+                    ret[counter++] = new BackupRange((short) i, BackupRange.convert(backupRanges[i]));
+                }
             }
+        } finally {
+            m_lock.unlockRead(stamp);
         }
 
         if (counter != ret.length) {
@@ -245,15 +380,145 @@ public final class PeerHandler {
         return ret;
     }
 
+    /**
+     * Serializes all peer's data
+     *
+     * @param p_nodeID
+     *         the peer's NodeID (written first)
+     * @return the serialized data
+     */
+    byte[] serializeMetadata(final short p_nodeID) {
+        ByteBuffer data;
+        long stamp = m_lock.readLock();
+
+        try {
+            data = ByteBuffer.allocate(getSize());
+            data.putShort(p_nodeID);
+            receiveMetadata(data);
+        } finally {
+            m_lock.unlockRead(stamp);
+        }
+
+        return data.array();
+    }
+
+    /**
+     * Serializes the peer's changes since given version or all data if the changes are not available anymore or
+     * larger than the complete data
+     *
+     * @param p_nodeID
+     *         the peer's NodeID (written first)
+     * @param p_epoch
+     *         the epoch of the requesting backup superpeer's last synchronization
+     * @param p_version
+     *         the version of the requesting backup superpeer's last synchronization
+     * @return the serialized data starting with NodeID and KIND_FULL or KIND_CHANGES or null if nothing changed
+     */
+    byte[] serializeMetadataSince(final short p_nodeID, final long p_epoch, final long p_version) {
+        ByteBuffer data;
+        int changes;
+        long stamp = m_lock.readLock();
+
+        try {
+            changes = m_changeLog.getNumberOfChangesSince(p_epoch, p_version);
+            if (changes == 0) {
+                return null;
+            }
+
+            if (changes > 0 && changes * MetadataChangeLog.SIZE_OF_CHANGE < getSize()) {
+                data = ByteBuffer.allocate(Short.BYTES + Byte.BYTES + 2 * Long.BYTES + Integer.BYTES +
+                        changes * MetadataChangeLog.SIZE_OF_CHANGE);
+                data.putShort(p_nodeID);
+                data.put(KIND_CHANGES);
+                data.putLong(p_epoch);
+                data.putLong(m_changeLog.getVersion());
+                data.putInt(changes);
+                m_changeLog.writeChangesSince(p_version, data);
+            } else {
+                data = ByteBuffer.allocate(Byte.BYTES + getSize());
+                data.putShort(p_nodeID);
+                data.put(KIND_FULL);
+                receiveMetadata(data);
+            }
+        } finally {
+            m_lock.unlockRead(stamp);
+        }
+
+        return data.array();
+    }
+
+    /**
+     * Applies changes of the responsible superpeer's peer handler. The changes are skipped if this backup was not
+     * synchronized with given epoch (the next synchronization will be a full transfer)
+     *
+     * @param p_epoch
+     *         the epoch the changes belong to
+     * @param p_version
+     *         the version after applying the changes
+     * @param p_numberOfChanges
+     *         the number of changes
+     * @param p_data
+     *         the ByteBuffer positioned at the first change
+     */
+    void applyChanges(final long p_epoch, final long p_version, final int p_numberOfChanges,
+            final ByteBuffer p_data) {
+        byte operation;
+        long first;
+        long last;
+        short owner;
+        long stamp = m_lock.writeLock();
+
+        try {
+            if (p_epoch != m_syncedEpoch) {
+                p_data.position(p_data.position() + p_numberOfChanges * MetadataChangeLog.SIZE_OF_CHANGE);
+                m_syncedEpoch = 0;
+                return;
+            }
+
+            for (int i = 0; i < p_numberOfChanges; i++) {
+                operation = p_data.get();
+                first = p_data.getLong();
+                last = p_data.getLong();
+                owner = p_data.getShort();
+
+                switch (operation) {
+                    case MetadataChangeLog.OPERATION_REMOVE:
+                        m_lookupTree.remove(first);
+                        m_changeLog.append(operation, first, last, owner);
+                        break;
+                    case MetadataChangeLog.OPERATION_MIGRATE:
+                        if (m_lookupTree.migrate(first, owner)) {
+                            m_changeLog.append(operation, first, last, owner);
+                        }
+                        break;
+                    case MetadataChangeLog.OPERATION_MIGRATE_RANGE:
+                        if (m_lookupTree.migrateRange(first, last, owner)) {
+                            m_changeLog.append(operation, first, last, owner);
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+
+            m_syncedVersion = p_version;
+        } finally {
+            m_lock.unlockWrite(stamp);
+        }
+    }
+
     /**
      * Writes all peer's data to given byte buffer
      *
      * @param p_data
      *         the ByteBuffer
      */
-    void receiveMetadata(ByteBuffer p_data) {
+    private void receiveMetadata(ByteBuffer p_data) {
         ByteBufferImExporter exporter;
 
+        p_data.putLong(m_changeLog.getEpoch());
+        p_data.putLong(m_changeLog.getVersion());
+
         switch (m_state) {
             case ONLINE:
                 p_data.put((byte) 0);
@@ -274,7 +539,7 @@ public final class PeerHandler {
     }
 
     /**
-     * Stores all given data
+     * Stores all given data. Must be called before the peer handler is published
      *
      * @param p_data
      *         the data
@@ -284,6 +549,9 @@ public final class PeerHandler {
 
         // Creator was read before
 
+        m_syncedEpoch = p_data.getLong();
+        m_syncedVersion = p_data.getLong();
+
         switch (p_data.get()) {
             case 0:
                 m_state = PeerState.ONLINE;
@@ -308,8 +576,9 @@ public final class PeerHandler {
      *
      * @return the size
      */
-    int getSize() {
-        return Short.BYTES + Byte.BYTES + m_lookupTree.sizeofObject() + m_backupRanges.sizeofObject();
+    private int getSize() {
+        return Short.BYTES + 2 * Long.BYTES + Byte.BYTES + m_lookupTree.sizeofObject() +
+                m_backupRanges.sizeofObject();
     }
 
 }
@@ -0,0 +1,227 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.lookup.overlay.storage;
+
+import java.util.ArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.hhu.bsinfo.dxram.lookup.LookupRange;
+import de.hhu.bsinfo.dxutils.NodeID;
+
+/**
+ * Measures the lookup throughput of a superpeer's metadata handler with and without concurrent migrations. The
+ * lookups are spread over all peers, the migrations are applied to random ranges of random peers (like a superpeer
+ * serving many peers while some of them migrate chunks). Every range is migrated back and forth between two target
+ * peers, i.e. a lookup must always return one of both.
+ */
+public final class SuperpeerLoadBenchmark {
+    private static final short FIRST_CREATOR = 0x10;
+    private static final short[] TARGETS = {0x2, 0x3};
+    private static final int CHUNKS_PER_RANGE = 10;
+
+    /**
+     * Hidden constructor
+     */
+    private SuperpeerLoadBenchmark() {
+    }
+
+    /**
+     * Main
+     *
+     * @param p_args
+     *         program arguments
+     */
+    public static void main(final String[] p_args) {
+        if (p_args.length < 5) {
+            System.out.println("Usage: num_peers ranges_per_peer num_lookup_threads num_migration_threads " +
+                    "lookups_per_thread [BTree|Flat]");
+            System.exit(-1);
+        }
+
+        int peers = Integer.parseInt(p_args[0]);
+        int ranges = Integer.parseInt(p_args[1]);
+        int lookupThreads = Integer.parseInt(p_args[2]);
+        int migrationThreads = Integer.parseInt(p_args[3]);
+        long lookups = Long.parseLong(p_args[4]);
+
+        if (p_args.length < 6 || "BTree".equalsIgnoreCase(p_args[5])) {
+            run(false, peers, ranges, lookupThreads, migrationThreads, lookups);
+        }
+
+        if (p_args.length < 6 || "Flat".equalsIgnoreCase(p_args[5])) {
+            run(true, peers, ranges, lookupThreads, migrationThreads, lookups);
+        }
+    }
+
+    /**
+     * Runs the benchmark for one lookup tree implementation
+     *
+     * @param p_flat
+     *         true to use FlatLookupTrees, false for LookupTrees
+     * @param p_peers
+     *         the number of peers with migrated chunks
+     * @param p_ranges
+     *         the number of ranges per peer
+     * @param p_lookupThreads
+     *         the number of threads looking up ChunkIDs
+     * @param p_migrationThreads
+     *         the number of threads migrating ranges while the lookups are running
+     * @param p_lookups
+     *         the number of lookups per lookup thread
+     */
+    private static void run(final boolean p_flat, final int p_peers, final int p_ranges, final int p_lookupThreads,
+            final int p_migrationThreads, final long p_lookups) {
+        MetadataHandler metadata;
+        String name = p_flat ? "Flat" : "BTree";
+
+        metadata = new MetadataHandler(new PeerHandler[NodeID.MAX_ID], new NameserviceHashTable(1000),
+                new SuperpeerStorage(100, 1024 * 1024), new BarriersTable(100, (short) 0x1), new ArrayList<>(),
+                p_flat);
+
+        // Backup is deactivated: the first migration of a peer creates its peer handler
+        for (int peer = 0; peer < p_peers; peer++) {
+            for (int range = 0; range < p_ranges; range++) {
+                migrate(metadata, (short) (FIRST_CREATOR + peer), range, TARGETS[range % 2]);
+            }
+        }
+
+        System.out.printf("%s, %d peers with %d ranges each, %d lookup threads, %d migration threads\n", name,
+                p_peers, p_ranges, p_lookupThreads, p_migrationThreads);
+
+        runLookups(name + " (lookups only)", metadata, p_peers, p_ranges, p_lookupThreads, 0, p_lookups);
+        runLookups(name + " (concurrent migrations)", metadata, p_peers, p_ranges, p_lookupThreads,
+                p_migrationThreads, p_lookups);
+    }
+
+    /**
+     * Runs one pass of lookups, optionally with concurrent migrations
+     *
+     * @param p_name
+     *         the name of the pass
+     * @param p_metadata
+     *         the metadata handler
+     * @param p_peers
+     *         the number of peers with migrated chunks
+     * @param p_ranges
+     *         the number of ranges per peer
+     * @param p_lookupThreads
+     *         the number of threads looking up ChunkIDs
+     * @param p_migrationThreads
+     *         the number of threads migrating ranges until all lookups are done
+     * @param p_lookups
+     *         the number of lookups per lookup thread
+     */
+    private static void runLookups(final String p_name, final MetadataHandler p_metadata, final int p_peers,
+            final int p_ranges, final int p_lookupThreads, final int p_migrationThreads, final long p_lookups) {
+        Thread[] lookupThreads = new Thread[p_lookupThreads];
+        Thread[] migrationThreads = new Thread[p_migrationThreads];
+        AtomicLong errors = new AtomicLong(0);
+        AtomicLong migrations = new AtomicLong(0);
+        AtomicBoolean running = new AtomicBoolean(true);
+        long start;
+        long time;
+
+        for (int i = 0; i < migrationThreads.length; i++) {
+            migrationThreads[i] = new Thread(() -> {
+                long count = 0;
+
+                while (running.get()) {
+                    short creator = (short) (FIRST_CREATOR + ThreadLocalRandom.current().nextInt(p_peers));
+                    int range = ThreadLocalRandom.current().nextInt(p_ranges);
+
+                    migrate(p_metadata, creator, range, TARGETS[ThreadLocalRandom.current().nextInt(2)]);
+                    count++;
+                }
+
+                migrations.addAndGet(count);
+            });
+        }
+
+        for (int i = 0; i < lookupThreads.length; i++) {
+            lookupThreads[i] = new Thread(() -> {
+                long count = 0;
+
+                for (long j = 0; j < p_lookups; j++) {
+                    short creator = (short) (FIRST_CREATOR + ThreadLocalRandom.current().nextInt(p_peers));
+                    long localID = ThreadLocalRandom.current().nextLong((long) p_ranges * CHUNKS_PER_RANGE) + 1;
+                    LookupRange range = p_metadata.getLookupRangeFromLookupTree((long) creator << 48 | localID,
+                            false);
+
+                    if (range.getPrimaryPeer() != TARGETS[0] && range.getPrimaryPeer() != TARGETS[1]) {
+                        count++;
+                    }
+                }
+
+                errors.addAndGet(count);
+            });
+        }
+
+        for (Thread thread : migrationThreads) {
+            thread.start();
+        }
+
+        start = System.nanoTime();
+        for (Thread thread : lookupThreads) {
+            thread.start();
+        }
+
+        join(lookupThreads);
+        time = System.nanoTime() - start;
+
+        running.set(false);
+        join(migrationThreads);
+
+        System.out.printf("%s: %f lookup mops/sec, %f migration mops/sec, %d errors\n", p_name,
+                p_lookups * p_lookupThreads / (time / 1000.0), migrations.get() / (time / 1000.0), errors.get());
+    }
+
+    /**
+     * Migrates one range of given peer
+     *
+     * @param p_metadata
+     *         the metadata handler
+     * @param p_creator
+     *         the creator of the range
+     * @param p_range
+     *         the index of the range
+     * @param p_target
+     *         the new owner
+     */
+    private static void migrate(final MetadataHandler p_metadata, final short p_creator, final int p_range,
+            final short p_target) {
+        long first = ((long) p_creator << 48) + (long) p_range * CHUNKS_PER_RANGE + 1;
+
+        p_metadata.putChunkIDRangeInLookupTree(first, first + CHUNKS_PER_RANGE - 1, p_target, false);
+    }
+
+    /**
+     * Joins all given threads
+     *
+     * @param p_threads
+     *         the threads
+     */
+    private static void join(final Thread[] p_threads) {
+        for (Thread thread : p_threads) {
+            try {
+                thread.join();
+            } catch (final InterruptedException ignored) {
+            }
+        }
+    }
+}
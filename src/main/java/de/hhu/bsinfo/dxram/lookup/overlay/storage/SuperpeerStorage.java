@@ -163,6 +163,55 @@ public class SuperpeerStorage implements MetadataInterface {
         return Arrays.copyOfRange(data.array(), 0, currentSize);
     }
 
+    /**
+     * Returns the IDs of all storages in area
+     *
+     * @param p_bound1
+     *         the first bound
+     * @param p_bound2
+     *         the second bound
+     * @return the IDs
+     */
+    int[] getIDsInRange(final short p_bound1, final short p_bound2) {
+        int count = 0;
+        int[] ret;
+
+        ret = new int[m_storage.size()];
+        for (int id : m_storage.keySet()) {
+            if (OverlayHelper.isHashInSuperpeerRange(CRC16.hash(id), p_bound1, p_bound2)) {
+                ret[count++] = id;
+            }
+        }
+
+        return Arrays.copyOf(ret, count);
+    }
+
+    /**
+     * Serializes a single storage (same format as receiveMetadataInRange)
+     *
+     * @param p_id
+     *         the ID
+     * @return the serialized storage or null if it does not exist anymore
+     */
+    byte[] receiveMetadata(final int p_id) {
+        byte[] data;
+        ByteBuffer ret;
+
+        data = m_storage.get(p_id);
+        if (data == null) {
+            return null;
+        }
+
+        LOGGER.trace("Including superpeer storage: %d <-> %d", p_id, data.length);
+
+        ret = ByteBuffer.allocate(2 * Integer.BYTES + data.length);
+        ret.putInt(p_id);
+        ret.putInt(data.length);
+        ret.put(data);
+
+        return ret.array();
+    }
+
     @Override
     public int removeMetadataOutsideOfRange(final short p_bound1, final short p_bound2) {
         int ret = 0;
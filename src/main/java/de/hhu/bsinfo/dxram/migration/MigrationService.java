@@ -37,6 +37,8 @@ import de.hhu.bsinfo.dxram.engine.AbstractDXRAMService;
 import de.hhu.bsinfo.dxram.engine.DXRAMComponentAccessor;
 import de.hhu.bsinfo.dxram.engine.DXRAMConfig;
 import de.hhu.bsinfo.dxram.engine.DXRAMModuleConfig;
+import de.hhu.bsinfo.dxram.executor.ExecutorComponent;
+import de.hhu.bsinfo.dxram.executor.TaskCategory;
 import de.hhu.bsinfo.dxram.log.messages.RemoveMessage;
 import de.hhu.bsinfo.dxram.lookup.LookupComponent;
 import de.hhu.bsinfo.dxram.migration.messages.MigrationMessages;
@@ -59,6 +61,7 @@ import org.jetbrains.annotations.Nullable;
 public class MigrationService extends AbstractDXRAMService<DXRAMModuleConfig> implements MessageReceiver {
     // component dependencies
     private AbstractBootComponent m_boot;
+    private ExecutorComponent m_executor;
     private BackupComponent m_backup;
     private ChunkComponent m_chunk;
     private ChunkMigrationComponent m_chunkMigration;
@@ -272,6 +275,7 @@ public class MigrationService extends AbstractDXRAMService<DXRAMModuleConfig> im
     protected void resolveComponentDependencies(final DXRAMComponentAccessor p_componentAccessor) {
         m_migrationManager = new MigrationManager(16, p_componentAccessor);
         m_boot = p_componentAccessor.getComponent(AbstractBootComponent.class);
+        m_executor = p_componentAccessor.getComponent(ExecutorComponent.class);
         m_backup = p_componentAccessor.getComponent(BackupComponent.class);
         m_chunk = p_componentAccessor.getComponent(ChunkComponent.class);
         m_chunkMigration = p_componentAccessor.getComponent(ChunkMigrationComponent.class);
@@ -328,7 +332,11 @@ public class MigrationService extends AbstractDXRAMService<DXRAMModuleConfig> im
                         p_message.getTargetNode());
             }
         };
-        new Thread(task).start();
+
+        if (!m_executor.execute(TaskCategory.MIGRATION, task)) {
+            // Executor is overloaded, migrate in the message handler instead of dropping the request
+            task.run();
+        }
     }
 
     // -----------------------------------------------------------------------------------
@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.ms.tasks;
+
+import java.util.stream.Stream;
+
+import com.google.gson.annotations.Expose;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.hhu.bsinfo.dxmem.data.AbstractChunk;
+import de.hhu.bsinfo.dxram.chunk.ChunkLocalService;
+import de.hhu.bsinfo.dxram.chunk.data.ScannedChunk;
+import de.hhu.bsinfo.dxram.ms.Signal;
+import de.hhu.bsinfo.dxram.ms.Task;
+import de.hhu.bsinfo.dxram.ms.TaskContext;
+import de.hhu.bsinfo.dxram.tmp.TemporaryStorageService;
+import de.hhu.bsinfo.dxutils.serialization.Exporter;
+import de.hhu.bsinfo.dxutils.serialization.Importer;
+import de.hhu.bsinfo.dxutils.serialization.ObjectSizeUtil;
+
+/**
+ * Base class for tasks applying a function to every chunk stored on the slaves (data-local). Every slave scans its
+ * local chunks in parallel, maps each chunk into a partial result and combines the partial results of its threads.
+ * Only the combined partial result of each slave is stored in the temporary (superpeer) storage using the id
+ * resultStorageId + slave id. Once the task script completed, call collect() to combine the partial results of all
+ * slaves.
+ * Implementations with additional parameters have to extend the serialization methods (call super).
+ *
+ * @param <P>
+ *         Type of the partial result
+ */
+public abstract class AbstractChunkMapReduceTask<P extends AbstractChunk> implements Task {
+    private static final Logger LOGGER =
+            LogManager.getFormatterLogger(AbstractChunkMapReduceTask.class.getSimpleName());
+
+    @Expose
+    private int m_resultStorageId = 0;
+    @Expose
+    private boolean m_parallel = true;
+
+    /**
+     * Constructor
+     */
+    protected AbstractChunkMapReduceTask() {
+
+    }
+
+    /**
+     * Constructor
+     *
+     * @param p_resultStorageId
+     *         First id of the temporary storage used for the partial results. The ids resultStorageId to
+     *         resultStorageId + number of slaves - 1 are used
+     * @param p_parallel
+     *         True to scan the local chunks of each slave with multiple threads
+     */
+    protected AbstractChunkMapReduceTask(final int p_resultStorageId, final boolean p_parallel) {
+        m_resultStorageId = p_resultStorageId;
+        m_parallel = p_parallel;
+    }
+
+    /**
+     * Create an empty partial result (identity for combine)
+     *
+     * @return Partial result
+     */
+    protected abstract P createPartial();
+
+    /**
+     * Map a chunk into a partial result. The chunk object and its payload buffer are reused after this call
+     *
+     * @param p_partial
+     *         Partial result of the calling thread
+     * @param p_chunk
+     *         Chunk to map
+     */
+    protected abstract void map(final P p_partial, final ScannedChunk p_chunk);
+
+    /**
+     * Combine two partial results
+     *
+     * @param p_target
+     *         Partial result to combine into
+     * @param p_other
+     *         Partial result to add to the target
+     */
+    protected abstract void combine(final P p_target, final P p_other);
+
+    /**
+     * Collect and combine the partial results of all slaves after the task script completed. The partial results are
+     * removed from the temporary storage
+     *
+     * @param p_storage
+     *         Temporary storage service
+     * @param p_numSlaves
+     *         Number of slaves which executed the task
+     * @return Combined result or null if a partial result is missing
+     */
+    public P collect(final TemporaryStorageService p_storage, final int p_numSlaves) {
+        P result = createPartial();
+        boolean complete = true;
+
+        for (int i = 0; i < p_numSlaves; i++) {
+            P partial = createPartial();
+            partial.setID(m_resultStorageId + i);
+
+            if (p_storage.get(partial)) {
+                combine(result, partial);
+                p_storage.remove(m_resultStorageId + i);
+            } else {
+                LOGGER.error("Getting partial result of slave %d (storage id %d) failed", i, m_resultStorageId + i);
+                complete = false;
+            }
+        }
+
+        return complete ? result : null;
+    }
+
+    @Override
+    public int execute(final TaskContext p_ctx) {
+        ChunkLocalService chunkLocalService = p_ctx.getDXRAMServiceAccessor().getService(ChunkLocalService.class);
+        TemporaryStorageService storage = p_ctx.getDXRAMServiceAccessor().getService(TemporaryStorageService.class);
+
+        Stream<ScannedChunk> chunks = chunkLocalService.scan().stream(m_parallel);
+
+        // every thread maps into its own partial result, the partial results are combined when joining
+        P partial = chunks.collect(this::createPartial, this::map, this::combine);
+        partial.setID(m_resultStorageId + p_ctx.getCtxData().getSlaveId());
+
+        // remove leftovers of a previous run
+        storage.remove(partial);
+
+        if (!storage.create(partial) || !storage.put(partial)) {
+            LOGGER.error("Storing partial result of slave %d (storage id %d) failed",
+                    p_ctx.getCtxData().getSlaveId(), partial.getID());
+            return -1;
+        }
+
+        return 0;
+    }
+
+    @Override
+    public void handleSignal(final Signal p_signal) {
+        // ignore signals
+    }
+
+    @Override
+    public void exportObject(final Exporter p_exporter) {
+        p_exporter.writeInt(m_resultStorageId);
+        p_exporter.writeBoolean(m_parallel);
+    }
+
+    @Override
+    public void importObject(final Importer p_importer) {
+        m_resultStorageId = p_importer.readInt(m_resultStorageId);
+        m_parallel = p_importer.readBoolean(m_parallel);
+    }
+
+    @Override
+    public int sizeofObject() {
+        return Integer.BYTES + ObjectSizeUtil.sizeofBoolean();
+    }
+}
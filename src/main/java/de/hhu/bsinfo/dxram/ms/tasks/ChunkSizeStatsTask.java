@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.ms.tasks;
+
+import de.hhu.bsinfo.dxmem.data.AbstractChunk;
+import de.hhu.bsinfo.dxram.chunk.data.ScannedChunk;
+import de.hhu.bsinfo.dxutils.serialization.Exporter;
+import de.hhu.bsinfo.dxutils.serialization.Importer;
+
+/**
+ * Map-reduce task counting all chunks stored on the slaves and their payload sizes (number of chunks, total,
+ * minimum and maximum size)
+ */
+public class ChunkSizeStatsTask extends AbstractChunkMapReduceTask<ChunkSizeStatsTask.Stats> {
+
+    /**
+     * Constructor
+     */
+    public ChunkSizeStatsTask() {
+
+    }
+
+    /**
+     * Constructor
+     *
+     * @param p_resultStorageId
+     *         First id of the temporary storage used for the partial results
+     * @param p_parallel
+     *         True to scan the local chunks of each slave with multiple threads
+     */
+    public ChunkSizeStatsTask(final int p_resultStorageId, final boolean p_parallel) {
+        super(p_resultStorageId, p_parallel);
+    }
+
+    @Override
+    protected Stats createPartial() {
+        return new Stats();
+    }
+
+    @Override
+    protected void map(final Stats p_partial, final ScannedChunk p_chunk) {
+        p_partial.add(1, p_chunk.getSize(), p_chunk.getSize(), p_chunk.getSize());
+    }
+
+    @Override
+    protected void combine(final Stats p_target, final Stats p_other) {
+        p_target.add(p_other.m_count, p_other.m_totalSize, p_other.m_minSize, p_other.m_maxSize);
+    }
+
+    /**
+     * Chunk statistics (partial and combined result)
+     */
+    public static final class Stats extends AbstractChunk {
+        private long m_count;
+        private long m_totalSize;
+        private int m_minSize = Integer.MAX_VALUE;
+        private int m_maxSize;
+
+        /**
+         * Get the number of chunks
+         *
+         * @return Number of chunks
+         */
+        public long getCount() {
+            return m_count;
+        }
+
+        /**
+         * Get the total payload size of all chunks
+         *
+         * @return Size in bytes
+         */
+        public long getTotalSize() {
+            return m_totalSize;
+        }
+
+        /**
+         * Get the size of the smallest chunk
+         *
+         * @return Size in bytes, 0 if there are no chunks
+         */
+        public int getMinSize() {
+            return m_count > 0 ? m_minSize : 0;
+        }
+
+        /**
+         * Get the size of the largest chunk
+         *
+         * @return Size in bytes
+         */
+        public int getMaxSize() {
+            return m_maxSize;
+        }
+
+        /**
+         * Add chunks to the statistics
+         *
+         * @param p_count
+         *         Number of chunks
+         * @param p_totalSize
+         *         Total size of the chunks
+         * @param p_minSize
+         *         Size of the smallest chunk
+         * @param p_maxSize
+         *         Size of the largest chunk
+         */
+        private void add(final long p_count, final long p_totalSize, final int p_minSize, final int p_maxSize) {
+            m_count += p_count;
+            m_totalSize += p_totalSize;
+            m_minSize = Math.min(m_minSize, p_minSize);
+            m_maxSize = Math.max(m_maxSize, p_maxSize);
+        }
+
+        @Override
+        public String toString() {
+            return "count " + m_count + ", total size " + m_totalSize + ", min size " + getMinSize() +
+                    ", max size " + m_maxSize;
+        }
+
+        @Override
+        public void exportObject(final Exporter p_exporter) {
+            p_exporter.writeLong(m_count);
+            p_exporter.writeLong(m_totalSize);
+            p_exporter.writeInt(m_minSize);
+            p_exporter.writeInt(m_maxSize);
+        }
+
+        @Override
+        public void importObject(final Importer p_importer) {
+            m_count = p_importer.readLong(m_count);
+            m_totalSize = p_importer.readLong(m_totalSize);
+            m_minSize = p_importer.readInt(m_minSize);
+            m_maxSize = p_importer.readInt(m_maxSize);
+        }
+
+        @Override
+        public int sizeofObject() {
+            return Long.BYTES * 2 + Integer.BYTES * 2;
+        }
+    }
+}
@@ -102,6 +102,52 @@ public class NameserviceService extends AbstractDXRAMService<DXRAMModuleConfig>
         return m_nameservice.getChunkID(p_name, p_timeoutMs);
     }
 
+    /**
+     * Register multiple chunk ids for names. Use this instead of register for bulk loading, it needs a single
+     * request per responsible superpeer instead of one per name.
+     *
+     * @param p_chunkIds
+     *         Chunk ids to register.
+     * @param p_names
+     *         Names to associate with the chunk ids, one per chunk id.
+     */
+    public void registerAll(final long[] p_chunkIds, final String[] p_names) {
+        m_nameservice.registerAll(p_chunkIds, p_names);
+    }
+
+    /**
+     * Register multiple AbstractChunks for names.
+     *
+     * @param p_chunks
+     *         AbstractChunks to register.
+     * @param p_names
+     *         Names to associate with the IDs of the AbstractChunks, one per chunk.
+     */
+    public void registerAll(final AbstractChunk[] p_chunks, final String[] p_names) {
+        long[] chunkIds = new long[p_chunks.length];
+
+        for (int i = 0; i < chunkIds.length; i++) {
+            chunkIds[i] = p_chunks[i].getID();
+        }
+
+        registerAll(chunkIds, p_names);
+    }
+
+    /**
+     * Get the chunk IDs of multiple names from the service. Use this instead of getChunkID for bulk lookups, it
+     * needs a single request per responsible superpeer instead of one per name.
+     *
+     * @param p_names
+     *         Registered names to get the chunk IDs for.
+     * @param p_timeoutMs
+     *         Timeout for trying to get the entries (if they do not exist, yet).
+     *         set this to -1 for infinite loop if you know for sure, that the entries have to exist
+     * @return The chunk IDs, one per name. -1 for names not registered.
+     */
+    public long[] getChunkIDs(final String[] p_names, final int p_timeoutMs) {
+        return m_nameservice.getChunkIDs(p_names, p_timeoutMs);
+    }
+
     @Override
     protected void resolveComponentDependencies(final DXRAMComponentAccessor p_componentAccessor) {
         m_nameservice = p_componentAccessor.getComponent(NameserviceComponent.class);
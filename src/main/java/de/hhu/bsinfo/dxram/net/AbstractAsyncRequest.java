@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+
+package de.hhu.bsinfo.dxram.net;
+
+import de.hhu.bsinfo.dxnet.core.Request;
+import de.hhu.bsinfo.dxnet.core.Response;
+
+/**
+ * Base class for requests which can be sent with NetworkComponent.sendAsync. The corresponding response reports its
+ * arrival by calling responseReceived at the end of its import on the receive path. This hands the response over to
+ * the request completion thread which completes the future of the request.
+ */
+public abstract class AbstractAsyncRequest extends Request {
+    private volatile RequestCompletionThread.PendingRequest m_pending;
+
+    /**
+     * Creates an instance of AbstractAsyncRequest.
+     * This constructor is used when receiving this message.
+     */
+    protected AbstractAsyncRequest() {
+        super();
+    }
+
+    /**
+     * Creates an instance of AbstractAsyncRequest.
+     * This constructor is used when sending this message.
+     *
+     * @param p_destination
+     *         the destination node id.
+     * @param p_type
+     *         the message type
+     * @param p_subtype
+     *         the message subtype
+     */
+    protected AbstractAsyncRequest(final short p_destination, final byte p_type, final byte p_subtype) {
+        super(p_destination, p_type, p_subtype);
+    }
+
+    /**
+     * Creates an instance of AbstractAsyncRequest.
+     * This constructor is used when sending this message.
+     *
+     * @param p_destination
+     *         the destination node id.
+     * @param p_type
+     *         the message type
+     * @param p_subtype
+     *         the message subtype
+     * @param p_exclusivity
+     *         whether this request type allows parallel execution
+     */
+    protected AbstractAsyncRequest(final short p_destination, final byte p_type, final byte p_subtype,
+            final boolean p_exclusivity) {
+        super(p_destination, p_type, p_subtype, p_exclusivity);
+    }
+
+    /**
+     * Called by the corresponding response after its payload was imported completely. Does nothing if the request
+     * was not sent with NetworkComponent.sendAsync. Must not block, this is called on the receive path
+     *
+     * @param p_response
+     *         the imported response
+     */
+    public final void responseReceived(final Response p_response) {
+        RequestCompletionThread.PendingRequest pending = m_pending;
+
+        if (pending != null) {
+            pending.responseReceived(p_response);
+        }
+    }
+
+    /**
+     * Attach the pending state of an asynchronous send. Must be set before sending the request
+     *
+     * @param p_pending
+     *         the pending request
+     */
+    void setPendingRequest(final RequestCompletionThread.PendingRequest p_pending) {
+        m_pending = p_pending;
+    }
+}
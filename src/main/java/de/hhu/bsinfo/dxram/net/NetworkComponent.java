@@ -20,6 +20,7 @@ import java.net.InetAddress;
 import java.net.NetworkInterface;
 import java.net.SocketException;
 import java.util.Enumeration;
+import java.util.concurrent.CompletableFuture;
 
 import de.hhu.bsinfo.dxnet.ConnectionManagerListener;
 import de.hhu.bsinfo.dxnet.DXNet;
@@ -29,6 +30,7 @@ import de.hhu.bsinfo.dxnet.NetworkResponseDelayedException;
 import de.hhu.bsinfo.dxnet.core.Message;
 import de.hhu.bsinfo.dxnet.core.NetworkException;
 import de.hhu.bsinfo.dxnet.core.Request;
+import de.hhu.bsinfo.dxnet.core.Response;
 import de.hhu.bsinfo.dxnet.core.messages.Messages;
 import de.hhu.bsinfo.dxram.DXRAMComponentOrder;
 import de.hhu.bsinfo.dxram.boot.AbstractBootComponent;
@@ -60,6 +62,7 @@ public class NetworkComponent extends AbstractDXRAMComponent<NetworkComponentCon
 
     // Attributes
     private DXNet m_dxnet;
+    private RequestCompletionThread m_requestCompletion;
 
     // --------------------------------------------------------------------------------------
 
@@ -210,6 +213,63 @@ public class NetworkComponent extends AbstractDXRAMComponent<NetworkComponentCon
         }
     }
 
+    /**
+     * Send the Request without blocking the caller (default timeout). The returned future is completed once the
+     * response arrived or exceptionally with a NetworkException if sending failed or no response arrived in time.
+     *
+     * @param p_request
+     *         The request to send.
+     * @return Future completed with the response
+     */
+    public CompletableFuture<Response> sendAsync(final AbstractAsyncRequest p_request) {
+        return sendAsync(p_request, m_dxnet.getRequestTimeoutMs());
+    }
+
+    /**
+     * Send the Request without blocking the caller (specific timeout). The returned future is completed once the
+     * response arrived or exceptionally with a NetworkException if sending failed or no response arrived in time.
+     * The corresponding response must call AbstractAsyncRequest.responseReceived after importing its payload.
+     * Dependent actions of the future are executed on the request completion thread and must not block (e.g. by
+     * sending further requests or looking up chunk locations). Use the async variants of the future methods with a
+     * separate executor for such actions.
+     *
+     * @param p_request
+     *         The request to send.
+     * @param p_timeout
+     *         The amount of time to wait for a response
+     * @return Future completed with the response
+     */
+    public CompletableFuture<Response> sendAsync(final AbstractAsyncRequest p_request, final int p_timeout) {
+        // track before sending, the response might arrive before sendSync returns
+        CompletableFuture<Response> future = m_requestCompletion.track(p_request, p_timeout);
+
+        try {
+            sendSync(p_request, false);
+        } catch (final NetworkException e) {
+            future.completeExceptionally(e);
+
+            return future;
+        }
+
+        future.whenComplete((p_response, p_exception) -> {
+            if (p_exception instanceof NetworkResponseDelayedException) {
+                m_event.fireEvent(new ResponseDelayedEvent(getClass().getSimpleName(),
+                        ((NetworkResponseDelayedException) p_exception).getDesinationNodeId()));
+            }
+        });
+
+        return future;
+    }
+
+    /**
+     * Get the number of requests sent with sendAsync which are still waiting for their responses
+     *
+     * @return Number of outstanding asynchronous requests
+     */
+    public int getOutstandingAsyncRequests() {
+        return m_requestCompletion.getOutstandingRequests();
+    }
+
     /**
      * Cancel a pending request. This deletes the request from the request map to ensure
      * that any delayed incoming responses are automatically dropped
@@ -327,6 +387,9 @@ public class NetworkComponent extends AbstractDXRAMComponent<NetworkComponentCon
 
         m_dxnet.setConnectionManagerListener(this);
 
+        m_requestCompletion = new RequestCompletionThread(this);
+        m_requestCompletion.start();
+
         m_event.registerListener(this, NodeFailureEvent.class);
 
         return true;
@@ -334,6 +397,9 @@ public class NetworkComponent extends AbstractDXRAMComponent<NetworkComponentCon
 
     @Override
     protected boolean shutdownComponent() {
+        m_requestCompletion.shutdown();
+        m_requestCompletion = null;
+
         m_dxnet.close();
 
         m_dxnet = null;
@@ -0,0 +1,235 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package de.hhu.bsinfo.dxram.net;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import de.hhu.bsinfo.dxnet.core.NetworkException;
+import de.hhu.bsinfo.dxnet.core.Request;
+import de.hhu.bsinfo.dxnet.core.Response;
+
+/**
+ * Completes futures of requests which were sent without blocking the caller. Responses report their arrival on the
+ * receive path (see AbstractAsyncRequest) and are handed over to this thread which completes the corresponding
+ * futures. Dependent actions of the futures are therefore never executed on the receive path. The thread sleeps until
+ * a response arrives or the earliest pending request times out, i.e. it neither polls nor scans the pending requests.
+ */
+class RequestCompletionThread extends Thread {
+    private static final long IDLE_WAIT_TIME_NS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final NetworkComponent m_network;
+
+    // Newly tracked requests and arrived responses, in order
+    private final LinkedBlockingQueue<PendingRequest> m_events = new LinkedBlockingQueue<>();
+    // Pending requests ordered by deadline, completed requests are removed lazily
+    private final PriorityQueue<PendingRequest> m_deadlines = new PriorityQueue<>(
+            (p_first, p_second) -> Long.compare(p_first.m_deadline, p_second.m_deadline));
+    private final AtomicInteger m_outstanding = new AtomicInteger(0);
+
+    private volatile boolean m_run = true;
+
+    /**
+     * Constructor
+     *
+     * @param p_network
+     *         NetworkComponent used to cancel timed out requests
+     */
+    RequestCompletionThread(final NetworkComponent p_network) {
+        super("RequestCompletion");
+
+        m_network = p_network;
+
+        setDaemon(true);
+    }
+
+    /**
+     * Get the number of requests currently waiting for their responses
+     *
+     * @return Number of outstanding requests
+     */
+    int getOutstandingRequests() {
+        return m_outstanding.get();
+    }
+
+    /**
+     * Track a request which is about to be sent. Must be called before sending the request
+     *
+     * @param p_request
+     *         Request to send without waiting for the response
+     * @param p_timeoutMs
+     *         Timeout in ms to wait for the response
+     * @return Future which is completed once the response arrived or exceptionally on timeout
+     */
+    CompletableFuture<Response> track(final AbstractAsyncRequest p_request, final int p_timeoutMs) {
+        PendingRequest pending = new PendingRequest(p_request,
+                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(p_timeoutMs));
+
+        m_outstanding.incrementAndGet();
+        pending.m_future.whenComplete((p_response, p_exception) -> m_outstanding.decrementAndGet());
+
+        p_request.setPendingRequest(pending);
+        m_events.add(pending);
+
+        return pending.m_future;
+    }
+
+    /**
+     * Shut down the thread. All requests which are still pending are cancelled
+     */
+    void shutdown() {
+        m_run = false;
+        interrupt();
+
+        try {
+            join();
+        } catch (final InterruptedException ignored) {
+        }
+    }
+
+    @Override
+    public void run() {
+        while (m_run) {
+            PendingRequest head = m_deadlines.peek();
+            long waitTime = head != null ? head.m_deadline - System.nanoTime() : IDLE_WAIT_TIME_NS;
+
+            try {
+                PendingRequest event = m_events.poll(Math.max(waitTime, 0), TimeUnit.NANOSECONDS);
+
+                while (event != null) {
+                    handle(event);
+                    event = m_events.poll();
+                }
+            } catch (final InterruptedException ignored) {
+                continue;
+            }
+
+            expire(System.nanoTime());
+        }
+
+        // cancel everything left on shutdown
+        PendingRequest pending;
+
+        while ((pending = m_events.poll()) != null) {
+            m_deadlines.add(pending);
+        }
+
+        while ((pending = m_deadlines.poll()) != null) {
+            if (!pending.m_future.isDone()) {
+                m_network.cancelRequest(pending.m_request);
+                pending.m_future.completeExceptionally(new IllegalStateException("Network shut down"));
+            }
+        }
+    }
+
+    /**
+     * Handle a newly tracked request or an arrived response
+     *
+     * @param p_pending
+     *         the pending request
+     */
+    private void handle(final PendingRequest p_pending) {
+        Response response = p_pending.m_response;
+
+        if (response != null) {
+            // dependent callbacks are executed on this thread, exceptions thrown are captured by their futures
+            p_pending.m_future.complete(response);
+        } else if (!p_pending.m_future.isDone()) {
+            m_deadlines.add(p_pending);
+        }
+    }
+
+    /**
+     * Complete all pending requests which timed out
+     *
+     * @param p_now
+     *         the current time (System.nanoTime)
+     */
+    private void expire(final long p_now) {
+        PendingRequest head;
+
+        while ((head = m_deadlines.peek()) != null) {
+            if (head.m_future.isDone()) {
+                m_deadlines.poll();
+            } else if (head.m_deadline <= p_now) {
+                m_deadlines.poll();
+                timeout(head);
+            } else {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Complete the future of a timed out request
+     *
+     * @param p_pending
+     *         Pending request to complete
+     */
+    private void timeout(final PendingRequest p_pending) {
+        Request request = p_pending.m_request;
+
+        try {
+            // throws the proper timeout exception, returns only if the response arrived just now
+            request.waitForResponse(1);
+        } catch (final NetworkException e) {
+            m_network.cancelRequest(request);
+            p_pending.m_future.completeExceptionally(e);
+
+            return;
+        }
+
+        p_pending.m_future.complete(request.getResponse());
+    }
+
+    /**
+     * A request waiting for its response
+     */
+    final class PendingRequest {
+        private final AbstractAsyncRequest m_request;
+        private final CompletableFuture<Response> m_future = new CompletableFuture<>();
+        private final long m_deadline;
+        private volatile Response m_response;
+
+        /**
+         * Constructor
+         *
+         * @param p_request
+         *         The request to send
+         * @param p_deadline
+         *         Deadline (System.nanoTime) for the response
+         */
+        private PendingRequest(final AbstractAsyncRequest p_request, final long p_deadline) {
+            m_request = p_request;
+            m_deadline = p_deadline;
+        }
+
+        /**
+         * Hand over the arrived response to the completion thread. Called on the receive path
+         *
+         * @param p_response
+         *         the response
+         */
+        void responseReceived(final Response p_response) {
+            m_response = p_response;
+            m_events.add(this);
+        }
+    }
+}
@@ -18,6 +18,7 @@ package de.hhu.bsinfo.dxram.recovery;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.locks.ReentrantLock;
 
 import de.hhu.bsinfo.dxlog.storage.diskaccess.HarddriveAccessMode;
@@ -36,7 +37,8 @@ import de.hhu.bsinfo.dxram.engine.AbstractDXRAMModule;
 import de.hhu.bsinfo.dxram.engine.AbstractDXRAMService;
 import de.hhu.bsinfo.dxram.engine.DXRAMComponentAccessor;
 import de.hhu.bsinfo.dxram.engine.DXRAMConfig;
-import de.hhu.bsinfo.dxram.engine.DXRAMModuleConfig;
+import de.hhu.bsinfo.dxram.executor.ExecutorComponent;
+import de.hhu.bsinfo.dxram.executor.TaskCategory;
 import de.hhu.bsinfo.dxram.log.LogComponent;
 import de.hhu.bsinfo.dxram.lookup.LookupComponent;
 import de.hhu.bsinfo.dxram.net.NetworkComponent;
@@ -47,6 +49,10 @@ import de.hhu.bsinfo.dxram.recovery.messages.ReplicateBackupRangeRequest;
 import de.hhu.bsinfo.dxram.recovery.messages.ReplicateBackupRangeResponse;
 import de.hhu.bsinfo.dxutils.NodeID;
 import de.hhu.bsinfo.dxutils.jni.JNIFileRaw;
+import de.hhu.bsinfo.dxutils.stats.StatisticsManager;
+import de.hhu.bsinfo.dxutils.stats.ThroughputPool;
+import de.hhu.bsinfo.dxutils.stats.Value;
+import de.hhu.bsinfo.dxutils.stats.ValuePool;
 
 /**
  * This service provides all recovery functionality.
@@ -54,9 +60,21 @@ import de.hhu.bsinfo.dxutils.jni.JNIFileRaw;
  * @author Kevin Beineke, kevin.beineke@hhu.de, 31.03.16
  */
 @AbstractDXRAMModule.Attributes(supportsSuperpeer = false, supportsPeer = true)
-public class RecoveryService extends AbstractDXRAMService<DXRAMModuleConfig> implements MessageReceiver {
+public class RecoveryService extends AbstractDXRAMService<RecoveryServiceConfig> implements MessageReceiver {
+    private static final ThroughputPool SOP_RECOVER_RANGE =
+            new ThroughputPool(RecoveryService.class, "RecoverRange", Value.Base.B_10);
+    private static final ValuePool SOP_RECOVERED_CHUNKS = new ValuePool(RecoveryService.class, "RecoveredChunks");
+    private static final ValuePool SOP_RECOVER_RANGE_ERROR = new ValuePool(RecoveryService.class, "RecoverRangeError");
+
+    static {
+        StatisticsManager.get().registerOperation(RecoveryService.class, SOP_RECOVER_RANGE);
+        StatisticsManager.get().registerOperation(RecoveryService.class, SOP_RECOVERED_CHUNKS);
+        StatisticsManager.get().registerOperation(RecoveryService.class, SOP_RECOVER_RANGE_ERROR);
+    }
+
     // component dependencies
     private AbstractBootComponent m_boot;
+    private ExecutorComponent m_executor;
     private BackupComponent m_backup;
     private ChunkBackupComponent m_chunkBackup;
     private LogComponent m_log;
@@ -64,7 +82,8 @@ public class RecoveryService extends AbstractDXRAMService<DXRAMModuleConfig> imp
     private NetworkComponent m_network;
 
     private String m_backupDirectory;
-    private ReentrantLock m_recoveryLock;
+    // Limits the number of backup ranges recovered concurrently
+    private Semaphore m_recoveries;
 
     private ArrayList<FinishedRecovery> m_finishedRecoveries;
     private ReentrantLock m_replicationLock;
@@ -90,6 +109,7 @@ public class RecoveryService extends AbstractDXRAMService<DXRAMModuleConfig> imp
     @Override
     protected void resolveComponentDependencies(final DXRAMComponentAccessor p_componentAccessor) {
         m_boot = p_componentAccessor.getComponent(AbstractBootComponent.class);
+        m_executor = p_componentAccessor.getComponent(ExecutorComponent.class);
         m_backup = p_componentAccessor.getComponent(BackupComponent.class);
         m_chunkBackup = p_componentAccessor.getComponent(ChunkBackupComponent.class);
         m_log = p_componentAccessor.getComponent(LogComponent.class);
@@ -108,7 +128,7 @@ public class RecoveryService extends AbstractDXRAMService<DXRAMModuleConfig> imp
 
         m_backupDirectory = m_backup.getConfig().getBackupDirectory();
 
-        m_recoveryLock = new ReentrantLock(false);
+        m_recoveries = new Semaphore(getConfig().getMaxParallelRecoveries(), true);
 
         m_finishedRecoveries = new ArrayList<>();
         m_replicationLock = new ReentrantLock(false);
@@ -230,7 +250,7 @@ public class RecoveryService extends AbstractDXRAMService<DXRAMModuleConfig> imp
     }
 
     /**
-     * Replicates all Chunks of given backup range
+     * Recovers all Chunks of given backup range. The chunks are stored in memory management by the log (in batches)
      *
      * @param p_owner
      *         the NodeID of the node whose Chunks have to be restored
@@ -241,15 +261,35 @@ public class RecoveryService extends AbstractDXRAMService<DXRAMModuleConfig> imp
     private RecoveryMetadata recoverBackupRange(final short p_owner, final BackupRange p_backupRange) {
         RecoveryMetadata ret;
         short rangeID;
+        long time;
 
         rangeID = p_backupRange.getRangeID();
 
-        m_recoveryLock.lock();
+        m_recoveries.acquireUninterruptibly();
+
+        time = System.nanoTime();
+        SOP_RECOVER_RANGE.start();
+
         ret = m_log.recoverBackupRange(p_owner, rangeID);
         if (ret != null) {
             m_log.removeBackupRange(p_owner, rangeID);
         }
-        m_recoveryLock.unlock();
+
+        m_recoveries.release();
+
+        if (ret != null) {
+            SOP_RECOVER_RANGE.stop(ret.getSizeInBytes());
+            SOP_RECOVERED_CHUNKS.add(ret.getNumberOfChunks());
+
+            time = System.nanoTime() - time;
+
+            LOGGER.info("Recovered %d chunks (%d bytes) of range %d of 0x%X in %d ms (%.2f MB/s)",
+                    ret.getNumberOfChunks(), ret.getSizeInBytes(), rangeID, p_owner, time / 1000 / 1000,
+                    ret.getSizeInBytes() / 1024.0 / 1024.0 / (time / 1000.0 / 1000.0 / 1000.0));
+        } else {
+            SOP_RECOVER_RANGE.stop();
+            SOP_RECOVER_RANGE_ERROR.inc();
+        }
 
         return ret;
     }
@@ -361,7 +401,18 @@ public class RecoveryService extends AbstractDXRAMService<DXRAMModuleConfig> imp
                 }
             }
         };
-        new Thread(task).start();
+
+        if (!m_executor.execute(TaskCategory.RECOVERY, task)) {
+            // Answer without ChunkID ranges right away so that the superpeer tries the next backup peer without
+            // waiting for a timeout
+            try {
+                m_network.sendMessage(new RecoverBackupRangeResponse(p_request, null, 0, null));
+            } catch (final NetworkException ignored) {
+
+                LOGGER.error("RecoverBackupRangeResponse could not be sent!");
+
+            }
+        }
     }
 
     /**
@@ -0,0 +1,42 @@
+package de.hhu.bsinfo.dxram.recovery;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.experimental.Accessors;
+
+import com.google.gson.annotations.Expose;
+
+import de.hhu.bsinfo.dxram.engine.DXRAMConfig;
+import de.hhu.bsinfo.dxram.engine.DXRAMModuleConfig;
+
+/**
+ * Config for the RecoveryService
+ */
+@Data
+@Accessors(prefix = "m_")
+@EqualsAndHashCode(callSuper = false)
+public class RecoveryServiceConfig extends DXRAMModuleConfig {
+    /**
+     * Max number of backup ranges recovered concurrently on this peer. The superpeer spreads the backup ranges of a
+     * failed peer across all its backup peers, every backup peer recovers its share in parallel
+     */
+    @Expose
+    private int m_maxParallelRecoveries = 2;
+
+    /**
+     * Constructor
+     */
+    public RecoveryServiceConfig() {
+        super(RecoveryService.class);
+    }
+
+    @Override
+    protected boolean verify(final DXRAMConfig p_config) {
+        if (m_maxParallelRecoveries < 1) {
+            LOGGER.error("Max parallel recoveries must be at least 1");
+            return false;
+        }
+
+        return true;
+    }
+}
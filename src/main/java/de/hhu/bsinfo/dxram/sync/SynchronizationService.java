@@ -98,6 +98,24 @@ public class SynchronizationService extends AbstractDXRAMService<Synchronization
         return m_lookup.barrierSignOn(p_barrierId, p_customData, p_waitForRelease);
     }
 
+    /**
+     * Sign on to a barrier together with a known group of peers and wait for it getting released. The sign ons are
+     * combined in a tree of the participants (see barrierTreeFanout), only the root of the tree contacts the
+     * superpeer. Use this instead of barrierSignOn for large groups, the latency is logarithmic in the group size.
+     * All participants have to sign on with this method and the same participants.
+     *
+     * @param p_barrierId
+     *         Id of the barrier to sign on to.
+     * @param p_customData
+     *         Custom data to pass along with the sign on
+     * @param p_participants
+     *         Node ids of all peers signing on (including the own one)
+     * @return BarrierStatus, null on error like barrier does not exist
+     */
+    public BarrierStatus barrierSignOn(final int p_barrierId, final long p_customData, final short[] p_participants) {
+        return m_lookup.barrierSignOn(p_barrierId, p_customData, p_participants, getConfig().getBarrierTreeFanout());
+    }
+
     /**
      * Get the status of a specific barrier.
      *
@@ -26,6 +26,12 @@ public class SynchronizationServiceConfig extends DXRAMModuleConfig {
     @Expose
     private int m_maxBarriersPerSuperpeer = 1000;
 
+    /**
+     * Max. number of children per peer in the combining tree of barrier sign ons with a known group of peers
+     */
+    @Expose
+    private int m_barrierTreeFanout = 4;
+
     /**
      * Constructor
      */
@@ -45,6 +51,11 @@ public class SynchronizationServiceConfig extends DXRAMModuleConfig {
             return false;
         }
 
+        if (m_barrierTreeFanout < 2) {
+            LOGGER.error("Invalid value m_barrierTreeFanout: %d, min 2", m_barrierTreeFanout);
+            return false;
+        }
+
         return true;
     }
 }
@@ -0,0 +1,344 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+
+package de.hhu.bsinfo.dxram.lookup.overlay.cache;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import de.hhu.bsinfo.dxram.lookup.LookupRange;
+import de.hhu.bsinfo.dxutils.NodeID;
+
+import static org.junit.Assert.*;
+
+public class CacheTreeTest {
+
+    private static final short PEER_1 = 0x0101;
+    private static final short PEER_2 = 0x0202;
+    private static final short PEER_3 = 0x0303;
+
+    private static final long TTL = 60 * 1000;
+
+    @Test
+    public void sentinel() {
+        CacheTree cache = new CacheTree((short) 10, TTL, 1000);
+
+        // only the sentinel entry (Long.MAX_VALUE mapped to no peer) which is not counted
+        assertEquals(0, cache.size());
+        assertEquals(NodeID.INVALID_ID, cache.getPrimaryPeer(0));
+        assertEquals(NodeID.INVALID_ID, cache.getPrimaryPeer(Long.MAX_VALUE));
+        assertNull(cache.getMetadata(Long.MAX_VALUE));
+
+        cache.cacheRange(100, 199, PEER_1);
+        cache.invalidateChunkIDRange(0, 1000);
+
+        assertEquals(0, cache.size());
+        assertEquals(NodeID.INVALID_ID, cache.getPrimaryPeer(150));
+
+        // the sentinel is recreated after clearing the cache
+        cache.cacheRange(100, 199, PEER_1);
+        cache.clear();
+
+        assertEquals(0, cache.size());
+        assertEquals(NodeID.INVALID_ID, cache.getPrimaryPeer(150));
+
+        cache.cacheRange(100, 199, PEER_2);
+
+        assertEquals(PEER_2, cache.getPrimaryPeer(150));
+        assertTrue(cache.validate());
+
+        cache.close();
+    }
+
+    @Test
+    public void split() {
+        CacheTree cache = new CacheTree((short) 10, TTL, 1000);
+
+        cache.cacheRange(0, 99, PEER_1);
+        cache.cacheRange(40, 59, PEER_2);
+
+        assertEquals(PEER_1, cache.getPrimaryPeer(39));
+        assertEquals(PEER_2, cache.getPrimaryPeer(40));
+        assertEquals(PEER_2, cache.getPrimaryPeer(59));
+        assertEquals(PEER_1, cache.getPrimaryPeer(60));
+        assertArrayEquals(new long[] {0, 39}, cache.getMetadata(10).getRange());
+        assertArrayEquals(new long[] {40, 59}, cache.getMetadata(50).getRange());
+        assertArrayEquals(new long[] {60, 99}, cache.getMetadata(99).getRange());
+
+        // overlap the end of the first and the start of the last piece
+        cache.cacheRange(30, 69, PEER_3);
+
+        assertEquals(PEER_1, cache.getPrimaryPeer(29));
+        assertEquals(PEER_3, cache.getPrimaryPeer(30));
+        assertEquals(PEER_3, cache.getPrimaryPeer(69));
+        assertEquals(PEER_1, cache.getPrimaryPeer(70));
+        assertEquals(NodeID.INVALID_ID, cache.getPrimaryPeer(100));
+
+        // a single ChunkID within a range
+        cache.cacheRange(50, 50, PEER_1);
+
+        assertEquals(PEER_3, cache.getPrimaryPeer(49));
+        assertEquals(PEER_1, cache.getPrimaryPeer(50));
+        assertEquals(PEER_3, cache.getPrimaryPeer(51));
+        assertTrue(cache.validate());
+
+        cache.close();
+    }
+
+    @Test
+    public void merge() {
+        CacheTree cache = new CacheTree((short) 10, TTL, 1000);
+
+        cache.cacheRange(0, 99, PEER_1);
+        cache.cacheRange(40, 59, PEER_2);
+        cache.cacheRange(40, 59, PEER_1);
+
+        LookupRange range = cache.getMetadata(50);
+
+        assertEquals(PEER_1, range.getPrimaryPeer());
+        assertArrayEquals(new long[] {0, 99}, range.getRange());
+
+        // adjacent ranges of the same peer
+        cache.cacheRange(100, 149, PEER_1);
+        cache.cacheRange(150, 199, PEER_1);
+
+        assertArrayEquals(new long[] {0, 199}, cache.getMetadata(120).getRange());
+
+        // invalidating the middle of a range splits it, caching it again merges the pieces
+        cache.invalidateChunkID(100);
+
+        assertEquals(NodeID.INVALID_ID, cache.getPrimaryPeer(100));
+        assertArrayEquals(new long[] {0, 99}, cache.getMetadata(99).getRange());
+        assertArrayEquals(new long[] {101, 199}, cache.getMetadata(101).getRange());
+
+        cache.cacheRange(100, 100, PEER_1);
+
+        assertArrayEquals(new long[] {0, 199}, cache.getMetadata(100).getRange());
+        assertTrue(cache.validate());
+
+        cache.close();
+    }
+
+    @Test
+    public void invalidate() {
+        CacheTree cache = new CacheTree((short) 10, TTL, 1000);
+
+        cache.cacheRange(0, 99, PEER_1);
+        cache.cacheRange(100, 199, PEER_2);
+        cache.cacheRange(300, 399, PEER_1);
+
+        cache.invalidateRange(150);
+
+        assertEquals(NodeID.INVALID_ID, cache.getPrimaryPeer(100));
+        assertEquals(NodeID.INVALID_ID, cache.getPrimaryPeer(199));
+        assertEquals(PEER_1, cache.getPrimaryPeer(99));
+
+        cache.invalidatePeer(PEER_1);
+
+        assertEquals(NodeID.INVALID_ID, cache.getPrimaryPeer(0));
+        assertEquals(NodeID.INVALID_ID, cache.getPrimaryPeer(350));
+        assertEquals(0, cache.size());
+        assertTrue(cache.validate());
+
+        cache.close();
+    }
+
+    @Test
+    public void overlappingInsert() {
+        CacheTree cache = new CacheTree((short) 10, TTL, 1000);
+
+        cache.cacheRange(2, 14, PEER_1);
+        cache.cacheRange(18, 18, PEER_2);
+        cache.cacheRange(17, 18, PEER_1);
+
+        // the gap between the ranges was mapped to the overwritten peer
+        assertEquals(NodeID.INVALID_ID, cache.getPrimaryPeer(15));
+        assertEquals(NodeID.INVALID_ID, cache.getPrimaryPeer(16));
+        assertEquals(PEER_1, cache.getPrimaryPeer(14));
+        assertEquals(PEER_1, cache.getPrimaryPeer(17));
+        assertEquals(PEER_1, cache.getPrimaryPeer(18));
+        assertTrue(cache.validate());
+
+        cache.close();
+    }
+
+    @Test
+    public void smallOrderInserts() {
+        // first ChunkID, last ChunkID and peer, failed with ArrayIndexOutOfBoundsException for order 2
+        int[][] ranges = {
+            {7, 23, 1}, {5, 16, 2}, {18, 23, 1}, {50, 55, 2}, {40, 58, 2}, {40, 48, 1}, {16, 47, 2}, {35, 58, 2},
+            {59, 59, 1}, {11, 58, 1}, {36, 58, 1}, {31, 45, 2}, {6, 13, 1}, {1, 54, 2}, {4, 25, 2}, {34, 34, 2},
+            {11, 38, 1}, {58, 58, 1}, {56, 58, 1}, {50, 52, 2}, {37, 46, 1}, {55, 55, 1}, {2, 39, 1}, {4, 37, 2},
+            {42, 56, 2}, {53, 55, 1}, {50, 50, 1}, {46, 47, 1}, {57, 58, 1}, {38, 41, 1}, {9, 16, 1}, {22, 51, 2}
+        };
+        CacheTree cache = new CacheTree((short) 2, TTL, Long.MAX_VALUE);
+        short[] model = new short[64];
+        Arrays.fill(model, NodeID.INVALID_ID);
+
+        for (int[] range : ranges) {
+            cache.cacheRange(range[0], range[1], (short) range[2]);
+            Arrays.fill(model, range[0], range[1] + 1, (short) range[2]);
+        }
+
+        for (int i = 0; i < model.length; i++) {
+            assertEquals(model[i], cache.getPrimaryPeer(i));
+        }
+
+        assertTrue(cache.validate());
+
+        cache.close();
+    }
+
+    @Test
+    public void smallOrders() {
+        // splits and merges of inner nodes with few entries (failed with ArrayIndexOutOfBoundsException)
+        for (short order = 2; order <= 4; order++) {
+            CacheTree cache = new CacheTree(order, TTL, Long.MAX_VALUE);
+
+            for (int i = 0; i < 500; i++) {
+                cache.cacheRange(i * 10, i * 10 + 4, i % 2 == 0 ? PEER_1 : PEER_2);
+            }
+
+            assertTrue(cache.validate());
+
+            for (int i = 0; i < 500; i++) {
+                assertEquals(i % 2 == 0 ? PEER_1 : PEER_2, cache.getPrimaryPeer(i * 10 + 2));
+                assertEquals(NodeID.INVALID_ID, cache.getPrimaryPeer(i * 10 + 7));
+            }
+
+            for (int i = 0; i < 500; i += 2) {
+                cache.invalidateChunkIDRange(i * 10, i * 10 + 4);
+            }
+
+            assertTrue(cache.validate());
+
+            for (int i = 0; i < 500; i++) {
+                assertEquals(i % 2 == 0 ? NodeID.INVALID_ID : PEER_2, cache.getPrimaryPeer(i * 10 + 2));
+            }
+
+            cache.close();
+        }
+    }
+
+    @Test
+    public void randomOperations() {
+        // compare against a plain array after every operation
+        Random random = new Random(42);
+
+        for (short order = 2; order <= 10; order += 4) {
+            CacheTree cache = new CacheTree(order, TTL, Long.MAX_VALUE);
+            short[] model = new short[1000];
+            Arrays.fill(model, NodeID.INVALID_ID);
+
+            for (int op = 0; op < 2000; op++) {
+                int start = random.nextInt(model.length);
+                int end = start + random.nextInt(Math.min(50, model.length - start));
+                int type = random.nextInt(10);
+
+                if (type < 7) {
+                    short peer = (short) (random.nextInt(3) + 1);
+                    cache.cacheRange(start, end, peer);
+                    Arrays.fill(model, start, end + 1, peer);
+                } else if (type < 9) {
+                    cache.invalidateChunkIDRange(start, end);
+                    Arrays.fill(model, start, end + 1, NodeID.INVALID_ID);
+                } else {
+                    cache.invalidateChunkID(start);
+                    model[start] = NodeID.INVALID_ID;
+                }
+
+                for (int i = 0; i < model.length; i++) {
+                    assertEquals("ChunkID " + i + " after operation " + op, model[i], cache.getPrimaryPeer(i));
+                }
+            }
+
+            // cached ranges are maximal, i.e. adjacent ranges of the same peer were merged
+            for (int i = 0; i < model.length; i++) {
+                if (model[i] != NodeID.INVALID_ID) {
+                    int first = i;
+                    int last = i;
+
+                    while (first > 0 && model[first - 1] == model[i]) {
+                        first--;
+                    }
+
+                    while (last < model.length - 1 && model[last + 1] == model[i]) {
+                        last++;
+                    }
+
+                    assertArrayEquals(new long[] {first, last}, cache.getMetadata(i).getRange());
+                }
+            }
+
+            assertTrue(cache.validate());
+
+            cache.close();
+        }
+    }
+
+    @Test
+    public void evictExpired() throws InterruptedException {
+        CacheTree cache = new CacheTree((short) 10, 50, 1000);
+
+        cache.cacheRange(0, 99, PEER_1);
+        cache.cacheRange(200, 299, PEER_2);
+
+        Thread.sleep(200);
+        cache.checkEviction();
+
+        assertEquals(NodeID.INVALID_ID, cache.getPrimaryPeer(0));
+        assertEquals(NodeID.INVALID_ID, cache.getPrimaryPeer(200));
+        assertEquals(0, cache.size());
+        assertTrue(cache.validate());
+
+        cache.close();
+    }
+
+    @Test
+    public void evictBySize() {
+        CacheTree cache = new CacheTree((short) 2, TTL, 20);
+
+        for (int i = 0; i < 100; i++) {
+            cache.cacheRange(i * 10, i * 10 + 4, PEER_1);
+        }
+
+        cache.checkEviction();
+
+        assertTrue(cache.size() <= 20);
+        assertTrue(cache.validate());
+
+        // remaining ranges are still mapped correctly
+        int cached = 0;
+
+        for (int i = 0; i < 100; i++) {
+            short peer = cache.getPrimaryPeer(i * 10 + 2);
+
+            if (peer != NodeID.INVALID_ID) {
+                assertEquals(PEER_1, peer);
+                cached++;
+            }
+
+            assertEquals(NodeID.INVALID_ID, cache.getPrimaryPeer(i * 10 + 7));
+        }
+
+        assertTrue(cached > 0);
+
+        cache.close();
+    }
+}
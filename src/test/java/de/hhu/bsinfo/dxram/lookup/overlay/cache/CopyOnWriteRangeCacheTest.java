@@ -0,0 +1,195 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+
+package de.hhu.bsinfo.dxram.lookup.overlay.cache;
+
+import org.junit.Test;
+
+import de.hhu.bsinfo.dxram.lookup.LookupRange;
+import de.hhu.bsinfo.dxutils.NodeID;
+
+import static org.junit.Assert.*;
+
+public class CopyOnWriteRangeCacheTest {
+
+    private static final long CREATOR_A = 0x1111L << 48;
+    private static final long CREATOR_B = 0x2222L << 48;
+    private static final long CREATOR_C = 0x3333L << 48;
+
+    private static final short PEER_1 = 0x0101;
+    private static final short PEER_2 = 0x0202;
+    private static final short PEER_3 = 0x0303;
+
+    @Test
+    public void lookup() {
+        CopyOnWriteRangeCache cache = new CopyOnWriteRangeCache(100);
+
+        assertEquals(NodeID.INVALID_ID, cache.getPrimaryPeer(CREATOR_A + 1));
+        assertNull(cache.getMetadata(CREATOR_A + 1));
+
+        cache.cacheRange(CREATOR_A + 10, CREATOR_A + 19, PEER_1);
+        cache.cacheRange(CREATOR_B + 10, CREATOR_B + 19, PEER_2);
+
+        assertEquals(NodeID.INVALID_ID, cache.getPrimaryPeer(CREATOR_A + 9));
+        assertEquals(PEER_1, cache.getPrimaryPeer(CREATOR_A + 10));
+        assertEquals(PEER_1, cache.getPrimaryPeer(CREATOR_A + 19));
+        assertEquals(NodeID.INVALID_ID, cache.getPrimaryPeer(CREATOR_A + 20));
+        assertEquals(PEER_2, cache.getPrimaryPeer(CREATOR_B + 15));
+
+        LookupRange range = cache.getMetadata(CREATOR_A + 15);
+
+        assertNotNull(range);
+        assertEquals(PEER_1, range.getPrimaryPeer());
+        assertArrayEquals(new long[] {CREATOR_A + 10, CREATOR_A + 19}, range.getRange());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void insertOverlapping() {
+        CopyOnWriteRangeCache cache = new CopyOnWriteRangeCache(100);
+
+        cache.cacheRange(CREATOR_A, CREATOR_A + 99, PEER_1);
+
+        // split the range in three pieces
+        cache.cacheRange(CREATOR_A + 40, CREATOR_A + 59, PEER_2);
+
+        assertEquals(3, cache.size());
+        assertArrayEquals(new long[] {CREATOR_A, CREATOR_A + 39}, cache.getMetadata(CREATOR_A + 39).getRange());
+        assertEquals(PEER_1, cache.getPrimaryPeer(CREATOR_A + 39));
+        assertEquals(PEER_2, cache.getPrimaryPeer(CREATOR_A + 40));
+        assertEquals(PEER_2, cache.getPrimaryPeer(CREATOR_A + 59));
+        assertEquals(PEER_1, cache.getPrimaryPeer(CREATOR_A + 60));
+        assertArrayEquals(new long[] {CREATOR_A + 60, CREATOR_A + 99}, cache.getMetadata(CREATOR_A + 60).getRange());
+
+        // overlap the end of the first and the start of the last piece
+        cache.cacheRange(CREATOR_A + 30, CREATOR_A + 69, PEER_3);
+
+        assertEquals(3, cache.size());
+        assertArrayEquals(new long[] {CREATOR_A, CREATOR_A + 29}, cache.getMetadata(CREATOR_A + 5).getRange());
+        assertArrayEquals(new long[] {CREATOR_A + 30, CREATOR_A + 69},
+                cache.getMetadata(CREATOR_A + 50).getRange());
+        assertArrayEquals(new long[] {CREATOR_A + 70, CREATOR_A + 99},
+                cache.getMetadata(CREATOR_A + 99).getRange());
+        assertEquals(PEER_3, cache.getPrimaryPeer(CREATOR_A + 50));
+
+        // adjacent ranges of the same peer are merged
+        cache.cacheRange(CREATOR_A + 30, CREATOR_A + 69, PEER_1);
+
+        assertEquals(1, cache.size());
+        assertArrayEquals(new long[] {CREATOR_A, CREATOR_A + 99}, cache.getMetadata(CREATOR_A + 50).getRange());
+
+        // caching an already cached range does not change anything
+        cache.cacheRange(CREATOR_A + 10, CREATOR_A + 20, PEER_1);
+
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void cacheRanges() {
+        CopyOnWriteRangeCache cache = new CopyOnWriteRangeCache(100);
+
+        cache.cacheRanges(new long[] {CREATOR_A, CREATOR_A + 10, CREATOR_B},
+                new long[] {CREATOR_A + 9, CREATOR_A + 19, CREATOR_B + 9}, new short[] {PEER_1, PEER_2, PEER_3}, 3);
+
+        assertEquals(3, cache.size());
+        assertEquals(PEER_1, cache.getPrimaryPeer(CREATOR_A + 9));
+        assertEquals(PEER_2, cache.getPrimaryPeer(CREATOR_A + 10));
+        assertEquals(PEER_3, cache.getPrimaryPeer(CREATOR_B + 9));
+    }
+
+    @Test
+    public void invalidate() {
+        CopyOnWriteRangeCache cache = new CopyOnWriteRangeCache(100);
+
+        cache.cacheRange(CREATOR_A, CREATOR_A + 99, PEER_1);
+        cache.cacheRange(CREATOR_A + 100, CREATOR_A + 199, PEER_2);
+        cache.cacheRange(CREATOR_B, CREATOR_B + 99, PEER_1);
+
+        cache.invalidateChunkID(CREATOR_A + 50);
+
+        assertEquals(NodeID.INVALID_ID, cache.getPrimaryPeer(CREATOR_A + 50));
+        assertEquals(PEER_1, cache.getPrimaryPeer(CREATOR_A + 49));
+        assertEquals(PEER_1, cache.getPrimaryPeer(CREATOR_A + 51));
+        assertEquals(4, cache.size());
+
+        cache.invalidateChunkIDRange(CREATOR_A + 40, CREATOR_A + 60);
+
+        assertEquals(NodeID.INVALID_ID, cache.getPrimaryPeer(CREATOR_A + 40));
+        assertEquals(NodeID.INVALID_ID, cache.getPrimaryPeer(CREATOR_A + 60));
+        assertEquals(PEER_1, cache.getPrimaryPeer(CREATOR_A + 39));
+        assertEquals(4, cache.size());
+
+        cache.invalidateRange(CREATOR_A + 150);
+
+        assertEquals(NodeID.INVALID_ID, cache.getPrimaryPeer(CREATOR_A + 100));
+        assertEquals(NodeID.INVALID_ID, cache.getPrimaryPeer(CREATOR_A + 199));
+        assertEquals(3, cache.size());
+
+        cache.invalidatePeer(PEER_1);
+
+        assertEquals(0, cache.size());
+        assertEquals(NodeID.INVALID_ID, cache.getPrimaryPeer(CREATOR_B));
+
+        cache.cacheRange(CREATOR_C, CREATOR_C + 9, PEER_3);
+        cache.clear();
+
+        assertEquals(0, cache.size());
+        assertNull(cache.getMetadata(CREATOR_C));
+    }
+
+    @Test
+    public void boundEvictsCreatorsNotUsedRecently() {
+        CopyOnWriteRangeCache cache = new CopyOnWriteRangeCache(4);
+
+        cache.cacheRange(CREATOR_A, CREATOR_A + 9, PEER_1);
+        cache.cacheRange(CREATOR_A + 20, CREATOR_A + 29, PEER_1);
+        cache.cacheRange(CREATOR_B, CREATOR_B + 9, PEER_2);
+        cache.cacheRange(CREATOR_B + 20, CREATOR_B + 29, PEER_2);
+
+        assertEquals(4, cache.size());
+
+        // referenced creators get a second chance
+        assertEquals(PEER_1, cache.getPrimaryPeer(CREATOR_A));
+
+        cache.cacheRange(CREATOR_C, CREATOR_C + 9, PEER_3);
+
+        assertTrue(cache.size() <= 4);
+        assertEquals(PEER_1, cache.getPrimaryPeer(CREATOR_A + 20));
+        assertEquals(NodeID.INVALID_ID, cache.getPrimaryPeer(CREATOR_B));
+        assertEquals(PEER_3, cache.getPrimaryPeer(CREATOR_C));
+    }
+
+    @Test
+    public void boundTrimsSingleCreator() {
+        CopyOnWriteRangeCache cache = new CopyOnWriteRangeCache(10);
+
+        for (int i = 0; i < 100; i++) {
+            // alternate peers to prevent merging
+            cache.cacheRange(CREATOR_A + i * 10, CREATOR_A + i * 10 + 9, i % 2 == 0 ? PEER_1 : PEER_2);
+
+            assertTrue(cache.size() <= 10);
+            assertNotEquals(NodeID.INVALID_ID, cache.getPrimaryPeer(CREATOR_A + i * 10));
+        }
+
+        assertEquals(10, cache.size());
+
+        // the ranges closest to the last cached one are kept
+        assertEquals(PEER_2, cache.getPrimaryPeer(CREATOR_A + 990));
+        assertEquals(PEER_1, cache.getPrimaryPeer(CREATOR_A + 900));
+        assertEquals(NodeID.INVALID_ID, cache.getPrimaryPeer(CREATOR_A + 890));
+    }
+}
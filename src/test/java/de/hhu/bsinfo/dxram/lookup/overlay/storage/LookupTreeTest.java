@@ -0,0 +1,206 @@
+/*
+ * Copyright (C) 2018 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science,
+ * Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public
+ * License as published by the Free Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied
+ * warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+
+package de.hhu.bsinfo.dxram.lookup.overlay.storage;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import de.hhu.bsinfo.dxram.backup.BackupPeer;
+import de.hhu.bsinfo.dxram.backup.BackupRange;
+import de.hhu.bsinfo.dxram.lookup.LookupRange;
+import de.hhu.bsinfo.dxram.lookup.overlay.OverlayHelper;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the btree based LookupTree and the FlatLookupTree through the same operations and compares the results
+ */
+public class LookupTreeTest {
+
+    private static final short CREATOR = 0x1111;
+    private static final long CREATOR_MASK = (long) CREATOR << 48;
+
+    private static final int MAX_LOCAL_ID = 5000;
+
+    @Test
+    public void rangeEnd() {
+        for (boolean flat : new boolean[] {false, true}) {
+            AbstractLookupTree tree = AbstractLookupTree.create(flat, OverlayHelper.ORDER, CREATOR);
+
+            assertTrue(tree.migrateRange(cid(10), cid(19), (short) 2));
+            assertTrue(tree.migrateRange(cid(30), cid(39), (short) 3));
+
+            assertLookup(tree.getMetadata(cid(19)), (short) 2, 10, 19);
+            assertLookup(tree.getMetadata(cid(10)), (short) 2, 10, 19);
+            assertLookup(tree.getMetadata(cid(39)), (short) 3, 30, 39);
+            assertLookup(tree.getMetadata(cid(20)), CREATOR, 20, 29);
+            assertLookup(tree.getMetadata(cid(29)), CREATOR, 20, 29);
+            assertEquals(CREATOR, tree.getMetadata(cid(9)).getPrimaryPeer());
+            assertEquals(CREATOR, tree.getMetadata(cid(40)).getPrimaryPeer());
+            assertTrue(tree.validate());
+        }
+    }
+
+    @Test
+    public void randomOperations() {
+        Random random = new Random(42);
+        AbstractLookupTree btree = AbstractLookupTree.create(false, OverlayHelper.ORDER, CREATOR);
+        AbstractLookupTree flat = AbstractLookupTree.create(true, OverlayHelper.ORDER, CREATOR);
+
+        for (int i = 0; i < 20000; i++) {
+            int op = random.nextInt(10);
+            long localID = 1 + random.nextInt(MAX_LOCAL_ID);
+            short peer = (short) (1 + random.nextInt(4));
+
+            if (op < 4) {
+                assertEquals(btree.migrate(cid(localID), peer), flat.migrate(cid(localID), peer));
+            } else if (op < 7) {
+                long end = Math.min(MAX_LOCAL_ID, localID + random.nextInt(50));
+
+                assertEquals(btree.migrateRange(cid(localID), cid(end), peer),
+                        flat.migrateRange(cid(localID), cid(end), peer));
+            } else if (op < 9) {
+                btree.remove(cid(localID));
+                flat.remove(cid(localID));
+            } else {
+                long[] chunkIDs = new long[1 + random.nextInt(5)];
+                for (int j = 0; j < chunkIDs.length; j++) {
+                    chunkIDs[j] = cid(1 + random.nextInt(MAX_LOCAL_ID));
+                }
+
+                btree.removeObjects(chunkIDs);
+                flat.removeObjects(chunkIDs);
+            }
+
+            if (i % 1000 == 0) {
+                assertSameLookups(btree, flat);
+            }
+        }
+
+        assertSameLookups(btree, flat);
+    }
+
+    @Test
+    public void serialization() {
+        PeerHandler btree = new PeerHandler(OverlayHelper.ORDER, CREATOR, false);
+        PeerHandler flat = new PeerHandler(OverlayHelper.ORDER, CREATOR, true);
+
+        fill(btree, flat, new Random(7));
+
+        BackupRange range = new BackupRange((short) 0,
+                new BackupPeer[] {new BackupPeer((short) 2, (short) 0, (short) 0),
+                        new BackupPeer((short) 3, (short) 0, (short) 0)});
+        btree.initRange(range);
+        flat.initRange(range);
+        assertSameBackupRanges(btree.getAllBackupRanges(), flat.getAllBackupRanges());
+
+        byte[] btreeData = btree.serializeMetadata(CREATOR);
+        byte[] flatData = flat.serializeMetadata(CREATOR);
+        assertSameMetadata(btreeData, flatData);
+
+        // Superpeers with different backends exchange metadata
+        PeerHandler flatFromBTree = receive(btreeData, true);
+        PeerHandler btreeFromFlat = receive(flatData, false);
+
+        for (long localID = 1; localID <= MAX_LOCAL_ID; localID++) {
+            assertSameLookup(btree.getMetadata(cid(localID)), flatFromBTree.getMetadata(cid(localID)));
+            assertSameLookup(flat.getMetadata(cid(localID)), btreeFromFlat.getMetadata(cid(localID)));
+        }
+
+        assertTrue(flatFromBTree.getLookupTree().validate());
+        assertTrue(btreeFromFlat.getLookupTree().validate());
+        assertSameBackupRanges(btree.getAllBackupRanges(), flatFromBTree.getAllBackupRanges());
+        assertEquals(flatData.length, btreeFromFlat.serializeMetadata(CREATOR).length);
+    }
+
+    private static long cid(final long p_localID) {
+        return CREATOR_MASK | p_localID;
+    }
+
+    private static void fill(final PeerHandler p_btree, final PeerHandler p_flat, final Random p_random) {
+        for (int i = 0; i < 2000; i++) {
+            long localID = 1 + p_random.nextInt(MAX_LOCAL_ID);
+            short peer = (short) (1 + p_random.nextInt(4));
+
+            if (p_random.nextBoolean()) {
+                assertEquals(p_btree.migrate(cid(localID), peer), p_flat.migrate(cid(localID), peer));
+            } else {
+                long end = Math.min(MAX_LOCAL_ID, localID + p_random.nextInt(20));
+
+                assertEquals(p_btree.migrateRange(cid(localID), cid(end), peer),
+                        p_flat.migrateRange(cid(localID), cid(end), peer));
+            }
+
+            if (i % 10 == 0) {
+                p_btree.remove(cid(localID));
+                p_flat.remove(cid(localID));
+            }
+        }
+    }
+
+    private static PeerHandler receive(final byte[] p_data, final boolean p_flat) {
+        ByteBuffer data = ByteBuffer.wrap(p_data);
+        PeerHandler ret = new PeerHandler(OverlayHelper.ORDER, data.getShort(), p_flat);
+
+        ret.storeMetadata(data);
+        assertFalse(data.hasRemaining());
+
+        return ret;
+    }
+
+    private static void assertSameLookups(final AbstractLookupTree p_btree, final AbstractLookupTree p_flat) {
+        assertTrue(p_btree.validate());
+        assertTrue(p_flat.validate());
+        assertEquals(p_btree.size(), p_flat.size());
+
+        for (long localID = 1; localID <= MAX_LOCAL_ID + 1; localID++) {
+            assertSameLookup(p_btree.getMetadata(cid(localID)), p_flat.getMetadata(cid(localID)));
+        }
+    }
+
+    private static void assertSameLookup(final LookupRange p_expected, final LookupRange p_actual) {
+        assertEquals(p_expected.getPrimaryPeer(), p_actual.getPrimaryPeer());
+        assertEquals(p_expected.getState(), p_actual.getState());
+        assertArrayEquals(p_expected.getRange(), p_actual.getRange());
+    }
+
+    private static void assertSameMetadata(final byte[] p_expected, final byte[] p_actual) {
+        // The epoch is chosen randomly per change log and the btree exports its entries in pre-order (the flat tree
+        // in sorted order), so only the length and version and state are compared. The content is compared by
+        // importing the data into the other backend
+        int offset = Short.BYTES + Long.BYTES;
+
+        assertEquals(p_expected.length, p_actual.length);
+        assertArrayEquals(Arrays.copyOfRange(p_expected, offset, offset + Long.BYTES + Byte.BYTES),
+                Arrays.copyOfRange(p_actual, offset, offset + Long.BYTES + Byte.BYTES));
+    }
+
+    private static void assertSameBackupRanges(final BackupRange[] p_expected, final BackupRange[] p_actual) {
+        assertEquals(1, p_expected.length);
+        assertEquals(Arrays.toString(p_expected), Arrays.toString(p_actual));
+    }
+
+    private static void assertLookup(final LookupRange p_lookup, final short p_peer, final long p_start,
+            final long p_end) {
+        assertEquals(p_peer, p_lookup.getPrimaryPeer());
+        assertArrayEquals(new long[] {p_start, p_end}, p_lookup.getRange());
+    }
+}